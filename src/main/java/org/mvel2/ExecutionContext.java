@@ -5,27 +5,22 @@ import org.mvel2.execution.ExecutionObject;
 import org.mvel2.util.TriFunction;
 
 import java.io.Serializable;
-import java.lang.reflect.Array;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Method;
-import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.ToLongFunction;
 
 public class ExecutionContext implements Serializable {
 
     private final Map<Object, ValueReference> valueReferenceMap = new IdentityHashMap<>();
-    private final Map<VarKey, Object> variablesMap = new HashMap<>();
+    private final List<Map<String, Object>> frames = new ArrayList<>();
 
     private final SandboxedParserConfiguration parserConfig;
     private final long maxAllowedMemory;
@@ -40,6 +35,10 @@ public class ExecutionContext implements Serializable {
 
     private volatile boolean stopped = false;
 
+    private boolean allocationTracking = false;
+
+    private long allocatedBytes = -1;
+
     public ExecutionContext(SandboxedParserConfiguration parserConfig) {
         this(parserConfig, -1);
     }
@@ -81,8 +80,15 @@ public class ExecutionContext implements Serializable {
 
     public void leaveStack() {
         int level = this.stackLevel;
-        List<VarKey> keysToRemove = variablesMap.keySet().stream().filter(varKey -> varKey.level == level).collect(Collectors.toList());
-        keysToRemove.forEach(key -> this.checkAssignVariable(key, null));
+        if (level < frames.size()) {
+            Map<String, Object> frame = frames.get(level);
+            if (frame != null && !frame.isEmpty()) {
+                for (Object value : frame.values()) {
+                    this.releaseReference(value);
+                }
+                frame.clear();
+            }
+        }
         this.stackLevel--;
     }
 
@@ -92,7 +98,7 @@ public class ExecutionContext implements Serializable {
             for (int i =0; i < dimensions.length; i++) {
                 arraySize *= dimensions[i];
             }
-            long arrayMemorySize = arraySize * componentTypeSize(componentType);
+            long arrayMemorySize = arraySize * ValueSizeEstimator.componentTypeSize(componentType);
             if (maxAllowedMemory > 0 && arrayMemorySize > maxAllowedMemory / 2) {
                 throw new ScriptMemoryOverflowException("Max array length overflow (" + arrayMemorySize + " > " + maxAllowedMemory / 2 + ")!");
             }
@@ -102,42 +108,69 @@ public class ExecutionContext implements Serializable {
     }
 
     public Object checkAssignGlobalVariable(String varName, Object value) {
-        return this.checkAssignVariable(new VarKey(0, varName), value);
+        return this.checkAssignVariable(0, varName, value);
     }
 
     public Object checkAssignLocalVariable(String varName, Object value) {
-        return this.checkAssignVariable(new VarKey(this.stackLevel, varName), value);
+        return this.checkAssignVariable(this.stackLevel, varName, value);
     }
 
-    private Object checkAssignVariable(VarKey varKey, Object value) {
-        if (this.variablesMap.containsKey(varKey)) {
-            Object prevValue = this.variablesMap.get(varKey);
-            ValueReference reference = valueReferenceMap.get(prevValue);
-            if (reference != null) {
-                if (reference.removeReference(varKey)) {
-                    valueReferenceMap.remove(prevValue);
-                    memorySize -= reference.getSize();
-                }
+    private Object checkAssignVariable(int level, String varName, Object value) {
+        Map<String, Object> frame = frame(level, value != null);
+        if (frame != null) {
+            Object prevValue = value != null ? frame.put(varName, value) : frame.remove(varName);
+            if (prevValue != null) {
+                this.releaseReference(prevValue);
             }
         }
         if (value != null) {
             Object converted = convertValue(value);
-            this.variablesMap.put(varKey, converted);
+            if (converted != value) {
+                frame.put(varName, converted);
+            }
             ValueReference reference = valueReferenceMap.computeIfAbsent(value, o -> {
                 ValueReference newReference = new ValueReference();
                 newReference.setSize(getValueSize(converted));
                 memorySize += newReference.getSize();
                 return newReference;
             });
-            reference.addReference(varKey);
+            reference.addReference();
             value = converted;
-        } else {
-            this.variablesMap.remove(varKey);
         }
         this.checkMemoryLimit();
         return value;
     }
 
+    private Map<String, Object> frame(int level, boolean create) {
+        if (level < frames.size()) {
+            Map<String, Object> frame = frames.get(level);
+            if (frame == null && create) {
+                frame = new HashMap<>();
+                frames.set(level, frame);
+            }
+            return frame;
+        } else if (create) {
+            while (frames.size() < level) {
+                frames.add(null);
+            }
+            Map<String, Object> frame = new HashMap<>();
+            frames.add(frame);
+            return frame;
+        } else {
+            return null;
+        }
+    }
+
+    private void releaseReference(Object value) {
+        ValueReference reference = valueReferenceMap.get(value);
+        if (reference != null) {
+            if (reference.removeReference()) {
+                valueReferenceMap.remove(value);
+                memorySize -= reference.getSize();
+            }
+        }
+    }
+
     public long onValRemove(ExecutionObject obj, Object val) {
         return this.onValRemove(obj, null, val);
     }
@@ -147,12 +180,19 @@ public class ExecutionContext implements Serializable {
         if (key != null) {
             valSize += getValueSize(key);
         }
+        return onMemoryRemove(obj, valSize);
+    }
+
+    /**
+     * Releases memory accounted with {@link #onMemoryAdd(ExecutionObject, long)}.
+     */
+    public long onMemoryRemove(ExecutionObject obj, long size) {
         ValueReference reference = valueReferenceMap.get(obj);
         if (reference != null) {
-            reference.setSize(reference.getSize() - valSize);
+            reference.setSize(reference.getSize() - size);
         }
-        memorySize -= valSize;
-        return valSize;
+        memorySize -= size;
+        return size;
     }
 
     public long onValAdd(ExecutionObject obj, Object val) {
@@ -164,18 +204,59 @@ public class ExecutionContext implements Serializable {
         if (key != null) {
             valSize += getValueSize(key);
         }
+        return onMemoryAdd(obj, valSize);
+    }
+
+    /**
+     * Same as calling {@link #onValAdd(ExecutionObject, Object, Object)} with each index from {@code fromIndex} to
+     * {@code toIndex} of the given list and the element at that index, but updates the totals and checks the memory
+     * limit once for the whole range.
+     */
+    public long onRangeAdd(ExecutionObject obj, List<?> values, int fromIndex, int toIndex) {
+        return onMemoryAdd(obj, getRangeSize(values, fromIndex, toIndex));
+    }
+
+    /**
+     * Same as calling {@link #onValRemove(ExecutionObject, Object, Object)} for each index from {@code fromIndex} to
+     * {@code toIndex} of the given list and the element at that index, as one update.
+     */
+    public long onRangeRemove(ExecutionObject obj, List<?> values, int fromIndex, int toIndex) {
+        return onMemoryRemove(obj, getRangeSize(values, fromIndex, toIndex));
+    }
+
+    /**
+     * Accounts memory held by an {@link ExecutionObject} that is not made of separate values, such as the backing
+     * array of a {@link org.mvel2.execution.PrimitiveExecutionArrayList}.
+     */
+    public long onMemoryAdd(ExecutionObject obj, long size) {
         ValueReference reference = valueReferenceMap.get(obj);
         if (reference != null) {
-            reference.setSize(reference.getSize() + valSize);
+            reference.setSize(reference.getSize() + size);
         }
-        memorySize += valSize;
+        memorySize += size;
         this.checkMemoryLimit();
-        return valSize;
+        return size;
+    }
+
+    /**
+     * Checks that a value of the given size can still be added within the memory limit. Used while building a value
+     * that is not accounted yet, such as the string returned by {@link org.mvel2.execution.ExecutionArrayList#join()}.
+     */
+    public void checkMemory(long size) {
+        if (maxAllowedMemory > 0 && memorySize + size > maxAllowedMemory) {
+            throw new ScriptMemoryOverflowException("Script memory overflow (" + (memorySize + size) + " > " + maxAllowedMemory + ")!");
+        }
     }
 
     public void dumpVars() {
         System.out.println("VARS:");
-        variablesMap.forEach((key, value) -> System.out.println(key + " = " + value));
+        for (int level = 0; level < frames.size(); level++) {
+            Map<String, Object> frame = frames.get(level);
+            if (frame != null) {
+                int l = level;
+                frame.forEach((name, value) -> System.out.println(l + ":" + name + " = " + value));
+            }
+        }
     }
 
     public void dumpValueReferences() {
@@ -191,118 +272,90 @@ public class ExecutionContext implements Serializable {
         return maxAllowedMemory;
     }
 
-    private void checkMemoryLimit() {
-        if (maxAllowedMemory > 0 && memorySize > maxAllowedMemory) {
-            throw new ScriptMemoryOverflowException("Script memory overflow (" + memorySize + " > " + maxAllowedMemory + ")!");
-        }
+    /**
+     * Enables measuring the heap allocated by the executing thread while {@link MVEL#executeTbExpression} runs with
+     * this context. Off by default, as reading the thread allocation counter has a small cost of its own.
+     */
+    public void setAllocationTracking(boolean allocationTracking) {
+        this.allocationTracking = allocationTracking;
     }
 
-    private Object convertValue(Object value) {
-        if (value.getClass().isArray() && !value.getClass().getComponentType().isPrimitive()) {
-            value = new ExecutionArrayList(Arrays.asList((Object[])value), this);
-        }
-        return value;
+    public boolean isAllocationTracking() {
+        return allocationTracking;
     }
 
-    private long getValueSize(Object value) {
-        if (value == null) {
-            return 0;
-        }
-        Function<Object, Long> valueSizeFunction = this.parserConfig.getValueSizeFunction(value.getClass());
-        if (valueSizeFunction != null) {
-            return valueSizeFunction.apply(value);
-        } else if (value instanceof ExecutionObject) {
-            if (valueReferenceMap.containsKey(value)) {
-                return 4;
-            } else {
-                return ((ExecutionObject) value).memorySize();
+    /**
+     * Returns the number of bytes allocated by script executions with this context, or {@code -1} if allocation
+     * tracking is off or the JVM does not report thread allocations.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    long startAllocationTracking() {
+        return allocationTracking ? currentThreadAllocatedBytes() : -1;
+    }
+
+    void stopAllocationTracking(long start) {
+        if (start >= 0) {
+            long end = currentThreadAllocatedBytes();
+            if (end >= 0) {
+                allocatedBytes = Math.max(allocatedBytes, 0) + end - start;
             }
-        } else if (value instanceof String) {
-            return ((String) value).getBytes().length;
-        } else if (value instanceof Byte) {
-            return 1;
-        } else if (value instanceof Character) {
-            return 1;
-        } else if (value instanceof Short) {
-            return 2;
-        } else if (value instanceof Integer) {
-            return 4;
-        } else if (value instanceof Long) {
-            return 8;
-        } else if (value instanceof Float) {
-            return 4;
-        } else if (value instanceof Double) {
-            return 8;
-        } else if (value instanceof BigInteger) {
-            return ((BigInteger) value).bitLength()/8 + 1;
-        } else if (value instanceof Boolean) {
-            return 1;
-        } else if (value instanceof UUID) {
-            return 16;
-        } else if (value instanceof Date) {
-            return 8;
-        } else if (value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
-            return (long) Array.getLength(value) * componentTypeSize(value.getClass().getComponentType());
-        } else {
-            throw new ScriptRuntimeException("Unsupported value type: " + value.getClass());
         }
     }
 
-    private static int componentTypeSize(Class<?> componentType) {
-        if (byte.class.equals(componentType)) {
-            return 1;
-        } else if (char.class.equals(componentType)) {
-            return 1;
-        } else if (short.class.equals(componentType)) {
-            return 2;
-        } else if (int.class.equals(componentType)) {
-            return 4;
-        } else if (long.class.equals(componentType)) {
-            return 8;
-        } else if (float.class.equals(componentType)) {
-            return 4;
-        } else if (double.class.equals(componentType)) {
-            return 8;
-        } else if (boolean.class.equals(componentType)) {
-            return 1;
-        } else {
-            throw new ScriptRuntimeException("Unsupported array primitive type: " + componentType);
+    private static long currentThreadAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            if (allocations.isThreadAllocatedMemoryEnabled()) {
+                return allocations.getCurrentThreadAllocatedBytes();
+            }
         }
+        return -1;
     }
 
-    private static final class VarKey {
-        private final int level;
-        private final String name;
-        VarKey(int level, String name) {
-            this.level = level;
-            this.name = name;
+    private void checkMemoryLimit() {
+        checkMemory(0);
+    }
+
+    private Object convertValue(Object value) {
+        if (value.getClass().isArray() && !value.getClass().getComponentType().isPrimitive()) {
+            value = new ExecutionArrayList(Arrays.asList((Object[])value), this);
         }
+        return value;
+    }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            VarKey varKey = (VarKey) o;
-            return level == varKey.level && Objects.equals(name, varKey.name);
+    private long getRangeSize(List<?> values, int fromIndex, int toIndex) {
+        long size = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            size += getValueSize(values.get(i)) + getValueSize(i);
         }
+        return size;
+    }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(level, name);
+    private long getValueSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        ToLongFunction<Object> sizeFunction = this.parserConfig.getValueSizeEstimator().getSizeFunction(value.getClass());
+        if (sizeFunction == ValueSizeEstimator.EXECUTION_OBJECT_SIZE && valueReferenceMap.containsKey(value)) {
+            return 4;
         }
+        return sizeFunction.applyAsLong(value);
     }
 
     private static final class ValueReference {
-        private final Set<VarKey> references = new HashSet<>();
+        private int references = 0;
         private long size = 0;
 
-        void addReference(VarKey varKey) {
-            references.add(varKey);
+        void addReference() {
+            references++;
         }
 
-        boolean removeReference(VarKey varKey) {
-            references.remove(varKey);
-            return references.isEmpty();
+        boolean removeReference() {
+            return --references <= 0;
         }
 
         public long getSize() {
@@ -867,6 +867,11 @@ public class MVEL {
     return compileExpression(expression, imports, interceptors, null);
   }
 
+  /**
+   * Compiles the expression with a new context for the default configuration, which is the global sandboxed
+   * configuration while sandboxed mode is enabled. Use {@link #compileGetExpression(String, ParserContext)} to
+   * compile with a configuration of its own, such as a {@link SandboxedParserConfiguration}.
+   */
   public static Serializable compileGetExpression(String expression) {
     return new CompiledAccExpression(expression.toCharArray(), Object.class, new ParserContext());
   }
@@ -944,12 +949,37 @@ public class MVEL {
   }
 
   public static Object executeTbExpression(final Object compiledExpression, final ExecutionContext ctx, Map vars) {
-    if(vars != null) {
-      Map newVars = new HashMap();
-      vars.forEach((k,v) -> newVars.put(k , ArgsRepackUtil.repack(ctx, v)));
-      vars = newVars;
+    return executeTbExpression(compiledExpression, ctx, vars, false);
+  }
+
+  /**
+   * Executes a compiled TBEL expression against the given input variables.
+   *
+   * @param compiledExpression -
+   * @param ctx                - the sandbox execution context
+   * @param vars               - input variables
+   * @param lazyArgs           - if true, input maps are bound as copy-on-access views and only the parts the script
+   *                             touches are repacked and memory-accounted; untouched input returned in the result is
+   *                             shared with the caller instead of being copied
+   * @return -
+   */
+  public static Object executeTbExpression(final Object compiledExpression, final ExecutionContext ctx, Map vars, boolean lazyArgs) {
+    long allocationStart = ctx.startAllocationTracking();
+    try {
+      if(vars != null) {
+        Map newVars = new HashMap();
+        if (lazyArgs) {
+          vars.forEach((k,v) -> newVars.put(k , ArgsRepackUtil.repackLazy(ctx, v)));
+        } else {
+          vars.forEach((k,v) -> newVars.put(k , ArgsRepackUtil.repack(ctx, v)));
+        }
+        vars = newVars;
+      }
+      return ArgsRepackUtil.unpack(executeExpression(compiledExpression, ctx, vars));
+    }
+    finally {
+      ctx.stopAllocationTracking(allocationStart);
     }
-    return ArgsRepackUtil.unpack(executeExpression(compiledExpression, ctx, vars));
   }
 
   public static Object executeExpression(final Object compiledExpression, final Object ctx, final VariableResolverFactory resolverFactory) {
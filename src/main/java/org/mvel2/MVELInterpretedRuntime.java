@@ -52,8 +52,14 @@ public class MVELInterpretedRuntime extends AbstractParser {
 
   public Object parse() {
     try {
-      stk = new ExecutionStack();
-      dStack = new ExecutionStack();
+      if (stk == null) {
+        stk = new ExecutionStack();
+        dStack = new ExecutionStack();
+      }
+      else {
+        stk.clear();
+        dStack.clear();
+      }
       variableFactory.setTiltFlag(false);
       cursor = start;
       return parseAndExecuteInterpreted();
@@ -60,21 +60,17 @@ public class MVELRuntime {
                                VariableResolverFactory variableFactory) {
 
     Object v1, v2;
-    ExecutionStack stk = new ExecutionStack();
 
     ASTNode tk = expression.getFirstNode();
     Integer operator;
 
     if (tk == null) return null;
 
-    ASTNode node = expression.getFirstNode();
-    while (node != null) {
-      if (node instanceof Function) {
-        node.getReducedValueAccelerated(ctx, ctx, variableFactory);
-      }
-      node = node.nextASTNode;
+    for (Function function : expression.getFunctions()) {
+      function.getReducedValueAccelerated(ctx, ctx, variableFactory);
     }
 
+    ExecutionStack stk = ExecutionStack.acquire();
     try {
       do {
         if (tk.fields == -1) {
@@ -202,6 +198,7 @@ public class MVELRuntime {
       }
     }
     finally {
+      stk.release();
       OptimizerFactory.clearThreadAccessorOptimizer();
     }
   }
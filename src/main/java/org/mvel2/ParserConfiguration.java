@@ -24,6 +24,7 @@ import org.mvel2.integration.Interceptor;
 import org.mvel2.integration.VariableResolverFactory;
 import org.mvel2.integration.impl.ClassImportResolverFactory;
 import org.mvel2.integration.impl.StackResetResolverFactory;
+import org.mvel2.optimizers.dynamic.TieringPolicy;
 import org.mvel2.util.MethodStub;
 
 import java.io.Serializable;
@@ -60,6 +61,8 @@ public class ParserConfiguration implements Serializable {
 
   private VariableResolverFactory threadUnsafeVariableResolverFactory;
 
+  private transient TieringPolicy tieringPolicy;
+
   public ParserConfiguration() {
   }
 
@@ -290,6 +293,18 @@ public class ParserConfiguration implements Serializable {
     this.allowBootstrapBypass = allowBootstrapBypass;
   }
 
+  /**
+   * Returns the policy deciding when dynamic accessors of expressions compiled with this configuration are compiled
+   * to bytecode, or {@code null} if the default policy of the dynamic optimizer applies.
+   */
+  public TieringPolicy getTieringPolicy() {
+    return tieringPolicy;
+  }
+
+  public void setTieringPolicy(TieringPolicy tieringPolicy) {
+    this.tieringPolicy = tieringPolicy;
+  }
+
   public VariableResolverFactory getVariableFactory(VariableResolverFactory factory) {
     if (MVEL.RUNTIME_OPT_THREAD_UNSAFE) {
       if (threadUnsafeVariableResolverFactory == null) {
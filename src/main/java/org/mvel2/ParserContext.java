@@ -25,6 +25,7 @@ import org.mvel2.compiler.AbstractParser;
 import org.mvel2.compiler.CompiledExpression;
 import org.mvel2.compiler.Parser;
 import org.mvel2.integration.Interceptor;
+import org.mvel2.integration.VariableSlot;
 import org.mvel2.util.LineMapper;
 import org.mvel2.util.MethodStub;
 import org.mvel2.util.ReflectionUtil;
@@ -45,6 +46,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The <tt>ParserContext</tt> is the main environment object used for sharing state throughout the entire
@@ -59,8 +61,8 @@ import java.util.TreeSet;
  */
 public class ParserContext implements Serializable {
 
-  private static boolean sandboxedMode = false;
-  private static SandboxedParserConfiguration sandboxedParserConfiguration;
+  private static volatile boolean sandboxedMode = false;
+  private static volatile SandboxedParserConfiguration sandboxedParserConfiguration;
 
   private String sourceFile;
 
@@ -77,6 +79,8 @@ public class ParserContext implements Serializable {
 
   private ArrayList<String> localDeclarations;
   private ArrayList<Set<String>> variableVisibility;
+  private HashMap<String, VariableSlot> variableSlots;
+  private ParserContext slotOwner;
 
   private HashMap<String, Class> variables;
   private Map<String, Class> inputs;
@@ -92,6 +96,9 @@ public class ParserContext implements Serializable {
 
   private LineLabel lastLineLabel;
 
+  private transient ForkJoinPool compilationPool;
+  private transient List<Function> deferredFunctions;
+
   private transient Parser rootParser;
   private transient Map<String, CompiledExpression> compiledExpressionCache;
   private transient Map<String, Class> returnTypeCache;
@@ -112,6 +119,15 @@ public class ParserContext implements Serializable {
 
   private Map<String, Object> literals;
 
+  /**
+   * Enables sandboxed mode for every <tt>ParserContext</tt> created afterwards in this JVM.  To sandbox only some
+   * contexts, create them with their own {@link SandboxedParserConfiguration} instead:
+   * <pre><code>
+   * ParserContext pCtx = new ParserContext(new SandboxedParserConfiguration());
+   * </code></pre>
+   *
+   * @return the shared sandboxed configuration
+   */
   public static SandboxedParserConfiguration enableSandboxedMode() {
     sandboxedMode = true;
     sandboxedParserConfiguration = new SandboxedParserConfiguration();
@@ -142,7 +158,7 @@ public class ParserContext implements Serializable {
   }
 
   public ParserContext(ParserConfiguration parserConfiguration) {
-    if (sandboxedMode) {
+    if (sandboxedMode && !(parserConfiguration instanceof SandboxedParserConfiguration)) {
       this.parserConfiguration = sandboxedParserConfiguration;
     } else {
       this.parserConfiguration = parserConfiguration;
@@ -169,6 +185,18 @@ public class ParserContext implements Serializable {
     }
   }
 
+  /**
+   * Tests whether this context compiles scripts in sandboxed mode, i.e. whether its configuration is a
+   * {@link SandboxedParserConfiguration}. A context created while sandboxed mode is enabled globally is given the
+   * global sandboxed configuration unless it is created with a sandboxed configuration of its own; enabling or
+   * disabling the mode afterwards does not change the contexts created before.
+   *
+   * @return boolean
+   */
+  public boolean isSandboxed() {
+    return parserConfiguration instanceof SandboxedParserConfiguration;
+  }
+
   public ParserContext createSubcontext() {
     ParserContext ctx = new ParserContext(parserConfiguration);
     ctx.sourceFile = sourceFile;
@@ -432,14 +460,14 @@ public class ParserContext implements Serializable {
    * @param cls The instance of the <tt>Class</tt> which represents the imported class.
    */
   public void addImport(Class cls) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       throw new UnsupportedOperationException("Import is forbidden!");
     }
     addImport(cls.getSimpleName(), cls);
   }
 
   public void addImport(Proto proto) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       throw new UnsupportedOperationException("Import is forbidden!");
     }
     parserConfiguration.addImport(proto.getName(), proto);
@@ -459,7 +487,7 @@ public class ParserContext implements Serializable {
    * @param cls  The instance of the <tt>Class</tt> which represents the imported class.
    */
   public void addImport(String name, Class cls) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       throw new UnsupportedOperationException("Import is forbidden!");
     }
     parserConfiguration.addImport(name, cls);
@@ -478,7 +506,7 @@ public class ParserContext implements Serializable {
    * @param method The instance of <tt>Method</tt> which represents the static import.
    */
   public void addImport(String name, Method method) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       throw new UnsupportedOperationException("Import is forbidden!");
     }
     addImport(name, new MethodStub(method));
@@ -493,7 +521,7 @@ public class ParserContext implements Serializable {
    * @see #addImport(String, org.mvel2.util.MethodStub)
    */
   public void addImport(String name, MethodStub method) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       throw new UnsupportedOperationException("Import is forbidden!");
     }
     parserConfiguration.addImport(name, method);
@@ -552,6 +580,7 @@ public class ParserContext implements Serializable {
     if (type == null) type = Object.class;
 
     variables.put(name, type);
+    allocateFunctionLocal(name);
     makeVisible(name);
   }
 
@@ -560,6 +589,7 @@ public class ParserContext implements Serializable {
     if (variables.containsKey(name) || inputs.containsKey(name)) return;
     if (type == null) type = Object.class;
     variables.put(name, type);
+    allocateFunctionLocal(name);
     makeVisible(name);
   }
 
@@ -685,6 +715,66 @@ public class ParserContext implements Serializable {
     }
   }
 
+  public ForkJoinPool getCompilationPool() {
+    return compilationPool;
+  }
+
+  /**
+   * Compiles the bodies of the top-level functions of a script concurrently on the given pool.  Each body is
+   * compiled against the enclosing scope as it is at the point where the function is declared, and the results
+   * are collected in declaration order, so the compiled script is the same as with sequential compilation.  Call
+   * sites compiled before the body of the function they call is compiled see it as returning <tt>Object</tt>.
+   * Contexts with strict type enforcement are always compiled sequentially.
+   *
+   * @param compilationPool the pool to compile function bodies on, or <tt>null</tt> to compile them sequentially
+   */
+  public void setCompilationPool(ForkJoinPool compilationPool) {
+    this.compilationPool = compilationPool;
+  }
+
+  /**
+   * Starts collecting the function bodies that are to be compiled on the compilation pool.
+   *
+   * @return true if function bodies are collected, false if they are compiled as they are declared
+   */
+  public boolean beginFunctionDeferral() {
+    if (compilationPool == null || deferredFunctions != null || strictTypeEnforcement) {
+      return false;
+    }
+    deferredFunctions = new ArrayList<Function>();
+    return true;
+  }
+
+  /**
+   * Stops collecting function bodies and returns the ones collected, in declaration order.
+   */
+  public List<Function> endFunctionDeferral() {
+    List<Function> functions = deferredFunctions;
+    deferredFunctions = null;
+    return functions == null ? Collections.<Function>emptyList() : functions;
+  }
+
+  public boolean isDeferringFunctions() {
+    return deferredFunctions != null;
+  }
+
+  public void deferFunction(Function function) {
+    deferredFunctions.add(function);
+  }
+
+  /**
+   * Returns a detached copy of the variables and local declarations of this context.  Variable slots are still
+   * allocated by the outermost context of this one, so the function bodies compiled against the copy share them with
+   * the rest of the script.
+   */
+  public ParserContext createScopeSnapshot() {
+    ParserContext ctx = new ParserContext(parserConfiguration);
+    if (variables != null) ctx.variables = new LinkedHashMap<String, Class>(variables);
+    if (localDeclarations != null) ctx.localDeclarations = new ArrayList<String>(localDeclarations);
+    ctx.slotOwner = this;
+    return ctx;
+  }
+
   public boolean isRetainParserState() {
     return retainParserState;
   }
@@ -969,7 +1059,7 @@ public class ParserContext implements Serializable {
   }
 
   public boolean hasLiteral(String property) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       return SandboxedParserConfiguration.literals.containsKey(property);
     } else {
       return this.literals().containsKey(property);
@@ -977,7 +1067,7 @@ public class ParserContext implements Serializable {
   }
 
   public Object getLiteral(String property) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       return SandboxedParserConfiguration.literals.get(property);
     } else {
       return this.literals().get(property);
@@ -985,7 +1075,7 @@ public class ParserContext implements Serializable {
   }
 
   public void setLiterals(Map<String, Object> literals) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       // Do nothing
     } else {
       this.literals = literals;
@@ -1056,6 +1146,56 @@ public class ParserContext implements Serializable {
     return -1;
   }
 
+  /**
+   * Returns the register of the given variable, allocating one first if the variable is introduced by a function
+   * body. Returns -1 if the variable is not held in a register.
+   *
+   * @param name The name of the variable
+   * @return int
+   */
+  public int allocateVariableIndex(String name) {
+    allocateFunctionLocal(name);
+    return variableIndexOf(name);
+  }
+
+  /**
+   * Registers are allocated for the variables of a function body as they are encountered, so the body can be
+   * compiled in a single pass. Variables declared in the enclosing scope are left to it.
+   */
+  private void allocateFunctionLocal(String name) {
+    if (functionContext && indexAllocation && (parent == null || !parent.hasLocalDeclaration(name))) {
+      addIndexedInput(name);
+    }
+  }
+
+  /**
+   * Returns the slot of the given variable name.  The slots are allocated by the outermost context, so a script and
+   * the blocks and functions compiled within it share them.  Accessors may be optimized while the script runs, hence
+   * the lock.
+   *
+   * @param name The name of the variable
+   * @return VariableSlot
+   */
+  public VariableSlot getVariableSlot(String name) {
+    if (parent != null) {
+      return parent.getVariableSlot(name);
+    }
+    else if (slotOwner != null) {
+      return slotOwner.getVariableSlot(name);
+    }
+
+    synchronized (this) {
+      if (variableSlots == null) {
+        variableSlots = new HashMap<String, VariableSlot>();
+      }
+      VariableSlot slot = variableSlots.get(name);
+      if (slot == null) {
+        variableSlots.put(name, slot = new VariableSlot(variableSlots.size(), name));
+      }
+      return slot;
+    }
+  }
+
   public boolean hasLocalDeclaration(String name) {
     if (localDeclarations != null) {
       return localDeclarations.indexOf(name) > -1;
@@ -1169,7 +1309,7 @@ public class ParserContext implements Serializable {
   }
 
   public boolean isMethodAllowed(Method method) {
-    if (sandboxedMode) {
+    if (isSandboxed()) {
       String clazzName = method.getDeclaringClass().getSimpleName();
       boolean allowed = !(SandboxedClassLoader.forbiddenMethodsClasses.contains(clazzName) || SandboxedClassLoader.forbiddenMethods.contains(method));
       if (!allowed) {
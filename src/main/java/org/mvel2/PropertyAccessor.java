@@ -933,7 +933,7 @@ public class PropertyAccessor {
       /**
        * Try to find an instance method from the class target.
        */
-      if ((m = getBestCandidate(args, name, cls, cls.getMethods(), false)) != null) {
+      if ((m = getBestCandidate(args, name, cls, false)) != null) {
         addMethodCache(cls, createSignature(name, tk), m);
         parameterTypes = m.getParameterTypes();
       }
@@ -8,11 +8,12 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 public class SandboxedParserConfiguration extends ParserConfiguration {
 
-    private final Map<Class<?>, Function<Object, Long>> additionalDataTypes = new HashMap<>();
+    private ValueSizeEstimator valueSizeEstimator = new ValueSizeEstimator();
 
     private final Map<Method, TriFunction<ExecutionContext, Object, Object[], Object[]>> invocationCheckers = new HashMap<>();
 
@@ -114,10 +115,9 @@ public class SandboxedParserConfiguration extends ParserConfiguration {
         this.sanboxedClassLoader.addAllowedPackage(packageName);
     }
 
-    @SuppressWarnings("unchecked")
     public <T> void registerDataType(String name, Class<T> cls, Function<T, Long> valueSizeFunction) {
         this.addImport(name, cls);
-        this.additionalDataTypes.put(cls, (Function<Object, Long>) valueSizeFunction);
+        this.valueSizeEstimator.registerValueSizeFunction(cls, value -> valueSizeFunction.apply(value));
     }
 
     public void registerMethodInvocationChecker(Method method, TriFunction<ExecutionContext, Object, Object[], Object[]> methodInvocationCheckerFunction) {
@@ -125,7 +125,16 @@ public class SandboxedParserConfiguration extends ParserConfiguration {
     }
 
     public Function<Object, Long> getValueSizeFunction(Class<?> cls) {
-        return this.additionalDataTypes.get(cls);
+        ToLongFunction<Object> valueSizeFunction = this.valueSizeEstimator.getCustomSizeFunction(cls);
+        return valueSizeFunction != null ? valueSizeFunction::applyAsLong : null;
+    }
+
+    public ValueSizeEstimator getValueSizeEstimator() {
+        return valueSizeEstimator;
+    }
+
+    public void setValueSizeEstimator(ValueSizeEstimator valueSizeEstimator) {
+        this.valueSizeEstimator = valueSizeEstimator;
     }
 
     public TriFunction<ExecutionContext, Object, Object[], Object[]> getMethodInvocationChecker(Method method) {
@@ -0,0 +1,135 @@
+package org.mvel2;
+
+import org.mvel2.execution.ExecutionObject;
+
+import java.lang.reflect.Array;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Estimates the memory footprint of values tracked by {@link ExecutionContext}.
+ * <p>
+ * Size functions are resolved once per value class and cached, so the accounting path neither walks an
+ * {@code instanceof} chain nor allocates. Sizes of custom data types can be registered with
+ * {@link #registerValueSizeFunction(Class, ToLongFunction)}; subclasses may override
+ * {@link #resolveSizeFunction(Class)} to change how built-in types are measured.
+ */
+public class ValueSizeEstimator {
+
+    static final ToLongFunction<Object> EXECUTION_OBJECT_SIZE = value -> ((ExecutionObject) value).memorySize();
+
+    private static final ToLongFunction<Object> STRING_SIZE = value -> utf8Length((String) value);
+
+    private final Map<Class<?>, ToLongFunction<Object>> customSizeFunctions = new ConcurrentHashMap<>();
+
+    private volatile ClassValue<ToLongFunction<Object>> sizeFunctions = newCache();
+
+    @SuppressWarnings("unchecked")
+    public <T> void registerValueSizeFunction(Class<T> cls, ToLongFunction<? super T> sizeFunction) {
+        customSizeFunctions.put(cls, (ToLongFunction<Object>) sizeFunction);
+        sizeFunctions = newCache();
+    }
+
+    public ToLongFunction<Object> getCustomSizeFunction(Class<?> cls) {
+        return customSizeFunctions.get(cls);
+    }
+
+    public long sizeOf(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        return getSizeFunction(value.getClass()).applyAsLong(value);
+    }
+
+    public ToLongFunction<Object> getSizeFunction(Class<?> cls) {
+        return sizeFunctions.get(cls);
+    }
+
+    protected ToLongFunction<Object> resolveSizeFunction(Class<?> cls) {
+        if (ExecutionObject.class.isAssignableFrom(cls)) {
+            return EXECUTION_OBJECT_SIZE;
+        } else if (String.class == cls) {
+            return STRING_SIZE;
+        } else if (Byte.class == cls || Character.class == cls || Boolean.class == cls) {
+            return value -> 1;
+        } else if (Short.class == cls) {
+            return value -> 2;
+        } else if (Integer.class == cls || Float.class == cls) {
+            return value -> 4;
+        } else if (Long.class == cls || Double.class == cls) {
+            return value -> 8;
+        } else if (BigInteger.class.isAssignableFrom(cls)) {
+            return value -> ((BigInteger) value).bitLength() / 8 + 1;
+        } else if (UUID.class == cls) {
+            return value -> 16;
+        } else if (Date.class.isAssignableFrom(cls)) {
+            return value -> 8;
+        } else if (cls.isArray() && cls.getComponentType().isPrimitive()) {
+            int componentSize = componentTypeSize(cls.getComponentType());
+            return value -> (long) Array.getLength(value) * componentSize;
+        } else {
+            return value -> {
+                throw new ScriptRuntimeException("Unsupported value type: " + cls);
+            };
+        }
+    }
+
+    /**
+     * Computes the length of the UTF-8 encoding of the string without encoding it.
+     * Unpaired surrogates are counted as one byte, as they are replaced by {@code '?'} on encoding.
+     */
+    public static long utf8Length(String str) {
+        int length = str.length();
+        long bytes = length;
+        for (int i = 0; i < length; i++) {
+            char ch = str.charAt(i);
+            if (ch >= 0x80) {
+                if (ch < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(ch)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    static int componentTypeSize(Class<?> componentType) {
+        if (byte.class.equals(componentType)) {
+            return 1;
+        } else if (char.class.equals(componentType)) {
+            return 1;
+        } else if (short.class.equals(componentType)) {
+            return 2;
+        } else if (int.class.equals(componentType)) {
+            return 4;
+        } else if (long.class.equals(componentType)) {
+            return 8;
+        } else if (float.class.equals(componentType)) {
+            return 4;
+        } else if (double.class.equals(componentType)) {
+            return 8;
+        } else if (boolean.class.equals(componentType)) {
+            return 1;
+        } else {
+            throw new ScriptRuntimeException("Unsupported array primitive type: " + componentType);
+        }
+    }
+
+    private ClassValue<ToLongFunction<Object>> newCache() {
+        return new ClassValue<ToLongFunction<Object>>() {
+            @Override
+            protected ToLongFunction<Object> computeValue(Class<?> type) {
+                ToLongFunction<Object> custom = customSizeFunctions.get(type);
+                return custom != null ? custom : resolveSizeFunction(type);
+            }
+        };
+    }
+}
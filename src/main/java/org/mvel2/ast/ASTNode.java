@@ -153,6 +153,9 @@ public class ASTNode implements Cloneable, Serializable {
     if ((fields & PCTX_STORED) != 0) {
       pCtx = (ParserContext) literal;
     }
+    else if (this.pCtx != null && this.pCtx.isSandboxed()) {
+      pCtx = this.pCtx;
+    }
     else {
       pCtx = new ParserContext(new ParserConfiguration(getInjectedImports(factory), null));
     }
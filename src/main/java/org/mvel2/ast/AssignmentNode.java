@@ -25,6 +25,7 @@ import org.mvel2.PropertyAccessor;
 import org.mvel2.compiler.CompiledAccExpression;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
 
 import static org.mvel2.MVEL.compileSetExpression;
 import static org.mvel2.util.ArrayTools.findFirst;
@@ -36,6 +37,7 @@ import static org.mvel2.util.ParseTools.*;
 public class AssignmentNode extends ASTNode implements Assignment, HasStatement {
   private String assignmentVar;
   private String varName;
+  private VariableSlot slot;
   private transient CompiledAccExpression accExpr;
 
   private char[] indexTarget;
@@ -100,6 +102,10 @@ public class AssignmentNode extends ASTNode implements Assignment, HasStatement
     if ((fields & COMPILE_IMMEDIATE) != 0) {
       pCtx.addVariable(this.varName, egressType);
     }
+
+    if (pCtx != null && !col) {
+      slot = pCtx.getVariableSlot(this.varName);
+    }
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
@@ -113,7 +119,8 @@ public class AssignmentNode extends ASTNode implements Assignment, HasStatement
     else if (statement != null) {
       if (factory == null)
         throw new CompileException("cannot assign variables; no variable resolver factory available", expr, start);
-      return factory.createVariable(varName, checkAssignGlobalVariable(ctx, varName, statement.getValue(ctx, thisValue, factory))).getValue();
+      Object value = checkAssignGlobalVariable(ctx, varName, statement.getValue(ctx, thisValue, factory));
+      return (slot != null ? factory.createVariable(slot, value) : factory.createVariable(varName, value)).getValue();
     }
     else {
       if (factory == null)
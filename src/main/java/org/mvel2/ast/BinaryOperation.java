@@ -27,6 +27,7 @@ import org.mvel2.Operator;
 import org.mvel2.ParserContext;
 import org.mvel2.ScriptRuntimeException;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.math.PrimitiveArithmetic;
 import org.mvel2.util.CompatibilityStrategy;
 import org.mvel2.util.NullType;
 import org.mvel2.util.ParseTools;
@@ -35,7 +36,6 @@ import static org.mvel2.DataConversion.canConvert;
 import static org.mvel2.DataConversion.convert;
 import static org.mvel2.Operator.PTABLE;
 import static org.mvel2.debug.DebugTools.getOperatorSymbol;
-import static org.mvel2.math.MathProcessor.doOperations;
 import static org.mvel2.util.CompilerTools.getReturnTypeFromOp;
 import static org.mvel2.util.ParseTools.boxPrimitive;
 
@@ -43,10 +43,12 @@ public class BinaryOperation extends BooleanNode {
   private final int operation;
   private int lType = -1;
   private int rType = -1;
+  private PrimitiveArithmetic arithmetic;
 
   public BinaryOperation(int operation, ParserContext ctx) {
     super(ctx);
     this.operation = operation;
+    this.arithmetic = new PrimitiveArithmetic(operation);
   }
 
   public BinaryOperation(int operation, ASTNode left, ASTNode right, ParserContext ctx) {
@@ -69,6 +71,7 @@ public class BinaryOperation extends BooleanNode {
           egressType = String.class;
           lType = ParseTools.__resolveType(left.egressType);
           rType = ParseTools.__resolveType(right.egressType);
+          arithmetic = new PrimitiveArithmetic(operation);
 
           return;
         }
@@ -105,6 +108,7 @@ public class BinaryOperation extends BooleanNode {
         lType = getOperandType(this.left);
         rType = getOperandType(this.right);
       }
+      arithmetic = new PrimitiveArithmetic(operation, lType, rType);
   }
 
   private int getOperandType(ASTNode node) {
@@ -142,7 +146,7 @@ public class BinaryOperation extends BooleanNode {
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    return doOperations(lType, left.getReducedValueAccelerated(ctx, thisValue, factory), operation, rType,
+    return arithmetic.doOperations(lType, left.getReducedValueAccelerated(ctx, thisValue, factory), rType,
         right.getReducedValueAccelerated(ctx, thisValue, factory));
   }
 
@@ -151,6 +155,14 @@ public class BinaryOperation extends BooleanNode {
     throw new RuntimeException("unsupported AST operation");
   }
 
+  /**
+   * Computes the operation without assuming anything about the operand types. Used by the int-optimized subclasses
+   * when an operand turns out not to be an {@link Integer}.
+   */
+  protected Object doGenericOperation(Object val1, Object val2) {
+    return arithmetic.doOperations(val1, val2);
+  }
+
   public int getOperation() {
     return operation;
   }
@@ -20,7 +20,7 @@ package org.mvel2.ast;
 
 import org.mvel2.ParserContext;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.math.MathProcessor;
+import org.mvel2.math.PrimitiveArithmetic;
 
 import static org.mvel2.MVEL.eval;
 import static org.mvel2.PropertyAccessor.get;
@@ -28,12 +28,12 @@ import static org.mvel2.PropertyAccessor.set;
 
 public class DeepOperativeAssignmentNode extends DeepAssignmentNode {
 
-    private final int operation;
+    private final PrimitiveArithmetic arithmetic;
 
     public DeepOperativeAssignmentNode(char[] expr, int start, int offset, int fields, int operation, String name, ParserContext pCtx) {
         super(expr, start, offset, fields, operation, name, pCtx);
 
-        this.operation = operation;
+        this.arithmetic = new PrimitiveArithmetic(operation);
     }
 
     // No need to override DeepAssignmentNode.getReducedValueAccelerated() because it already works properly (calculate and assign).
@@ -41,7 +41,7 @@ public class DeepOperativeAssignmentNode extends DeepAssignmentNode {
     @Override
     public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
         Object value = get(property, ctx, factory, thisValue, pCtx);
-        ctx = MathProcessor.doOperations(value, operation, eval(expr, start, offset, ctx, factory));
+        ctx = arithmetic.doOperations(value, eval(expr, start, offset, ctx, factory));
         set(ctx, factory, property, ctx, pCtx);
         return ctx;
     }
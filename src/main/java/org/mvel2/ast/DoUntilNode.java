@@ -21,9 +21,7 @@ package org.mvel2.ast;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.MapVariableResolverFactory;
-
-import java.util.HashMap;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 
 import static org.mvel2.util.CompilerTools.expectType;
 import static org.mvel2.util.ParseTools.subCompileExpression;
@@ -56,7 +54,7 @@ public class DoUntilNode extends BlockNode {
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolverFactory lc = new MapVariableResolverFactory(new HashMap(0), factory);
+    VariableResolverFactory lc = new ScopeVariableResolverFactory(factory);
     Object v;
     do {
       checkExecution(ctx);
@@ -73,7 +71,7 @@ public class DoUntilNode extends BlockNode {
   }
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolverFactory lc = new MapVariableResolverFactory(new HashMap(0), factory);
+    VariableResolverFactory lc = new ScopeVariableResolverFactory(factory);
     Object v;
     do {
       checkExecution(ctx);
@@ -22,8 +22,8 @@ import org.mvel2.CompileException;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.DefaultLocalVariableResolverFactory;
 import org.mvel2.integration.impl.ItemResolverFactory;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -78,7 +78,7 @@ public class Fold extends ASTNode {
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
     ItemResolverFactory.ItemResolver itemR = new ItemResolverFactory.ItemResolver("$");
-    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new DefaultLocalVariableResolverFactory(factory));
+    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new ScopeVariableResolverFactory(factory));
 
     List list;
 
@@ -106,7 +106,7 @@ public class Fold extends ASTNode {
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
     ItemResolverFactory.ItemResolver itemR = new ItemResolverFactory.ItemResolver("$");
-    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new DefaultLocalVariableResolverFactory(factory));
+    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new ScopeVariableResolverFactory(factory));
 
     List list;
 
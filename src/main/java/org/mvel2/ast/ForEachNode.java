@@ -18,6 +18,8 @@
 package org.mvel2.ast;
 
 import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.mvel2.CompileException;
 import org.mvel2.DataConversion;
@@ -25,8 +27,8 @@ import org.mvel2.MVEL;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.DefaultLocalVariableResolverFactory;
 import org.mvel2.integration.impl.ItemResolverFactory;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 import org.mvel2.util.ParseTools;
 
 import static org.mvel2.util.ParseTools.createStringTrimmed;
@@ -73,7 +75,7 @@ public class ForEachNode extends BlockNode {
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
     ItemResolverFactory.ItemResolver itemR = new ItemResolverFactory.ItemResolver(item);
-    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new DefaultLocalVariableResolverFactory(factory));
+    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new ScopeVariableResolverFactory(factory));
 
     Object iterCond = condition.getValue(ctx, thisValue, factory);
 
@@ -142,7 +144,7 @@ public class ForEachNode extends BlockNode {
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
     ItemResolverFactory.ItemResolver itemR = new ItemResolverFactory.ItemResolver(item);
-    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new DefaultLocalVariableResolverFactory(factory));
+    ItemResolverFactory itemFactory = new ItemResolverFactory(itemR, new ScopeVariableResolverFactory(factory));
 
     Object iterCond = MVEL.eval(expr, start, offset, thisValue, factory);
 
@@ -210,6 +212,71 @@ public class ForEachNode extends BlockNode {
     return null;
   }
 
+  public String getItem() {
+    return item;
+  }
+
+  public ExecutableStatement getCondition() {
+    return condition;
+  }
+
+  /**
+   * Returns the items the loop visits for the given value of its condition, in the order
+   * {@link #getReducedValueAccelerated(Object, Object, VariableResolverFactory)} visits them.
+   */
+  public Iterator<?> iterator(final Object iterCond) {
+    if (type == -1) {
+      determineIterType(iterCond.getClass());
+    }
+
+    switch (type) {
+      case ARRAY:
+        final int len = Array.getLength(iterCond);
+        return new Iterator<Object>() {
+          private int i;
+
+          public boolean hasNext() {
+            return i < len;
+          }
+
+          public Object next() {
+            if (i >= len) throw new NoSuchElementException();
+            return Array.get(iterCond, i++);
+          }
+        };
+      case CHARSEQUENCE:
+        final char[] chars = iterCond.toString().toCharArray();
+        return new Iterator<Object>() {
+          private int i;
+
+          public boolean hasNext() {
+            return i < chars.length;
+          }
+
+          public Object next() {
+            if (i >= chars.length) throw new NoSuchElementException();
+            return chars[i++];
+          }
+        };
+      case INTEGER:
+        final int max = (Integer) iterCond + 1;
+        return new Iterator<Object>() {
+          private int i = 1;
+
+          public boolean hasNext() {
+            return i != max;
+          }
+
+          public Object next() {
+            if (i == max) throw new NoSuchElementException();
+            return i++;
+          }
+        };
+      default:
+        return ((Iterable<?>) iterCond).iterator();
+    }
+  }
+
   private void handleCond(char[] condition, int start, int offset, int fields, ParserContext pCtx) {
     int cursor = start;
     int end = start + offset;
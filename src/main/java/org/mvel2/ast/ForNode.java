@@ -22,11 +22,9 @@ import org.mvel2.CompileException;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.MapVariableResolverFactory;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 import org.mvel2.util.ParseTools;
 
-import java.util.HashMap;
-
 import static org.mvel2.util.CompilerTools.expectType;
 import static org.mvel2.util.ParseTools.subCompileExpression;
 
@@ -49,19 +47,17 @@ public class ForNode extends BlockNode {
     boolean varsEscape = buildForEach(this.expr = expr, this.start = start, this.offset = offset,
         this.blockStart = blockStart, this.blockOffset = blockEnd, fields, pCtx);
 
-    this.indexAlloc = pCtx != null && pCtx.isIndexAllocation();
+    this.indexAlloc = pCtx.isIndexAllocation();
 
     if ((fields & COMPILE_IMMEDIATE) != 0 && compiledBlock.isEmptyStatement() && !varsEscape) {
       throw new RedundantCodeException();
     }
 
-    if (pCtx != null) {
-      pCtx.popVariableScope();
-    }
+    pCtx.popVariableScope();
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolverFactory ctxFactory = indexAlloc ? factory : new MapVariableResolverFactory(new HashMap<String, Object>(1), factory);
+    VariableResolverFactory ctxFactory = indexAlloc ? factory : new ScopeVariableResolverFactory(factory);
     Object v;
     for (initializer.getValue(ctx, thisValue, ctxFactory); (Boolean) condition.getValue(ctx, thisValue, ctxFactory); after.getValue(ctx, thisValue, ctxFactory)) {
       checkExecution(ctx);
@@ -77,7 +73,7 @@ public class ForNode extends BlockNode {
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
     Object v;
-    for (initializer.getValue(ctx, thisValue, factory = new MapVariableResolverFactory(new HashMap<String, Object>(1), factory)); (Boolean) condition.getValue(ctx, thisValue, factory); after.getValue(ctx, thisValue, factory)) {
+    for (initializer.getValue(ctx, thisValue, factory = new ScopeVariableResolverFactory(factory)); (Boolean) condition.getValue(ctx, thisValue, factory); after.getValue(ctx, thisValue, factory)) {
       checkExecution(ctx);
       v = compiledBlock.getValue(ctx, thisValue, factory);
       if (factory.tiltFlag()) return v;
@@ -90,6 +86,25 @@ public class ForNode extends BlockNode {
     return null;
   }
 
+  public ExecutableStatement getInitializer() {
+    return initializer;
+  }
+
+  public ExecutableStatement getCondition() {
+    return condition;
+  }
+
+  public ExecutableStatement getAfter() {
+    return after;
+  }
+
+  /**
+   * Returns {@code true} if the loop runs in the factory of the statement rather than in a scope of its own.
+   */
+  public boolean isIndexAllocation() {
+    return indexAlloc;
+  }
+
   private boolean buildForEach(char[] condition, int start, int offset, int blockStart, int blockEnd, int fields, ParserContext pCtx) {
     int end = start + offset;
     int cursor = nextCondPart(condition, start, end, false);
@@ -97,19 +112,15 @@ public class ForNode extends BlockNode {
     boolean varsEscape = false;
 
     try {
-      ParserContext spCtx;
-      if (pCtx != null) {
-        spCtx = pCtx.createSubcontext().createColoringSubcontext();
-      }
-      else {
-        spCtx = new ParserContext();
+      if (pCtx == null) {
+        // a context of the loop's own would compile its parts without the configuration of the enclosing script
+        throw new CompileException("for statement compiled without a parser context", condition, start);
       }
+      ParserContext spCtx = pCtx.createSubcontext().createColoringSubcontext();
 
       this.initializer = (ExecutableStatement) subCompileExpression(condition, start, cursor - start - 1, spCtx);
 
-      if (pCtx != null) {
-        pCtx.pushVariableScope();
-      }
+      pCtx.pushVariableScope();
 
       try {
         expectType(pCtx, this.condition = (ExecutableStatement) subCompileExpression(condition, start = cursor,
@@ -131,19 +142,17 @@ public class ForNode extends BlockNode {
       this.after = (ExecutableStatement)
           subCompileExpression(condition, start = cursor, (nextCondPart(condition, start, end, true)) - start, spCtx);
 
-      if (spCtx != null && (fields & COMPILE_IMMEDIATE) != 0 && spCtx.isVariablesEscape()) {
+      if ((fields & COMPILE_IMMEDIATE) != 0 && spCtx.isVariablesEscape()) {
         if (pCtx != spCtx) pCtx.addVariables(spCtx.getVariables());
         varsEscape = true;
       }
-      else if (spCtx != null && pCtx != null) {
+      else {
         pCtx.addVariables(spCtx.getVariables());
       }
 
       this.compiledBlock = (ExecutableStatement) subCompileExpression(expr, blockStart, blockEnd, spCtx);
-      if (pCtx != null) {
-        pCtx.setInputs(spCtx.getInputs());
-        pCtx.addVariables(spCtx.getVariables());
-      }
+      pCtx.setInputs(spCtx.getInputs());
+      pCtx.addVariables(spCtx.getVariables());
     }
     catch (NegativeArraySizeException e) {
       throw new CompileException("wrong syntax; did you mean to use 'foreach'?", expr, start);
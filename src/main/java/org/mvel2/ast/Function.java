@@ -22,7 +22,6 @@ import org.mvel2.CompileException;
 import org.mvel2.ExecutionContext;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
-import org.mvel2.compiler.ExpressionCompiler;
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
 import org.mvel2.integration.impl.DefaultLocalVariableResolverFactory;
@@ -46,6 +45,8 @@ public class Function extends ASTNode implements Safe, HasStatement {
   protected boolean compiledMode = false;
   protected boolean singleton;
 
+  private transient Runnable deferredBody;
+
   public Function(String name,
                   char[] expr,
                   int start,
@@ -67,7 +68,13 @@ public class Function extends ASTNode implements Safe, HasStatement {
 
     //pCtx.declareFunction(this);
 
-    ParserContext ctx = new ParserContext(pCtx.getParserConfiguration(), pCtx, true);
+    /**
+     * A deferred body is compiled after the rest of the script has been parsed, so it gets a copy of the
+     * enclosing scope as it is at this point.
+     */
+    final boolean deferred = pCtx.isDeferringFunctions();
+    final ParserContext enclosing = deferred ? pCtx.createScopeSnapshot() : pCtx;
+    final ParserContext ctx = new ParserContext(pCtx.getParserConfiguration(), enclosing, true);
 
     if (!pCtx.isFunctionContext()) {
       singleton = true;
@@ -86,22 +93,45 @@ public class Function extends ASTNode implements Safe, HasStatement {
       ctx.addIndexedInput(s);
     }
 
+    compiledMode = (fields & COMPILE_IMMEDIATE) != 0;
+
+    if (deferred) {
+      this.egressType = Object.class;
+      this.deferredBody = () -> compileBody(blockStart, blockOffset, ctx, enclosing);
+      pCtx.deferFunction(this);
+    }
+    else {
+      compileBody(blockStart, blockOffset, ctx, pCtx);
+    }
+
+    pCtx.addVariable(name, Function.class);
+  }
+
+  /**
+   * Compiles the body of a function that was deferred to the compilation pool of its parser context.
+   */
+  public void compileDeferredBody() {
+    Runnable body = deferredBody;
+    if (body != null) {
+      deferredBody = null;
+      body.run();
+    }
+  }
+
+  private void compileBody(int blockStart, int blockOffset, ParserContext ctx, ParserContext enclosing) {
     /**
-     * Compile the expression so we can determine the input-output delta.
+     * Variables assigned by the body are allocated registers as they are encountered, so the body only
+     * has to be compiled once.
      */
-    ctx.setIndexAllocation(false);
-    ExpressionCompiler compiler = new ExpressionCompiler(expr, blockStart, blockOffset, ctx);
-    compiler.setVerifyOnly(true);
-    compiler.compile();
-
     ctx.setIndexAllocation(true);
+    this.compiledBlock = (ExecutableStatement) subCompileExpression(expr, blockStart, blockOffset, ctx);
 
     /**
      * Add globals as inputs
      */
-    if (pCtx.getVariables() != null) {
-      for (Map.Entry<String, Class> e : pCtx.getVariables().entrySet()) {
-        if (pCtx.hasLocalDeclaration(e.getKey())) {
+    if (enclosing.getVariables() != null) {
+      for (Map.Entry<String, Class> e : enclosing.getVariables().entrySet()) {
+        if (enclosing.hasLocalDeclaration(e.getKey())) {
           ctx.getVariables().remove(e.getKey());
           ctx.addInput(e.getKey(), e.getValue());
         } else if (!ctx.getVariables().containsKey(e.getKey())) {
@@ -112,11 +142,6 @@ public class Function extends ASTNode implements Safe, HasStatement {
       ctx.processTables();
     }
 
-    ctx.addIndexedInputs(ctx.getVariables().keySet());
-    ctx.getVariables().clear();
-
-    this.compiledBlock = (ExecutableStatement) subCompileExpression(expr, blockStart, blockOffset, ctx);
-
     this.parameters = new String[ctx.getIndexedInputs().size()];
 
     int i = 0;
@@ -124,11 +149,7 @@ public class Function extends ASTNode implements Safe, HasStatement {
       this.parameters[i++] = s;
     }
 
-    compiledMode = (fields & COMPILE_IMMEDIATE) != 0;
-
     this.egressType = this.compiledBlock.getKnownEgressType();
-
-    pCtx.addVariable(name, Function.class);
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
@@ -232,6 +253,14 @@ public class Function extends ASTNode implements Safe, HasStatement {
     return compiledBlock;
   }
 
+  /**
+   * Replaces the body of the function, for code that compiled it to an equivalent statement.  Call sites keep the
+   * instances of the function they resolved, so the body is replaced in place rather than bound to a new instance.
+   */
+  public void setCompiledBlock(ExecutableStatement compiledBlock) {
+    this.compiledBlock = compiledBlock;
+  }
+
   public String toString() {
     return "FunctionDef:" + (name == null ? "Anonymous" : name);
   }
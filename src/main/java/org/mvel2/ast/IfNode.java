@@ -22,9 +22,7 @@ import org.mvel2.CompileException;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.MapVariableResolverFactory;
-
-import java.util.HashMap;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 
 import static org.mvel2.MVEL.eval;
 import static org.mvel2.util.CompilerTools.expectType;
@@ -71,13 +69,13 @@ public class IfNode extends BlockNode implements NestedStatement {
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
     if ((Boolean) condition.getValue(ctx, thisValue, factory)) {
-      return nestedStatement.getValue(ctx, thisValue, idxAlloc ? factory : new MapVariableResolverFactory(new HashMap(0), factory));
+      return nestedStatement.getValue(ctx, thisValue, idxAlloc ? factory : new ScopeVariableResolverFactory(factory));
     }
     else if (elseIf != null) {
-      return elseIf.getReducedValueAccelerated(ctx, thisValue, idxAlloc ? factory : new MapVariableResolverFactory(new HashMap(0), factory));
+      return elseIf.getReducedValueAccelerated(ctx, thisValue, idxAlloc ? factory : new ScopeVariableResolverFactory(factory));
     }
     else if (elseBlock != null) {
-      return elseBlock.getValue(ctx, thisValue, idxAlloc ? factory : new MapVariableResolverFactory(new HashMap(0), factory));
+      return elseBlock.getValue(ctx, thisValue, idxAlloc ? factory : new ScopeVariableResolverFactory(factory));
     }
     else {
       return null;
@@ -86,23 +84,31 @@ public class IfNode extends BlockNode implements NestedStatement {
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
     if ((Boolean) eval(expr, start, offset, ctx, factory)) {
-      return eval(expr, blockStart, blockOffset, ctx, new MapVariableResolverFactory(new HashMap(0), factory));
+      return eval(expr, blockStart, blockOffset, ctx, new ScopeVariableResolverFactory(factory));
     }
     else if (elseIf != null) {
-      return elseIf.getReducedValue(ctx, thisValue, new MapVariableResolverFactory(new HashMap(0), factory));
+      return elseIf.getReducedValue(ctx, thisValue, new ScopeVariableResolverFactory(factory));
     }
     else if (elseBlock != null) {
-      return elseBlock.getValue(ctx, thisValue, new MapVariableResolverFactory(new HashMap(0), factory));
+      return elseBlock.getValue(ctx, thisValue, new ScopeVariableResolverFactory(factory));
     }
     else {
       return null;
     }
   }
 
+  public ExecutableStatement getCondition() {
+    return condition;
+  }
+
   public ExecutableStatement getNestedStatement() {
     return nestedStatement;
   }
 
+  public IfNode getElseIf() {
+    return elseIf;
+  }
+
   public IfNode setElseIf(IfNode elseIf) {
     return this.elseIf = elseIf;
   }
@@ -116,6 +122,13 @@ public class IfNode extends BlockNode implements NestedStatement {
     return this;
   }
 
+  /**
+   * Returns {@code true} if the blocks run in the factory of the statement rather than in a scope of their own.
+   */
+  public boolean isIndexAllocation() {
+    return idxAlloc;
+  }
+
   public String toString() {
     return new String(expr, start, offset);
   }
@@ -22,7 +22,7 @@ import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.math.MathProcessor;
+import org.mvel2.math.PrimitiveArithmetic;
 
 import static org.mvel2.MVEL.eval;
 import static org.mvel2.util.ParseTools.subCompileExpression;
@@ -30,11 +30,11 @@ import static org.mvel2.util.ParseTools.subCompileExpression;
 public class IndexedOperativeAssign extends ASTNode {
   private final int register;
   private ExecutableStatement statement;
-  private final int operation;
+  private final PrimitiveArithmetic arithmetic;
 
   public IndexedOperativeAssign(char[] expr, int start, int offset, int operation, int register, int fields, ParserContext pCtx) {
     super(pCtx);
-    this.operation = operation;
+    this.arithmetic = new PrimitiveArithmetic(operation);
     this.expr = expr;
     this.start = start;
     this.offset = offset;
@@ -48,13 +48,13 @@ public class IndexedOperativeAssign extends ASTNode {
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
     VariableResolver resolver = factory.getIndexedVariableResolver(register);
-    resolver.setValue(ctx = MathProcessor.doOperations(resolver.getValue(), operation, statement.getValue(ctx, thisValue, factory)));
+    resolver.setValue(ctx = arithmetic.doOperations(resolver.getValue(), statement.getValue(ctx, thisValue, factory)));
     return ctx;
   }
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
     VariableResolver resolver = factory.getIndexedVariableResolver(register);
-    resolver.setValue(ctx = MathProcessor.doOperations(resolver.getValue(), operation, eval(expr, start, offset, ctx, factory)));
+    resolver.setValue(ctx = arithmetic.doOperations(resolver.getValue(), eval(expr, start, offset, ctx, factory)));
     return ctx;
   }
 }
\ No newline at end of file
@@ -14,14 +14,22 @@ public class IntAdd extends BinaryOperation implements IntOptimized {
 
   @Override
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    return ((Integer) left.getReducedValueAccelerated(ctx, thisValue, factory))
-        + ((Integer) right.getReducedValueAccelerated(ctx, thisValue, factory));
+    Object val1 = left.getReducedValueAccelerated(ctx, thisValue, factory);
+    Object val2 = right.getReducedValueAccelerated(ctx, thisValue, factory);
+    if (val1 instanceof Integer && val2 instanceof Integer) {
+      return (Integer) val1 + (Integer) val2;
+    }
+    return doGenericOperation(val1, val2);
   }
 
   @Override
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    return ((Integer) left.getReducedValue(ctx, thisValue, factory))
-        + ((Integer) right.getReducedValue(ctx, thisValue, factory));
+    Object val1 = left.getReducedValue(ctx, thisValue, factory);
+    Object val2 = right.getReducedValue(ctx, thisValue, factory);
+    if (val1 instanceof Integer && val2 instanceof Integer) {
+      return (Integer) val1 + (Integer) val2;
+    }
+    return doGenericOperation(val1, val2);
   }
 
   @Override
@@ -3,6 +3,7 @@ package org.mvel2.ast;
 import org.mvel2.Operator;
 import org.mvel2.ParserContext;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.math.MathProcessor;
 
 
 public class IntDiv extends BinaryOperation implements IntOptimized {
@@ -14,14 +15,22 @@ public class IntDiv extends BinaryOperation implements IntOptimized {
 
   @Override
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    return ((Integer) left.getReducedValueAccelerated(ctx, thisValue, factory))
-        / ((Integer) right.getReducedValueAccelerated(ctx, thisValue, factory));
+    Object val1 = left.getReducedValueAccelerated(ctx, thisValue, factory);
+    Object val2 = right.getReducedValueAccelerated(ctx, thisValue, factory);
+    if (val1 instanceof Integer && val2 instanceof Integer) {
+      return (Integer) val1 / (Integer) val2;
+    }
+    return MathProcessor.doOperations(val1, Operator.DIV, val2);
   }
 
   @Override
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    return ((Integer) left.getReducedValue(ctx, thisValue, factory))
-        / ((Integer) right.getReducedValue(ctx, thisValue, factory));
+    Object val1 = left.getReducedValue(ctx, thisValue, factory);
+    Object val2 = right.getReducedValue(ctx, thisValue, factory);
+    if (val1 instanceof Integer && val2 instanceof Integer) {
+      return (Integer) val1 / (Integer) val2;
+    }
+    return MathProcessor.doOperations(val1, Operator.DIV, val2);
   }
 
   @Override
@@ -44,7 +44,6 @@ import static org.mvel2.MVEL.analyze;
 import static org.mvel2.MVEL.eval;
 import static org.mvel2.optimizers.OptimizerFactory.getThreadAccessorOptimizer;
 import static org.mvel2.util.ArrayTools.findFirst;
-import static org.mvel2.util.CompilerTools.getInjectedImports;
 import static org.mvel2.util.ParseTools.*;
 import static org.mvel2.util.ReflectionUtil.toPrimitiveArrayType;
 
@@ -216,8 +215,8 @@ public class NewObjectNode extends ASTNode {
 
         ParserContext pCtx = this.pCtx;
         if (pCtx == null) {
-          pCtx = new ParserContext();
-          pCtx.getParserConfiguration().setAllImports(getInjectedImports(factory));
+          // a context of the node's own would resolve and check the constructor without the script's configuration
+          throw new CompileException("object creation compiled without a parser context", expr, start);
         }
 
         newObjectOptimizer = optimizer.optimizeObjectCreation(pCtx, name, 0, name.length, ctx, thisValue, factory);
@@ -21,7 +21,8 @@ import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.math.MathProcessor;
+import org.mvel2.integration.VariableSlot;
+import org.mvel2.math.PrimitiveArithmetic;
 import org.mvel2.util.ParseTools;
 
 import static org.mvel2.MVEL.eval;
@@ -29,14 +30,18 @@ import static org.mvel2.util.ParseTools.subCompileExpression;
 
 public class OperativeAssign extends ASTNode {
   private String varName;
+  private VariableSlot slot;
   private ExecutableStatement statement;
-  private final int operation;
+  private final PrimitiveArithmetic arithmetic;
   private int knownInType = -1;
 
   public OperativeAssign(String variableName, char[] expr, int start, int offset, int operation, int fields, ParserContext pCtx) {
     super(pCtx);
     this.varName = variableName;
-    this.operation = operation;
+    this.arithmetic = new PrimitiveArithmetic(operation);
+    if (pCtx != null) {
+      this.slot = pCtx.getVariableSlot(variableName);
+    }
     this.expr = expr;
     this.start = start;
     this.offset = offset;
@@ -55,14 +60,14 @@ public class OperativeAssign extends ASTNode {
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolver resolver = factory.getVariableResolver(varName);
-    resolver.setValue(ctx = checkAssignGlobalVariable(ctx, varName, MathProcessor.doOperations(resolver.getValue(), operation, knownInType, statement.getValue(ctx, thisValue, factory))));
+    VariableResolver resolver = slot != null ? factory.getVariableResolver(slot) : factory.getVariableResolver(varName);
+    resolver.setValue(ctx = checkAssignGlobalVariable(ctx, varName, arithmetic.doOperations(resolver.getValue(), knownInType, statement.getValue(ctx, thisValue, factory))));
     return ctx;
   }
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
     VariableResolver resolver = factory.getVariableResolver(varName);
-    resolver.setValue(ctx = checkAssignGlobalVariable(ctx, varName, MathProcessor.doOperations(resolver.getValue(), operation, eval(expr, start, offset, ctx, factory))));
+    resolver.setValue(ctx = checkAssignGlobalVariable(ctx, varName, arithmetic.doOperations(resolver.getValue(), eval(expr, start, offset, ctx, factory))));
     return ctx;
   }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import org.mvel2.Operator;
 import org.mvel2.ParserContext;
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
 import org.mvel2.math.MathProcessor;
 
 /**
@@ -29,17 +30,19 @@ import org.mvel2.math.MathProcessor;
  */
 public class PreFixDecNode extends ASTNode {
   private String name;
+  private VariableSlot slot;
 
   public PreFixDecNode(String name, ParserContext pCtx) {
     super(pCtx);
     this.name = name;
     if (pCtx != null) {
       this.egressType = pCtx.getVarOrInputType(name);
+      this.slot = pCtx.getVariableSlot(name);
     }
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolver vResolver = factory.getVariableResolver(name);
+    VariableResolver vResolver = slot != null ? factory.getVariableResolver(slot) : factory.getVariableResolver(name);
     vResolver.setValue(ctx = MathProcessor.doOperations(vResolver.getValue(), Operator.SUB, DataTypes.INTEGER, 1));
     return ctx;
   }
@@ -21,9 +21,8 @@ package org.mvel2.ast;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.MapVariableResolverFactory;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 
-import java.util.HashMap;
 import java.util.List;
 
 import static org.mvel2.MVEL.eval;
@@ -91,13 +90,13 @@ public class SwitchNode extends BlockNode implements NestedStatement {
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
     if ((Boolean) condition.getValue(ctx, thisValue, factory)) {
-      return nestedStatement.getValue(ctx, thisValue, idxAlloc ? factory : new MapVariableResolverFactory(new HashMap(0), factory));
+      return nestedStatement.getValue(ctx, thisValue, idxAlloc ? factory : new ScopeVariableResolverFactory(factory));
     }
     else if (switchCase != null) {
-      return switchCase.getReducedValueAccelerated(ctx, thisValue, idxAlloc ? factory : new MapVariableResolverFactory(new HashMap(0), factory));
+      return switchCase.getReducedValueAccelerated(ctx, thisValue, idxAlloc ? factory : new ScopeVariableResolverFactory(factory));
     }
     else if (defaultBlock != null) {
-      return defaultBlock.getValue(ctx, thisValue, idxAlloc ? factory : new MapVariableResolverFactory(new HashMap(0), factory));
+      return defaultBlock.getValue(ctx, thisValue, idxAlloc ? factory : new ScopeVariableResolverFactory(factory));
     }
     else {
       return null;
@@ -106,13 +105,13 @@ public class SwitchNode extends BlockNode implements NestedStatement {
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
     if ((Boolean) eval(expr, start, offset, ctx, factory)) {
-      return eval(expr, blockStart, blockOffset, ctx, new MapVariableResolverFactory(new HashMap(0), factory));
+      return eval(expr, blockStart, blockOffset, ctx, new ScopeVariableResolverFactory(factory));
     }
     else if (switchCase != null) {
-      return switchCase.getReducedValue(ctx, thisValue, new MapVariableResolverFactory(new HashMap(0), factory));
+      return switchCase.getReducedValue(ctx, thisValue, new ScopeVariableResolverFactory(factory));
     }
     else if (defaultBlock != null) {
-      return defaultBlock.getValue(ctx, thisValue, new MapVariableResolverFactory(new HashMap(0), factory));
+      return defaultBlock.getValue(ctx, thisValue, new ScopeVariableResolverFactory(factory));
     }
     else {
       return null;
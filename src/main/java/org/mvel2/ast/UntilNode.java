@@ -21,9 +21,7 @@ package org.mvel2.ast;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.MapVariableResolverFactory;
-
-import java.util.HashMap;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 
 import static org.mvel2.util.CompilerTools.expectType;
 import static org.mvel2.util.ParseTools.subCompileExpression;
@@ -56,7 +54,7 @@ public class UntilNode extends BlockNode {
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolverFactory ctxFactory = new MapVariableResolverFactory(new HashMap(0), factory);
+    VariableResolverFactory ctxFactory = new ScopeVariableResolverFactory(factory);
     Object v;
     while (!(Boolean) condition.getValue(ctx, thisValue, factory)) {
       checkExecution(ctx);
@@ -72,7 +70,7 @@ public class UntilNode extends BlockNode {
   }
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolverFactory ctxFactory = new MapVariableResolverFactory(new HashMap(0), factory);
+    VariableResolverFactory ctxFactory = new ScopeVariableResolverFactory(factory);
     Object v;
     while (!(Boolean) condition.getValue(ctx, thisValue, factory)) {
       checkExecution(ctx);
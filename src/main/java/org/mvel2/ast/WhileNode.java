@@ -21,9 +21,7 @@ package org.mvel2.ast;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.integration.impl.MapVariableResolverFactory;
-
-import java.util.HashMap;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
 
 import static org.mvel2.util.CompilerTools.expectType;
 import static org.mvel2.util.ParseTools.subCompileExpression;
@@ -53,7 +51,7 @@ public class WhileNode extends BlockNode {
   }
 
   public Object getReducedValueAccelerated(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolverFactory ctxFactory = new MapVariableResolverFactory(new HashMap<String, Object>(), factory);
+    VariableResolverFactory ctxFactory = new ScopeVariableResolverFactory(factory);
     Object v;
     while ((Boolean) condition.getValue(ctx, thisValue, factory)) {
       checkExecution(ctx);
@@ -68,7 +66,7 @@ public class WhileNode extends BlockNode {
   }
 
   public Object getReducedValue(Object ctx, Object thisValue, VariableResolverFactory factory) {
-    VariableResolverFactory ctxFactory = new MapVariableResolverFactory(new HashMap<String, Object>(), factory);
+    VariableResolverFactory ctxFactory = new ScopeVariableResolverFactory(factory);
     Object v;
     while ((Boolean) condition.getValue(ctx, thisValue, factory)) {
       checkExecution(ctx);
@@ -82,4 +80,7 @@ public class WhileNode extends BlockNode {
     return null;
   }
 
-}
\ No newline at end of file
+  public ExecutableStatement getCondition() {
+    return condition;
+  }
+}
@@ -235,6 +235,11 @@ public class AbstractParser implements Parser, Serializable {
     setupParser();
   }
 
+  /**
+   * Creates a parser that is given no context. It parses with a context for the default configuration, which is the
+   * global sandboxed configuration while sandboxed mode is enabled. A parser working for a context passes it to
+   * {@link #AbstractParser(ParserContext)} instead, so that the configuration of that context is kept.
+   */
   protected AbstractParser() {
     pCtx = new ParserContext();
   }
@@ -603,7 +608,7 @@ public class AbstractParser implements Parser, Serializable {
                   }
                   else {
                     name = new String(expr, st, end - st);
-                    if (pCtx != null && (idx = pCtx.variableIndexOf(name)) != -1) {
+                    if (pCtx != null && (idx = pCtx.allocateVariableIndex(name)) != -1) {
                       splitAccumulator.add(lastNode = new IndexedDeclTypedVarNode(idx, expr, st, end - st, Object.class, pCtx));
                       pCtx.addLocalDeclaration(name);
                     }
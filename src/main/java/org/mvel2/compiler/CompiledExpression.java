@@ -20,18 +20,28 @@ package org.mvel2.compiler;
 
 import org.mvel2.ParserConfiguration;
 import org.mvel2.ast.ASTNode;
+import org.mvel2.ast.Function;
 import org.mvel2.ast.TypeCast;
 import org.mvel2.integration.VariableResolverFactory;
 import org.mvel2.optimizers.OptimizerFactory;
 import org.mvel2.util.ASTLinkedList;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.mvel2.MVELRuntime.execute;
 
 public class CompiledExpression implements Serializable, ExecutableStatement {
+  private static final Function[] NO_FUNCTIONS = new Function[0];
+
   private final ASTNode firstNode;
 
+  /**
+   * Top-level function declarations, which are bound into the variable factory before each execution.
+   */
+  private final Function[] functions;
+
   private Class knownEgressType;
   private Class knownIngressType;
 
@@ -49,12 +59,30 @@ public class CompiledExpression implements Serializable, ExecutableStatement {
     this.knownEgressType = astMap.isSingleNode() ? astMap.firstNonSymbol().getEgressType() : egressType;
     this.literalOnly = literalOnly;
     this.parserConfiguration = parserConfiguration;
+    this.functions = collectFunctions(firstNode);
+  }
+
+  private static Function[] collectFunctions(ASTNode firstNode) {
+    List<Function> functions = null;
+    for (ASTNode node = firstNode; node != null; node = node.nextASTNode) {
+      if (node instanceof Function) {
+        if (functions == null) {
+          functions = new ArrayList<>();
+        }
+        functions.add((Function) node);
+      }
+    }
+    return functions == null ? NO_FUNCTIONS : functions.toArray(NO_FUNCTIONS);
   }
 
   public ASTNode getFirstNode() {
     return firstNode;
   }
 
+  public Function[] getFunctions() {
+    return functions;
+  }
+
   public boolean isSingleNode() {
     return firstNode != null && firstNode.nextASTNode == null;
   }
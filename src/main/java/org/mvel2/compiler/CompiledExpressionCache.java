@@ -0,0 +1,323 @@
+package org.mvel2.compiler;
+
+import org.mvel2.MVEL;
+import org.mvel2.ParserConfiguration;
+import org.mvel2.ParserContext;
+
+import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of compiled expressions keyed by source text and {@link ParserConfiguration} identity.
+ * <p>
+ * Expressions are compiled with {@code new ParserContext(parserConfiguration)}, so settings that live only on a
+ * {@link ParserContext} (typed inputs, strict typing, etc.) are not part of the key. The cache is bounded both by the
+ * number of entries and by total weight, measured as the length of the cached source text, and evicts the least
+ * recently used entries first. Concurrent requests for the same uncached expression share a single compilation;
+ * failed compilations are not cached.
+ * <p>
+ * Lookups take no lock: a hit only stamps the entry with the time it was used, and the stamps are compared when an
+ * entry is stored and the bounds are exceeded. The cache refers to a configuration weakly, but a compiled expression
+ * refers to the configuration it was compiled for, so {@link #invalidate(ParserConfiguration)} is to be called when
+ * a configuration is retired to release it, and its class loader, before its entries are evicted.
+ * <p>
+ * Cached instances are shared between callers and must be executed like any other shared compiled expression, i.e.
+ * with a separate {@link org.mvel2.ExecutionContext} or variable factory per execution.
+ */
+public class CompiledExpressionCache {
+
+  private final int maxEntries;
+
+  private final long maxWeight;
+
+  private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+  private final Map<Key, FutureTask<Serializable>> inFlight = new ConcurrentHashMap<>();
+
+  private final ReferenceQueue<ParserConfiguration> collected = new ReferenceQueue<>();
+
+  // guards the changes of entries and weight
+  private final Object lock = new Object();
+
+  private volatile long weight;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public CompiledExpressionCache(int maxEntries) {
+    this(maxEntries, Long.MAX_VALUE);
+  }
+
+  /**
+   * @param maxEntries maximum number of cached expressions
+   * @param maxWeight  maximum total length of the cached source texts
+   */
+  public CompiledExpressionCache(int maxEntries, long maxWeight) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+    }
+    if (maxWeight <= 0) {
+      throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+    }
+    this.maxEntries = maxEntries;
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Returns the cached compiled form of the expression, compiling it with a new {@link ParserContext} for the given
+   * configuration if it is not cached yet.
+   */
+  public Serializable compile(String expression, ParserConfiguration parserConfiguration) {
+    Key key = new Key(expression, parserConfiguration);
+    Serializable compiled = lookup(key);
+    if (compiled != null) {
+      hits.increment();
+      return compiled;
+    }
+    misses.increment();
+
+    FutureTask<Serializable> task = new FutureTask<>(
+        () -> MVEL.compileExpression(expression, new ParserContext(parserConfiguration)));
+    FutureTask<Serializable> existing = inFlight.putIfAbsent(key, task);
+    if (existing != null) {
+      return await(existing);
+    }
+    try {
+      // another thread may have stored the expression between the lookup and the registration of this task
+      compiled = lookup(key);
+      if (compiled != null) {
+        return compiled;
+      }
+      task.run();
+      compiled = await(task);
+      store(key, compiled);
+      return compiled;
+    }
+    finally {
+      inFlight.remove(key);
+    }
+  }
+
+  /**
+   * Adds already compiled expressions, such as the ones read by {@link CompiledExpressionStore#read}, to the cache
+   * as if they had been compiled for the given configuration.
+   */
+  public void preload(Map<String, ? extends Serializable> compiled, ParserConfiguration parserConfiguration) {
+    for (Map.Entry<String, ? extends Serializable> entry : compiled.entrySet()) {
+      store(new Key(entry.getKey(), parserConfiguration), entry.getValue());
+    }
+  }
+
+  public void invalidate(String expression, ParserConfiguration parserConfiguration) {
+    Key key = new Key(expression, parserConfiguration);
+    synchronized (lock) {
+      if (entries.remove(key) != null) {
+        weight -= key.weight();
+      }
+    }
+  }
+
+  /**
+   * Removes the expressions compiled for the given configuration.
+   */
+  public void invalidate(ParserConfiguration parserConfiguration) {
+    synchronized (lock) {
+      for (Key key : entries.keySet()) {
+        if (key.parserConfiguration() == parserConfiguration && !key.isCleared()) {
+          entries.remove(key);
+          weight -= key.weight();
+        }
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    synchronized (lock) {
+      entries.clear();
+      weight = 0;
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long weight() {
+    return weight;
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  private Serializable lookup(Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    entry.lastUsed = System.nanoTime();
+    return entry.compiled;
+  }
+
+  private void store(Key key, Serializable compiled) {
+    if (key.weight() > maxWeight) {
+      return;
+    }
+    synchronized (lock) {
+      expunge();
+      if (entries.put(new Key(key.expression, key.parserConfiguration(), collected), new Entry(compiled)) == null) {
+        weight += key.weight();
+      }
+      while (entries.size() > maxEntries || weight > maxWeight) {
+        Key eldest = eldest();
+        if (eldest == null) {
+          break;
+        }
+        entries.remove(eldest);
+        weight -= eldest.weight();
+        evictions.increment();
+      }
+    }
+  }
+
+  private Key eldest() {
+    Key eldest = null;
+    long eldestUsed = Long.MAX_VALUE;
+    for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+      if (eldest == null || e.getValue().lastUsed - eldestUsed < 0) {
+        eldest = e.getKey();
+        eldestUsed = e.getValue().lastUsed;
+      }
+    }
+    return eldest;
+  }
+
+  /**
+   * Removes the entries whose configuration has been garbage collected.
+   */
+  private void expunge() {
+    Object ref;
+    while ((ref = collected.poll()) != null) {
+      Key key = ((ConfigurationReference) ref).key;
+      if (entries.remove(key) != null) {
+        weight -= key.weight();
+      }
+    }
+  }
+
+  private static Serializable await(FutureTask<Serializable> task) {
+    try {
+      return task.get();
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("interrupted while waiting for expression compilation", e);
+    }
+  }
+
+  private static final class Entry {
+    private final Serializable compiled;
+    // written without synchronization; a stamp another thread has not seen yet only makes eviction less exact
+    private long lastUsed = System.nanoTime();
+
+    Entry(Serializable compiled) {
+      this.compiled = compiled;
+    }
+  }
+
+  /**
+   * Identifies an expression by its source text and the identity of its configuration. The keys held by the cache
+   * refer to the configuration weakly, the ones used for lookups strongly.
+   */
+  private static final class Key {
+    private final String expression;
+    private final ParserConfiguration parserConfiguration;
+    private final ConfigurationReference reference;
+    private final int hash;
+
+    Key(String expression, ParserConfiguration parserConfiguration) {
+      if (expression == null) {
+        throw new NullPointerException("expression");
+      }
+      this.expression = expression;
+      this.parserConfiguration = parserConfiguration;
+      this.reference = null;
+      this.hash = 31 * expression.hashCode() + System.identityHashCode(parserConfiguration);
+    }
+
+    Key(String expression, ParserConfiguration parserConfiguration, ReferenceQueue<ParserConfiguration> queue) {
+      this.expression = expression;
+      this.parserConfiguration = null;
+      this.reference = parserConfiguration == null ? null : new ConfigurationReference(parserConfiguration, queue, this);
+      this.hash = 31 * expression.hashCode() + System.identityHashCode(parserConfiguration);
+    }
+
+    ParserConfiguration parserConfiguration() {
+      return reference != null ? reference.get() : parserConfiguration;
+    }
+
+    boolean isCleared() {
+      return reference != null && reference.get() == null;
+    }
+
+    long weight() {
+      return expression.length();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key that = (Key) o;
+      return hash == that.hash && !isCleared() && !that.isCleared()
+          && parserConfiguration() == that.parserConfiguration() && expression.equals(that.expression);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final class ConfigurationReference extends WeakReference<ParserConfiguration> {
+    private final Key key;
+
+    ConfigurationReference(ParserConfiguration parserConfiguration, ReferenceQueue<ParserConfiguration> queue, Key key) {
+      super(parserConfiguration, queue);
+      this.key = key;
+    }
+  }
+}
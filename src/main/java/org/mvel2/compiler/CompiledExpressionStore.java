@@ -0,0 +1,382 @@
+package org.mvel2.compiler;
+
+import org.mvel2.MVEL;
+import org.mvel2.ParserConfiguration;
+import org.mvel2.ParserContext;
+import org.mvel2.ast.Proto;
+import org.mvel2.util.MethodStub;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * Persists compiled expressions to a file, so that they can be loaded instead of compiled again after a restart.
+ * <p>
+ * A store file holds the compiled form of every expression together with its source text. The
+ * {@link ParserConfiguration} the expressions were compiled with is not written to the file. It is replaced by the
+ * configuration passed to {@link #read}, which must match the one passed to {@link #write}: the file records the
+ * library version and a {@link #fingerprint(ParserConfiguration) fingerprint} of the configuration, and a file
+ * written for another version or configuration reads as empty. Each entry is checksummed; entries that are
+ * corrupt, or refer to classes that have changed since the file was written, are left out, so the caller compiles
+ * them again.
+ * <p>
+ * Only the parsed form of an expression is stored. The optimized accessors of a compiled expression are built when
+ * it is first executed, as for any freshly compiled expression.
+ * <pre><code>
+ * Map&lt;String, Serializable&gt; compiled = CompiledExpressionStore.read(file, parserConfig);
+ * cache.preload(compiled, parserConfig);
+ * ...
+ * CompiledExpressionStore.write(file, CompiledExpressionStore.precompile(scripts, parserConfig), parserConfig);
+ * </code></pre>
+ * Store files are deserialized with Java serialization and must only be read from locations that are as trusted as
+ * the application itself.
+ */
+public final class CompiledExpressionStore {
+
+  public static final int FORMAT_VERSION = 1;
+
+  private static final int MAGIC = 0x5442454C;
+
+  private CompiledExpressionStore() {
+  }
+
+  /**
+   * Compiles the given expressions with a new {@link ParserContext} for the configuration each.
+   *
+   * @return the compiled expressions, keyed by source text, in iteration order
+   */
+  public static Map<String, Serializable> precompile(Collection<String> expressions,
+                                                     ParserConfiguration parserConfiguration) {
+    Map<String, Serializable> compiled = new LinkedHashMap<String, Serializable>();
+    for (String expression : expressions) {
+      if (!compiled.containsKey(expression)) {
+        compiled.put(expression, MVEL.compileExpression(expression, new ParserContext(parserConfiguration)));
+      }
+    }
+    return compiled;
+  }
+
+  /**
+   * Writes the compiled expressions to the given file, replacing it atomically where the file system allows it.
+   * Expressions that cannot be serialized are skipped.
+   *
+   * @param compiled            compiled expressions keyed by source text
+   * @param parserConfiguration the configuration the expressions were compiled with
+   * @return the number of expressions written
+   */
+  public static int write(Path file, Map<String, ? extends Serializable> compiled,
+                          ParserConfiguration parserConfiguration) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    int written = 0;
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, libraryVersion());
+        writeString(out, fingerprint(parserConfiguration));
+
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream(entries);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, ? extends Serializable> entry : compiled.entrySet()) {
+          payload.reset();
+          try (ObjectOutputStream objectOut = new StoreOutputStream(payload, parserConfiguration)) {
+            objectOut.writeObject(entry.getValue());
+          }
+          catch (IOException e) {
+            continue;
+          }
+          crc.reset();
+          crc.update(payload.toByteArray(), 0, payload.size());
+
+          writeString(entryOut, entry.getKey());
+          entryOut.writeInt(payload.size());
+          entryOut.writeLong(crc.getValue());
+          payload.writeTo(entryOut);
+          written++;
+        }
+        out.writeInt(written);
+        entries.writeTo(out);
+      }
+      try {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    finally {
+      Files.deleteIfExists(tmp);
+    }
+    return written;
+  }
+
+  /**
+   * Reads the compiled expressions stored in the given file, which is memory-mapped while it is read.
+   *
+   * @param parserConfiguration the configuration the expressions were compiled with, which the read expressions
+   *                            are bound to
+   * @return the compiled expressions keyed by source text, or an empty map if the file does not exist or was
+   * written for another library version or configuration
+   */
+  public static Map<String, Serializable> read(Path file, ParserConfiguration parserConfiguration) throws IOException {
+    Map<String, Serializable> compiled = new LinkedHashMap<String, Serializable>();
+
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    catch (NoSuchFileException e) {
+      return compiled;
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC
+          || buffer.getInt() != FORMAT_VERSION
+          || !libraryVersion().equals(readString(buffer))
+          || !fingerprint(parserConfiguration).equals(readString(buffer))) {
+        return compiled;
+      }
+
+      ObjectInputFilter filter = new StoreInputFilter(parserConfiguration);
+      CRC32 crc = new CRC32();
+      for (int count = buffer.getInt(); count > 0; count--) {
+        String expression = readString(buffer);
+        int length = buffer.getInt();
+        long checksum = buffer.getLong();
+        ByteBuffer payload = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+
+        crc.reset();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != checksum) {
+          continue;
+        }
+
+        try (ObjectInputStream objectIn = new StoreInputStream(new ByteBufferInputStream(payload), parserConfiguration)) {
+          objectIn.setObjectInputFilter(filter);
+          compiled.put(expression, (Serializable) objectIn.readObject());
+        }
+        catch (IOException | ClassNotFoundException | ClassCastException e) {
+          // stale or unreadable entry; the caller compiles the expression again
+        }
+      }
+    }
+    catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      // truncated file; keep the entries read so far
+    }
+    return compiled;
+  }
+
+  /**
+   * Returns a digest of the settings of the configuration that the compiled form of an expression depends on:
+   * its type, imports, package imports, interceptor names and parser options.
+   */
+  public static String fingerprint(ParserConfiguration parserConfiguration) {
+    StringBuilder sb = new StringBuilder(parserConfiguration.getClass().getName());
+
+    Map<String, String> imports = new TreeMap<String, String>();
+    for (Map.Entry<String, Object> entry : parserConfiguration.getImports().entrySet()) {
+      imports.put(entry.getKey(), describeImport(entry.getValue()));
+    }
+    sb.append("|imports=").append(imports);
+    if (parserConfiguration.getPackageImports() != null) {
+      sb.append("|packages=").append(new TreeSet<String>(parserConfiguration.getPackageImports()));
+    }
+    if (parserConfiguration.getInterceptors() != null) {
+      sb.append("|interceptors=").append(new TreeSet<String>(parserConfiguration.getInterceptors().keySet()));
+    }
+    sb.append("|nakedMethCall=").append(parserConfiguration.isAllowNakedMethCall());
+    sb.append("|bootstrapBypass=").append(parserConfiguration.isAllowBootstrapBypass());
+
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String describeImport(Object value) {
+    if (value instanceof Class) {
+      return ((Class) value).getName();
+    }
+    if (value instanceof MethodStub) {
+      MethodStub stub = (MethodStub) value;
+      return stub.getClassReference().getName() + "." + stub.getMethodName();
+    }
+    if (value instanceof Method) {
+      return ((Method) value).toGenericString();
+    }
+    if (value instanceof Proto) {
+      return "proto " + ((Proto) value).getName();
+    }
+    return value == null ? "null" : value.getClass().getName();
+  }
+
+  private static String libraryVersion() {
+    String implementationVersion = MVEL.class.getPackage().getImplementationVersion();
+    return MVEL.VERSION + "/" + (implementationVersion == null ? "dev" : implementationVersion);
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Stands in for the parser configuration in a store file.
+   */
+  private enum Placeholder {
+    PARSER_CONFIGURATION
+  }
+
+  private static final class StoreOutputStream extends ObjectOutputStream {
+    private final ParserConfiguration parserConfiguration;
+
+    StoreOutputStream(OutputStream out, ParserConfiguration parserConfiguration) throws IOException {
+      super(out);
+      this.parserConfiguration = parserConfiguration;
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return obj == parserConfiguration ? Placeholder.PARSER_CONFIGURATION : obj;
+    }
+  }
+
+  private static final class StoreInputStream extends ObjectInputStream {
+    private final ParserConfiguration parserConfiguration;
+
+    StoreInputStream(InputStream in, ParserConfiguration parserConfiguration) throws IOException {
+      super(in);
+      this.parserConfiguration = parserConfiguration;
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      try {
+        return Class.forName(desc.getName(), false, parserConfiguration.getClassLoader());
+      }
+      catch (ClassNotFoundException e) {
+        return super.resolveClass(desc);
+      }
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      return obj == Placeholder.PARSER_CONFIGURATION ? parserConfiguration : obj;
+    }
+  }
+
+  /**
+   * Only admits the classes the compiled form of an expression is made of: those of the JDK, of MVEL, and the ones
+   * imported by the configuration.
+   */
+  private static final class StoreInputFilter implements ObjectInputFilter {
+    private final Set<Class<?>> imported = new HashSet<Class<?>>();
+
+    StoreInputFilter(ParserConfiguration parserConfiguration) {
+      for (Object value : parserConfiguration.getImports().values()) {
+        if (value instanceof Class) {
+          imported.add((Class<?>) value);
+        }
+        else if (value instanceof MethodStub) {
+          imported.add(((MethodStub) value).getClassReference());
+        }
+      }
+    }
+
+    @Override
+    public Status checkInput(FilterInfo info) {
+      Class<?> cls = info.serialClass();
+      if (cls == null) {
+        return Status.UNDECIDED;
+      }
+      while (cls.isArray()) {
+        cls = cls.getComponentType();
+      }
+      String name = cls.getName();
+      return cls.isPrimitive() || name.startsWith("java.") || name.startsWith("org.mvel2.") || imported.contains(cls)
+          ? Status.ALLOWED : Status.REJECTED;
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, buffer.remaining());
+      buffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
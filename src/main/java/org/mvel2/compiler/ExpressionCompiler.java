@@ -18,9 +18,13 @@
 
 package org.mvel2.compiler;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.mvel2.CompileException;
 import org.mvel2.ErrorDetail;
@@ -30,6 +34,7 @@ import org.mvel2.ParserContext;
 import org.mvel2.ast.ASTNode;
 import org.mvel2.ast.Assignment;
 import org.mvel2.ast.DeepOperativeAssignmentNode;
+import org.mvel2.ast.Function;
 import org.mvel2.ast.LiteralNode;
 import org.mvel2.ast.NewObjectNode;
 import org.mvel2.ast.OperatorNode;
@@ -64,11 +69,19 @@ public class ExpressionCompiler extends AbstractParser {
   private boolean secondPassOptimization = false;
 
   public CompiledExpression compile() {
+    boolean deferFunctions = pCtx.beginFunctionDeferral();
     try {
       this.debugSymbols = pCtx.isDebugSymbols();
-      return (CompiledExpression) validateStatements(this.expr, _compile());
+      CompiledExpression compiled = _compile();
+      if (deferFunctions) {
+        compileFunctionBodies(pCtx.endFunctionDeferral(), pCtx.getCompilationPool());
+      }
+      return (CompiledExpression) validateStatements(this.expr, compiled);
     }
     finally {
+      if (deferFunctions) {
+        pCtx.endFunctionDeferral();
+      }
       if (pCtx.isFatalError()) {
         StringAppender err = new StringAppender();
 
@@ -96,6 +109,46 @@ public class ExpressionCompiler extends AbstractParser {
 
   }
 
+  /**
+   * Compiles the deferred function bodies on the pool.  All of them are waited for, and the failure of the first
+   * function in declaration order is rethrown, which is the one sequential compilation would have reported.
+   */
+  private static void compileFunctionBodies(List<Function> functions, ForkJoinPool pool) {
+    if (functions.size() == 1) {
+      functions.get(0).compileDeferredBody();
+      return;
+    }
+
+    List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(functions.size());
+    for (Function function : functions) {
+      tasks.add(pool.submit(function::compileDeferredBody));
+    }
+
+    Throwable failure = null;
+    for (ForkJoinTask<?> task : tasks) {
+      try {
+        task.get();
+      }
+      catch (ExecutionException e) {
+        if (failure == null) failure = e.getCause();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (failure == null) failure = new RuntimeException("interrupted while waiting for function compilation", e);
+      }
+    }
+
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+  }
+
   /**
    * Initiate an in-context compileShared.  This method should really only be called by the internal API.
    *
@@ -505,8 +558,8 @@ public class ExpressionCompiler extends AbstractParser {
   }
 
   public ExpressionCompiler(String expression, ParserContext ctx) {
+    super(ctx);
     setExpression(expression);
-    this.pCtx = ctx;
   }
 
   public ExpressionCompiler(char[] expression, int start, int offset) {
@@ -518,26 +571,26 @@ public class ExpressionCompiler extends AbstractParser {
   }
 
   public ExpressionCompiler(String expression, int start, int offset, ParserContext ctx) {
+    super(ctx);
     this.expr = expression.toCharArray();
     this.start = start;
     this.end = start + offset;
     this.end = trimLeft(this.end);
     this.length = this.end - start;
-    this.pCtx = ctx;
   }
 
   public ExpressionCompiler(char[] expression, int start, int offset, ParserContext ctx) {
+    super(ctx);
     this.expr = expression;
     this.start = start;
     this.end = start + offset;
     this.end = trimLeft(this.end);
     this.length = this.end - start;
-    this.pCtx = ctx;
   }
 
   public ExpressionCompiler(char[] expression, ParserContext ctx) {
+    super(ctx);
     setExpression(expression);
-    this.pCtx = ctx;
   }
 
   public boolean isVerifying() {
@@ -568,7 +568,7 @@ public class PropertyVerifier extends AbstractOptimizer {
      * If we have not cached the method then we need to go ahead and try to resolve it.
      */
 
-    if ((m = getBestCandidate(args, name, ctx, ctx.getMethods(), pCtx.isStrongTyping())) == null) {
+    if ((m = getBestCandidate(args, name, ctx, pCtx.isStrongTyping())) == null) {
       if ((m = getBestCandidate(args, name, ctx, ctx.getDeclaredMethods(), pCtx.isStrongTyping())) == null) {
         StringAppender errorBuild = new StringAppender();
         for (int i = 0; i < args.length; i++) {
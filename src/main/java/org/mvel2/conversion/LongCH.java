@@ -94,8 +94,7 @@ public class LongCH implements ConversionHandler {
     CNV.put(Long.class,
         new Converter() {
           public Object convert(Object o) {
-            //noinspection UnnecessaryBoxing
-            return new Long(((Long) o));
+            return o;
           }
         }
     );
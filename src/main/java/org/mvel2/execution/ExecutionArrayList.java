@@ -3,42 +3,34 @@ package org.mvel2.execution;
 import org.mvel2.ExecutionContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import static org.mvel2.util.ArrayTools.initEndIndex;
 import static org.mvel2.util.ArrayTools.initStartIndex;
 
 public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObject {
 
-    private static final Comparator STRING_COMP_DESC = (o1, o2) -> {
-        String first = String.valueOf(o1);
-        String second = String.valueOf(o2);
-        return second.compareTo(first);
-    };
-    private static final Comparator STRING_COMP_ASC = (o1, o2) -> {
-            String first = String.valueOf(o1);
-            String second = String.valueOf(o2);
-            return first.compareTo(second);
-    };
-    private static final Comparator NUMERIC_COMP_ASC = (o1, o2) -> {
-            Double first = Double.parseDouble(String.valueOf(o1));
-            Double second = Double.parseDouble(String.valueOf(o2));
-            return first.compareTo(second);
-    };
-    private static final Comparator NUMERIC_COMP_DESC = (o1, o2) -> {
-            Double first = Double.parseDouble(String.valueOf(o1));
-            Double second = Double.parseDouble(String.valueOf(o2));
-            return second.compareTo(first);
-    };
+    /**
+     * Beyond this many, sub lists are detached right away instead of waiting for the next modification.
+     */
+    private static final int MAX_ATTACHED_SUB_LISTS = 16;
+
+    private static final int MAX_JOIN_PRESIZE = 1 << 16;
 
     private final ExecutionContext executionContext;
 
     private long memorySize = 0;
 
+    private transient List<ExecutionSubList<E>> subLists;
+
     public ExecutionArrayList(ExecutionContext executionContext) {
         this.executionContext = executionContext;
     }
@@ -46,10 +38,7 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
     public ExecutionArrayList(Collection<? extends E> c, ExecutionContext executionContext) {
         super(c);
         this.executionContext = executionContext;
-        for (int i = 0; i < size(); i++) {
-            E val = get(i);
-            this.memorySize += this.executionContext.onValAdd(this, i, val);
-        }
+        this.memorySize += this.executionContext.onRangeAdd(this, this, 0, size());
     }
 
     public boolean push(E e) {
@@ -71,40 +60,38 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
 
     public void unshift(E... ee) {
         if (ee.length > 0) {
-            for (int i = 0; i < ee.length; i++) {
-                add(i, ee[i]);
-            }
+            addAll(0, Arrays.asList(ee));
         }
     }
 
     @Override
     public boolean addAll(Collection<? extends E> c) {
+        beforeModification();
+        int size = size();
         boolean res = super.addAll(c);
-        int i = c.size();
-        for (E val : c) {
-            this.memorySize += this.executionContext.onValAdd(this, i++, val);
-        }
+        this.memorySize += this.executionContext.onRangeAdd(this, this, size, size());
         return res;
     }
 
     @Override
     public boolean addAll(int index, Collection<? extends E> c) {
+        beforeModification();
+        int size = size();
         boolean res = super.addAll(index, c);
-        int i = index;
-        for (E val : c) {
-            this.memorySize += this.executionContext.onValAdd(this, i++, val);
-        }
+        this.memorySize += this.executionContext.onRangeAdd(this, this, index, index + size() - size);
         return res;
     }
 
     @Override
     public void add(int index, E e) {
+        beforeModification();
         super.add(index, e);
         this.memorySize += this.executionContext.onValAdd(this, index, e);
     }
 
     @Override
     public boolean add(E e) {
+        beforeModification();
         boolean res = super.add(e);
         this.memorySize += this.executionContext.onValAdd(this, size() - 1, e);
         return res;
@@ -112,11 +99,56 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
 
     @Override
     public E remove(int index) {
+        beforeModification();
         E value = super.remove(index);
         this.memorySize -= this.executionContext.onValRemove(this, index, value);
         return value;
     }
 
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        beforeModification();
+        if (fromIndex < toIndex) {
+            this.memorySize -= this.executionContext.onRangeRemove(this, this, fromIndex, toIndex);
+        }
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public void clear() {
+        removeRange(0, size());
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        beforeModification();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        beforeModification();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        beforeModification();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        beforeModification();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c) {
+        beforeModification();
+        super.sort(c);
+    }
+
     @Override
     public boolean remove(Object value) {
         int index = super.indexOf(value);
@@ -129,16 +161,36 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
 
     @Override
     public E set(int index, E element) {
+        beforeModification();
         E oldValue = super.set(index, element);
         this.memorySize -= this.executionContext.onValRemove(this, index, oldValue);
         this.memorySize += this.executionContext.onValAdd(this, index, element);
         return oldValue;
     }
 
+    /**
+     * Returns the elements from {@code fromIndex} to {@code toIndex}. The returned list reads them from this list
+     * until either list is modified, see {@link ExecutionSubList}.
+     */
     @Override
     public List<E> subList(int fromIndex, int toIndex) {
-        var list = super.subList(fromIndex, toIndex);
-        return new ExecutionArrayList(list, this.executionContext);
+        subListRangeCheck(fromIndex, toIndex, size());
+        ExecutionSubList<E> subList = new ExecutionSubList<>(this, fromIndex, toIndex, this.executionContext);
+        if (subLists == null) {
+            subLists = new ArrayList<>();
+        } else if (subLists.size() >= MAX_ATTACHED_SUB_LISTS) {
+            beforeModification();
+            subLists = new ArrayList<>();
+        }
+        subLists.add(subList);
+        return subList;
+    }
+
+    /**
+     * Returns a list over the elements from {@code fromIndex} to {@code toIndex} for reading them right away.
+     */
+    List<E> range(int fromIndex, int toIndex) {
+        return super.subList(fromIndex, toIndex);
     }
 
     public ExecutionArrayList<E> slice() {
@@ -152,7 +204,7 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
     public ExecutionArrayList<E> slice(int start, int end) {
         start = initStartIndex(start, this);
         end = initEndIndex(end, this);
-        return new ExecutionArrayList<>(this.subList(start, end), this.executionContext);
+        return new ExecutionArrayList<>(this.range(start, end), this.executionContext);
     }
 
     public int length() {
@@ -169,34 +221,94 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
     }
 
     public int indexOf(Object o, int fromIndex) {
-        int index = this.slice(fromIndex).indexOf(o);
-        return index == -1 ? index : index + fromIndex;
+        int size = this.size();
+        for (int i = initStartIndex(fromIndex, size); i < size; i++) {
+            if (Objects.equals(o, this.get(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public String join() {
         return join(",");
     }
 
+    /**
+     * Joins the string forms of the elements with the given separator. Nested lists are flattened into the result,
+     * their elements separated by commas, and maps are written as {@code {key=value,key=value}}. A {@code null} element
+     * is written as an empty string, while a {@code null} within a nested list or map is written as {@code null}.
+     * <p>
+     * The result is built in one pass, and checked against the memory limit of the {@link ExecutionContext} as it
+     * grows rather than once it is complete.
+     */
     public String join(String separator) {
-        String strJoin = this.stream()
-                .map(Object::toString)
-                .collect(Collectors.joining(separator));
-        return strJoin
-                .replaceAll(", ", ",")
-                .replaceAll("\\[", "")
-                .replaceAll("]", "");
+        int estimate = 0;
+        for (int i = 0; i < size() && estimate < MAX_JOIN_PRESIZE; i++) {
+            Object value = get(i);
+            estimate += (value instanceof CharSequence ? ((CharSequence) value).length() : 8) + separator.length();
+        }
+        StringBuilder sb = new StringBuilder(Math.min(estimate, MAX_JOIN_PRESIZE));
+        appendJoined(sb, this, separator, false);
+        return sb.toString();
+    }
+
+    private void appendJoined(StringBuilder sb, Collection<?> values, String separator, boolean nested) {
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                sb.append(separator);
+            }
+            first = false;
+            if (value == values) {
+                sb.append("(this Collection)");
+            } else if (value != null || nested) {
+                appendJoined(sb, value);
+            }
+            this.executionContext.checkMemory(sb.length());
+        }
+    }
+
+    private void appendJoined(StringBuilder sb, Object value) {
+        if (value instanceof Collection) {
+            appendJoined(sb, (Collection<?>) value, ",", true);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                appendJoined(sb, entry.getKey() == map ? "(this Map)" : entry.getKey());
+                sb.append('=');
+                appendJoined(sb, entry.getValue() == map ? "(this Map)" : entry.getValue());
+                this.executionContext.checkMemory(sb.length());
+            }
+            sb.append('}');
+        } else {
+            // nested nulls are written as their collection's toString() did
+            sb.append(value);
+        }
     }
 
     public void sort() {
         this.sort(true);
     }
 
+    /**
+     * Sorts the list as numbers if all elements are numbers, and by their string form otherwise. See {@link ValueSort}.
+     */
     public void sort(boolean asc) {
-        if (validateClazzInArrayIsOnlyNumber()) {
-            super.sort(asc ? NUMERIC_COMP_ASC : NUMERIC_COMP_DESC);
-        } else {
-            super.sort(asc ? STRING_COMP_ASC : STRING_COMP_DESC);
+        beforeModification();
+        Object[] values = super.toArray();
+        int[] order = ValueSort.order(values, asc);
+        for (int i = 0; i < order.length; i++) {
+            super.set(i, (E) values[order[i]]);
         }
+        // reordering is a structural change to open iterators, as it is for ArrayList.sort
+        modCount++;
     }
 
     public ExecutionArrayList<E> toSorted() {
@@ -232,14 +344,13 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
     public List splice(int start, int deleteCount, E... values) {
         start = initStartIndex(start, this);
         deleteCount = deleteCount < 0 ? 0 : Math.min(deleteCount, (this.size() - start));
-        List<E> removed = new ArrayList<>();
-        while (deleteCount > 0) {
-            removed.add(this.remove(start));
-            deleteCount--;
+        List<E> removed = Collections.emptyList();
+        if (deleteCount > 0) {
+            removed = Arrays.asList((E[]) this.range(start, start + deleteCount).toArray());
+            this.removeRange(start, start + deleteCount);
         }
-        int insertIdx = start;
-        for (E e : values) {
-            this.add(insertIdx++, e);
+        if (values.length > 0) {
+            this.addAll(start, Arrays.asList(values));
         }
         return new ExecutionArrayList<>(removed, this.executionContext);
     }
@@ -280,6 +391,7 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
         end = initEndIndex(end, this);
 
         if (start < this.size() && end > start) {
+            beforeModification();
             for (int i = start; i < end; ++i) {
                 super.set(i, value);
             }
@@ -287,16 +399,53 @@ public class ExecutionArrayList<E> extends ArrayList<E> implements ExecutionObje
         return this;
     }
 
+    @Override
+    public Object clone() {
+        ExecutionArrayList<E> clone = (ExecutionArrayList<E>) super.clone();
+        clone.subLists = null;
+        return clone;
+    }
+
+    int modCount() {
+        return modCount;
+    }
+
+    /**
+     * Detaches the sub lists handed out since the last modification, so that they keep the elements they were
+     * created with.
+     */
+    void beforeModification() {
+        List<ExecutionSubList<E>> attached = this.subLists;
+        if (attached != null) {
+            this.subLists = null;
+            for (ExecutionSubList<E> subList : attached) {
+                subList.detach();
+            }
+        }
+    }
+
+    static void subListRangeCheck(int fromIndex, int toIndex, int size) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex = " + fromIndex);
+        }
+        if (toIndex > size) {
+            throw new IndexOutOfBoundsException("toIndex = " + toIndex);
+        }
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+    }
+
     public boolean validateClazzInArrayIsOnlyNumber() {
-        return !super.stream().anyMatch(e -> !validateClazzInArrayIsOnlyNumber(e));
+        for (int i = 0; i < size(); i++) {
+            if (!ValueSort.isNumeric(get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public boolean validateClazzInArrayIsOnlyNumber(Object e) {
-        try {
-            Double.parseDouble(String.valueOf(e));
-            return true;
-        } catch (Exception e1) {
-            return false;
-        }
+        return ValueSort.isNumeric(e);
     }
 }
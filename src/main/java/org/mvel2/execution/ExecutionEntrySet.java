@@ -0,0 +1,240 @@
+package org.mvel2.execution;
+
+import org.mvel2.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Entry set returned by {@link ExecutionHashMap#entrySet()}. Like the set it replaces, it accepts any element, not
+ * only entries.
+ * <p>
+ * The entry set of an {@link ExecutionHashMap} is a copy: a script may add to it, remove from it or keep it while the
+ * map changes, without either side seeing the other. Making that copy up front cost a full pass over the map plus the
+ * accounting of every entry, although most scripts only iterate the set once. This set reads the entries of the map
+ * instead, and the copy is made only when it is needed: by the set before it is first modified, and by the map
+ * (see {@link Snapshot}) before it is first modified while the set is still in use.
+ */
+public class ExecutionEntrySet<K, V> extends ExecutionLinkedHashSet<Object> {
+
+    private Snapshot<K, V> snapshot;
+
+    ExecutionEntrySet(Snapshot<K, V> snapshot, ExecutionContext executionContext) {
+        super(executionContext);
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public int size() {
+        Snapshot<K, V> s = this.snapshot;
+        return s != null ? s.size() : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        Snapshot<K, V> s = this.snapshot;
+        return s != null ? s.contains(o) : super.contains(o);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        Snapshot<K, V> s = this.snapshot;
+        if (s == null) {
+            return super.iterator();
+        }
+        Iterator<Map.Entry<K, V>> entries = s.iterator(false);
+        return new Iterator<Object>() {
+            private Map.Entry<K, V> current;
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Object next() {
+                return current = entries.next();
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                ExecutionEntrySet.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        return this.snapshot != null ? toList().toArray() : super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return this.snapshot != null ? toList().toArray(a) : super.toArray(a);
+    }
+
+    @Override
+    public boolean add(Object e) {
+        detach();
+        return super.add(e);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        detach();
+        return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        this.snapshot = null;
+        super.clear();
+    }
+
+    @Override
+    public Object clone() {
+        detach();
+        return super.clone();
+    }
+
+    private Object writeReplace() {
+        detach();
+        return this;
+    }
+
+    private List<Object> toList() {
+        List<Object> list = new ArrayList<>(size());
+        for (Object entry : this) {
+            list.add(entry);
+        }
+        return list;
+    }
+
+    /**
+     * Copies the entries into this set, so that it no longer depends on the map.
+     */
+    private void detach() {
+        Snapshot<K, V> s = this.snapshot;
+        if (s != null) {
+            Iterator<Map.Entry<K, V>> entries = s.iterator(false);
+            this.snapshot = null;
+            while (entries.hasNext()) {
+                super.add(entries.next());
+            }
+        }
+    }
+
+    /**
+     * The entries of an {@link ExecutionHashMap} as of the last time it was modified, shared by the entry sets and
+     * iterators handed out since then. The map calls {@link #capture(ExecutionContext)} before its next modification;
+     * if an entry set or an unfinished iterator still reads the entries, they are copied (and accounted) at that
+     * point, otherwise nothing is copied at all.
+     */
+    static final class Snapshot<K, V> implements ExecutionObject {
+
+        private final ExecutionHashMap<K, V> map;
+
+        private Object[] captured;
+
+        private boolean shared;
+
+        private int openIterators;
+
+        private long memorySize = 0;
+
+        Snapshot(ExecutionHashMap<K, V> map) {
+            this.map = map;
+        }
+
+        ExecutionEntrySet<K, V> share(ExecutionContext executionContext) {
+            this.shared = true;
+            return new ExecutionEntrySet<>(this, executionContext);
+        }
+
+        void capture(ExecutionContext executionContext) {
+            if (captured == null && (shared || openIterators > 0)) {
+                Object[] entries = new Object[map.size()];
+                int i = 0;
+                for (Map.Entry<K, V> entry : map.rawEntrySet()) {
+                    ExecutionEntry<K, V> copy = new ExecutionEntry<>(entry.getKey(), entry.getValue());
+                    this.memorySize += executionContext.onValAdd(this, copy);
+                    entries[i++] = copy;
+                }
+                this.captured = entries;
+            }
+        }
+
+        int size() {
+            return captured != null ? captured.length : map.size();
+        }
+
+        boolean contains(Object o) {
+            if (captured == null) {
+                return map.rawEntrySet().contains(o);
+            }
+            for (Object entry : captured) {
+                if (entry.equals(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Iterates the entries, handing out a new {@link ExecutionEntry} for each of them. A tracked iterator keeps the
+         * map from skipping the copy until it is exhausted.
+         */
+        Iterator<Map.Entry<K, V>> iterator(boolean tracked) {
+            if (tracked) {
+                openIterators++;
+            }
+            return new Iterator<Map.Entry<K, V>>() {
+                private final Iterator<Map.Entry<K, V>> live = captured == null ? map.rawEntrySet().iterator() : null;
+                private int position;
+                private boolean open = tracked;
+
+                @Override
+                public boolean hasNext() {
+                    boolean hasNext = captured != null ? position < captured.length : live.hasNext();
+                    if (!hasNext && open) {
+                        open = false;
+                        openIterators--;
+                    }
+                    return hasNext;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    Map.Entry<K, V> entry;
+                    if (captured != null) {
+                        if (position >= captured.length) {
+                            throw new NoSuchElementException();
+                        }
+                        entry = (Map.Entry<K, V>) captured[position];
+                    } else {
+                        entry = live.next();
+                    }
+                    position++;
+                    return new ExecutionEntry<>(entry.getKey(), entry.getValue());
+                }
+            };
+        }
+
+        @Override
+        public long memorySize() {
+            return memorySize;
+        }
+    }
+}
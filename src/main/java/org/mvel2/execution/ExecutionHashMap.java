@@ -2,7 +2,7 @@ package org.mvel2.execution;
 
 import org.mvel2.ExecutionContext;
 
-import java.util.Comparator;
+import java.util.AbstractSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -10,40 +10,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static org.mvel2.util.ArrayTools.initEndIndex;
 import static org.mvel2.util.ArrayTools.initStartIndex;
 
 public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements ExecutionObject, Iterable<Entry<K, V>> {
 
-    private static final Comparator COMP_BY_VALUE_STRING_ASC= (o1, o2) -> {
-            String first = String.valueOf(((Map.Entry) o1).getValue());
-            String second = String.valueOf(((Map.Entry) o2).getValue());
-            return first.compareTo(second);
-    };
-    private static final Comparator COMP_BY_VALUE_STRING_DESC = (o1, o2) -> {
-            String first = String.valueOf(((Map.Entry) o1).getValue());
-            String second = String.valueOf(((Map.Entry) o2).getValue());
-            return second.compareTo(first);
-    };
-
-    private static final Comparator COMP_BY_VALUE_DOUBLE_ASC = (o1, o2) -> {
-            Double first = Double.parseDouble(String.valueOf(((Map.Entry) o1).getValue()));
-            Double second = Double.parseDouble(String.valueOf(((Map.Entry) o2).getValue()));
-            return first.compareTo(second);
-    };
-
-    private static final Comparator COMP_BY_VALUE_DOUBLE_DESC = (o1, o2) -> {
-            Double first = Double.parseDouble(String.valueOf(((Map.Entry) o1).getValue()));
-            Double second = Double.parseDouble(String.valueOf(((Map.Entry) o2).getValue()));
-            return second.compareTo(first);
-    };
-
-    private final ExecutionContext executionContext;
+    protected final ExecutionContext executionContext;
 
     private long memorySize = 0;
 
+    private transient ExecutionEntrySet.Snapshot<K, V> snapshot;
+
     public ExecutionHashMap(int size, ExecutionContext executionContext) {
         super(size);
         this.executionContext = executionContext;
@@ -57,6 +37,7 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
 
     @Override
     public V put(K key, V value) {
+        beforeModification();
         if (containsKey(key)) {
             V prevValue = this.get(key);
             this.memorySize -= this.executionContext.onValRemove(this, key, prevValue);
@@ -71,25 +52,111 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
         return res;
     }
 
+    protected V putUnaccounted(K key, V value) {
+        beforeModification();
+        return super.put(key, value);
+    }
+
+    protected void accountPut(K key, V value) {
+        this.memorySize += this.executionContext.onValAdd(this, key, value);
+    }
+
+    /**
+     * Returns a copy of the entries of this map. The entries are only copied once either the returned set or this
+     * map is modified, see {@link ExecutionEntrySet}.
+     */
     @Override
     public Set<Entry<K, V>> entrySet() {
-        Set<Entry<K, V>> executionEntries = new ExecutionLinkedHashSet<>(this.executionContext);
-        for (Entry<K, V> entry : super.entrySet()) {
-            executionEntries.add(new ExecutionEntry<>(entry.getKey(), entry.getValue()));
-        }
-        return executionEntries;
+        return (Set) snapshot().share(this.executionContext);
+    }
+
+    /**
+     * The entries of this map as kept by {@link LinkedHashMap}, for internal iteration that neither modifies nor
+     * hands out the entries.
+     */
+    Set<Entry<K, V>> rawEntrySet() {
+        return super.entrySet();
+    }
+
+    /**
+     * Returns the keys of this map. Removing keys through the returned set is accounted like {@link #remove(Object)}.
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = super.keySet();
+        return new AbstractSet<K>() {
+            @Override
+            public int size() {
+                return keys.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return keys.contains(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (containsKey(o)) {
+                    ExecutionHashMap.this.remove(o);
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public void clear() {
+                ExecutionHashMap.this.clear();
+            }
+
+            @Override
+            public Iterator<K> iterator() {
+                Iterator<K> iterator = keys.iterator();
+                return new Iterator<K>() {
+                    private K current;
+                    private boolean removable;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public K next() {
+                        current = iterator.next();
+                        removable = true;
+                        return current;
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (!removable) {
+                            throw new IllegalStateException();
+                        }
+                        beforeModification();
+                        memorySize -= executionContext.onValRemove(ExecutionHashMap.this, current, ExecutionHashMap.super.get(current));
+                        iterator.remove();
+                        removable = false;
+                    }
+                };
+            }
+        };
     }
 
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
-        super.putAll(m);
-        for (Map.Entry<? extends K, ? extends V> val : m.entrySet()) {
+        beforeModification();
+        Set<? extends Map.Entry<? extends K, ? extends V>> entries = m instanceof ExecutionHashMap ?
+                ((ExecutionHashMap<? extends K, ? extends V>) m).rawEntrySet() : m.entrySet();
+        for (Map.Entry<? extends K, ? extends V> val : entries) {
+            super.put(val.getKey(), val.getValue());
             this.memorySize += this.executionContext.onValAdd(this, val.getKey(), val.getValue());
         }
     }
 
     @Override
     public V putIfAbsent(K key, V value) {
+        beforeModification();
         if (!super.containsKey(key)) {
             this.memorySize += this.executionContext.onValAdd(this, key, value);
         }
@@ -98,6 +165,7 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
 
     @Override
     public boolean replace(K key, V oldValue, V newValue) {
+        beforeModification();
         boolean result = super.replace(key, oldValue, newValue);
         if (result) {
             this.memorySize -= this.executionContext.onValRemove(this, key, oldValue);
@@ -108,12 +176,14 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
 
     @Override
     public V replace(K key, V value) {
+        beforeModification();
         this.memorySize += this.executionContext.onValAdd(this, key, value);
         return super.replace(key, value);
     }
 
     @Override
     public V remove(Object key) {
+        beforeModification();
         if (containsKey(key)) {
             V value = this.get(key);
             this.memorySize -= this.executionContext.onValRemove(this, key, value);
@@ -121,6 +191,48 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
         return super.remove(key);
     }
 
+    @Override
+    public boolean remove(Object key, Object value) {
+        beforeModification();
+        return super.remove(key, value);
+    }
+
+    @Override
+    public void clear() {
+        beforeModification();
+        super.clear();
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        beforeModification();
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        beforeModification();
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        beforeModification();
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        beforeModification();
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        beforeModification();
+        super.replaceAll(function);
+    }
+
     public Map<K, V> toUnmodifiable() {
         return ExecutionCollections.unmodifiableExecutionMap(this, this.executionContext);
     }
@@ -152,12 +264,11 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
     }
 
     public ExecutionHashMap<K, V> slice(int start, int end) {
-        List keys = this.keys();
-        start = initStartIndex(start, keys);
-        end = initEndIndex(end, keys);
-        ExecutionHashMap<K, V> mapSlice = new ExecutionHashMap<>(end - start, this.executionContext);
+        start = initStartIndex(start, this.size());
+        end = initEndIndex(end, this.size());
+        ExecutionHashMap<K, V> mapSlice = new ExecutionHashMap<>(Math.max(end - start, 0), this.executionContext);
         int index = 0;
-        for (Map.Entry<K, V> entry : this.entrySet()) {
+        for (Map.Entry<K, V> entry : this.rawEntrySet()) {
             if (index >= start && index < end) {
                 mapSlice.put(entry.getKey(), entry.getValue());
             }
@@ -174,7 +285,7 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
     }
 
     public void sortByValue(boolean asc) {
-        Map valueSort = sortMapByValue((HashMap) super.clone(), asc);
+        Map valueSort = sortMapByValue(asc);
         this.clearAllPutAll(valueSort);
     }
 
@@ -195,7 +306,7 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
     }
 
     public ExecutionHashMap<K, V> toSortedByValue(boolean asc) {
-        Map valueToSorted = sortMapByValue((HashMap) super.clone(), asc);
+        Map valueToSorted = sortMapByValue(asc);
         return new ExecutionHashMap<>(valueToSorted, this.executionContext);
     }
 
@@ -238,21 +349,24 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
         return new ExecutionHashMap<>(this.reversByKeys(), this.executionContext);
     }
 
-    private <K, V extends Comparable<? super V>> Map<K, V> sortMapByValue(Map<K, V> map, boolean asc) {
-        Comparator<? super Map.Entry> cmp;
-        if (this.values().validateClazzInArrayIsOnlyNumber()) {
-            cmp = asc ? COMP_BY_VALUE_DOUBLE_ASC : COMP_BY_VALUE_DOUBLE_DESC;
-        } else {
-            cmp = asc ? COMP_BY_VALUE_STRING_ASC : COMP_BY_VALUE_STRING_DESC;
+    private Map<K, V> sortMapByValue(boolean asc) {
+        Object[] keys = new Object[this.size()];
+        Object[] values = new Object[keys.length];
+        int i = 0;
+        for (Map.Entry<K, V> entry : this.rawEntrySet()) {
+            keys[i] = entry.getKey();
+            values[i++] = entry.getValue();
         }
-        return map.entrySet()
-                .stream()
-                .sorted(cmp)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+        Map<K, V> sorted = new LinkedHashMap<>(keys.length);
+        for (int index : ValueSort.order(values, asc)) {
+            sorted.put((K) keys[index], (V) values[index]);
+        }
+        return sorted;
     }
 
     private void clearAllPutAll(Map<? extends K, ? extends V> m) {
         if (this.size() == m.size()) {
+            beforeModification();
             super.clear();
             super.putAll(m);
         } else {
@@ -291,6 +405,82 @@ public class ExecutionHashMap<K, V> extends LinkedHashMap<K, V> implements Execu
 
     @Override
     public Iterator<Entry<K, V>> iterator() {
-        return this.entrySet().iterator();
+        return snapshot().iterator(true);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> m = (Map<?, ?>) o;
+        if (m.size() != size()) {
+            return false;
+        }
+        try {
+            for (Entry<K, V> e : rawEntrySet()) {
+                K key = e.getKey();
+                V value = e.getValue();
+                if (value == null) {
+                    if (!(m.get(key) == null && m.containsKey(key))) {
+                        return false;
+                    }
+                } else if (!value.equals(m.get(key))) {
+                    return false;
+                }
+            }
+        } catch (ClassCastException | NullPointerException unused) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return rawEntrySet().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        Iterator<Entry<K, V>> i = rawEntrySet().iterator();
+        if (!i.hasNext()) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        for (; ; ) {
+            Entry<K, V> e = i.next();
+            K key = e.getKey();
+            V value = e.getValue();
+            sb.append(key == this ? "(this Map)" : key);
+            sb.append('=');
+            sb.append(value == this ? "(this Map)" : value);
+            if (!i.hasNext()) {
+                return sb.append('}').toString();
+            }
+            sb.append(',').append(' ');
+        }
+    }
+
+    private ExecutionEntrySet.Snapshot<K, V> snapshot() {
+        ExecutionEntrySet.Snapshot<K, V> s = this.snapshot;
+        if (s == null) {
+            this.snapshot = s = new ExecutionEntrySet.Snapshot<>(this);
+        }
+        return s;
+    }
+
+    /**
+     * Lets the entry sets and iterators handed out since the last modification keep the entries they have seen.
+     */
+    private void beforeModification() {
+        ExecutionEntrySet.Snapshot<K, V> s = this.snapshot;
+        if (s != null) {
+            this.snapshot = null;
+            s.capture(this.executionContext);
+        }
     }
 }
@@ -0,0 +1,242 @@
+package org.mvel2.execution;
+
+import org.mvel2.ExecutionContext;
+
+import java.lang.reflect.Array;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * List returned by {@link ExecutionArrayList#subList(int, int)}.
+ * <p>
+ * The sub list of an {@link ExecutionArrayList} is a copy: a script may modify it, or keep it while the list changes,
+ * without either side seeing the other. Copying up front cost a pass over the range plus the accounting of every
+ * element, although a sub list is mostly read once. This list reads the range of the list it was taken from instead,
+ * and takes its own copy before either of them is first modified.
+ */
+public class ExecutionSubList<E> extends ExecutionArrayList<E> {
+
+    private ExecutionArrayList<E> parent;
+
+    private final int offset;
+
+    private final int size;
+
+    ExecutionSubList(ExecutionArrayList<E> parent, int fromIndex, int toIndex, ExecutionContext executionContext) {
+        super(executionContext);
+        this.parent = parent;
+        this.offset = fromIndex;
+        this.size = toIndex - fromIndex;
+    }
+
+    public boolean isAttached() {
+        return parent != null;
+    }
+
+    @Override
+    public int size() {
+        return parent != null ? size : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public E get(int index) {
+        ExecutionArrayList<E> p = this.parent;
+        if (p == null) {
+            return super.get(index);
+        }
+        return p.get(offset + Objects.checkIndex(index, size));
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        detach();
+        return super.remove(value);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (parent == null) {
+            return super.indexOf(o);
+        }
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(o, get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (parent == null) {
+            return super.lastIndexOf(o);
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (Objects.equals(o, get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return parent != null ? parent.range(offset, offset + size).toArray() : super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        if (parent == null) {
+            return super.toArray(a);
+        }
+        T[] result = a.length >= size ? a : (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+        for (int i = 0; i < size; i++) {
+            result[i] = (T) get(i);
+        }
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return parent != null ? new IndexedListIterator<>(this, 0) : super.iterator();
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        if (parent == null) {
+            return super.listIterator(index);
+        }
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return new IndexedListIterator<>(this, index);
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return parent != null ? Spliterators.spliterator(this, Spliterator.ORDERED) : super.spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        if (parent == null) {
+            super.forEach(action);
+            return;
+        }
+        int expectedModCount = modCount;
+        for (int i = 0; i < size() && modCount == expectedModCount; i++) {
+            action.accept(get(i));
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        ExecutionArrayList<E> p = this.parent;
+        if (p == null) {
+            return super.subList(fromIndex, toIndex);
+        }
+        subListRangeCheck(fromIndex, toIndex, size);
+        return p.subList(offset + fromIndex, offset + toIndex);
+    }
+
+    @Override
+    List<E> range(int fromIndex, int toIndex) {
+        ExecutionArrayList<E> p = this.parent;
+        if (p == null) {
+            return super.range(fromIndex, toIndex);
+        }
+        subListRangeCheck(fromIndex, toIndex, size);
+        return p.range(offset + fromIndex, offset + toIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (parent == null) {
+            return super.equals(o);
+        }
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        Iterator<?> other = ((List<?>) o).iterator();
+        for (int i = 0; i < size; i++) {
+            if (!other.hasNext() || !Objects.equals(get(i), other.next())) {
+                return false;
+            }
+        }
+        return !other.hasNext();
+    }
+
+    @Override
+    public int hashCode() {
+        if (parent == null) {
+            return super.hashCode();
+        }
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) {
+            hashCode = 31 * hashCode + Objects.hashCode(get(i));
+        }
+        return hashCode;
+    }
+
+    @Override
+    public Object clone() {
+        detach();
+        return super.clone();
+    }
+
+    private Object writeReplace() {
+        detach();
+        return this;
+    }
+
+    @Override
+    void beforeModification() {
+        detach();
+        super.beforeModification();
+    }
+
+    /**
+     * Copies the range into this list, so that it no longer depends on the list it was taken from. Iterators over
+     * this list remain valid.
+     */
+    void detach() {
+        ExecutionArrayList<E> p = this.parent;
+        if (p != null) {
+            List<E> values = p.range(offset, offset + size);
+            this.parent = null;
+            int expectedModCount = modCount;
+            super.addAll(values);
+            modCount = expectedModCount;
+        }
+    }
+}
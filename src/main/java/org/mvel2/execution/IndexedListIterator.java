@@ -0,0 +1,99 @@
+package org.mvel2.execution;
+
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Index-based iterator over an {@link ExecutionArrayList} that does not keep its elements in the storage of
+ * {@link java.util.ArrayList}, or not yet: it stays valid when the list moves them there.
+ */
+final class IndexedListIterator<E> implements ListIterator<E> {
+
+    private final ExecutionArrayList<E> list;
+    private int cursor;
+    private int lastReturned = -1;
+    private int expectedModCount;
+
+    IndexedListIterator(ExecutionArrayList<E> list, int index) {
+        this.list = list;
+        this.cursor = index;
+        this.expectedModCount = list.modCount();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor != list.size();
+    }
+
+    @Override
+    public E next() {
+        checkForComodification();
+        if (cursor >= list.size()) {
+            throw new NoSuchElementException();
+        }
+        lastReturned = cursor;
+        return list.get(cursor++);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return cursor != 0;
+    }
+
+    @Override
+    public E previous() {
+        checkForComodification();
+        if (cursor <= 0) {
+            throw new NoSuchElementException();
+        }
+        lastReturned = --cursor;
+        return list.get(cursor);
+    }
+
+    @Override
+    public int nextIndex() {
+        return cursor;
+    }
+
+    @Override
+    public int previousIndex() {
+        return cursor - 1;
+    }
+
+    @Override
+    public void remove() {
+        if (lastReturned < 0) {
+            throw new IllegalStateException();
+        }
+        checkForComodification();
+        list.remove(lastReturned);
+        cursor = lastReturned;
+        lastReturned = -1;
+        expectedModCount = list.modCount();
+    }
+
+    @Override
+    public void set(E e) {
+        if (lastReturned < 0) {
+            throw new IllegalStateException();
+        }
+        checkForComodification();
+        list.set(lastReturned, e);
+        expectedModCount = list.modCount();
+    }
+
+    @Override
+    public void add(E e) {
+        checkForComodification();
+        list.add(cursor++, e);
+        lastReturned = -1;
+        expectedModCount = list.modCount();
+    }
+
+    private void checkForComodification() {
+        if (list.modCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.mvel2.execution;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.util.ArgsRepackUtil;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@link ExecutionHashMap} bound to script input without copying it up front.
+ * <p>
+ * Scalar entries of the source map are copied and accounted on creation, while nested maps, collections and arrays
+ * are kept as-is and repacked (and accounted by the {@link ExecutionContext}) only when the script first touches the
+ * entry. Operations that expose all values at once (iteration, {@code values()}, sorting, etc.) materialize the whole
+ * map first. Entries never touched by the script are handed back by reference in {@link #unpack()}.
+ */
+public class LazyExecutionHashMap<K, V> extends ExecutionHashMap<K, V> {
+
+    private Set<Object> pendingKeys;
+
+    public LazyExecutionHashMap(Map<K, V> src, ExecutionContext executionContext) {
+        super(src.size(), executionContext);
+        for (Map.Entry<K, V> entry : src.entrySet()) {
+            V value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (isDeferred(value)) {
+                if (pendingKeys == null) {
+                    pendingKeys = new HashSet<>();
+                }
+                pendingKeys.add(entry.getKey());
+                super.putUnaccounted(entry.getKey(), value);
+            } else {
+                super.put(entry.getKey(), value);
+            }
+        }
+    }
+
+    public boolean isMaterialized() {
+        return pendingKeys == null || pendingKeys.isEmpty();
+    }
+
+    /**
+     * Converts this map back to a plain {@link LinkedHashMap}. Entries the script never touched are returned without
+     * copying, entries that were materialized are unpacked recursively.
+     */
+    public Map<K, V> unpack() {
+        Map<K, V> result = new LinkedHashMap<>(size());
+        for (K key : keySet()) {
+            V value = super.get(key);
+            if (pendingKeys != null && pendingKeys.contains(key) && !value.getClass().isArray()) {
+                result.put(key, value);
+            } else {
+                result.put(key, (V) ArgsRepackUtil.unpack(value));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public V get(Object key) {
+        materialize(key);
+        return super.get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        materialize(key);
+        return super.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        materialize(key);
+        return super.put(key, value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        materialize(key);
+        return super.putIfAbsent(key, value);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        materialize(key);
+        return super.replace(key, value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        materialize(key);
+        return super.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public V remove(Object key) {
+        materialize(key);
+        return super.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        materialize(key);
+        return super.remove(key, value);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        materialize(key);
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        materialize(key);
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        materialize(key);
+        return super.compute(key, remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        materialize(key);
+        return super.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        materializeAll();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        materializeAll();
+        return super.entrySet();
+    }
+
+    @Override
+    Set<Map.Entry<K, V>> rawEntrySet() {
+        materializeAll();
+        return super.rawEntrySet();
+    }
+
+    @Override
+    public ExecutionArrayList<V> values() {
+        materializeAll();
+        return super.values();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        materializeAll();
+        super.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        materializeAll();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        // the values replaced are charged like those a put replaces
+        if (pendingKeys != null && !pendingKeys.isEmpty()) {
+            for (Object key : m.keySet()) {
+                materialize(key);
+            }
+        }
+        super.putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        pendingKeys = null;
+        super.clear();
+    }
+
+    @Override
+    public void sortByValue(boolean asc) {
+        materializeAll();
+        super.sortByValue(asc);
+    }
+
+    @Override
+    public ExecutionHashMap<K, V> toSortedByValue(boolean asc) {
+        materializeAll();
+        return super.toSortedByValue(asc);
+    }
+
+    private void materialize(Object key) {
+        if (pendingKeys != null && pendingKeys.remove(key)) {
+            K k = (K) key;
+            V repacked = (V) ArgsRepackUtil.repackLazy(executionContext, super.get(k));
+            super.putUnaccounted(k, repacked);
+            super.accountPut(k, repacked);
+        }
+    }
+
+    private void materializeAll() {
+        if (pendingKeys != null && !pendingKeys.isEmpty()) {
+            for (Object key : pendingKeys.toArray()) {
+                materialize(key);
+            }
+        }
+    }
+
+    private static boolean isDeferred(Object value) {
+        return value instanceof Map || value instanceof Collection || value.getClass().isArray();
+    }
+}
@@ -0,0 +1,789 @@
+package org.mvel2.execution;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.math.Boxing;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import static org.mvel2.util.ArrayTools.initEndIndex;
+import static org.mvel2.util.ArrayTools.initStartIndex;
+
+/**
+ * {@link ExecutionArrayList} of {@link Byte}, {@link Integer}, {@link Long} or {@link Double} elements kept in a
+ * primitive array.
+ * <p>
+ * Script input such as a {@code byte[]} payload would otherwise become a list of boxed elements, each of them
+ * accounted separately by the {@link ExecutionContext}. This list stores the values themselves and accounts its
+ * backing array as a whole, by capacity times element size, whenever the array grows. Elements are boxed only when
+ * read. Storing an element of another type (a {@link Integer} into a list of bytes, a {@code null}, a string, etc.)
+ * turns the list into a regular {@link ExecutionArrayList} with the same content before the element is stored, so
+ * scripts see the same behavior either way. Bulk operations that rarely apply to numeric data (removeIf, replaceAll,
+ * removeAll, retainAll) do the same.
+ */
+public class PrimitiveExecutionArrayList<E> extends ExecutionArrayList<E> {
+
+    private static final int BYTE = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+
+    private static final Class<?>[] ELEMENT_TYPES = {Byte.class, Integer.class, Long.class, Double.class};
+    private static final int[] ELEMENT_SIZES = {1, 4, 8, 8};
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * Longs beyond this magnitude do not convert to {@code double} exactly, which numeric sorting relies on.
+     */
+    private static final long MAX_EXACT_LONG = 1L << 53;
+
+    private final ExecutionContext executionContext;
+
+    private final int kind;
+
+    private byte[] bytes;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    private int size;
+
+    private boolean inflated;
+
+    private long arrayMemorySize = 0;
+
+    private PrimitiveExecutionArrayList(ExecutionContext executionContext, int kind, Object array, int size) {
+        super(executionContext);
+        this.executionContext = executionContext;
+        this.kind = kind;
+        this.size = size;
+        this.arrayMemorySize = executionContext.onMemoryAdd(this, (long) Array.getLength(array) * ELEMENT_SIZES[kind]);
+        setArray(array);
+    }
+
+    /**
+     * Returns a list with a copy of the given {@code byte[]}, {@code int[]}, {@code long[]} or {@code double[]}, or
+     * {@code null} for any other value.
+     */
+    public static <E> PrimitiveExecutionArrayList<E> of(Object array, ExecutionContext executionContext) {
+        int kind = kindOfArray(array.getClass());
+        if (kind < 0) {
+            return null;
+        }
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return new PrimitiveExecutionArrayList<>(executionContext, kind, copy, length);
+    }
+
+    /**
+     * Returns a list with the elements of the given collection if they are all {@link Byte}, all {@link Integer}, all
+     * {@link Long} or all {@link Double}, or {@code null} otherwise.
+     */
+    public static <E> PrimitiveExecutionArrayList<E> of(Collection<?> values, ExecutionContext executionContext) {
+        Object[] elements = values.toArray();
+        if (elements.length == 0 || elements[0] == null) {
+            return null;
+        }
+        int kind = kindOf(elements[0]);
+        if (kind < 0) {
+            return null;
+        }
+        for (Object element : elements) {
+            if (element == null || element.getClass() != ELEMENT_TYPES[kind]) {
+                return null;
+            }
+        }
+        PrimitiveExecutionArrayList<E> list = new PrimitiveExecutionArrayList<>(executionContext, kind,
+                newArray(kind, elements.length), 0);
+        for (Object element : elements) {
+            list.store(list.size++, element);
+        }
+        return list;
+    }
+
+    public boolean isInflated() {
+        return inflated;
+    }
+
+    @Override
+    public int size() {
+        return inflated ? super.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public E get(int index) {
+        if (inflated) {
+            return super.get(index);
+        }
+        Objects.checkIndex(index, size);
+        return element(index);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        if (inflated || !accepts(element)) {
+            inflate();
+            return super.set(index, element);
+        }
+        Objects.checkIndex(index, size);
+        E oldValue = element(index);
+        store(index, element);
+        return oldValue;
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (inflated || !accepts(e)) {
+            inflate();
+            return super.add(e);
+        }
+        grow(size + 1);
+        store(size++, e);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, E e) {
+        if (inflated || !accepts(e)) {
+            inflate();
+            super.add(index, e);
+            return;
+        }
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        grow(size + 1);
+        Object array = array();
+        System.arraycopy(array, index, array, index + 1, size - index);
+        store(index, e);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (inflated) {
+            return super.addAll(c);
+        }
+        Object[] elements = c.toArray();
+        for (Object element : elements) {
+            if (!accepts(element)) {
+                inflate();
+                return super.addAll(Arrays.asList((E[]) elements));
+            }
+        }
+        grow(size + elements.length);
+        for (Object element : elements) {
+            store(size++, element);
+        }
+        modCount++;
+        return elements.length != 0;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        if (inflated) {
+            return super.addAll(index, c);
+        }
+        Object[] elements = c.toArray();
+        for (Object element : elements) {
+            if (!accepts(element)) {
+                inflate();
+                return super.addAll(index, Arrays.asList((E[]) elements));
+            }
+        }
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        grow(size + elements.length);
+        Object array = array();
+        System.arraycopy(array, index, array, index + elements.length, size - index);
+        for (int i = 0; i < elements.length; i++) {
+            store(index + i, elements[i]);
+        }
+        size += elements.length;
+        modCount++;
+        return elements.length != 0;
+    }
+
+    @Override
+    public E remove(int index) {
+        if (inflated) {
+            return super.remove(index);
+        }
+        Objects.checkIndex(index, size);
+        E value = element(index);
+        Object array = array();
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+        modCount++;
+        return value;
+    }
+
+    @Override
+    public boolean remove(Object value) {
+        if (inflated) {
+            return super.remove(value);
+        }
+        int index = indexOf(value);
+        if (index >= 0) {
+            remove(index);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (inflated) {
+            super.removeRange(fromIndex, toIndex);
+            return;
+        }
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        Object array = array();
+        System.arraycopy(array, toIndex, array, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        inflate();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        inflate();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        inflate();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        inflate();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void clear() {
+        if (inflated) {
+            super.clear();
+        } else {
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (inflated) {
+            return super.indexOf(o);
+        }
+        if (accepts(o)) {
+            for (int i = 0; i < size; i++) {
+                if (matches(i, o)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (inflated) {
+            return super.lastIndexOf(o);
+        }
+        if (accepts(o)) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (matches(i, o)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        if (inflated) {
+            return super.toArray();
+        }
+        Object[] result = new Object[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = element(i);
+        }
+        return result;
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        if (inflated) {
+            return super.toArray(a);
+        }
+        T[] result = a.length >= size ? a : (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+        for (int i = 0; i < size; i++) {
+            result[i] = (T) element(i);
+        }
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return inflated ? super.iterator() : new IndexedListIterator<>(this, 0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return listIterator(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        if (inflated) {
+            return super.listIterator(index);
+        }
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return new IndexedListIterator<>(this, index);
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return inflated ? super.spliterator() : Spliterators.spliterator(this, Spliterator.ORDERED);
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        if (inflated) {
+            super.forEach(action);
+            return;
+        }
+        int expectedModCount = modCount;
+        for (int i = 0; i < size && modCount == expectedModCount; i++) {
+            action.accept(element(i));
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        if (inflated) {
+            return super.subList(fromIndex, toIndex);
+        }
+        subListRangeCheck(fromIndex, toIndex, size);
+        return copyOfRange(fromIndex, toIndex);
+    }
+
+    @Override
+    List<E> range(int fromIndex, int toIndex) {
+        if (inflated) {
+            return super.range(fromIndex, toIndex);
+        }
+        subListRangeCheck(fromIndex, toIndex, size);
+        return new AbstractList<E>() {
+            @Override
+            public E get(int index) {
+                return element(fromIndex + Objects.checkIndex(index, toIndex - fromIndex));
+            }
+
+            @Override
+            public int size() {
+                return toIndex - fromIndex;
+            }
+        };
+    }
+
+    @Override
+    public ExecutionArrayList<E> slice() {
+        return inflated ? super.slice() : copyOfRange(0, size);
+    }
+
+    @Override
+    public ExecutionArrayList<E> slice(int start, int end) {
+        if (inflated) {
+            return super.slice(start, end);
+        }
+        return (ExecutionArrayList<E>) subList(initStartIndex(start, size), initEndIndex(end, size));
+    }
+
+    @Override
+    public void sort(boolean asc) {
+        if (inflated) {
+            super.sort(asc);
+            return;
+        }
+        if (kind == LONG && !isExactInDouble()) {
+            Object[] values = toArray();
+            int[] order = ValueSort.order(values, asc);
+            for (int i = 0; i < size; i++) {
+                longs[i] = (Long) values[order[i]];
+            }
+        } else {
+            switch (kind) {
+                case BYTE:
+                    Arrays.sort(bytes, 0, size);
+                    break;
+                case INT:
+                    Arrays.sort(ints, 0, size);
+                    break;
+                case LONG:
+                    Arrays.sort(longs, 0, size);
+                    break;
+                default:
+                    Arrays.sort(doubles, 0, size);
+            }
+            if (!asc) {
+                reverseArray();
+            }
+        }
+        modCount++;
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c) {
+        if (inflated) {
+            super.sort(c);
+            return;
+        }
+        Object[] values = toArray();
+        Arrays.sort(values, (Comparator<Object>) c);
+        for (int i = 0; i < size; i++) {
+            store(i, values[i]);
+        }
+        modCount++;
+    }
+
+    @Override
+    public void reverse() {
+        if (inflated) {
+            super.reverse();
+        } else {
+            reverseArray();
+        }
+    }
+
+    @Override
+    public List fill(E value, int start, int end) {
+        if (inflated || !accepts(value)) {
+            inflate();
+            return super.fill(value, start, end);
+        }
+        start = initStartIndex(start, size);
+        end = initEndIndex(end, size);
+        for (int i = start; i < end; ++i) {
+            store(i, value);
+        }
+        return this;
+    }
+
+    @Override
+    public void ensureCapacity(int minCapacity) {
+        if (inflated) {
+            super.ensureCapacity(minCapacity);
+        } else {
+            grow(minCapacity);
+        }
+    }
+
+    @Override
+    public void trimToSize() {
+        if (inflated) {
+            super.trimToSize();
+        } else if (size < Array.getLength(array())) {
+            resize(size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (inflated) {
+            return super.equals(o);
+        }
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        Iterator<?> other = ((List<?>) o).iterator();
+        for (int i = 0; i < size; i++) {
+            if (!other.hasNext() || !element(i).equals(other.next())) {
+                return false;
+            }
+        }
+        return !other.hasNext();
+    }
+
+    @Override
+    public int hashCode() {
+        if (inflated) {
+            return super.hashCode();
+        }
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) {
+            hashCode = 31 * hashCode + elementHashCode(i);
+        }
+        return hashCode;
+    }
+
+    @Override
+    public Object clone() {
+        PrimitiveExecutionArrayList<E> clone = (PrimitiveExecutionArrayList<E>) super.clone();
+        if (!inflated) {
+            Object array = array();
+            Object copy = Array.newInstance(array.getClass().getComponentType(), size);
+            System.arraycopy(array, 0, copy, 0, size);
+            clone.setArray(copy);
+        }
+        return clone;
+    }
+
+    @Override
+    public long memorySize() {
+        return inflated ? super.memorySize() : arrayMemorySize;
+    }
+
+    private PrimitiveExecutionArrayList<E> copyOfRange(int from, int to) {
+        Object array = array();
+        Object copy = Array.newInstance(array.getClass().getComponentType(), to - from);
+        System.arraycopy(array, from, copy, 0, to - from);
+        return new PrimitiveExecutionArrayList<>(this.executionContext, kind, copy, to - from);
+    }
+
+    /**
+     * Moves the elements into the storage of {@link ExecutionArrayList}, accounted element by element as it does.
+     */
+    private void inflate() {
+        if (!inflated) {
+            Object[] values = toArray();
+            this.executionContext.onMemoryRemove(this, arrayMemorySize);
+            this.arrayMemorySize = 0;
+            this.inflated = true;
+            setArray(newArray(kind, 0));
+            this.size = 0;
+            super.addAll(Arrays.asList((E[]) values));
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Array.getLength(array());
+        if (minCapacity > capacity) {
+            int newCapacity = Math.max(minCapacity, Math.max(capacity + (capacity >> 1), DEFAULT_CAPACITY));
+            this.arrayMemorySize += this.executionContext.onMemoryAdd(this, (long) (newCapacity - capacity) * ELEMENT_SIZES[kind]);
+            resize(newCapacity);
+        }
+    }
+
+    private void resize(int capacity) {
+        long change = (long) (capacity - Array.getLength(array())) * ELEMENT_SIZES[kind];
+        if (change < 0) {
+            this.arrayMemorySize -= this.executionContext.onMemoryRemove(this, -change);
+        }
+        switch (kind) {
+            case BYTE:
+                bytes = Arrays.copyOf(bytes, capacity);
+                break;
+            case INT:
+                ints = Arrays.copyOf(ints, capacity);
+                break;
+            case LONG:
+                longs = Arrays.copyOf(longs, capacity);
+                break;
+            default:
+                doubles = Arrays.copyOf(doubles, capacity);
+        }
+    }
+
+    private boolean accepts(Object value) {
+        return value != null && value.getClass() == ELEMENT_TYPES[kind];
+    }
+
+    private E element(int index) {
+        switch (kind) {
+            case BYTE:
+                return (E) Byte.valueOf(bytes[index]);
+            case INT:
+                return (E) Boxing.valueOf(ints[index]);
+            case LONG:
+                return (E) Boxing.valueOf(longs[index]);
+            default:
+                return (E) Boxing.valueOf(doubles[index]);
+        }
+    }
+
+    private void store(int index, Object value) {
+        switch (kind) {
+            case BYTE:
+                bytes[index] = (Byte) value;
+                break;
+            case INT:
+                ints[index] = (Integer) value;
+                break;
+            case LONG:
+                longs[index] = (Long) value;
+                break;
+            default:
+                doubles[index] = (Double) value;
+        }
+    }
+
+    /**
+     * Same as {@code element(index).equals(value)} for a value of the element type.
+     */
+    private boolean matches(int index, Object value) {
+        switch (kind) {
+            case BYTE:
+                return bytes[index] == (Byte) value;
+            case INT:
+                return ints[index] == (Integer) value;
+            case LONG:
+                return longs[index] == (Long) value;
+            default:
+                return Double.doubleToLongBits(doubles[index]) == Double.doubleToLongBits((Double) value);
+        }
+    }
+
+    private int elementHashCode(int index) {
+        switch (kind) {
+            case BYTE:
+                return Byte.hashCode(bytes[index]);
+            case INT:
+                return Integer.hashCode(ints[index]);
+            case LONG:
+                return Long.hashCode(longs[index]);
+            default:
+                return Double.hashCode(doubles[index]);
+        }
+    }
+
+    private boolean isExactInDouble() {
+        for (int i = 0; i < size; i++) {
+            if (longs[i] > MAX_EXACT_LONG || longs[i] < -MAX_EXACT_LONG) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reverseArray() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            switch (kind) {
+                case BYTE:
+                    byte b = bytes[i];
+                    bytes[i] = bytes[j];
+                    bytes[j] = b;
+                    break;
+                case INT:
+                    int n = ints[i];
+                    ints[i] = ints[j];
+                    ints[j] = n;
+                    break;
+                case LONG:
+                    long l = longs[i];
+                    longs[i] = longs[j];
+                    longs[j] = l;
+                    break;
+                default:
+                    double d = doubles[i];
+                    doubles[i] = doubles[j];
+                    doubles[j] = d;
+            }
+        }
+    }
+
+    private Object array() {
+        switch (kind) {
+            case BYTE:
+                return bytes;
+            case INT:
+                return ints;
+            case LONG:
+                return longs;
+            default:
+                return doubles;
+        }
+    }
+
+    private void setArray(Object array) {
+        switch (kind) {
+            case BYTE:
+                bytes = (byte[]) array;
+                break;
+            case INT:
+                ints = (int[]) array;
+                break;
+            case LONG:
+                longs = (long[]) array;
+                break;
+            default:
+                doubles = (double[]) array;
+        }
+    }
+
+    private static Object newArray(int kind, int length) {
+        switch (kind) {
+            case BYTE:
+                return new byte[length];
+            case INT:
+                return new int[length];
+            case LONG:
+                return new long[length];
+            default:
+                return new double[length];
+        }
+    }
+
+    private static int kindOf(Object value) {
+        for (int kind = 0; kind < ELEMENT_TYPES.length; kind++) {
+            if (value.getClass() == ELEMENT_TYPES[kind]) {
+                return kind;
+            }
+        }
+        return -1;
+    }
+
+    private static int kindOfArray(Class<?> arrayType) {
+        Class<?> componentType = arrayType.getComponentType();
+        return componentType == byte.class ? BYTE : componentType == int.class ? INT
+                : componentType == long.class ? LONG : componentType == double.class ? DOUBLE : -1;
+    }
+}
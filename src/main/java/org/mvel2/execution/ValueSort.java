@@ -0,0 +1,221 @@
+package org.mvel2.execution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting of script values, as done by {@link ExecutionArrayList#sort(boolean)} and
+ * {@link ExecutionHashMap#sortByValue(boolean)}.
+ * <p>
+ * Values are ordered as numbers if every one of them reads as a {@code double} (the way
+ * {@link Double#parseDouble(String)} reads {@code String.valueOf(value)}), and by their string form otherwise. The key
+ * of each value is extracted once, and the values are then put in order through a stable sort of their indexes, so
+ * comparing two values neither converts nor allocates anything. Large inputs are sorted on the common
+ * {@link ForkJoinPool}.
+ */
+final class ValueSort {
+
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private ValueSort() {
+    }
+
+    /**
+     * Returns the indexes of the given values in sorted order. Equal values keep their relative order.
+     */
+    static int[] order(Object[] values, boolean asc) {
+        int[] indexes = new int[values.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        double[] numbers = numericKeys(values);
+        Keys keys;
+        if (numbers != null) {
+            keys = asc ? (i, j) -> Double.compare(numbers[i], numbers[j]) : (i, j) -> Double.compare(numbers[j], numbers[i]);
+        } else {
+            String[] strings = new String[values.length];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = String.valueOf(values[i]);
+            }
+            keys = asc ? (i, j) -> strings[i].compareTo(strings[j]) : (i, j) -> strings[j].compareTo(strings[i]);
+        }
+        new MergeSort(indexes, new int[indexes.length], keys, 0, indexes.length).sortAll();
+        return indexes;
+    }
+
+    /**
+     * Returns the numeric value of each of the given values, or {@code null} if any of them is not a number.
+     */
+    static double[] numericKeys(Object[] values) {
+        double[] keys = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value instanceof Integer || value instanceof Long || value instanceof Double
+                    || value instanceof Short || value instanceof Byte) {
+                keys[i] = ((Number) value).doubleValue();
+            } else {
+                String s = String.valueOf(value);
+                if (!isNumeric(s)) {
+                    return null;
+                }
+                keys[i] = Double.parseDouble(s);
+            }
+        }
+        return keys;
+    }
+
+    static boolean isNumeric(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Double
+                || value instanceof Short || value instanceof Byte || isNumeric(String.valueOf(value));
+    }
+
+    /**
+     * Tells whether {@link Double#parseDouble(String)} accepts the given string, without having it throw.
+     */
+    static boolean isNumeric(String s) {
+        int start = 0;
+        int end = s.length();
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int i = start;
+        if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            i++;
+        }
+        if (i == end) {
+            return false;
+        }
+        char c = s.charAt(i);
+        if (c == 'N') {
+            return s.startsWith("NaN", i) && i + 3 == end;
+        }
+        if (c == 'I') {
+            return s.startsWith("Infinity", i) && i + 8 == end;
+        }
+        boolean hex = c == '0' && i + 1 < end && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X');
+        if (hex) {
+            i += 2;
+        }
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i), hex)) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(s.charAt(i), hex)) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (hex ? s.charAt(i) == 'p' || s.charAt(i) == 'P' : s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                i++;
+            }
+            int exponentStart = i;
+            while (i < end && isDigit(s.charAt(i), false)) {
+                i++;
+            }
+            if (i == exponentStart) {
+                return false;
+            }
+        } else if (hex) {
+            return false;
+        }
+        if (i < end && "fFdD".indexOf(s.charAt(i)) >= 0) {
+            i++;
+        }
+        return i == end;
+    }
+
+    private static boolean isDigit(char c, boolean hex) {
+        return (c >= '0' && c <= '9') || (hex && ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')));
+    }
+
+    private interface Keys {
+        int compare(int i, int j);
+    }
+
+    /**
+     * Stable merge sort of a range of indexes, splitting into parallel tasks above {@link #PARALLEL_THRESHOLD}.
+     */
+    private static final class MergeSort extends RecursiveAction {
+
+        private final int[] indexes;
+        private final int[] buffer;
+        private final Keys keys;
+        private final int from;
+        private final int to;
+
+        MergeSort(int[] indexes, int[] buffer, Keys keys, int from, int to) {
+            this.indexes = indexes;
+            this.buffer = buffer;
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+        }
+
+        void sortAll() {
+            if (to - from >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+                ForkJoinPool.commonPool().invoke(this);
+            } else {
+                sort(from, to);
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < PARALLEL_THRESHOLD) {
+                sort(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new MergeSort(indexes, buffer, keys, from, mid), new MergeSort(indexes, buffer, keys, mid, to));
+                merge(from, mid, to);
+            }
+        }
+
+        private void sort(int from, int to) {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                for (int i = from + 1; i < to; i++) {
+                    int index = indexes[i];
+                    int j = i - 1;
+                    while (j >= from && keys.compare(indexes[j], index) > 0) {
+                        indexes[j + 1] = indexes[j];
+                        j--;
+                    }
+                    indexes[j + 1] = index;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            sort(from, mid);
+            sort(mid, to);
+            merge(from, mid, to);
+        }
+
+        private void merge(int from, int mid, int to) {
+            if (keys.compare(indexes[mid - 1], indexes[mid]) <= 0) {
+                return;
+            }
+            System.arraycopy(indexes, from, buffer, from, to - from);
+            int i = from;
+            int j = mid;
+            for (int k = from; k < to; k++) {
+                if (j >= to || (i < mid && keys.compare(buffer[i], buffer[j]) <= 0)) {
+                    indexes[k] = buffer[i++];
+                } else {
+                    indexes[k] = buffer[j++];
+                }
+            }
+        }
+    }
+}
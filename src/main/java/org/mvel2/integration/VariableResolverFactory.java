@@ -86,6 +86,29 @@ public interface VariableResolverFactory extends Serializable {
    */
   public VariableResolver getVariableResolver(String name);
 
+  /**
+   * Return a variable resolver for the variable held in the specified slot.  Factories keeping a scope may answer
+   * from the slot; the default resolves the variable by its name.
+   *
+   * @param slot - slot of the variable
+   * @return - instance of the VariableResolver for the specified variable
+   */
+  default VariableResolver getVariableResolver(VariableSlot slot) {
+    return getVariableResolver(slot.getName());
+  }
+
+  /**
+   * Assigns the variable held in the specified slot, creating it if it does not exist, just as
+   * {@link #createVariable(String, Object)} does.
+   *
+   * @param slot  - slot of the variable
+   * @param value - value of the variable
+   * @return instance of the variable resolver associated with the variable
+   */
+  default VariableResolver createVariable(VariableSlot slot, Object value) {
+    return createVariable(slot.getName(), value);
+  }
+
 
   public VariableResolver getIndexedVariableResolver(int index);
 
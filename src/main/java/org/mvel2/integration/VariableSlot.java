@@ -0,0 +1,33 @@
+package org.mvel2.integration;
+
+import java.io.Serializable;
+
+/**
+ * The slot the compiler allocated for a variable name.  Every access to the same name within one compiled script
+ * shares the same slot, so a factory keeping a scope may remember which resolver a slot resolved to, and answer the
+ * next access by its index rather than by walking the chain by name again.
+ *
+ * @see VariableResolverFactory#getVariableResolver(VariableSlot)
+ * @see org.mvel2.ParserContext#getVariableSlot(String)
+ */
+public final class VariableSlot implements Serializable {
+  private final int index;
+  private final String name;
+
+  public VariableSlot(int index, String name) {
+    this.index = index;
+    this.name = name;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String toString() {
+    return name + "#" + index;
+  }
+}
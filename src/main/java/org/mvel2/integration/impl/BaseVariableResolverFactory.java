@@ -32,7 +32,7 @@ import java.util.Set;
  * for the vast majority of integration needs.
  */
 public abstract class BaseVariableResolverFactory implements VariableResolverFactory {
-  protected Map<String, VariableResolver> variableResolvers = new HashMap<String, VariableResolver>();
+  protected Map<String, VariableResolver> variableResolvers;
   protected VariableResolverFactory nextFactory;
 
   protected int indexOffset = 0;
@@ -43,6 +43,20 @@ public abstract class BaseVariableResolverFactory implements VariableResolverFac
 
   private boolean breakFlag;
 
+  public BaseVariableResolverFactory() {
+    this.variableResolvers = new HashMap<String, VariableResolver>();
+  }
+
+  /**
+   * For factories that keep their resolvers elsewhere, or none at all: these are created for every block a script
+   * runs, so they should not allocate a map they never use.
+   *
+   * @param variableResolvers the resolvers of this factory
+   */
+  protected BaseVariableResolverFactory(Map<String, VariableResolver> variableResolvers) {
+    this.variableResolvers = variableResolvers;
+  }
+
   public VariableResolverFactory getNextFactory() {
     return nextFactory;
   }
@@ -55,13 +69,13 @@ public abstract class BaseVariableResolverFactory implements VariableResolverFac
   }
 
   public VariableResolver getVariableResolver(String name) {
-    if (isResolveable(name)) {
-      if (variableResolvers.containsKey(name)) {
-        return variableResolvers.get(name);
-      }
-      else if (nextFactory != null) {
-        return nextFactory.getVariableResolver(name);
-      }
+    // the next factory throws for a variable it cannot resolve, so there is no need to walk the chain
+    // with isResolveable() first
+    if (variableResolvers.containsKey(name)) {
+      return variableResolvers.get(name);
+    }
+    else if (nextFactory != null) {
+      return nextFactory.getVariableResolver(name);
     }
 
     throw new UnresolveablePropertyException("unable to resolve variable '" + name + "'");
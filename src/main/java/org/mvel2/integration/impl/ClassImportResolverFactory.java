@@ -22,6 +22,7 @@ import org.mvel2.ParserConfiguration;
 import org.mvel2.UnresolveablePropertyException;
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
 
 import java.util.*;
 
@@ -32,12 +33,13 @@ public class ClassImportResolverFactory extends BaseVariableResolverFactory {
   private Map<String, Object> dynImports;
   
   public ClassImportResolverFactory(ParserConfiguration pCfg, VariableResolverFactory nextFactory, boolean compiled) {
+      super(Collections.<String, VariableResolver>emptyMap());
       if ( pCfg != null ) {
         if (!compiled) {
           packageImports = pCfg.getPackageImports();
         }
         classLoader =  pCfg.getClassLoader();
-        imports = Collections.unmodifiableMap(pCfg.getImports());        
+        imports = pCfg.getImports();
       } else {
          classLoader =  Thread.currentThread().getContextClassLoader();
         imports = null;
@@ -98,7 +100,23 @@ public class ClassImportResolverFactory extends BaseVariableResolverFactory {
 
   @Override
   public VariableResolver getVariableResolver(String name) {
-    if (isResolveable(name)) {
+    if (packageImports == null && name != null) {
+      // nothing to load on demand, so the next factory may be asked directly: it throws for a variable it cannot
+      // resolve, and probing the chain with isResolveable() first would walk it once per nested block
+      if (imports != null && imports.containsKey(name)) {
+        return new SimpleValueResolver(imports.get(name));
+      }
+      else if (dynImports != null && dynImports.containsKey(name)) {
+        return new SimpleValueResolver(dynImports.get(name));
+      }
+      else if (nextFactory != null) {
+        VariableResolver resolver = nextFactory.getVariableResolver(name);
+        if (resolver != null) {
+          return resolver;
+        }
+      }
+    }
+    else if (isResolveable(name)) {
       if (imports != null && imports.containsKey(name)) {
         return new SimpleValueResolver(imports.get(name));
       }
@@ -113,12 +131,31 @@ public class ClassImportResolverFactory extends BaseVariableResolverFactory {
     throw new UnresolveablePropertyException("unable to resolve variable '" + name + "'");
   }
 
+  @Override
+  public VariableResolver getVariableResolver(VariableSlot slot) {
+    String name = slot.getName();
+    if (packageImports == null && nextFactory != null
+        && (imports == null || !imports.containsKey(name)) && (dynImports == null || !dynImports.containsKey(name))) {
+      return nextFactory.getVariableResolver(slot);
+    }
+    return getVariableResolver(name);
+  }
+
+  @Override
+  public VariableResolver createVariable(VariableSlot slot, Object value) {
+    if (nextFactory == null) {
+      nextFactory = new MapVariableResolverFactory(new HashMap());
+    }
+
+    return nextFactory.createVariable(slot, value);
+  }
+
   public void clear() {
     //   variableResolvers.clear();
   }
 
   public Map<String, Object> getImportedClasses() {
-    return imports;
+    return imports != null ? Collections.unmodifiableMap(imports) : null;
   }
 
   public void addPackageImport(String packageName) {
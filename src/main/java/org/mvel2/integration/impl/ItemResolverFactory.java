@@ -20,12 +20,16 @@ package org.mvel2.integration.impl;
 
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
+
+import java.util.Collections;
 
 
 public class ItemResolverFactory extends BaseVariableResolverFactory {
   private final ItemResolver resolver;
 
   public ItemResolverFactory(ItemResolver resolver, VariableResolverFactory nextFactory) {
+    super(Collections.<String, VariableResolver>emptyMap());
     this.resolver = resolver;
     this.nextFactory = nextFactory;
   }
@@ -53,6 +57,20 @@ public class ItemResolverFactory extends BaseVariableResolverFactory {
     return isTarget(name) ? resolver : nextFactory.getVariableResolver(name);
   }
 
+  public VariableResolver getVariableResolver(VariableSlot slot) {
+    return isTarget(slot.getName()) ? resolver : nextFactory.getVariableResolver(slot);
+  }
+
+  public VariableResolver createVariable(VariableSlot slot, Object value) {
+    if (isTarget(slot.getName())) {
+      resolver.setValue(value);
+      return resolver;
+    }
+    else {
+      return nextFactory.createVariable(slot, value);
+    }
+  }
+
   public boolean isTarget(String name) {
     return resolver.getName().equals(name);
   }
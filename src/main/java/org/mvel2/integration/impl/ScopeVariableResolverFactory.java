@@ -0,0 +1,209 @@
+package org.mvel2.integration.impl;
+
+import org.mvel2.UnresolveablePropertyException;
+import org.mvel2.integration.VariableResolver;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The scope of a loop or a conditional block: it holds the variables created within the block, and keeps a frame of
+ * the resolvers that the {@link VariableSlot}s accessed through it resolved to.
+ * <p>
+ * Resolving a variable by name asks every factory between the block and the one holding the variable, and nested
+ * loops repeat that on every iteration.  A slot resolves by name once per scope, and its frame entry stays valid
+ * until a scope of the same chain creates a variable of that name: the scopes of a chain share a count of the
+ * variables created per name, and an entry is only used while the count it was resolved at is current.
+ * <p>
+ * The other factories of a chain are not watched.  They hold the variables of the script's top level, of function
+ * calls and of the caller, and a variable is always created in the nearest scope, so these only gain variables while
+ * their own code runs, never while a block enclosed by them does.  A factory supplied by the caller that gains
+ * variables by other means, such as a map changed by a method the script calls, may leave a frame holding a variable
+ * it shadows.
+ */
+public class ScopeVariableResolverFactory extends MapVariableResolverFactory {
+  private Versions versions;
+
+  private transient VariableSlot[] slots;
+  private transient VariableResolver[] resolvers;
+  private transient int[][] counts;
+  private transient int[] stamps;
+
+  public ScopeVariableResolverFactory(VariableResolverFactory nextFactory) {
+    this(new HashMap<String, Object>(), nextFactory);
+  }
+
+  public ScopeVariableResolverFactory(Map<String, Object> variables, VariableResolverFactory nextFactory) {
+    super(variables, nextFactory);
+    Versions enclosing = enclosingVersions(nextFactory);
+    this.versions = enclosing != null ? enclosing : new Versions();
+  }
+
+  public VariableResolver getVariableResolver(VariableSlot slot) {
+    int index = slot.getIndex();
+    if (slots != null && index < slots.length && slots[index] == slot && counts[index][0] == stamps[index]) {
+      return resolvers[index];
+    }
+
+    VariableResolver vr = variableResolvers.get(slot.getName());
+    if (vr == null) {
+      if (variables.containsKey(slot.getName())) {
+        vr = getVariableResolver(slot.getName());
+      }
+      else if (nextFactory != null) {
+        vr = nextFactory.getVariableResolver(slot);
+      }
+      else {
+        throw new UnresolveablePropertyException("unable to resolve variable '" + slot.getName() + "'");
+      }
+    }
+    return remember(slot, vr);
+  }
+
+  public VariableResolver createVariable(VariableSlot slot, Object value) {
+    int index = slot.getIndex();
+    if (slots != null && index < slots.length && slots[index] == slot && counts[index][0] == stamps[index]) {
+      VariableResolver vr = resolvers[index];
+      vr.setValue(value);
+      return vr;
+    }
+
+    VariableResolver vr;
+    try {
+      vr = getVariableResolver(slot);
+    }
+    catch (UnresolveablePropertyException e) {
+      addResolver(slot.getName(), vr = new MapVariableResolver(variables, slot.getName()));
+      remember(slot, vr);
+    }
+    vr.setValue(value);
+    return vr;
+  }
+
+  private VariableResolver remember(VariableSlot slot, VariableResolver vr) {
+    if (vr != null) {
+      int index = slot.getIndex();
+      if (slots == null) {
+        slots = new VariableSlot[Math.max(index + 1, 8)];
+        resolvers = new VariableResolver[slots.length];
+        counts = new int[slots.length][];
+        stamps = new int[slots.length];
+      }
+      else if (index >= slots.length) {
+        slots = Arrays.copyOf(slots, index + 8);
+        resolvers = Arrays.copyOf(resolvers, slots.length);
+        counts = Arrays.copyOf(counts, slots.length);
+        stamps = Arrays.copyOf(stamps, slots.length);
+      }
+      int[] count = versions.count(slot.getName());
+      slots[index] = slot;
+      resolvers[index] = vr;
+      counts[index] = count;
+      stamps[index] = count[0];
+    }
+    return vr;
+  }
+
+  /**
+   * Forgets the frame, for the chain it was resolved through has changed.
+   */
+  private void forget() {
+    if (slots != null) {
+      Arrays.fill(slots, null);
+      Arrays.fill(resolvers, null);
+      Arrays.fill(counts, null);
+    }
+  }
+
+  protected VariableResolver addResolver(String name, VariableResolver vr) {
+    // the variable may shadow one that a slot of this scope, or of a scope enclosed by it, resolved to
+    versions.created(name);
+    return super.addResolver(name, vr);
+  }
+
+  public VariableResolverFactory setNextFactory(VariableResolverFactory resolverFactory) {
+    forget();
+    VariableResolverFactory next = super.setNextFactory(resolverFactory);
+    joinEnclosingScope();
+    return next;
+  }
+
+  public void appendFactory(VariableResolverFactory resolverFactory) {
+    forget();
+    super.appendFactory(resolverFactory);
+    joinEnclosingScope();
+  }
+
+  public void insertFactory(VariableResolverFactory resolverFactory) {
+    forget();
+    super.insertFactory(resolverFactory);
+    joinEnclosingScope();
+  }
+
+  public void setVariableResolvers(Map<String, VariableResolver> variableResolvers) {
+    forget();
+    super.setVariableResolvers(variableResolvers);
+  }
+
+  public void clear() {
+    forget();
+    super.clear();
+  }
+
+  /**
+   * Shares the counts of the nearest enclosing scope after the chain changed.  Without one, the counts are kept, as
+   * scopes enclosed by this one may share them already.
+   */
+  private void joinEnclosingScope() {
+    Versions enclosing = enclosingVersions(nextFactory);
+    if (enclosing != null) {
+      versions = enclosing;
+    }
+  }
+
+  private static Versions enclosingVersions(VariableResolverFactory factory) {
+    VariableResolverFactory vrf = factory;
+    while (vrf != null) {
+      if (vrf instanceof ScopeVariableResolverFactory) {
+        return ((ScopeVariableResolverFactory) vrf).versions;
+      }
+      // these answer getNextFactory() for the factory they wrap, which may be a scope itself
+      else if (vrf instanceof StackResetResolverFactory) {
+        vrf = ((StackResetResolverFactory) vrf).getDelegate();
+      }
+      else if (vrf instanceof StackDemarcResolverFactory) {
+        vrf = ((StackDemarcResolverFactory) vrf).getDelegate();
+      }
+      else {
+        vrf = vrf.getNextFactory();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The number of variables created per name by the scopes of one chain.
+   */
+  private static final class Versions implements Serializable {
+    private final HashMap<String, int[]> counts = new HashMap<String, int[]>();
+
+    int[] count(String name) {
+      int[] count = counts.get(name);
+      if (count == null) {
+        counts.put(name, count = new int[1]);
+      }
+      return count;
+    }
+
+    void created(String name) {
+      int[] count = counts.get(name);
+      if (count != null) {
+        count[0]++;
+      }
+    }
+  }
+}
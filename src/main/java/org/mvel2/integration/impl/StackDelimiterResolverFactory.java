@@ -2,6 +2,7 @@ package org.mvel2.integration.impl;
 
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
 
 import java.util.Set;
 
@@ -21,4 +22,8 @@ public class StackDelimiterResolverFactory extends StackDemarcResolverFactory {
     delegate.setNextFactory(nextFactory);
     return resolver;
   }
+
+  public VariableResolver createVariable(VariableSlot slot, Object value) {
+    return createVariable(slot.getName(), value);
+  }
 }
@@ -2,6 +2,7 @@ package org.mvel2.integration.impl;
 
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
 
 import java.util.Set;
 
@@ -49,6 +50,14 @@ public class StackDemarcResolverFactory implements VariableResolverFactory {
     return delegate.getVariableResolver(name);
   }
 
+  public VariableResolver getVariableResolver(VariableSlot slot) {
+    return delegate.getVariableResolver(slot);
+  }
+
+  public VariableResolver createVariable(VariableSlot slot, Object value) {
+    return delegate.createVariable(slot, value);
+  }
+
   public VariableResolver getIndexedVariableResolver(int index) {
     return delegate.getIndexedVariableResolver(index);
   }
@@ -0,0 +1,51 @@
+package org.mvel2.math;
+
+/**
+ * Canonical boxes for the numbers scripts produce most often.
+ * <p>
+ * The JDK only caches {@link Integer} and {@link Long} values between -128 and 127 and never caches {@link Double}.
+ * Script arithmetic routinely yields small counters, indexes and whole-numbered readings beyond that range, so
+ * results between {@link #LOW} and {@link #HIGH} (for doubles: whole numbers in that range) are boxed from shared
+ * caches here instead of being allocated on every operation. Booleans always box to {@link Boolean#TRUE} or
+ * {@link Boolean#FALSE}.
+ */
+public final class Boxing {
+
+  static final int LOW = -128;
+  static final int HIGH = 1023;
+
+  private static final Integer[] INTEGERS = new Integer[HIGH - LOW + 1];
+  private static final Long[] LONGS = new Long[HIGH - LOW + 1];
+  private static final Double[] DOUBLES = new Double[HIGH - LOW + 1];
+
+  static {
+    for (int i = LOW; i <= HIGH; i++) {
+      INTEGERS[i - LOW] = Integer.valueOf(i);
+      LONGS[i - LOW] = Long.valueOf(i);
+      DOUBLES[i - LOW] = Double.valueOf(i);
+    }
+  }
+
+  private Boxing() {
+  }
+
+  public static Integer valueOf(int value) {
+    return value >= LOW && value <= HIGH ? INTEGERS[value - LOW] : Integer.valueOf(value);
+  }
+
+  public static Long valueOf(long value) {
+    return value >= LOW && value <= HIGH ? LONGS[(int) value - LOW] : Long.valueOf(value);
+  }
+
+  public static Double valueOf(double value) {
+    int i = (int) value;
+    if (i == value && i >= LOW && i <= HIGH && (i != 0 || Double.doubleToRawLongBits(value) == 0L)) {
+      return DOUBLES[i - LOW];
+    }
+    return Double.valueOf(value);
+  }
+
+  public static Boolean valueOf(boolean value) {
+    return value ? Boolean.TRUE : Boolean.FALSE;
+  }
+}
@@ -131,16 +131,16 @@ public strictfp class MathProcessor {
     switch (returnType) {
       case DataTypes.W_DOUBLE:
       case DataTypes.DOUBLE:
-        return val.doubleValue();
+        return Boxing.valueOf(val.doubleValue());
       case DataTypes.W_FLOAT:
       case DataTypes.FLOAT:
         return val.floatValue();
       case DataTypes.INTEGER:
       case DataTypes.W_INTEGER:
-        return val.intValue();
+        return Boxing.valueOf(val.intValue());
       case DataTypes.W_LONG:
       case DataTypes.LONG:
-        return val.longValue();
+        return Boxing.valueOf(val.longValue());
       case DataTypes.W_SHORT:
       case DataTypes.SHORT:
         return val.shortValue();
@@ -408,24 +408,24 @@ public strictfp class MathProcessor {
         switch (operation) {
           case ADD:
             l = l + i2;
-            if (l > Integer.MAX_VALUE || l < Integer.MIN_VALUE) return l;
-            else return i1 + i2;
+            if (l > Integer.MAX_VALUE || l < Integer.MIN_VALUE) return Boxing.valueOf(l);
+            else return Boxing.valueOf(i1 + i2);
           case SUB:
             l = l - i2;
-            if (l > Integer.MAX_VALUE || l < Integer.MIN_VALUE) return l;
-            else return i1 - i2;
+            if (l > Integer.MAX_VALUE || l < Integer.MIN_VALUE) return Boxing.valueOf(l);
+            else return Boxing.valueOf(i1 - i2);
           case DIV:
-            return toDouble(val1) / toInteger(val2);
+            return Boxing.valueOf(toDouble(val1) / toInteger(val2));
           case MULT:
             l = l * i2;
-            if (l > Integer.MAX_VALUE || l < Integer.MIN_VALUE) return l;
-            else return i1 * i2;
+            if (l > Integer.MAX_VALUE || l < Integer.MIN_VALUE) return Boxing.valueOf(l);
+            else return Boxing.valueOf(i1 * i2);
           case POWER:
             double d = Math.pow(toInteger(val1), toInteger(val2));
             if (d > Integer.MAX_VALUE) return d;
             else return (int) d;
           case MOD:
-            return toInteger(val1) % toInteger(val2);
+            return Boxing.valueOf(toInteger(val1) % toInteger(val2));
           case GTHAN:
             return val1 != null && val2 != null && toInteger(val1) > toInteger(val2);
           case GETHAN:
@@ -554,19 +554,19 @@ public strictfp class MathProcessor {
       case DataTypes.W_LONG:
         switch (operation) {
           case ADD:
-            return toLong(val1) + toLong(val2);
+            return Boxing.valueOf(toLong(val1) + toLong(val2));
           case SUB:
-            return toLong(val1) - toLong(val2);
+            return Boxing.valueOf(toLong(val1) - toLong(val2));
           case DIV:
-            return toDouble(val1) / toDouble(val2);
+            return Boxing.valueOf(toDouble(val1) / toDouble(val2));
           case MULT:
-            return toLong(val1) * toLong(val2);
+            return Boxing.valueOf(toLong(val1) * toLong(val2));
           case POWER:
             double d = Math.pow(toLong(val1), toLong(val2));
             if (d > Long.MAX_VALUE) return d;
             else return (long) d;
           case MOD:
-            return toLong(val1) % toLong(val2);
+            return Boxing.valueOf(toLong(val1) % toLong(val2));
           case GTHAN:
             return val1 != null && val2 != null && toLong(val1) > toLong(val2);
           case GETHAN:
@@ -609,17 +609,17 @@ public strictfp class MathProcessor {
       case DataTypes.W_DOUBLE:
         switch (operation) {
           case ADD:
-            return toDouble(val1) + toDouble(val2);
+            return Boxing.valueOf(toDouble(val1) + toDouble(val2));
           case SUB:
-            return toDouble(val1) - toDouble(val2);
+            return Boxing.valueOf(toDouble(val1) - toDouble(val2));
           case DIV:
-            return toDouble(val1) / toDouble(val2);
+            return Boxing.valueOf(toDouble(val1) / toDouble(val2));
           case MULT:
-            return toDouble(val1) * toDouble(val2);
+            return Boxing.valueOf(toDouble(val1) * toDouble(val2));
           case POWER:
-            return Math.pow(toDouble(val1), toDouble(val2));
+            return Boxing.valueOf(Math.pow(toDouble(val1), toDouble(val2)));
           case MOD:
-            return toDouble(val1) % toDouble(val2);
+            return Boxing.valueOf(toDouble(val1) % toDouble(val2));
           case GTHAN:
             return val1 != null && val2 != null && toDouble(val1) > toDouble(val2);
           case GETHAN:
@@ -0,0 +1,306 @@
+package org.mvel2.math;
+
+import java.io.Serializable;
+
+import static org.mvel2.DataTypes.W_DOUBLE;
+import static org.mvel2.DataTypes.W_INTEGER;
+import static org.mvel2.DataTypes.W_LONG;
+import static org.mvel2.Operator.ADD;
+import static org.mvel2.Operator.DIV;
+import static org.mvel2.Operator.EQUAL;
+import static org.mvel2.Operator.GETHAN;
+import static org.mvel2.Operator.GTHAN;
+import static org.mvel2.Operator.LETHAN;
+import static org.mvel2.Operator.LTHAN;
+import static org.mvel2.Operator.MOD;
+import static org.mvel2.Operator.MULT;
+import static org.mvel2.Operator.NEQUAL;
+import static org.mvel2.Operator.POWER;
+import static org.mvel2.Operator.SUB;
+import static org.mvel2.math.Boxing.valueOf;
+
+/**
+ * Type-specialized arithmetic for a single operation site, such as a binary operation or a compound assignment.
+ * <p>
+ * A site is specialized for one combination of {@link Integer}, {@link Long} and {@link Double} operands. The
+ * combination is taken from the operand types known at compile time or, failing that, from the operands of the
+ * first execution. Later executions only check the operand classes against it and then compute on primitives,
+ * skipping the data type resolution of {@link MathProcessor} and the detour through {@code double} it takes for
+ * mixed operands. Operands that do not match go through {@link MathProcessor}, and the site stays generic from then
+ * on. Results are the same as those of {@link MathProcessor}, including the promotion of overflowing {@code int}
+ * results to {@code long}.
+ */
+public final class PrimitiveArithmetic implements Serializable {
+
+  static final int UNSELECTED = 0;
+  static final int GENERIC = 1;
+  static final int INT = 2;
+  static final int LONG = 3;
+  static final int DOUBLE = 4;
+  static final int INT_LONG = 5;
+  static final int WIDENED_DOUBLE = 6;
+
+  private static final int I = 1;
+  private static final int L = 2;
+  private static final int D = 4;
+
+  /**
+   * The data type that {@link org.mvel2.util.ParseTools#__resolveType(Class)} gives for each operand type.
+   */
+  private static final int[] DATA_TYPES = {-2, W_INTEGER, W_LONG, -2, W_DOUBLE};
+
+  private final int operation;
+
+  private int kind;
+
+  public PrimitiveArithmetic(int operation) {
+    this.operation = operation;
+    this.kind = isSupported(operation) ? UNSELECTED : GENERIC;
+  }
+
+  /**
+   * Creates a site whose operands are declared with the given {@link org.mvel2.DataTypes} codes, as passed to
+   * {@link MathProcessor#doOperations(int, Object, int, int, Object)}. A code below 1 means the type is not known.
+   */
+  public PrimitiveArithmetic(int operation, int type1, int type2) {
+    this(operation);
+    if (kind == UNSELECTED && type1 > 0 && type2 > 0) {
+      int known = combine(typeOf(type1), typeOf(type2));
+      if (known != GENERIC) {
+        kind = known;
+      }
+    }
+  }
+
+  /**
+   * Same as {@link MathProcessor#doOperations(Object, int, Object)} for this site's operation.
+   */
+  public Object doOperations(Object val1, Object val2) {
+    int k = specialize(0, val1, 0, val2);
+    return k == GENERIC ? MathProcessor.doOperations(val1, operation, val2) : compute(k, operation, val1, val2);
+  }
+
+  /**
+   * Same as {@link MathProcessor#doOperations(Object, int, int, Object)} for this site's operation.
+   */
+  public Object doOperations(Object val1, int type2, Object val2) {
+    int k = specialize(0, val1, type2, val2);
+    return k == GENERIC ? MathProcessor.doOperations(val1, operation, type2, val2) : compute(k, operation, val1, val2);
+  }
+
+  /**
+   * Same as {@link MathProcessor#doOperations(int, Object, int, int, Object)} for this site's operation.
+   */
+  public Object doOperations(int type1, Object val1, int type2, Object val2) {
+    int k = specialize(type1, val1, type2, val2);
+    return k == GENERIC ? MathProcessor.doOperations(type1, val1, operation, type2, val2) : compute(k, operation, val1, val2);
+  }
+
+  boolean isGeneric() {
+    return kind == GENERIC;
+  }
+
+  int getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the specialization to use for the given operands, or {@link #GENERIC}. A declared type that differs from
+   * the one of its operand makes {@link MathProcessor} take another path, so such operands are left to it.
+   */
+  private int specialize(int type1, Object val1, int type2, Object val2) {
+    int k = kind;
+    if (k == GENERIC) {
+      return GENERIC;
+    }
+    int t1 = typeOf(val1);
+    int t2 = typeOf(val2);
+    int actual = (type1 > 0 && type1 != DATA_TYPES[t1]) || (type2 > 0 && type2 != DATA_TYPES[t2])
+        ? GENERIC : combine(t1, t2);
+    if (actual != k) {
+      kind = k = k == UNSELECTED ? actual : GENERIC;
+      if (k != actual) {
+        return GENERIC;
+      }
+    }
+    return k;
+  }
+
+  private static boolean isSupported(int operation) {
+    switch (operation) {
+      case ADD:
+      case SUB:
+      case MULT:
+      case DIV:
+      case MOD:
+      case POWER:
+      case GTHAN:
+      case GETHAN:
+      case LTHAN:
+      case LETHAN:
+      case EQUAL:
+      case NEQUAL:
+        return true;
+    }
+    return false;
+  }
+
+  private static int typeOf(Object val) {
+    return val instanceof Integer ? I : val instanceof Long ? L : val instanceof Double ? D : 0;
+  }
+
+  private static int typeOf(int dataType) {
+    for (int t = 1; t < DATA_TYPES.length; t++) {
+      if (DATA_TYPES[t] == dataType) return t;
+    }
+    return 0;
+  }
+
+  private static int combine(int type1, int type2) {
+    switch (type1 | type2) {
+      case I:
+        return type1 == 0 || type2 == 0 ? GENERIC : INT;
+      case L:
+        return type1 == 0 || type2 == 0 ? GENERIC : LONG;
+      case D:
+        return type1 == 0 || type2 == 0 ? GENERIC : DOUBLE;
+      case I | L:
+        return INT_LONG;
+      case I | D:
+      case L | D:
+        return WIDENED_DOUBLE;
+    }
+    return GENERIC;
+  }
+
+  private static Object compute(int kind, int operation, Object val1, Object val2) {
+    switch (kind) {
+      case INT:
+        return intOperation(operation, (Integer) val1, (Integer) val2);
+      case LONG:
+        return longOperation(operation, (Long) val1, (Long) val2);
+      case DOUBLE:
+        return doubleOperation(operation, (Double) val1, (Double) val2);
+      case INT_LONG:
+        return intLongOperation(operation, ((Number) val1).longValue(), ((Number) val2).longValue());
+      default:
+        return doubleOperation(operation, ((Number) val1).doubleValue(), ((Number) val2).doubleValue());
+    }
+  }
+
+  private static Object intOperation(int operation, int i1, int i2) {
+    long l;
+    switch (operation) {
+      case ADD:
+        l = (long) i1 + i2;
+        return l == (int) l ? (Object) valueOf((int) l) : (Object) valueOf(l);
+      case SUB:
+        l = (long) i1 - i2;
+        return l == (int) l ? (Object) valueOf((int) l) : (Object) valueOf(l);
+      case MULT:
+        l = (long) i1 * i2;
+        return l == (int) l ? (Object) valueOf((int) l) : (Object) valueOf(l);
+      case DIV:
+        return valueOf((double) i1 / i2);
+      case MOD:
+        return valueOf(i1 % i2);
+      case POWER:
+        double d = Math.pow(i1, i2);
+        return d > Integer.MAX_VALUE ? (Object) valueOf(d) : (Object) valueOf((int) d);
+      case GTHAN:
+        return i1 > i2;
+      case GETHAN:
+        return i1 >= i2;
+      case LTHAN:
+        return i1 < i2;
+      case LETHAN:
+        return i1 <= i2;
+      case EQUAL:
+        return i1 == i2;
+      default:
+        return i1 != i2;
+    }
+  }
+
+  private static Object longOperation(int operation, long l1, long l2) {
+    switch (operation) {
+      case ADD:
+        return valueOf(l1 + l2);
+      case SUB:
+        return valueOf(l1 - l2);
+      case MULT:
+        return valueOf(l1 * l2);
+      case DIV:
+        return valueOf((double) l1 / (double) l2);
+      case MOD:
+        return valueOf(l1 % l2);
+      case POWER:
+        double d = Math.pow(l1, l2);
+        return d > Long.MAX_VALUE ? (Object) valueOf(d) : (Object) valueOf((long) d);
+      case GTHAN:
+        return l1 > l2;
+      case GETHAN:
+        return l1 >= l2;
+      case LTHAN:
+        return l1 < l2;
+      case LETHAN:
+        return l1 <= l2;
+      case EQUAL:
+        return l1 == l2;
+      default:
+        return l1 != l2;
+    }
+  }
+
+  /**
+   * Mixed {@code int} and {@code long} operands. {@link MathProcessor} computes these in {@code double} and narrows
+   * the result to {@code long}, which is kept here so that results do not depend on the path taken.
+   */
+  private static Object intLongOperation(int operation, long l1, long l2) {
+    switch (operation) {
+      case ADD:
+        return valueOf((long) ((double) l1 + (double) l2));
+      case SUB:
+        return valueOf((long) ((double) l1 - (double) l2));
+      case MULT:
+        return valueOf((long) ((double) l1 * (double) l2));
+      case DIV:
+        return valueOf((long) ((double) l1 / (double) l2));
+      case MOD:
+        return valueOf((long) ((double) l1 % (double) l2));
+      case POWER:
+        return valueOf((long) Math.pow(l1, l2));
+      default:
+        return doubleOperation(operation, l1, l2);
+    }
+  }
+
+  private static Object doubleOperation(int operation, double d1, double d2) {
+    switch (operation) {
+      case ADD:
+        return valueOf(d1 + d2);
+      case SUB:
+        return valueOf(d1 - d2);
+      case MULT:
+        return valueOf(d1 * d2);
+      case DIV:
+        return valueOf(d1 / d2);
+      case MOD:
+        return valueOf(d1 % d2);
+      case POWER:
+        return valueOf(Math.pow(d1, d2));
+      case GTHAN:
+        return d1 > d2;
+      case GETHAN:
+        return d1 >= d2;
+      case LTHAN:
+        return d1 < d2;
+      case LETHAN:
+        return d1 <= d2;
+      case EQUAL:
+        return d1 == d2;
+      default:
+        return d1 != d2;
+    }
+  }
+}
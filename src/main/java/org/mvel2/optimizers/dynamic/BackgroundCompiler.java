@@ -0,0 +1,102 @@
+package org.mvel2.optimizers.dynamic;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single daemon thread finishing the compilation of hot dynamic accessors off the threads executing expressions.
+ * The bytecode of an accessor is generated by the executing thread when the accessor gets hot; this thread computes
+ * its frames and defines and verifies its classes.
+ * <p>
+ * The queue is bounded; when it is full, compilation requests are rejected and the accessors keep using their
+ * reflective accessors. Compile times are recorded in a histogram with the bucket bounds given by
+ * {@link #getCompileTimeBuckets()}.
+ */
+public final class BackgroundCompiler {
+  public static final int QUEUE_CAPACITY = 1024;
+
+  private static final long[] BUCKETS = {100000L, 1000000L, 10000000L, 100000000L};
+
+  private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), r -> {
+        Thread thread = new Thread(r, "mvel-background-compiler");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private static final LongAdder[] histogram = new LongAdder[BUCKETS.length + 1];
+  private static final LongAdder rejected = new LongAdder();
+
+  static {
+    for (int i = 0; i < histogram.length; i++) {
+      histogram[i] = new LongAdder();
+    }
+  }
+
+  private BackgroundCompiler() {
+  }
+
+  /**
+   * Queues the given compilation, returning {@code false} if the queue is full.
+   */
+  static boolean submit(Runnable compilation) {
+    try {
+      executor.execute(() -> {
+        long start = System.nanoTime();
+        try {
+          compilation.run();
+        }
+        finally {
+          record(System.nanoTime() - start);
+        }
+      });
+      return true;
+    }
+    catch (RejectedExecutionException e) {
+      rejected.increment();
+      return false;
+    }
+  }
+
+  private static void record(long nanos) {
+    int i = 0;
+    while (i < BUCKETS.length && nanos >= BUCKETS[i]) {
+      i++;
+    }
+    histogram[i].increment();
+  }
+
+  public static int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public static long getCompletedCount() {
+    return executor.getCompletedTaskCount();
+  }
+
+  public static long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Returns the upper bounds, in nanoseconds, of all but the last bucket of the compile time histogram.
+   */
+  public static long[] getCompileTimeBuckets() {
+    return BUCKETS.clone();
+  }
+
+  /**
+   * Returns the number of compilations per bucket; the last bucket counts the compilations that took at least as
+   * long as the last bound.
+   */
+  public static long[] getCompileTimeHistogram() {
+    long[] counts = new long[histogram.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = histogram[i].sum();
+    }
+    return counts;
+  }
+}
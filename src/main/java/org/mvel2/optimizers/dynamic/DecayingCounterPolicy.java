@@ -0,0 +1,86 @@
+package org.mvel2.optimizers.dynamic;
+
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * Tiering policy based on an invocation count that decays exponentially over time.
+ * <p>
+ * An accessor is compiled once its decayed invocation count exceeds the threshold. A steady load is therefore
+ * compiled as soon as it exceeds roughly {@code threshold * ln 2 / halfLife} invocations per millisecond, however
+ * long it takes to get there, while the same number of invocations spread over a long time is not. The clock is
+ * only read every {@code threshold / 8} invocations, or when the threshold may have been exceeded, rather than on
+ * every call.
+ */
+public class DecayingCounterPolicy implements TieringPolicy {
+  public static final long DEFAULT_HALF_LIFE = 10000;
+
+  private final int threshold;
+  private final long halfLife;
+  private final boolean backgroundCompilation;
+
+  /**
+   * Creates a policy with {@link DynamicOptimizer#tenuringThreshold} as threshold and the default half-life.
+   */
+  public DecayingCounterPolicy() {
+    this(-1, DEFAULT_HALF_LIFE);
+  }
+
+  /**
+   * @param threshold decayed number of invocations an accessor has to exceed to be compiled
+   * @param halfLife  time in milliseconds after which a recorded invocation counts for half
+   */
+  public DecayingCounterPolicy(int threshold, long halfLife) {
+    this(threshold, halfLife, false);
+  }
+
+  /**
+   * @param threshold             decayed number of invocations an accessor has to exceed to be compiled
+   * @param halfLife              time in milliseconds after which a recorded invocation counts for half
+   * @param backgroundCompilation whether hot accessors are compiled on the {@link BackgroundCompiler}
+   */
+  public DecayingCounterPolicy(int threshold, long halfLife, boolean backgroundCompilation) {
+    if (halfLife <= 0) {
+      throw new IllegalArgumentException("halfLife must be positive: " + halfLife);
+    }
+    this.threshold = threshold;
+    this.halfLife = halfLife;
+    this.backgroundCompilation = backgroundCompilation;
+  }
+
+  public Counter newCounter() {
+    return new DecayingCounter(threshold < 0 ? DynamicOptimizer.tenuringThreshold : threshold, halfLife);
+  }
+
+  @Override
+  public boolean isBackgroundCompilation() {
+    return backgroundCompilation;
+  }
+
+  static final class DecayingCounter implements Counter {
+    private final int threshold;
+    private final int checkInterval;
+    private final double halfLife;
+
+    private double count;
+    private int pending;
+    private long stamp;
+
+    DecayingCounter(int threshold, long halfLife) {
+      this.threshold = threshold;
+      this.checkInterval = Math.max(1, threshold / 8);
+      this.halfLife = halfLife;
+      this.stamp = currentTimeMillis();
+    }
+
+    public boolean hit() {
+      if (++pending < checkInterval && count + pending <= threshold) {
+        return false;
+      }
+      long now = currentTimeMillis();
+      count = count * Math.pow(0.5, (now - stamp) / halfLife) + pending;
+      pending = 0;
+      stamp = now;
+      return count > threshold;
+    }
+  }
+}
@@ -20,13 +20,15 @@ package org.mvel2.optimizers.dynamic;
 
 import org.mvel2.util.MVELClassLoader;
 
-import java.util.LinkedList;
-
-
+/**
+ * @deprecated {@link DynamicOptimizer} no longer installs this loader. Generated accessor classes are defined in class
+ * loaders of their own and unloaded together with the accessors using them, see
+ * {@link org.mvel2.optimizers.impl.asm.GeneratedClasses}, so accessors are no longer registered and recycled here.
+ */
+@Deprecated
 public class DynamicClassLoader extends ClassLoader implements MVELClassLoader {
   private int totalClasses;
   private int tenureLimit;
-  private final LinkedList<DynamicAccessor> allAccessors = new LinkedList<DynamicAccessor>();
 
   public DynamicClassLoader(ClassLoader classLoader, int tenureLimit) {
     super(classLoader);
@@ -42,27 +44,18 @@ public class DynamicClassLoader extends ClassLoader implements MVELClassLoader {
     return totalClasses;
   }
 
+  /**
+   * Returns the given accessor; accessors are no longer tracked, as they are not recycled.
+   */
   public DynamicAccessor registerDynamicAccessor(DynamicAccessor accessor) {
-    synchronized (allAccessors) {
-      allAccessors.add(accessor);
-      while (allAccessors.size() > tenureLimit) {
-        DynamicAccessor da = allAccessors.removeFirst();
-        if (da != null) {
-          da.deoptimize();
-        }
-      }
-      assert accessor != null;
-      return accessor;
-    }
+    assert accessor != null;
+    return accessor;
   }
 
+  /**
+   * Does nothing, as no accessors are registered.
+   */
   public void deoptimizeAll() {
-    synchronized (allAccessors) {
-      for (DynamicAccessor a : allAccessors) {
-        if (a != null) a.deoptimize();
-      }
-      allAccessors.clear();
-    }
   }
 
   public boolean isOverloaded() {
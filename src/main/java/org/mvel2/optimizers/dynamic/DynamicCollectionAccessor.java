@@ -22,8 +22,7 @@ import org.mvel2.ParserContext;
 import org.mvel2.compiler.Accessor;
 import org.mvel2.integration.VariableResolverFactory;
 import org.mvel2.optimizers.OptimizerFactory;
-
-import static java.lang.System.currentTimeMillis;
+import org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer;
 
 public class DynamicCollectionAccessor implements DynamicAccessor {
   private ParserContext pCtx;
@@ -34,15 +33,17 @@ public class DynamicCollectionAccessor implements DynamicAccessor {
   private int start;
   private int offset;
 
-  private long stamp;
   private int type;
 
-  private int runcount;
+  private final TieringPolicy tieringPolicy;
+  private TieringPolicy.Counter counter;
 
   private boolean opt = false;
 
   private Accessor _safeAccessor;
-  private Accessor _accessor;
+  private volatile Accessor _accessor;
+  // bumped by deoptimize(), so that a compilation queued before is not installed afterwards
+  private volatile int generation;
 
   public DynamicCollectionAccessor(ParserContext pCtx, Object rootObject, Class colType, char[] property, int start, int offset, int type, Accessor _accessor) {
     this.pCtx = pCtx;
@@ -55,21 +56,18 @@ public class DynamicCollectionAccessor implements DynamicAccessor {
     this.start = start;
     this.offset = offset;
 
-    stamp = currentTimeMillis();
+    this.tieringPolicy = DynamicOptimizer.getTieringPolicy(pCtx);
+    this.counter = tieringPolicy.newCounter();
   }
 
   public Object getValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory) {
-    if (!opt) {
-      if (++runcount > DynamicOptimizer.tenuringThreshold) {
-        if ((currentTimeMillis() - stamp) < DynamicOptimizer.timeSpan) {
-          opt = true;
-
-          return optimize(pCtx, ctx, elCtx, variableFactory);
-        }
-        else {
-          runcount = 0;
-          stamp = currentTimeMillis();
-        }
+    if (!opt && counter.hit()) {
+      if (DynamicOptimizer.isOverloaded()) {
+        backOff();
+      }
+      else {
+        opt = true;
+        return optimize(pCtx, ctx, elCtx, variableFactory);
       }
     }
 
@@ -77,35 +75,53 @@ public class DynamicCollectionAccessor implements DynamicAccessor {
   }
 
   public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
-    runcount++;
+    counter.hit();
     return _accessor.setValue(ctx, elCtx, variableFactory, value);
   }
 
   private Object optimize(ParserContext pCtx, Object ctx, Object elCtx, VariableResolverFactory variableResolverFactory) {
-
-    if (DynamicOptimizer.isOverloaded()) {
-      DynamicOptimizer.enforceTenureLimit();
+    ASMAccessorOptimizer ao = (ASMAccessorOptimizer) OptimizerFactory.getAccessorCompiler("ASM");
+    if (tieringPolicy.isBackgroundCompilation()) {
+      ao.deferClassDefinition();
+      Accessor compiled = ao.optimizeCollection(pCtx, rootObject, colType, property, start, offset, ctx, elCtx,
+          variableResolverFactory);
+      int generation = this.generation;
+      if (!DynamicOptimizer.compileInBackground(tieringPolicy, ao, compiled,
+          defined -> installDefined(defined, generation), property, start, offset)) {
+        backOff();
+      }
+    }
+    else {
+      _accessor = ao.optimizeCollection(pCtx, rootObject, colType, property, start, offset, ctx, elCtx,
+          variableResolverFactory);
+      DynamicOptimizer.promoted(tieringPolicy, property, start, offset);
     }
-
-    _accessor = OptimizerFactory.getAccessorCompiler("ASM").optimizeCollection(pCtx, rootObject, colType,
-        property, start, offset, ctx, elCtx, variableResolverFactory);
     return _accessor.getValue(ctx, elCtx, variableResolverFactory);
   }
 
-
-  public void deoptimize() {
-    this._accessor = this._safeAccessor;
-    opt = false;
-    runcount = 0;
-    stamp = currentTimeMillis();
+  private synchronized boolean installDefined(Accessor defined, int generation) {
+    if (generation != this.generation) {
+      return false;
+    }
+    _accessor = defined;
+    return true;
   }
 
-  public long getStamp() {
-    return stamp;
+  /**
+   * Starts counting afresh, so that an accessor that cannot be compiled right now does not try again on every call.
+   */
+  private void backOff() {
+    opt = false;
+    counter = tieringPolicy.newCounter();
   }
 
-  public int getRuncount() {
-    return runcount;
+  public void deoptimize() {
+    synchronized (this) {
+      generation++;
+      this._accessor = this._safeAccessor;
+    }
+    backOff();
+    DynamicOptimizer.deoptimized(tieringPolicy, property, start, offset);
   }
 
   public Class getKnownEgressType() {
@@ -21,28 +21,28 @@ package org.mvel2.optimizers.dynamic;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.Accessor;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.optimizers.AccessorOptimizer;
 import org.mvel2.optimizers.OptimizationNotSupported;
 import org.mvel2.optimizers.OptimizerFactory;
-
-import static java.lang.System.currentTimeMillis;
+import org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer;
 
 public class DynamicGetAccessor implements DynamicAccessor {
   private char[] expr;
   private int start;
   private int offset;
 
-  private long stamp;
   private int type;
 
-  private int runcount;
+  private final TieringPolicy tieringPolicy;
+  private TieringPolicy.Counter counter;
 
   private boolean opt = false;
 
   private ParserContext pCtx;
 
   private Accessor _safeAccessor;
-  private Accessor _accessor;
+  private volatile Accessor _accessor;
+  // bumped by deoptimize(), so that a compilation queued before is not installed afterwards
+  private volatile int generation;
 
   public DynamicGetAccessor(ParserContext pCtx, char[] expr, int start, int offset, int type, Accessor _accessor) {
     this._safeAccessor = this._accessor = _accessor;
@@ -53,24 +53,23 @@ public class DynamicGetAccessor implements DynamicAccessor {
     this.offset = offset;
 
     this.pCtx = pCtx;
-    stamp = currentTimeMillis();
+    this.tieringPolicy = DynamicOptimizer.getTieringPolicy(pCtx);
+    this.counter = tieringPolicy.newCounter();
   }
 
   public Object getValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory) {
-    if (!opt) {
-      if (++runcount > DynamicOptimizer.tenuringThreshold) {
-        if ((currentTimeMillis() - stamp) < DynamicOptimizer.timeSpan) {
-          opt = true;
-          try{
-            return optimize(ctx, elCtx, variableFactory);
-          }
-          catch(OptimizationNotSupported ex){
-        	  // If optimization fails then, rather than fail evaluation, fallback to use safe reflective accessor
-          }
+    if (!opt && counter.hit()) {
+      if (DynamicOptimizer.isOverloaded()) {
+        backOff();
+      }
+      else {
+        opt = true;
+        try{
+          return optimize(ctx, elCtx, variableFactory);
         }
-        else {
-          runcount = 0;
-          stamp = currentTimeMillis();
+        catch(OptimizationNotSupported ex){
+          // If optimization fails then, rather than fail evaluation, fallback to use safe reflective accessor
+          DynamicOptimizer.promotionFailed(tieringPolicy, expr, start, offset, ex);
         }
       }
     }
@@ -79,44 +78,72 @@ public class DynamicGetAccessor implements DynamicAccessor {
   }
 
   public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
-    runcount++;
+    counter.hit();
     return _accessor.setValue(ctx, elCtx, variableFactory, value);
   }
 
   private Object optimize(Object ctx, Object elCtx, VariableResolverFactory variableResolverFactory) {
-
-    if (DynamicOptimizer.isOverloaded()) {
-      DynamicOptimizer.enforceTenureLimit();
+    ASMAccessorOptimizer ao = (ASMAccessorOptimizer) OptimizerFactory.getAccessorCompiler("ASM");
+    boolean background = tieringPolicy.isBackgroundCompilation();
+    if (background) {
+      ao.deferClassDefinition();
     }
 
-    AccessorOptimizer ao = OptimizerFactory.getAccessorCompiler("ASM");
+    Accessor compiled;
     switch (type) {
       case DynamicOptimizer.REGULAR_ACCESSOR:
-        _accessor = ao.optimizeAccessor(pCtx, expr, start, offset, ctx, elCtx, variableResolverFactory, false, null);
+        compiled = ao.optimizeAccessor(pCtx, expr, start, offset, ctx, elCtx, variableResolverFactory, false, null);
+        install(ao, compiled, background);
         return ao.getResultOptPass();
       case DynamicOptimizer.OBJ_CREATION:
-        _accessor = ao.optimizeObjectCreation(pCtx, expr, start, offset, ctx, elCtx, variableResolverFactory);
+        compiled = ao.optimizeObjectCreation(pCtx, expr, start, offset, ctx, elCtx, variableResolverFactory);
+        install(ao, compiled, background);
         return _accessor.getValue(ctx, elCtx, variableResolverFactory);
       case DynamicOptimizer.COLLECTION:
-        _accessor = ao.optimizeCollection(pCtx, ctx, null, expr, start, offset, ctx, elCtx, variableResolverFactory);
+        compiled = ao.optimizeCollection(pCtx, ctx, null, expr, start, offset, ctx, elCtx, variableResolverFactory);
+        install(ao, compiled, background);
         return _accessor.getValue(ctx, elCtx, variableResolverFactory);
     }
     return null;
   }
 
-  public void deoptimize() {
-    this._accessor = this._safeAccessor;
-    opt = false;
-    runcount = 0;
-    stamp = currentTimeMillis();
+  private void install(ASMAccessorOptimizer ao, Accessor compiled, boolean background) {
+    if (!background) {
+      _accessor = compiled;
+      DynamicOptimizer.promoted(tieringPolicy, expr, start, offset);
+    }
+    else {
+      int generation = this.generation;
+      if (!DynamicOptimizer.compileInBackground(tieringPolicy, ao, compiled,
+          defined -> installDefined(defined, generation), expr, start, offset)) {
+        backOff();
+      }
+    }
   }
 
-  public long getStamp() {
-    return stamp;
+  private synchronized boolean installDefined(Accessor defined, int generation) {
+    if (generation != this.generation) {
+      return false;
+    }
+    _accessor = defined;
+    return true;
   }
 
-  public int getRuncount() {
-    return runcount;
+  /**
+   * Starts counting afresh, so that an accessor that cannot be compiled right now does not try again on every call.
+   */
+  private void backOff() {
+    opt = false;
+    counter = tieringPolicy.newCounter();
+  }
+
+  public void deoptimize() {
+    synchronized (this) {
+      generation++;
+      this._accessor = this._safeAccessor;
+    }
+    backOff();
+    DynamicOptimizer.deoptimized(tieringPolicy, expr, start, offset);
   }
 
   public Class getKnownEgressType() {
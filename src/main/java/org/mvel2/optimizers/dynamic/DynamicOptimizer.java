@@ -24,112 +24,165 @@ import org.mvel2.compiler.Accessor;
 import org.mvel2.integration.VariableResolverFactory;
 import org.mvel2.optimizers.AbstractOptimizer;
 import org.mvel2.optimizers.AccessorOptimizer;
+import org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer;
+import org.mvel2.optimizers.impl.asm.GeneratedClasses;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
 
-import static java.lang.Thread.currentThread;
 import static org.mvel2.optimizers.OptimizerFactory.SAFE_REFLECTIVE;
 import static org.mvel2.optimizers.OptimizerFactory.getAccessorCompiler;
-import static org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer.setMVELClassLoader;
 
 public class DynamicOptimizer extends AbstractOptimizer implements AccessorOptimizer {
   private AccessorOptimizer firstStage = getAccessorCompiler(SAFE_REFLECTIVE);
 
-  private static final Object oLock = new Object();
-  private volatile static DynamicClassLoader classLoader;
+  /**
+   * Invocation threshold of the default {@link DecayingCounterPolicy}.
+   */
   public static int tenuringThreshold = 50;
-  public static long timeSpan = 100;
+  /**
+   * Maximum number of live generated accessor classes. Generated classes are unloaded together with the accessors
+   * using them; while this many are alive, accessors stay on the reflective tier instead of being compiled.
+   */
   public static int maximumTenure = 1500;
+  /**
+   * @deprecated generated classes are no longer recycled, so this stays {@code 0}
+   */
+  @Deprecated
   public static int totalRecycled = 0;
-  private static volatile boolean useSafeClassloading = false;
-  private static ReadWriteLock lock = new ReentrantReadWriteLock();
-  private static Lock readLock = lock.readLock();
-  private static Lock writeLock = lock.writeLock();
+
+  private static volatile TieringPolicy defaultTieringPolicy = new DecayingCounterPolicy();
+
+  private static final LongAdder promotions = new LongAdder();
+  private static final LongAdder failedPromotions = new LongAdder();
+  private static final LongAdder deoptimizations = new LongAdder();
 
   public void init() {
-    _init();
   }
 
-  private static void _init() {
-    setMVELClassLoader(classLoader = new DynamicClassLoader(currentThread().getContextClassLoader(), maximumTenure));
+  /**
+   * @deprecated does nothing: generated classes are unloaded together with the accessors using them, and accessors
+   * are not compiled while the optimizer {@link #isOverloaded()}
+   */
+  @Deprecated
+  public static void enforceTenureLimit() {
   }
 
-  public static void enforceTenureLimit() {
-    writeLock.lock();
-    try{
-  	  if (classLoader.isOverloaded()) {
-        classLoader.deoptimizeAll();
-        totalRecycled = +classLoader.getTotalClasses();
-        _init();
+  public static TieringPolicy getDefaultTieringPolicy() {
+    return defaultTieringPolicy;
+  }
+
+  public static void setDefaultTieringPolicy(TieringPolicy tieringPolicy) {
+    if (tieringPolicy == null) throw new NullPointerException("tieringPolicy");
+    defaultTieringPolicy = tieringPolicy;
+  }
+
+  static TieringPolicy getTieringPolicy(ParserContext pCtx) {
+    TieringPolicy tieringPolicy = pCtx == null ? null : pCtx.getParserConfiguration().getTieringPolicy();
+    return tieringPolicy == null ? defaultTieringPolicy : tieringPolicy;
+  }
+
+  static void promoted(TieringPolicy tieringPolicy, char[] expr, int start, int offset) {
+    promotions.increment();
+    tieringPolicy.promoted(describe(expr, start, offset));
+  }
+
+  static void promotionFailed(TieringPolicy tieringPolicy, char[] expr, int start, int offset, Throwable cause) {
+    failedPromotions.increment();
+    tieringPolicy.promotionFailed(describe(expr, start, offset), cause);
+  }
+
+  static void deoptimized(TieringPolicy tieringPolicy, char[] expr, int start, int offset) {
+    deoptimizations.increment();
+    tieringPolicy.deoptimized(describe(expr, start, offset));
+  }
+
+  /**
+   * Queues the definition of the classes deferred by the given optimizer, handing the defined accessor standing for
+   * {@code compiled} to {@code installer} once they are defined. Returns {@code false} if the background compiler is
+   * saturated.
+   */
+  static boolean compileInBackground(TieringPolicy tieringPolicy, ASMAccessorOptimizer ao, Accessor compiled,
+                                     Installer installer, char[] expr, int start, int offset) {
+    return BackgroundCompiler.submit(() -> {
+      try {
+        if (installer.install(ao.defineDeferredAccessors(compiled))) {
+          promoted(tieringPolicy, expr, start, offset);
+        }
       }
-    }
-	  finally{
-	    writeLock.unlock();
-	  }
+      catch (Throwable t) {
+        promotionFailed(tieringPolicy, expr, start, offset, t);
+      }
+    });
+  }
+
+  interface Installer {
+    /**
+     * Installs the accessor defined by the background compiler, returning {@code false} if the dynamic accessor
+     * has been deoptimized since the compilation was queued and keeps its reflective accessor.
+     */
+    boolean install(Accessor defined);
+  }
+
+  private static String describe(char[] expr, int start, int offset) {
+    // the trailing part of an inline collection may be empty, so its offset is not always a valid length
+    if (expr == null || start < 0 || start >= expr.length || offset <= 0) return "";
+    return new String(expr, start, Math.min(offset, expr.length - start));
+  }
+
+  /**
+   * Returns the number of dynamic accessors compiled to bytecode since startup.
+   */
+  public static long getPromotionCount() {
+    return promotions.sum();
+  }
+
+  public static long getFailedPromotionCount() {
+    return failedPromotions.sum();
+  }
+
+  public static long getDeoptimizationCount() {
+    return deoptimizations.sum();
   }
 
   public static final int REGULAR_ACCESSOR = 0;
 
   public Accessor optimizeAccessor(ParserContext pCtx, char[] property, int start, int offset, Object ctx, Object thisRef,
                                    VariableResolverFactory factory, boolean rootThisRef, Class ingressType) {
-    readLock.lock();
-    try{
-      pCtx.optimizationNotify();
-      return classLoader.registerDynamicAccessor(new DynamicGetAccessor(pCtx, property, start, offset, 0,
-          firstStage.optimizeAccessor(pCtx, property, start, offset, ctx, thisRef, factory, rootThisRef, ingressType)));
-    }
-    finally{
-      readLock.unlock();
-    }
+    pCtx.optimizationNotify();
+    return new DynamicGetAccessor(pCtx, property, start, offset, 0,
+        firstStage.optimizeAccessor(pCtx, property, start, offset, ctx, thisRef, factory, rootThisRef, ingressType));
   }
 
   public static final int SET_ACCESSOR = 1;
 
   public Accessor optimizeSetAccessor(ParserContext pCtx, char[] property, int start, int offset, Object ctx, Object thisRef,
                                       VariableResolverFactory factory, boolean rootThisRef, Object value, Class valueType) {
-
-    readLock.lock();
-    try{
-      return classLoader.registerDynamicAccessor(new DynamicSetAccessor(pCtx, property, start, offset,
-          firstStage.optimizeSetAccessor(pCtx, property, start, offset, ctx, thisRef, factory, rootThisRef, value, valueType)));
-    }
-    finally{
-      readLock.unlock();
-    }
+    return new DynamicSetAccessor(pCtx, property, start, offset,
+        firstStage.optimizeSetAccessor(pCtx, property, start, offset, ctx, thisRef, factory, rootThisRef, value, valueType));
   }
 
   public static final int COLLECTION = 2;
 
   public Accessor optimizeCollection(ParserContext pCtx, Object rootObject, Class type, char[] property, int start,
                                      int offset, Object ctx, Object thisRef, VariableResolverFactory factory) {
-    readLock.lock();
-    try{
-      return classLoader.registerDynamicAccessor(new DynamicCollectionAccessor(pCtx, rootObject, type, property, start, offset, 2,
-          firstStage.optimizeCollection(pCtx, rootObject, type, property, start, offset, ctx, thisRef, factory)));
-    }
-    finally{
-      readLock.unlock();
-    }
+    return new DynamicCollectionAccessor(pCtx, rootObject, type, property, start, offset, 2,
+        firstStage.optimizeCollection(pCtx, rootObject, type, property, start, offset, ctx, thisRef, factory));
   }
 
   public static final int OBJ_CREATION = 3;
 
   public Accessor optimizeObjectCreation(ParserContext pCtx, char[] property, int start, int offset,
                                          Object ctx, Object thisRef, VariableResolverFactory factory) {
-    readLock.lock();
-    try{
-      return classLoader.registerDynamicAccessor(new DynamicGetAccessor(pCtx, property, start, offset, 3,
-          firstStage.optimizeObjectCreation(pCtx, property, start, offset, ctx, thisRef, factory)));
-    }
-    finally{
-      readLock.unlock();
-    }
+    return new DynamicGetAccessor(pCtx, property, start, offset, 3,
+        firstStage.optimizeObjectCreation(pCtx, property, start, offset, ctx, thisRef, factory));
   }
 
+  /**
+   * Returns {@code true} while {@link #maximumTenure} generated classes are alive. Accessors ask once their counter
+   * reports them hot, and start counting afresh if so.
+   */
   public static boolean isOverloaded() {
-    return classLoader.isOverloaded();
+    return GeneratedClasses.getLiveCount() >= maximumTenure;
   }
 
   public Object getResultOptPass() {
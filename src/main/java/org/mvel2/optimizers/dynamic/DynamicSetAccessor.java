@@ -21,10 +21,8 @@ package org.mvel2.optimizers.dynamic;
 import org.mvel2.ParserContext;
 import org.mvel2.compiler.Accessor;
 import org.mvel2.integration.VariableResolverFactory;
-import org.mvel2.optimizers.AccessorOptimizer;
 import org.mvel2.optimizers.OptimizerFactory;
-
-import static java.lang.System.currentTimeMillis;
+import org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer;
 
 public class DynamicSetAccessor implements DynamicAccessor {
   private char[] property;
@@ -32,12 +30,14 @@ public class DynamicSetAccessor implements DynamicAccessor {
   private int offset;
 
   private boolean opt = false;
-  private int runcount = 0;
-  private long stamp;
+  private final TieringPolicy tieringPolicy;
+  private TieringPolicy.Counter counter;
 
   private ParserContext context;
   private final Accessor _safeAccessor;
-  private Accessor _accessor;
+  private volatile Accessor _accessor;
+  // bumped by deoptimize(), so that a compilation queued before is not installed afterwards
+  private volatile int generation;
   private String description;
 
   public DynamicSetAccessor(ParserContext context, char[] property, int start, int offset, Accessor _accessor) {
@@ -49,20 +49,18 @@ public class DynamicSetAccessor implements DynamicAccessor {
     this.start = start;
     this.offset = offset;
 
-    this.stamp = System.currentTimeMillis();
+    this.tieringPolicy = DynamicOptimizer.getTieringPolicy(context);
+    this.counter = tieringPolicy.newCounter();
   }
 
   public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
-    if (!opt) {
-      if (++runcount > DynamicOptimizer.tenuringThreshold) {
-        if ((currentTimeMillis() - stamp) < DynamicOptimizer.timeSpan) {
-          opt = true;
-          return optimize(ctx, elCtx, variableFactory, value);
-        }
-        else {
-          runcount = 0;
-          stamp = currentTimeMillis();
-        }
+    if (!opt && counter.hit()) {
+      if (DynamicOptimizer.isOverloaded()) {
+        backOff();
+      }
+      else {
+        opt = true;
+        return optimize(ctx, elCtx, variableFactory, value);
       }
     }
 
@@ -75,23 +73,52 @@ public class DynamicSetAccessor implements DynamicAccessor {
   }
 
   private Object optimize(Object ctx, Object elCtx, VariableResolverFactory variableResolverFactory, Object value) {
-    if (DynamicOptimizer.isOverloaded()) {
-      DynamicOptimizer.enforceTenureLimit();
+    ASMAccessorOptimizer ao = (ASMAccessorOptimizer) OptimizerFactory.getAccessorCompiler("ASM");
+    boolean background = tieringPolicy.isBackgroundCompilation();
+    if (background) {
+      ao.deferClassDefinition();
     }
-
-    AccessorOptimizer ao = OptimizerFactory.getAccessorCompiler("ASM");
-    _accessor = ao.optimizeSetAccessor(context, property, start, offset, ctx, elCtx,
+    Accessor compiled = ao.optimizeSetAccessor(context, property, start, offset, ctx, elCtx,
         variableResolverFactory, false, value, value != null ? value.getClass() : Object.class);
-    assert _accessor != null;
+    assert compiled != null;
 
+    if (!background) {
+      _accessor = compiled;
+      DynamicOptimizer.promoted(tieringPolicy, property, start, offset);
+    }
+    else {
+      int generation = this.generation;
+      if (!DynamicOptimizer.compileInBackground(tieringPolicy, ao, compiled,
+          defined -> installDefined(defined, generation), property, start, offset)) {
+        backOff();
+      }
+    }
     return value;
   }
 
-  public void deoptimize() {
-    this._accessor = this._safeAccessor;
+  private synchronized boolean installDefined(Accessor defined, int generation) {
+    if (generation != this.generation) {
+      return false;
+    }
+    _accessor = defined;
+    return true;
+  }
+
+  /**
+   * Starts counting afresh, so that an accessor that cannot be compiled right now does not try again on every call.
+   */
+  private void backOff() {
     opt = false;
-    runcount = 0;
-    stamp = currentTimeMillis();
+    counter = tieringPolicy.newCounter();
+  }
+
+  public void deoptimize() {
+    synchronized (this) {
+      generation++;
+      this._accessor = this._safeAccessor;
+    }
+    backOff();
+    DynamicOptimizer.deoptimized(tieringPolicy, property, start, offset);
   }
 
   public String getDescription() {
@@ -0,0 +1,50 @@
+package org.mvel2.optimizers.dynamic;
+
+/**
+ * Decides when a dynamic accessor is hot enough to be compiled to bytecode.
+ * <p>
+ * Every dynamic accessor obtains a {@link Counter} of its own when it is created and compiles itself as soon as the
+ * counter reports that it is hot. The policy is taken from {@link org.mvel2.ParserConfiguration#getTieringPolicy()},
+ * falling back to {@link DynamicOptimizer#getDefaultTieringPolicy()}. The notification methods are called for every
+ * accessor using the policy and may be used to feed metrics or monitoring events.
+ */
+public interface TieringPolicy {
+
+  Counter newCounter();
+
+  /**
+   * Returns {@code true} if the classes of hot accessors are to be defined on the {@link BackgroundCompiler} rather
+   * than on the thread executing the expression. Until then the accessor keeps using its reflective accessor.
+   * The bytecode itself is still generated on the executing thread, as generating it walks the values the accessor
+   * is invoked with; frame computation, class definition and verification are left to the background compiler.
+   * Off unless the policy opts in.
+   */
+  default boolean isBackgroundCompilation() {
+    return false;
+  }
+
+  /**
+   * Called after the accessor for the given expression has been compiled.
+   */
+  default void promoted(String expression) {
+  }
+
+  /**
+   * Called when compiling the accessor for the given expression failed and it keeps using the reflective accessor.
+   */
+  default void promotionFailed(String expression, Throwable cause) {
+  }
+
+  /**
+   * Called when the accessor for the given expression has gone back to the reflective accessor.
+   */
+  default void deoptimized(String expression) {
+  }
+
+  interface Counter {
+    /**
+     * Records an invocation of the accessor and returns {@code true} if it should be compiled now.
+     */
+    boolean hit();
+  }
+}
@@ -183,7 +183,7 @@ public class ASMAccessorOptimizer extends AbstractOptimizer implements AccessorO
 
   private static String LIST_IMPL;
   private static String NAMESPACE;
-  private static final int OPCODES_VERSION;
+  static final int OPCODES_VERSION;
 
   static {
     final String javaVersion = PropertyTools.getJavaVersion();
@@ -231,6 +231,8 @@ public class ASMAccessorOptimizer extends AbstractOptimizer implements AccessorO
 
   private ArrayList<ExecutableStatement> compiledInputs;
 
+  private ArrayList<DeferredAccessor> deferredAccessors;
+
   private Class ingressType;
   private Class returnType;
 
@@ -810,14 +812,24 @@ public class ASMAccessorOptimizer extends AbstractOptimizer implements AccessorO
     if (deferFinish) {
       return null;
     }
+    if (deferredAccessors != null) {
+      DeferredAccessor accessor = new DeferredAccessor(pCtx, expr, className, cw, compiledInputs, propNull, methNull);
+      deferredAccessors.add(accessor);
+      return accessor;
+    }
     /**
      * Hot load the class we just generated.
      */
-    Class cls = loadClass(className, cw.toByteArray());
+    Class cls = loadClass(pCtx, className, cw.toByteArray());
 
     assert debug("[MVEL JIT Completed Optimization <<" + (expr != null ? new String(expr) : "") + ">>]::" + cls
         + " (time: " + (System.currentTimeMillis() - time) + "ms)");
 
+    return instantiate(cls, expr, compiledInputs, propNull, methNull);
+  }
+
+  private static Accessor instantiate(Class cls, char[] expr, ArrayList<ExecutableStatement> compiledInputs,
+                                      boolean propNull, boolean methNull) throws Exception {
     Object o;
 
     try {
@@ -845,6 +857,84 @@ public class ASMAccessorOptimizer extends AbstractOptimizer implements AccessorO
     return (Accessor) o;
   }
 
+  /**
+   * Makes this optimizer generate the bytecode of the accessors it compiles without defining their classes yet.
+   * The accessors returned afterwards must not be used before {@link #defineDeferredAccessors(Accessor)} has
+   * completed, which may be called on another thread. Frame computation, class definition and verification, the
+   * expensive part of compiling an accessor, are thereby moved off the thread that optimizes the accessor.
+   */
+  public void deferClassDefinition() {
+    deferredAccessors = new ArrayList<DeferredAccessor>();
+  }
+
+  /**
+   * Defines the classes of the accessors compiled since {@link #deferClassDefinition()} was called, and returns the
+   * defined accessor the given one stands for, so that it may be installed in place of the placeholder.
+   */
+  public Accessor defineDeferredAccessors(Accessor accessor) throws Exception {
+    if (deferredAccessors != null) {
+      for (DeferredAccessor deferred : deferredAccessors) {
+        deferred.define();
+      }
+    }
+    return accessor instanceof DeferredAccessor ? ((DeferredAccessor) accessor).accessor() : accessor;
+  }
+
+  private static final class DeferredAccessor implements Accessor {
+    private final String className;
+    private final boolean propNull;
+    private final boolean methNull;
+
+    // released once the class is defined
+    private ParserContext pCtx;
+    private char[] expr;
+    private ClassWriter cw;
+    private ArrayList<ExecutableStatement> compiledInputs;
+
+    private volatile Accessor accessor;
+
+    DeferredAccessor(ParserContext pCtx, char[] expr, String className, ClassWriter cw,
+                     ArrayList<ExecutableStatement> compiledInputs, boolean propNull, boolean methNull) {
+      this.pCtx = pCtx;
+      this.expr = expr;
+      this.className = className;
+      this.cw = cw;
+      this.compiledInputs = compiledInputs;
+      this.propNull = propNull;
+      this.methNull = methNull;
+    }
+
+    void define() throws Exception {
+      if (accessor == null) {
+        accessor = instantiate(loadClass(pCtx, className, cw.toByteArray()), expr, compiledInputs, propNull, methNull);
+        pCtx = null;
+        expr = null;
+        cw = null;
+        compiledInputs = null;
+      }
+    }
+
+    private Accessor accessor() {
+      Accessor defined = accessor;
+      if (defined == null) {
+        throw new IllegalStateException("accessor class has not been defined yet: " + className);
+      }
+      return defined;
+    }
+
+    public Object getValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory) {
+      return accessor().getValue(ctx, elCtx, variableFactory);
+    }
+
+    public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
+      return accessor().setValue(ctx, elCtx, variableFactory, value);
+    }
+
+    public Class getKnownEgressType() {
+      return accessor().getKnownEgressType();
+    }
+  }
+
   private Accessor compileAccessor() {
     assert debug("<<INITIATE COMPILE>>");
 
@@ -1973,7 +2063,7 @@ private Object optimizeFieldMethodProperty(Object ctx, String property, Class<?>
     /**
      * Try to find an instance method from the class target.
      */
-    if ((m = getBestCandidate(argTypes, name, cls, cls.getMethods(), false, classTarget)) != null) {
+    if ((m = getBestCandidate(argTypes, name, cls, false, classTarget)) != null) {
       parameterTypes = m.getParameterTypes();
     }
 
@@ -1981,7 +2071,7 @@ private Object optimizeFieldMethodProperty(Object ctx, String property, Class<?>
       /**
        * If we didn't find anything, maybe we're looking for the actual java.lang.Class methods.
        */
-      if ((m = getBestCandidate(argTypes, name, cls, Class.class.getMethods(), false)) != null) {
+      if ((m = getBestCandidate(argTypes, name, Class.class, false)) != null) {
         parameterTypes = m.getParameterTypes();
       }
     }
@@ -1989,7 +2079,7 @@ private Object optimizeFieldMethodProperty(Object ctx, String property, Class<?>
     // If we didn't find anything and the declared class is different from the actual one try also with the actual one
     if (m == null && cls != ctx.getClass() && !(ctx instanceof Class)) {
       cls = ctx.getClass();
-      if ((m = getBestCandidate(argTypes, name, cls, cls.getMethods(), false, classTarget)) != null) {
+      if ((m = getBestCandidate(argTypes, name, cls, false, classTarget)) != null) {
         parameterTypes = m.getParameterTypes();
       }
     }
@@ -2309,14 +2399,23 @@ private Object optimizeFieldMethodProperty(Object ctx, String property, Class<?>
         "(Ljava/lang/Object;Ljava/lang/Class;)Ljava/lang/Object;");
   }
 
-  private static MVELClassLoader classLoader;
+  private static volatile MVELClassLoader classLoader;
 
   public static void setMVELClassLoader(MVELClassLoader cl) {
     classLoader = cl;
   }
 
   public static MVELClassLoader getMVELClassLoader() {
-    return classLoader;
+    MVELClassLoader cl = classLoader;
+    if (cl == null) {
+      synchronized (ASMAccessorOptimizer.class) {
+        cl = classLoader;
+        if (cl == null) {
+          classLoader = cl = new JITClassLoader(currentThread().getContextClassLoader());
+        }
+      }
+    }
+    return cl;
   }
 
   public void init() {
@@ -2328,10 +2427,6 @@ private Object optimizeFieldMethodProperty(Object ctx, String property, Class<?>
     }
   }
 
-  private ContextClassLoader getContextClassLoader() {
-    return pCtx == null ? null : new ContextClassLoader(pCtx.getClassLoader());
-  }
-
   private static class ContextClassLoader extends ClassLoader {
     ContextClassLoader(ClassLoader classLoader) {
       super(classLoader);
@@ -2342,14 +2437,27 @@ private Object optimizeFieldMethodProperty(Object ctx, String property, Class<?>
     }
   }
 
-  private java.lang.Class loadClass(String className, byte[] b) throws Exception {
-    /**
-     * This must be synchronized.  Two classes cannot be simultaneously deployed in the JVM.
-     */
-    ContextClassLoader contextClassLoader = getContextClassLoader();
-    return contextClassLoader == null ?
-            classLoader.defineClassX(className, b, 0, b.length) :
-            contextClassLoader.defineClass(className, b);
+  private static java.lang.Class loadClass(ParserContext pCtx, String className, byte[] b) throws Exception {
+    MVELClassLoader mvelClassLoader = getMVELClassLoader();
+    ClassLoader parent = pCtx != null ? pCtx.getClassLoader() :
+        mvelClassLoader instanceof ClassLoader ? (ClassLoader) mvelClassLoader : null;
+    if (parent == null) {
+      Class cls = mvelClassLoader.defineClassX(className, b, 0, b.length);
+      GeneratedClasses.register(cls);
+      return cls;
+    }
+    return defineClass(parent, className, b);
+  }
+
+  /**
+   * Defines a generated class in a class loader of its own with the given parent.
+   */
+  static Class<?> defineClass(ClassLoader parent, String className, byte[] b) {
+    // A new loader per class rather than one per parent: a class is only unloaded together with its loader, so a
+    // shared loader would keep every class it defined alive for as long as any accessor using one of them is.
+    Class<?> cls = new ContextClassLoader(parent).defineClass(className, b);
+    GeneratedClasses.register(cls);
+    return cls;
   }
 
   private boolean debug(String instruction) {
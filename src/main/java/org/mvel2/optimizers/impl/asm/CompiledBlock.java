@@ -0,0 +1,88 @@
+package org.mvel2.optimizers.impl.asm;
+
+import org.mvel2.compiler.ExecutableStatement;
+import org.mvel2.integration.VariableResolverFactory;
+
+/**
+ * The body of a function declared by a {@link CompiledScript}, which runs the block of the generated class compiled
+ * from it, or the statement it was compiled from once the script is deoptimized.
+ */
+class CompiledBlock implements ExecutableStatement {
+  private final transient CompiledScript script;
+  private final int block;
+  private final ExecutableStatement statement;
+
+  CompiledBlock(CompiledScript script, int block, ExecutableStatement statement) {
+    this.script = script;
+    this.block = block;
+    this.statement = statement;
+  }
+
+  ExecutableStatement getStatement() {
+    return statement;
+  }
+
+  public Object getValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory) {
+    ScriptBody body = script != null ? script.getBody() : null;
+    if (body == null) {
+      return statement.getValue(ctx, elCtx, variableFactory);
+    }
+    return body.run(block, ctx, elCtx, variableFactory);
+  }
+
+  public Object getValue(Object staticContext, VariableResolverFactory factory) {
+    ScriptBody body = script != null ? script.getBody() : null;
+    if (body == null) {
+      return statement.getValue(staticContext, factory);
+    }
+    return body.run(block, staticContext, staticContext, factory);
+  }
+
+  public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
+    return statement.setValue(ctx, elCtx, variableFactory, value);
+  }
+
+  public void setKnownIngressType(Class type) {
+    statement.setKnownIngressType(type);
+  }
+
+  public void setKnownEgressType(Class type) {
+    statement.setKnownEgressType(type);
+  }
+
+  public Class getKnownIngressType() {
+    return statement.getKnownIngressType();
+  }
+
+  public Class getKnownEgressType() {
+    return statement.getKnownEgressType();
+  }
+
+  public boolean isExplicitCast() {
+    return statement.isExplicitCast();
+  }
+
+  public boolean isConvertableIngressEgress() {
+    return statement.isConvertableIngressEgress();
+  }
+
+  public void computeTypeConversionRule() {
+    statement.computeTypeConversionRule();
+  }
+
+  public boolean intOptimized() {
+    return statement.intOptimized();
+  }
+
+  public boolean isLiteralOnly() {
+    return statement.isLiteralOnly();
+  }
+
+  public boolean isEmptyStatement() {
+    return statement.isEmptyStatement();
+  }
+
+  public String toString() {
+    return statement.toString();
+  }
+}
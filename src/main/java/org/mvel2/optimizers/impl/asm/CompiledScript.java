@@ -0,0 +1,148 @@
+package org.mvel2.optimizers.impl.asm;
+
+import org.mvel2.ast.Function;
+import org.mvel2.compiler.ExecutableStatement;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.optimizers.OptimizerFactory;
+
+/**
+ * A script compiled to a class of its own by {@link ScriptCompiler}.
+ * <p>
+ * The script runs the generated class until it is {@link #deoptimize() deoptimized}, and the statement it was compiled
+ * from afterwards.  A script that could not be compiled, or that was deserialized, runs the statement from the start.
+ * The bodies of the functions the script declares are replaced with statements that run the generated class as well,
+ * and are restored when the script is deoptimized.
+ */
+public class CompiledScript implements ExecutableStatement {
+  private final ExecutableStatement statement;
+
+  private transient volatile ScriptBody body;
+
+  private transient Function[] functions;
+  private transient CompiledBlock[] functionBodies;
+
+  CompiledScript(ExecutableStatement statement) {
+    this.statement = statement;
+  }
+
+  void install(ScriptBody body, Function[] functions, CompiledBlock[] functionBodies) {
+    this.body = body;
+    this.functions = functions;
+    this.functionBodies = functionBodies;
+    for (int i = 0; i < functions.length; i++) {
+      synchronized (functions[i]) {
+        functions[i].setCompiledBlock(functionBodies[i]);
+      }
+    }
+  }
+
+  ScriptBody getBody() {
+    return body;
+  }
+
+  /**
+   * Returns the statement the script was compiled from.
+   */
+  public ExecutableStatement getStatement() {
+    return statement;
+  }
+
+  /**
+   * Returns {@code true} if the script runs the generated class.
+   */
+  public boolean isCompiled() {
+    return body != null;
+  }
+
+  /**
+   * Makes the script, and the functions it declares, go back to the statement it was compiled from.  Executions that
+   * are running the generated class already finish in it.
+   */
+  public synchronized void deoptimize() {
+    if (body == null) {
+      return;
+    }
+    body = null;
+    for (int i = 0; i < functions.length; i++) {
+      synchronized (functions[i]) {
+        if (functions[i].getCompiledBlock() == functionBodies[i]) {
+          functions[i].setCompiledBlock(functionBodies[i].getStatement());
+        }
+      }
+    }
+  }
+
+  public Object getValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory) {
+    ScriptBody b = body;
+    if (b == null) {
+      return statement.getValue(ctx, elCtx, variableFactory);
+    }
+    try {
+      return b.run(0, ctx, elCtx, variableFactory);
+    }
+    finally {
+      OptimizerFactory.clearThreadAccessorOptimizer();
+    }
+  }
+
+  public Object getValue(Object staticContext, VariableResolverFactory factory) {
+    ScriptBody b = body;
+    if (b == null) {
+      return statement.getValue(staticContext, factory);
+    }
+    try {
+      return b.run(0, staticContext, staticContext, factory);
+    }
+    finally {
+      OptimizerFactory.clearThreadAccessorOptimizer();
+    }
+  }
+
+  public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
+    return statement.setValue(ctx, elCtx, variableFactory, value);
+  }
+
+  public void setKnownIngressType(Class type) {
+    statement.setKnownIngressType(type);
+  }
+
+  public void setKnownEgressType(Class type) {
+    statement.setKnownEgressType(type);
+  }
+
+  public Class getKnownIngressType() {
+    return statement.getKnownIngressType();
+  }
+
+  public Class getKnownEgressType() {
+    return statement.getKnownEgressType();
+  }
+
+  public boolean isExplicitCast() {
+    return statement.isExplicitCast();
+  }
+
+  public boolean isConvertableIngressEgress() {
+    return statement.isConvertableIngressEgress();
+  }
+
+  public void computeTypeConversionRule() {
+    statement.computeTypeConversionRule();
+  }
+
+  public boolean intOptimized() {
+    return statement.intOptimized();
+  }
+
+  public boolean isLiteralOnly() {
+    return statement.isLiteralOnly();
+  }
+
+  public boolean isEmptyStatement() {
+    return statement.isEmptyStatement();
+  }
+
+  public String toString() {
+    return statement.toString();
+  }
+}
@@ -0,0 +1,74 @@
+package org.mvel2.optimizers.impl.asm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bookkeeping for the accessor classes generated by {@link ASMAccessorOptimizer}.
+ * <p>
+ * Every generated class is defined in a class loader of its own, so it becomes unloadable as soon as the accessor
+ * (and with it the compiled expression) that uses it is garbage collected. Classes are tracked through weak
+ * references only, which lets callers see how many of them are still alive without keeping any of them alive.
+ */
+public final class GeneratedClasses {
+
+  private static final LongAdder defined = new LongAdder();
+
+  private static final Set<ClassReference> live = ConcurrentHashMap.newKeySet();
+
+  private static final ReferenceQueue<Class<?>> collected = new ReferenceQueue<>();
+
+  private GeneratedClasses() {
+  }
+
+  static void register(Class<?> cls) {
+    expunge();
+    live.add(new ClassReference(cls, collected));
+    defined.increment();
+  }
+
+  /**
+   * Returns the number of accessor classes generated since startup.
+   */
+  public static long getDefinedCount() {
+    return defined.sum();
+  }
+
+  /**
+   * Returns the number of generated accessor classes that have not been garbage collected yet.
+   */
+  public static int getLiveCount() {
+    expunge();
+    return live.size();
+  }
+
+  /**
+   * Returns the amount of metaspace in use, in bytes, or {@code -1} if the JVM does not report a metaspace pool.
+   */
+  public static long getMetaspaceUsed() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if ("Metaspace".equals(pool.getName())) {
+        return pool.getUsage().getUsed();
+      }
+    }
+    return -1;
+  }
+
+  private static void expunge() {
+    Object ref;
+    while ((ref = collected.poll()) != null) {
+      live.remove(ref);
+    }
+  }
+
+  private static final class ClassReference extends WeakReference<Class<?>> {
+    ClassReference(Class<?> cls, ReferenceQueue<Class<?>> queue) {
+      super(cls, queue);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.mvel2.optimizers.impl.asm;
+
+import org.mvel2.CompileException;
+import org.mvel2.ScriptExecutionStoppedException;
+import org.mvel2.ScriptMemoryOverflowException;
+import org.mvel2.ScriptRuntimeException;
+import org.mvel2.ast.ASTNode;
+import org.mvel2.compiler.CompiledExpression;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.util.ErrorUtil;
+
+/**
+ * The base class of the classes {@link ScriptCompiler} generates for a script.
+ * <p>
+ * A generated class has a method for every block of the script it compiled, numbered in the order
+ * {@link #run(int, Object, Object, VariableResolverFactory)} dispatches on.  Block 0 is the script itself.  The nodes
+ * and statements the generated code calls are held in {@link #constants}.
+ */
+public abstract class ScriptBody {
+  protected final Object[] constants;
+
+  protected ScriptBody(Object[] constants) {
+    this.constants = constants;
+  }
+
+  /**
+   * Runs the given block as {@link org.mvel2.compiler.ExecutableStatement#getValue(Object, Object, VariableResolverFactory)}
+   * of the block would.
+   */
+  public abstract Object run(int block, Object ctx, Object thisValue, VariableResolverFactory factory);
+
+  /**
+   * Returns the factory a block runs in, as {@link CompiledExpression#getDirectValue(Object, VariableResolverFactory)}
+   * obtains it.
+   */
+  protected static VariableResolverFactory enter(CompiledExpression block, VariableResolverFactory factory) {
+    return block.getParserConfiguration().getVariableFactory(factory);
+  }
+
+  /**
+   * Returns the exception to throw for one that the node at the given index of {@link #constants} failed with, as
+   * {@link org.mvel2.MVELRuntime#execute} reports it.
+   */
+  protected final Throwable failure(Exception e, int node) {
+    ASTNode tk = node == -1 ? null : (ASTNode) constants[node];
+    if (e instanceof NullPointerException) {
+      if (tk != null && tk.isOperator() && tk.nextASTNode != null) {
+        return new CompileException("incomplete statement: "
+            + tk.getName() + " (possible use of reserved keyword as identifier: " + tk.getName() + ")", tk.getExpr(), tk.getStart());
+      }
+      return e;
+    }
+    else if (tk == null || e instanceof ScriptMemoryOverflowException || e instanceof ScriptExecutionStoppedException) {
+      return e;
+    }
+    else if (e instanceof CompileException) {
+      return ErrorUtil.rewriteIfNeeded((CompileException) e, tk.getExpr(), tk.getStart());
+    }
+    CompileException ce = new CompileException("Invalid statement: " + tk.getName(), tk.getExpr(), tk.getStart(), e);
+    if (e instanceof ScriptRuntimeException) {
+      return new ScriptRuntimeException(ce.getMessage(), e);
+    }
+    return ce;
+  }
+}
@@ -0,0 +1,671 @@
+package org.mvel2.optimizers.impl.asm;
+
+import org.mvel2.asm.ClassWriter;
+import org.mvel2.asm.Label;
+import org.mvel2.asm.MethodVisitor;
+import org.mvel2.ExecutionContext;
+import org.mvel2.ast.ASTNode;
+import org.mvel2.ast.ForEachNode;
+import org.mvel2.ast.ForNode;
+import org.mvel2.ast.Function;
+import org.mvel2.ast.IfNode;
+import org.mvel2.ast.LineLabel;
+import org.mvel2.ast.WhileNode;
+import org.mvel2.compiler.CompiledExpression;
+import org.mvel2.compiler.ExecutableAccessor;
+import org.mvel2.compiler.ExecutableStatement;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.impl.ItemResolverFactory;
+import org.mvel2.integration.impl.ScopeVariableResolverFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mvel2.Operator.BREAK;
+import static org.mvel2.Operator.END_OF_STMT;
+import static org.mvel2.Operator.NOOP;
+import static org.mvel2.Operator.RETURN;
+import static org.mvel2.asm.Opcodes.AALOAD;
+import static org.mvel2.asm.Opcodes.ACC_PRIVATE;
+import static org.mvel2.asm.Opcodes.ACC_PUBLIC;
+import static org.mvel2.asm.Opcodes.ACC_SUPER;
+import static org.mvel2.asm.Opcodes.ACONST_NULL;
+import static org.mvel2.asm.Opcodes.ALOAD;
+import static org.mvel2.asm.Opcodes.ARETURN;
+import static org.mvel2.asm.Opcodes.ASTORE;
+import static org.mvel2.asm.Opcodes.ATHROW;
+import static org.mvel2.asm.Opcodes.CHECKCAST;
+import static org.mvel2.asm.Opcodes.DUP;
+import static org.mvel2.asm.Opcodes.GETFIELD;
+import static org.mvel2.asm.Opcodes.GOTO;
+import static org.mvel2.asm.Opcodes.ICONST_0;
+import static org.mvel2.asm.Opcodes.ICONST_1;
+import static org.mvel2.asm.Opcodes.IFEQ;
+import static org.mvel2.asm.Opcodes.IFNE;
+import static org.mvel2.asm.Opcodes.ILOAD;
+import static org.mvel2.asm.Opcodes.INSTANCEOF;
+import static org.mvel2.asm.Opcodes.INVOKEINTERFACE;
+import static org.mvel2.asm.Opcodes.INVOKESPECIAL;
+import static org.mvel2.asm.Opcodes.INVOKESTATIC;
+import static org.mvel2.asm.Opcodes.INVOKEVIRTUAL;
+import static org.mvel2.asm.Opcodes.ISTORE;
+import static org.mvel2.asm.Opcodes.NEW;
+import static org.mvel2.asm.Opcodes.POP;
+import static org.mvel2.asm.Type.getDescriptor;
+import static org.mvel2.asm.Type.getInternalName;
+
+/**
+ * Compiles a whole script, rather than the accessors of its nodes, to a class of its own.
+ * <p>
+ * The interpreter in {@link org.mvel2.MVELRuntime} walks the nodes of every block of a script with a stack of
+ * values, and the {@code if}, {@code for}, {@code foreach} and {@code while} nodes enter another interpreter loop for
+ * each block they run, each iteration of a loop included.  The generated class has a method for every block instead,
+ * which runs the statements of the block in sequence and the blocks of these statements by calling their methods, so
+ * the values and the flow between statements are kept in the locals of the method.  Every other node, such as an
+ * assignment, a method call or an operation, is called as the interpreter calls it, so the accessors of the node, and
+ * the checks of the {@link ExecutionContext} they make, such as on assigning variables and invoking methods, are
+ * kept.  The loops check the execution context on every iteration, as the nodes do.
+ * <p>
+ * Blocks the compiler does not handle, such as blocks with debugging symbols or with operators left between their
+ * statements, are run as the interpreter runs them, and a script whose own block is one of them is not compiled at
+ * all.  Compiling is opt-in: the script is compiled by {@link #compile(Serializable)} and the result is executed in
+ * place of the compiled expression.
+ */
+public final class ScriptCompiler {
+  private static final AtomicLong sequence = new AtomicLong();
+
+  private static final String BODY = getInternalName(ScriptBody.class);
+  private static final String NODE = getInternalName(ASTNode.class);
+  private static final String STATEMENT = getInternalName(ExecutableStatement.class);
+  private static final String FACTORY = getInternalName(VariableResolverFactory.class);
+  private static final String SCOPE = getInternalName(ScopeVariableResolverFactory.class);
+  private static final String ITEM_FACTORY = getInternalName(ItemResolverFactory.class);
+  private static final String ITEM = getInternalName(ItemResolverFactory.ItemResolver.class);
+  private static final String CONTEXT = getInternalName(ExecutionContext.class);
+  private static final String ITERATOR = getInternalName(Iterator.class);
+
+  private static final String VALUE = "(Ljava/lang/Object;Ljava/lang/Object;L" + FACTORY + ";)Ljava/lang/Object;";
+
+  /**
+   * The locals of a block method: the script body, the context, the value of {@code this} and the factory the block
+   * runs in, then the value of the current statement and the index of the current node.
+   */
+  private static final int CTX = 1;
+  private static final int THIS = 2;
+  private static final int FACTORY_VAR = 3;
+  private static final int VALUE_VAR = 4;
+  private static final int NODE_VAR = 5;
+
+  private final CompiledScript script;
+  private final String className;
+  private final ClassWriter cw;
+
+  private final List<Object> constants = new ArrayList<Object>();
+  private final Map<Object, Integer> constantIndex = new IdentityHashMap<Object, Integer>();
+
+  private final List<ExecutableStatement> blocks = new ArrayList<ExecutableStatement>();
+  private final Map<ExecutableStatement, Integer> blockIndex = new IdentityHashMap<ExecutableStatement, Integer>();
+
+  private final List<Function> functions = new ArrayList<Function>();
+  private final List<CompiledBlock> functionBodies = new ArrayList<CompiledBlock>();
+
+  private MethodVisitor mv;
+  private int locals;
+
+  private ScriptCompiler(CompiledScript script) {
+    this.script = script;
+    this.className = "ScriptImpl_" + sequence.incrementAndGet();
+    this.cw = new ClassWriter(ClassWriter.COMPUTE_MAXS + ClassWriter.COMPUTE_FRAMES);
+  }
+
+  /**
+   * Compiles the given compiled expression, as returned by {@link org.mvel2.MVEL#compileExpression(String)} and the
+   * like.  The script returned runs the expression itself if it could not be compiled.
+   *
+   * @param compiled - the compiled expression
+   * @return the script, to be executed in place of the expression
+   */
+  public static CompiledScript compile(Serializable compiled) {
+    if (compiled instanceof CompiledScript) {
+      return (CompiledScript) compiled;
+    }
+    if (!(compiled instanceof ExecutableStatement)) {
+      throw new IllegalArgumentException("not a compiled expression: " + compiled);
+    }
+
+    ExecutableStatement statement = (ExecutableStatement) compiled;
+    CompiledScript script = new CompiledScript(statement);
+    if (isCompilable(statement)) {
+      try {
+        new ScriptCompiler(script).build(statement);
+      }
+      catch (Exception e) {
+        // the script keeps running the expression
+      }
+      catch (LinkageError e) {
+        // the generated class failed verification; the script keeps running the expression
+      }
+    }
+    return script;
+  }
+
+  /**
+   * Returns {@code true} if a block of the given statement is generated.  A block must consist of statements only,
+   * separated by the ends of statements and ending in the last one, a {@code return} or a {@code break}.
+   */
+  private static boolean isCompilable(ExecutableStatement stmt) {
+    if (stmt instanceof CompiledExpression) {
+      CompiledExpression expression = (CompiledExpression) stmt;
+      if (expression.getFirstNode() == null) {
+        return false;
+      }
+      for (ASTNode tk = expression.getFirstNode(); tk != null; tk = tk.nextASTNode) {
+        if (tk instanceof LineLabel) {
+          return false;
+        }
+        switch (tk.getOperator()) {
+          case RETURN:
+          case BREAK:
+            return true;
+          case NOOP:
+          case END_OF_STMT:
+            continue;
+          default:
+            return false;
+        }
+      }
+      return true;
+    }
+    else if (stmt instanceof ExecutableAccessor) {
+      return isStatement(((ExecutableAccessor) stmt).getNode());
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if the given node is run by the generated code rather than called.
+   */
+  private static boolean isStatement(ASTNode node) {
+    Class<?> type = node == null ? null : node.getClass();
+    return type == IfNode.class || type == ForNode.class || type == ForEachNode.class || type == WhileNode.class;
+  }
+
+  private void build(ExecutableStatement statement) throws Exception {
+    cw.visit(ASMAccessorOptimizer.OPCODES_VERSION, ACC_PUBLIC + ACC_SUPER, className, null, BODY, null);
+
+    MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null);
+    init.visitCode();
+    init.visitVarInsn(ALOAD, 0);
+    init.visitVarInsn(ALOAD, 1);
+    init.visitMethodInsn(INVOKESPECIAL, BODY, "<init>", "([Ljava/lang/Object;)V", false);
+    init.visitInsn(org.mvel2.asm.Opcodes.RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+
+    block(statement);
+    for (int i = 0; i < blocks.size(); i++) {
+      generateBlock(i, blocks.get(i));
+    }
+    generateRun();
+    cw.visitEnd();
+
+    Class<?> cls = ASMAccessorOptimizer.defineClass(ScriptBody.class.getClassLoader(), className, cw.toByteArray());
+    // instantiating the class links and verifies it, so a class the verifier rejects is never installed
+    ScriptBody body = (ScriptBody) cls.getConstructor(Object[].class).newInstance((Object) constants.toArray());
+
+    script.install(body, functions.toArray(new Function[functions.size()]),
+        functionBodies.toArray(new CompiledBlock[functionBodies.size()]));
+  }
+
+  /**
+   * Returns the number of the method generated for the given block, scheduling it if it has none yet.
+   */
+  private int block(ExecutableStatement stmt) {
+    Integer index = blockIndex.get(stmt);
+    if (index == null) {
+      blockIndex.put(stmt, index = blocks.size());
+      blocks.add(stmt);
+    }
+    return index;
+  }
+
+  private int constant(Object value) {
+    Integer index = constantIndex.get(value);
+    if (index == null) {
+      constantIndex.put(value, index = constants.size());
+      constants.add(value);
+    }
+    return index;
+  }
+
+  private void loadConstant(Object value, Class<?> type) {
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitFieldInsn(GETFIELD, BODY, "constants", "[Ljava/lang/Object;");
+    mv.visitLdcInsn(constant(value));
+    mv.visitInsn(AALOAD);
+    mv.visitTypeInsn(CHECKCAST, getInternalName(type));
+  }
+
+  private int newLocal() {
+    return locals++;
+  }
+
+  /**
+   * Generates the {@code run} method, which calls the method of the block with the given number.
+   */
+  private void generateRun() {
+    mv = cw.visitMethod(ACC_PUBLIC, "run", "(ILjava/lang/Object;Ljava/lang/Object;L" + FACTORY + ";)Ljava/lang/Object;",
+        null, null);
+    mv.visitCode();
+
+    Label[] labels = new Label[blocks.size()];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = new Label();
+    }
+    Label unknown = new Label();
+
+    mv.visitVarInsn(ILOAD, 1);
+    mv.visitTableSwitchInsn(0, labels.length - 1, unknown, labels);
+    for (int i = 0; i < labels.length; i++) {
+      mv.visitLabel(labels[i]);
+      mv.visitVarInsn(ALOAD, 0);
+      mv.visitVarInsn(ALOAD, 2);
+      mv.visitVarInsn(ALOAD, 3);
+      mv.visitVarInsn(ALOAD, 4);
+      mv.visitMethodInsn(INVOKESPECIAL, className, "block" + i, VALUE, false);
+      mv.visitInsn(ARETURN);
+    }
+
+    mv.visitLabel(unknown);
+    mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+    mv.visitInsn(DUP);
+    mv.visitLdcInsn("no such block");
+    mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V", false);
+    mv.visitInsn(ATHROW);
+
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private void generateBlock(int index, ExecutableStatement stmt) {
+    mv = cw.visitMethod(ACC_PRIVATE, "block" + index, VALUE, null, null);
+    mv.visitCode();
+    locals = NODE_VAR + 1;
+
+    if (stmt instanceof CompiledExpression) {
+      generateStatements((CompiledExpression) stmt);
+    }
+    else {
+      // an accessor runs its node with the value of this it is given, and reports failures as the node does
+      statement(((ExecutableAccessor) stmt).getNode(), THIS, FACTORY_VAR);
+      mv.visitInsn(ARETURN);
+    }
+
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  /**
+   * Generates the statements of a block as {@link org.mvel2.MVELRuntime#execute} runs them.  The stack of the
+   * interpreter holds the value of the current statement only, so whether it is empty is known at every node.
+   */
+  private void generateStatements(CompiledExpression expression) {
+    loadConstant(expression, CompiledExpression.class);
+    mv.visitVarInsn(ALOAD, FACTORY_VAR);
+    mv.visitMethodInsn(INVOKESTATIC, BODY, "enter", "(L" + getInternalName(CompiledExpression.class) + ";L" + FACTORY
+        + ";)L" + FACTORY + ";", false);
+    mv.visitVarInsn(ASTORE, FACTORY_VAR);
+
+    for (Function function : expression.getFunctions()) {
+      function(function);
+      loadConstant(function, ASTNode.class);
+      mv.visitVarInsn(ALOAD, CTX);
+      mv.visitVarInsn(ALOAD, CTX);
+      mv.visitVarInsn(ALOAD, FACTORY_VAR);
+      mv.visitMethodInsn(INVOKEVIRTUAL, NODE, "getReducedValueAccelerated", VALUE, false);
+      mv.visitInsn(POP);
+    }
+
+    mv.visitInsn(ACONST_NULL);
+    mv.visitVarInsn(ASTORE, VALUE_VAR);
+    mv.visitLdcInsn(-1);
+    mv.visitVarInsn(ISTORE, NODE_VAR);
+
+    Label start = new Label();
+    Label end = new Label();
+    Label handler = new Label();
+    Label exit = new Label();
+    mv.visitTryCatchBlock(start, end, handler, "java/lang/Exception");
+    mv.visitLabel(start);
+
+    boolean empty = true;
+    boolean returned = false;
+    for (ASTNode tk = expression.getFirstNode(); tk != null && !returned; tk = tk.nextASTNode) {
+      mv.visitLdcInsn(constant(tk));
+      mv.visitVarInsn(ISTORE, NODE_VAR);
+
+      if (empty) {
+        if (tk instanceof Function) {
+          function((Function) tk);
+        }
+        // the nodes of a block are run with the context as the value of this
+        statement(tk, CTX, FACTORY_VAR);
+        mv.visitVarInsn(ASTORE, VALUE_VAR);
+        empty = false;
+      }
+
+      mv.visitVarInsn(ALOAD, FACTORY_VAR);
+      mv.visitMethodInsn(INVOKEINTERFACE, FACTORY, "tiltFlag", "()Z", true);
+      mv.visitJumpInsn(IFNE, exit);
+      mv.visitVarInsn(ALOAD, FACTORY_VAR);
+      mv.visitMethodInsn(INVOKEINTERFACE, FACTORY, "breakFlag", "()Z", true);
+      mv.visitJumpInsn(IFNE, exit);
+
+      switch (tk.getOperator()) {
+        case RETURN:
+          mv.visitVarInsn(ALOAD, FACTORY_VAR);
+          mv.visitInsn(ICONST_1);
+          mv.visitMethodInsn(INVOKEINTERFACE, FACTORY, "setTiltFlag", "(Z)V", true);
+          mv.visitJumpInsn(GOTO, exit);
+          returned = true;
+          break;
+        case BREAK:
+          mv.visitVarInsn(ALOAD, FACTORY_VAR);
+          mv.visitInsn(ICONST_1);
+          mv.visitMethodInsn(INVOKEINTERFACE, FACTORY, "setBreakFlag", "(Z)V", true);
+          mv.visitJumpInsn(GOTO, exit);
+          returned = true;
+          break;
+        case END_OF_STMT:
+          if (tk.nextASTNode != null) {
+            empty = true;
+          }
+          break;
+      }
+    }
+
+    if (!returned) {
+      if (empty) {
+        mv.visitInsn(ACONST_NULL);
+        mv.visitInsn(ARETURN);
+      }
+      else {
+        mv.visitJumpInsn(GOTO, exit);
+      }
+    }
+
+    mv.visitLabel(exit);
+    mv.visitVarInsn(ALOAD, VALUE_VAR);
+    mv.visitInsn(ARETURN);
+    mv.visitLabel(end);
+
+    mv.visitLabel(handler);
+    int e = newLocal();
+    mv.visitVarInsn(ASTORE, e);
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ALOAD, e);
+    mv.visitVarInsn(ILOAD, NODE_VAR);
+    mv.visitMethodInsn(INVOKEVIRTUAL, BODY, "failure", "(Ljava/lang/Exception;I)Ljava/lang/Throwable;", false);
+    mv.visitInsn(ATHROW);
+  }
+
+  /**
+   * Compiles the body of a function the script declares, unless it is compiled already.
+   */
+  private void function(Function function) {
+    if (functions.contains(function)) {
+      return;
+    }
+    ExecutableStatement body = function.getCompiledBlock();
+    if (body instanceof CompiledBlock) {
+      // compiled for another script before
+      body = ((CompiledBlock) body).getStatement();
+    }
+    if (body != null && isCompilable(body)) {
+      functions.add(function);
+      functionBodies.add(new CompiledBlock(script, block(body), body));
+    }
+  }
+
+  /**
+   * Generates a node of a block, leaving its value on the stack.
+   */
+  private void statement(ASTNode node, int thisValue, int factory) {
+    Class<?> type = node.getClass();
+    if (type == IfNode.class) {
+      ifStatement((IfNode) node, thisValue, factory);
+    }
+    else if (type == ForNode.class) {
+      forStatement((ForNode) node, thisValue, factory);
+    }
+    else if (type == ForEachNode.class) {
+      forEachStatement((ForEachNode) node, thisValue, factory);
+    }
+    else if (type == WhileNode.class) {
+      whileStatement((WhileNode) node, thisValue, factory);
+    }
+    else {
+      loadConstant(node, ASTNode.class);
+      mv.visitVarInsn(ALOAD, CTX);
+      mv.visitVarInsn(ALOAD, thisValue);
+      mv.visitVarInsn(ALOAD, factory);
+      mv.visitMethodInsn(INVOKEVIRTUAL, NODE, "getReducedValueAccelerated", VALUE, false);
+    }
+  }
+
+  /**
+   * Generates a nested block, leaving its value on the stack: by calling its method if it has one, or the statement
+   * otherwise.
+   */
+  private void nested(ExecutableStatement stmt, int thisValue, int factory) {
+    if (stmt != null && isCompilable(stmt)) {
+      mv.visitVarInsn(ALOAD, 0);
+      mv.visitVarInsn(ALOAD, CTX);
+      mv.visitVarInsn(ALOAD, thisValue);
+      mv.visitVarInsn(ALOAD, factory);
+      mv.visitMethodInsn(INVOKESPECIAL, className, "block" + block(stmt), VALUE, false);
+    }
+    else {
+      value(stmt, thisValue, factory);
+    }
+  }
+
+  /**
+   * Calls {@link ExecutableStatement#getValue(Object, Object, VariableResolverFactory)} of the given statement,
+   * leaving the value on the stack.
+   */
+  private void value(ExecutableStatement stmt, int thisValue, int factory) {
+    loadConstant(stmt, ExecutableStatement.class);
+    mv.visitVarInsn(ALOAD, CTX);
+    mv.visitVarInsn(ALOAD, thisValue);
+    mv.visitVarInsn(ALOAD, factory);
+    mv.visitMethodInsn(INVOKEINTERFACE, STATEMENT, "getValue", VALUE, true);
+  }
+
+  private void condition(ExecutableStatement stmt, int thisValue, int factory, Label otherwise) {
+    value(stmt, thisValue, factory);
+    mv.visitTypeInsn(CHECKCAST, "java/lang/Boolean");
+    mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+    mv.visitJumpInsn(IFEQ, otherwise);
+  }
+
+  /**
+   * Stores a new scope enclosed by the given factory in a new local, and returns the local.
+   */
+  private int scope(int factory) {
+    mv.visitTypeInsn(NEW, SCOPE);
+    mv.visitInsn(DUP);
+    mv.visitVarInsn(ALOAD, factory);
+    mv.visitMethodInsn(INVOKESPECIAL, SCOPE, "<init>", "(L" + FACTORY + ";)V", false);
+    int local = newLocal();
+    mv.visitVarInsn(ASTORE, local);
+    return local;
+  }
+
+  /**
+   * Checks the execution context, as {@link ASTNode} does before every iteration of a loop.
+   */
+  private void checkExecution() {
+    Label skip = new Label();
+    mv.visitVarInsn(ALOAD, CTX);
+    mv.visitTypeInsn(INSTANCEOF, CONTEXT);
+    mv.visitJumpInsn(IFEQ, skip);
+    mv.visitVarInsn(ALOAD, CTX);
+    mv.visitTypeInsn(CHECKCAST, CONTEXT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, CONTEXT, "checkExecution", "()V", false);
+    mv.visitLabel(skip);
+  }
+
+  /**
+   * Runs the block of a loop once.  The loop returns the value of the block if the block returned, and ends if the
+   * block broke out of it.
+   */
+  private void iteration(ExecutableStatement block, int thisValue, int factory, Label done, Label exit) {
+    nested(block, thisValue, factory);
+    int v = newLocal();
+    mv.visitVarInsn(ASTORE, v);
+
+    Label notReturned = new Label();
+    mv.visitVarInsn(ALOAD, factory);
+    mv.visitMethodInsn(INVOKEINTERFACE, FACTORY, "tiltFlag", "()Z", true);
+    mv.visitJumpInsn(IFEQ, notReturned);
+    mv.visitVarInsn(ALOAD, v);
+    mv.visitJumpInsn(GOTO, done);
+
+    mv.visitLabel(notReturned);
+    Label next = new Label();
+    mv.visitVarInsn(ALOAD, factory);
+    mv.visitMethodInsn(INVOKEINTERFACE, FACTORY, "breakFlag", "()Z", true);
+    mv.visitJumpInsn(IFEQ, next);
+    mv.visitVarInsn(ALOAD, factory);
+    mv.visitInsn(ICONST_0);
+    mv.visitMethodInsn(INVOKEINTERFACE, FACTORY, "setBreakFlag", "(Z)V", true);
+    mv.visitJumpInsn(GOTO, exit);
+    mv.visitLabel(next);
+  }
+
+  /**
+   * As {@link IfNode#getReducedValueAccelerated(Object, Object, VariableResolverFactory)}.
+   */
+  private void ifStatement(IfNode node, int thisValue, int factory) {
+    Label otherwise = new Label();
+    Label done = new Label();
+
+    condition(node.getCondition(), thisValue, factory, otherwise);
+    nested(node.getNestedStatement(), thisValue, node.isIndexAllocation() ? factory : scope(factory));
+    mv.visitJumpInsn(GOTO, done);
+
+    mv.visitLabel(otherwise);
+    if (node.getElseIf() != null) {
+      statement(node.getElseIf(), thisValue, node.isIndexAllocation() ? factory : scope(factory));
+    }
+    else if (node.getElseBlock() != null) {
+      nested(node.getElseBlock(), thisValue, node.isIndexAllocation() ? factory : scope(factory));
+    }
+    else {
+      mv.visitInsn(ACONST_NULL);
+    }
+    mv.visitLabel(done);
+  }
+
+  /**
+   * As {@link ForNode#getReducedValueAccelerated(Object, Object, VariableResolverFactory)}.
+   */
+  private void forStatement(ForNode node, int thisValue, int factory) {
+    int ctxFactory = node.isIndexAllocation() ? factory : scope(factory);
+    Label loop = new Label();
+    Label exit = new Label();
+    Label done = new Label();
+
+    value(node.getInitializer(), thisValue, ctxFactory);
+    mv.visitInsn(POP);
+
+    mv.visitLabel(loop);
+    condition(node.getCondition(), thisValue, ctxFactory, exit);
+    checkExecution();
+    iteration(node.getCompiledBlock(), thisValue, ctxFactory, done, exit);
+    value(node.getAfter(), thisValue, ctxFactory);
+    mv.visitInsn(POP);
+    mv.visitJumpInsn(GOTO, loop);
+
+    mv.visitLabel(exit);
+    mv.visitInsn(ACONST_NULL);
+    mv.visitLabel(done);
+  }
+
+  /**
+   * As {@link WhileNode#getReducedValueAccelerated(Object, Object, VariableResolverFactory)}.
+   */
+  private void whileStatement(WhileNode node, int thisValue, int factory) {
+    int ctxFactory = scope(factory);
+    Label loop = new Label();
+    Label exit = new Label();
+    Label done = new Label();
+
+    mv.visitLabel(loop);
+    condition(node.getCondition(), thisValue, factory, exit);
+    checkExecution();
+    iteration(node.getCompiledBlock(), thisValue, ctxFactory, done, exit);
+    mv.visitJumpInsn(GOTO, loop);
+
+    mv.visitLabel(exit);
+    mv.visitInsn(ACONST_NULL);
+    mv.visitLabel(done);
+  }
+
+  /**
+   * As {@link ForEachNode#getReducedValueAccelerated(Object, Object, VariableResolverFactory)}.
+   */
+  private void forEachStatement(ForEachNode node, int thisValue, int factory) {
+    int item = newLocal();
+    mv.visitTypeInsn(NEW, ITEM);
+    mv.visitInsn(DUP);
+    mv.visitLdcInsn(node.getItem());
+    mv.visitMethodInsn(INVOKESPECIAL, ITEM, "<init>", "(Ljava/lang/String;)V", false);
+    mv.visitVarInsn(ASTORE, item);
+
+    int scope = scope(factory);
+    int itemFactory = newLocal();
+    mv.visitTypeInsn(NEW, ITEM_FACTORY);
+    mv.visitInsn(DUP);
+    mv.visitVarInsn(ALOAD, item);
+    mv.visitVarInsn(ALOAD, scope);
+    mv.visitMethodInsn(INVOKESPECIAL, ITEM_FACTORY, "<init>", "(L" + ITEM + ";L" + FACTORY + ";)V", false);
+    mv.visitVarInsn(ASTORE, itemFactory);
+
+    int items = newLocal();
+    loadConstant(node, ForEachNode.class);
+    value(node.getCondition(), thisValue, factory);
+    mv.visitMethodInsn(INVOKEVIRTUAL, getInternalName(ForEachNode.class), "iterator",
+        "(Ljava/lang/Object;)" + getDescriptor(Iterator.class), false);
+    mv.visitVarInsn(ASTORE, items);
+
+    Label loop = new Label();
+    Label exit = new Label();
+    Label done = new Label();
+
+    mv.visitLabel(loop);
+    mv.visitVarInsn(ALOAD, items);
+    mv.visitMethodInsn(INVOKEINTERFACE, ITERATOR, "hasNext", "()Z", true);
+    mv.visitJumpInsn(IFEQ, exit);
+    int next = newLocal();
+    mv.visitVarInsn(ALOAD, items);
+    mv.visitMethodInsn(INVOKEINTERFACE, ITERATOR, "next", "()Ljava/lang/Object;", true);
+    mv.visitVarInsn(ASTORE, next);
+    checkExecution();
+    mv.visitVarInsn(ALOAD, item);
+    mv.visitVarInsn(ALOAD, next);
+    mv.visitMethodInsn(INVOKEVIRTUAL, ITEM, "setValue", "(Ljava/lang/Object;)V", false);
+    iteration(node.getCompiledBlock(), thisValue, itemFactory, done, exit);
+    mv.visitJumpInsn(GOTO, loop);
+
+    mv.visitLabel(exit);
+    mv.visitInsn(ACONST_NULL);
+    mv.visitLabel(done);
+  }
+}
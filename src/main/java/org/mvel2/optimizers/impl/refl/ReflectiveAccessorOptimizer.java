@@ -38,6 +38,7 @@ import org.mvel2.integration.GlobalListenerFactory;
 import org.mvel2.integration.PropertyHandler;
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
 import org.mvel2.optimizers.AbstractOptimizer;
 import org.mvel2.optimizers.AccessorOptimizer;
 import org.mvel2.optimizers.impl.refl.collection.ArrayCreator;
@@ -68,6 +69,7 @@ import org.mvel2.optimizers.impl.refl.nodes.Notify;
 import org.mvel2.optimizers.impl.refl.nodes.NullSafe;
 import org.mvel2.optimizers.impl.refl.nodes.PropertyHandlerAccessor;
 import org.mvel2.optimizers.impl.refl.nodes.SetterAccessor;
+import org.mvel2.optimizers.impl.refl.nodes.SlotVariableAccessor;
 import org.mvel2.optimizers.impl.refl.nodes.StaticReferenceAccessor;
 import org.mvel2.optimizers.impl.refl.nodes.StaticVarAccessor;
 import org.mvel2.optimizers.impl.refl.nodes.StaticVarAccessorNH;
@@ -458,6 +460,9 @@ public class ReflectiveAccessorOptimizer extends AbstractOptimizer implements Ac
       return rootNode;
     }
     catch (InvocationTargetException e) {
+      if (e.getTargetException() instanceof ScriptMemoryOverflowException) {
+        throw (ScriptMemoryOverflowException) e.getTargetException();
+      }
       if (MVEL.INVOKED_METHOD_EXCEPTIONS_BUBBLE) {
         if (e.getTargetException() instanceof RuntimeException) {
           throw (RuntimeException) e.getTargetException();
@@ -556,6 +561,12 @@ public class ReflectiveAccessorOptimizer extends AbstractOptimizer implements Ac
 
           return variableFactory.getIndexedVariableResolver(idx).getValue();
         }
+        else if (pCtx != null) {
+          VariableSlot slot = pCtx.getVariableSlot(property);
+          addAccessorNode(new SlotVariableAccessor(slot));
+
+          return variableFactory.getVariableResolver(slot).getValue();
+        }
         else {
           addAccessorNode(new VariableAccessor(property));
 
@@ -1101,7 +1112,7 @@ public class ReflectiveAccessorOptimizer extends AbstractOptimizer implements Ac
     /**
      * Try to find an instance method from the class target.
      */
-    if ((m = getBestCandidate(argTypes, name, cls, cls.getMethods(), false, classTarget)) != null) {
+    if ((m = getBestCandidate(argTypes, name, cls, false, classTarget)) != null) {
       parameterTypes = m.getParameterTypes();
     }
 
@@ -1109,7 +1120,7 @@ public class ReflectiveAccessorOptimizer extends AbstractOptimizer implements Ac
       /**
        * If we didn't find anything, maybe we're looking for the actual java.lang.Class methods.
        */
-      if ((m = getBestCandidate(argTypes, name, cls, Class.class.getMethods(), false)) != null) {
+      if ((m = getBestCandidate(argTypes, name, Class.class, false)) != null) {
         parameterTypes = m.getParameterTypes();
       }
     }
@@ -1117,7 +1128,7 @@ public class ReflectiveAccessorOptimizer extends AbstractOptimizer implements Ac
     // If we didn't find anything and the declared class is different from the actual one try also with the actual one
     if (m == null && ctx != null && cls != ctx.getClass() && !(ctx instanceof Class)) {
       cls = ctx.getClass();
-      if ((m = getBestCandidate(argTypes, name, cls, cls.getMethods(), false, classTarget)) != null) {
+      if ((m = getBestCandidate(argTypes, name, cls, false, classTarget)) != null) {
         parameterTypes = m.getParameterTypes();
       }
     }
@@ -23,6 +23,7 @@ import org.mvel2.compiler.AccessorNode;
 import org.mvel2.integration.VariableResolverFactory;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import static org.mvel2.MVEL.getProperty;
 import static org.mvel2.util.ParseTools.getBestCandidate;
@@ -32,9 +33,18 @@ public class GetterAccessor implements AccessorNode {
   private AccessorNode nextNode;
   private final Method method;
 
+  private final boolean isStatic;
+  private final InlineCache receiverCache = new InlineCache();
+
   public static final Object[] EMPTY = new Object[0];
 
   public Object getValue(Object ctx, Object elCtx, VariableResolverFactory vars) {
+    if (ctx != null && !isStatic && !method.getDeclaringClass().isInstance(ctx)) {
+      Method o = receiverCache.resolve(ctx.getClass(), InlineCache.NO_ARGUMENTS, method.getName(), true);
+      if (o != null) {
+        return executeOverrideTarget(o, ctx, elCtx, vars);
+      }
+    }
     try {
       if (nextNode != null) {
         return nextNode.getValue(method.invoke(ctx, EMPTY), elCtx, vars);
@@ -45,7 +55,7 @@ public class GetterAccessor implements AccessorNode {
     }
     catch (IllegalArgumentException e) {
       if (ctx != null && method.getDeclaringClass() != ctx.getClass()) {
-        Method o = getBestCandidate(EMPTY, method.getName(), ctx.getClass(), ctx.getClass().getMethods(), true);
+        Method o = getBestCandidate(EMPTY, method.getName(), ctx.getClass(), true);
         if (o != null) {
           return executeOverrideTarget(o, ctx, elCtx, vars);
         }
@@ -79,6 +89,7 @@ public class GetterAccessor implements AccessorNode {
 
   public GetterAccessor(Method method) {
     this.method = method;
+    this.isStatic = Modifier.isStatic(method.getModifiers());
   }
 
   public Method getMethod() {
@@ -24,6 +24,7 @@ import org.mvel2.integration.PropertyHandler;
 import org.mvel2.integration.VariableResolverFactory;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import static org.mvel2.MVEL.getProperty;
 import static org.mvel2.util.ParseTools.getBestCandidate;
@@ -33,15 +34,24 @@ public class GetterAccessorNH implements AccessorNode {
   private final Method method;
   private PropertyHandler nullHandler;
 
+  private final boolean isStatic;
+  private final InlineCache receiverCache = new InlineCache();
+
   public static final Object[] EMPTY = new Object[0];
 
   public Object getValue(Object ctx, Object elCtx, VariableResolverFactory vars) {
+    if (ctx != null && !isStatic && !method.getDeclaringClass().isInstance(ctx)) {
+      Method o = receiverCache.resolve(ctx.getClass(), InlineCache.NO_ARGUMENTS, method.getName(), true);
+      if (o != null) {
+        return executeOverrideTarget(o, ctx, elCtx, vars);
+      }
+    }
     try {
       return nullHandle(method.getName(), method.invoke(ctx, EMPTY), ctx, elCtx, vars);
     }
     catch (IllegalArgumentException e) {
       if (ctx != null && method.getDeclaringClass() != ctx.getClass()) {
-        Method o = getBestCandidate(EMPTY, method.getName(), ctx.getClass(), ctx.getClass().getMethods(), true);
+        Method o = getBestCandidate(EMPTY, method.getName(), ctx.getClass(), true);
         if (o != null) {
           return executeOverrideTarget(o, ctx, elCtx, vars);
         }
@@ -61,6 +71,7 @@ public class GetterAccessorNH implements AccessorNode {
 
   public GetterAccessorNH(Method method, PropertyHandler nullHandler) {
     this.method = method;
+    this.isStatic = Modifier.isStatic(method.getModifiers());
     this.nullHandler = nullHandler;
   }
 
@@ -0,0 +1,76 @@
+package org.mvel2.optimizers.impl.refl.nodes;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.mvel2.util.ParseTools.getBestCandidate;
+import static org.mvel2.util.ParseTools.getWidenedTarget;
+
+/**
+ * Receiver class inline cache for the reflective accessor nodes.
+ * <p>
+ * An accessor node is bound to the method resolved for the first receiver it sees. When the node is later reached
+ * with a receiver of an unrelated class, the method resolved for that class is remembered here, instead of being
+ * looked up after a failed invocation on every call. The cache holds up to {@link #MAX_RECEIVERS} receiver classes;
+ * once more are seen it turns megamorphic and every lookup goes to the per-class method index.
+ */
+final class InlineCache {
+
+  static final int MAX_RECEIVERS = 4;
+
+  static final Class[] NO_ARGUMENTS = new Class[0];
+
+  private static final Entry[] EMPTY = new Entry[0];
+
+  private static final Entry[] MEGAMORPHIC = new Entry[0];
+
+  private volatile Entry[] entries = EMPTY;
+
+  /**
+   * Returns the widened best candidate for the given receiver class, or {@code null} if there is none.
+   */
+  Method resolve(Class<?> receiver, Class[] arguments, String name, boolean requireExact) {
+    Entry[] current = entries;
+    for (Entry entry : current) {
+      if (entry.receiver == receiver) {
+        return entry.method;
+      }
+    }
+
+    Method method = getBestCandidate(arguments, name, receiver, requireExact);
+    if (method == null) {
+      return null;
+    }
+    method = getWidenedTarget(method);
+
+    if (current != MEGAMORPHIC) {
+      if (current.length < MAX_RECEIVERS) {
+        Entry[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = new Entry(receiver, method);
+        entries = updated;
+      }
+      else {
+        entries = MEGAMORPHIC;
+      }
+    }
+    return method;
+  }
+
+  boolean isMegamorphic() {
+    return entries == MEGAMORPHIC;
+  }
+
+  int size() {
+    return entries.length;
+  }
+
+  private static final class Entry {
+    private final Class<?> receiver;
+    private final Method method;
+
+    Entry(Class<?> receiver, Method method) {
+      this.receiver = receiver;
+      this.method = method;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.integration.VariableResolverFactory;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 
 import static org.mvel2.util.ParseTools.getBestCandidate;
@@ -33,8 +34,16 @@ public class MethodAccessor extends InvokableAccessor {
 
   private Method method;
   private int executionContextParamIndex = -1;
+  private boolean isStatic;
+  private final InlineCache receiverCache = new InlineCache();
 
   public Object getValue(Object ctx, Object elCtx, VariableResolverFactory vars) {
+    if (ctx != null && !isStatic && !method.getDeclaringClass().isInstance(ctx)) {
+      Method o = receiverCache.resolve(ctx.getClass(), parameterTypes, method.getName(), true);
+      if (o != null) {
+        return executeOverrideTarget(o, ctx, elCtx, vars);
+      }
+    }
     if (!coercionNeeded) {
       try {
         if (nextNode != null) {
@@ -46,7 +55,7 @@ public class MethodAccessor extends InvokableAccessor {
       }
       catch (IllegalArgumentException e) {
           if (ctx != null && method.getDeclaringClass() != ctx.getClass()) {
-              Method o = getBestCandidate(parameterTypes, method.getName(), ctx.getClass(), ctx.getClass().getMethods(), true);
+              Method o = getBestCandidate(parameterTypes, method.getName(), ctx.getClass(), true);
               if (o != null) {
                   return executeOverrideTarget(getWidenedTarget(o), ctx, elCtx, vars);
               }
@@ -76,8 +85,7 @@ public class MethodAccessor extends InvokableAccessor {
       catch (IllegalArgumentException e) {
         Object[] vs = executeAndCoerce(parameterTypes, elCtx, vars, false);
         Method newMeth;
-        if ((newMeth = getWidenedTarget(getBestCandidate(vs, method.getName(), ctx.getClass(),
-            ctx.getClass().getMethods(), false))) != null) {
+        if ((newMeth = getWidenedTarget(getBestCandidate(vs, method.getName(), ctx.getClass(), false))) != null) {
           return executeOverrideTarget(newMeth, ctx, elCtx, vars);
         }
         else {
@@ -177,6 +185,7 @@ public class MethodAccessor extends InvokableAccessor {
     this.method = method;
     this.length = (this.parameterTypes = this.method.getParameterTypes()).length;
     this.executionContextParamIndex = Arrays.asList(this.parameterTypes).indexOf(ExecutionContext.class);
+    this.isStatic = Modifier.isStatic(method.getModifiers());
   }
 
   public ExecutableStatement[] getParms() {
@@ -201,7 +210,7 @@ public class MethodAccessor extends InvokableAccessor {
     }
     catch (IllegalArgumentException e) {
       if (ctx != null && method.getDeclaringClass() != ctx.getClass()) {
-        Method o = getBestCandidate(parameterTypes, method.getName(), ctx.getClass(), ctx.getClass().getMethods(), true);
+        Method o = getBestCandidate(parameterTypes, method.getName(), ctx.getClass(), true);
         if (o != null) {
           return nextNode.setValue(executeOverrideTarget(o, ctx, elCtx, variableFactory), elCtx, variableFactory, value);
         }
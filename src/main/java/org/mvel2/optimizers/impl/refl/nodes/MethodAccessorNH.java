@@ -24,6 +24,7 @@ import org.mvel2.integration.PropertyHandler;
 import org.mvel2.integration.VariableResolverFactory;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import static org.mvel2.DataConversion.convert;
 import static org.mvel2.util.ParseTools.getBestCandidate;
@@ -39,8 +40,16 @@ public class MethodAccessorNH implements AccessorNode {
   private boolean coercionNeeded = false;
 
   private PropertyHandler nullHandler;
+  private boolean isStatic;
+  private final InlineCache receiverCache = new InlineCache();
 
   public Object getValue(Object ctx, Object elCtx, VariableResolverFactory vars) {
+    if (ctx != null && !isStatic && !method.getDeclaringClass().isInstance(ctx)) {
+      Method o = receiverCache.resolve(ctx.getClass(), parameterTypes, method.getName(), true);
+      if (o != null) {
+        return executeOverrideTarget(o, ctx, elCtx, vars);
+      }
+    }
     if (!coercionNeeded) {
       try {
         Object v = method.invoke(ctx, executeAll(elCtx, vars));
@@ -55,7 +64,7 @@ public class MethodAccessorNH implements AccessorNode {
       }
       catch (IllegalArgumentException e) {
         if (ctx != null && method.getDeclaringClass() != ctx.getClass()) {
-          Method o = getBestCandidate(parameterTypes, method.getName(), ctx.getClass(), ctx.getClass().getMethods(), true);
+          Method o = getBestCandidate(parameterTypes, method.getName(), ctx.getClass(), true);
           if (o != null) {
             return executeOverrideTarget(o, ctx, elCtx, vars);
           }
@@ -127,6 +136,7 @@ public class MethodAccessorNH implements AccessorNode {
   public void setMethod(Method method) {
     this.method = method;
     this.length = (this.parameterTypes = this.method.getParameterTypes()).length;
+    this.isStatic = Modifier.isStatic(method.getModifiers());
   }
 
   public ExecutableStatement[] getParms() {
@@ -141,8 +151,7 @@ public class MethodAccessorNH implements AccessorNode {
   }
 
   public MethodAccessorNH(Method method, ExecutableStatement[] parms, PropertyHandler handler) {
-    this.method = method;
-    this.length = (this.parameterTypes = this.method.getParameterTypes()).length;
+    setMethod(method);
 
     this.parms = parms;
     this.nullHandler = handler;
@@ -13,13 +13,21 @@ public class SetterAccessor implements AccessorNode {
   private AccessorNode nextNode;
   private final Method method;
   private Class<?> targetType;
+  private final Class[] parameterTypes;
   private boolean primitive;
 
   private boolean coercionRequired = false;
+  private final InlineCache receiverCache = new InlineCache();
 
   public static final Object[] EMPTY = new Object[0];
 
   public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
+    if (ctx != null && !method.getDeclaringClass().isInstance(ctx)) {
+      Method o = receiverCache.resolve(ctx.getClass(), parameterTypes, method.getName(), false);
+      if (o != null) {
+        return executeOverrideTarget(o, ctx, value);
+      }
+    }
     // this local field is required to make sure exception block works with the same coercionRequired value
     // and it is not changed by another thread while setter is invoked 
     boolean attemptedCoercion = coercionRequired;
@@ -33,7 +41,7 @@ public class SetterAccessor implements AccessorNode {
     }
     catch (IllegalArgumentException e) {
       if (ctx != null && method.getDeclaringClass() != ctx.getClass()) {
-        Method o = getBestCandidate(EMPTY, method.getName(), ctx.getClass(), ctx.getClass().getMethods(), true);
+        Method o = getBestCandidate(EMPTY, method.getName(), ctx.getClass(), true);
         if (o != null) {
           return executeOverrideTarget(o, ctx, value);
         }
@@ -57,7 +65,7 @@ public class SetterAccessor implements AccessorNode {
   public SetterAccessor(Method method) {
     this.method = method;
     assert method != null;
-    primitive = (this.targetType = method.getParameterTypes()[0]).isPrimitive();
+    primitive = (this.targetType = (this.parameterTypes = method.getParameterTypes())[0]).isPrimitive();
   }
 
   public Method getMethod() {
@@ -82,7 +90,7 @@ public class SetterAccessor implements AccessorNode {
 
   private Object executeOverrideTarget(Method o, Object ctx, Object value) {
     try {
-      return o.invoke(ctx, convert(value, targetType));
+      return o.invoke(ctx, convert(value, o.getParameterTypes()[0]));
     }
     catch (Exception e2) {
       throw new RuntimeException("unable to invoke method", e2);
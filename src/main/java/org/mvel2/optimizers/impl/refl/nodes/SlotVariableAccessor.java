@@ -0,0 +1,61 @@
+package org.mvel2.optimizers.impl.refl.nodes;
+
+import org.mvel2.compiler.AccessorNode;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.VariableSlot;
+
+/**
+ * Reads a variable through the slot the compiler allocated for it, see
+ * {@link VariableResolverFactory#getVariableResolver(VariableSlot)}.
+ */
+public class SlotVariableAccessor implements AccessorNode {
+  private AccessorNode nextNode;
+  private final VariableSlot slot;
+
+  public SlotVariableAccessor(VariableSlot slot) {
+    this.slot = slot;
+  }
+
+  public Object getValue(Object ctx, Object elCtx, VariableResolverFactory vrf) {
+    if (vrf == null)
+      throw new RuntimeException("cannot access property in optimized accessor: " + slot.getName());
+
+    if (nextNode != null) {
+      return nextNode.getValue(vrf.getVariableResolver(slot).getValue(), elCtx, vrf);
+    }
+    else {
+      return vrf.getVariableResolver(slot).getValue();
+    }
+  }
+
+  public Object setValue(Object ctx, Object elCtx, VariableResolverFactory variableFactory, Object value) {
+    if (nextNode != null) {
+      return nextNode.setValue(variableFactory.getVariableResolver(slot).getValue(), elCtx, variableFactory, value);
+    }
+    else {
+      variableFactory.getVariableResolver(slot).setValue(value);
+    }
+
+    return value;
+  }
+
+  public Object getProperty() {
+    return slot.getName();
+  }
+
+  public VariableSlot getSlot() {
+    return slot;
+  }
+
+  public AccessorNode getNextNode() {
+    return nextNode;
+  }
+
+  public AccessorNode setNextNode(AccessorNode nextNode) {
+    return this.nextNode = nextNode;
+  }
+
+  public Class getKnownEgressType() {
+    return Object.class;
+  }
+}
@@ -309,7 +309,8 @@ public class TemplateCompiler {
 
   private int captureOrbInternal() {
     try {
-      ParserContext pCtx = new ParserContext();
+      ParserContext pCtx = parserContext != null ?
+          new ParserContext(parserContext.getParserConfiguration()) : ParserContext.create();
       cursor = balancedCaptureWithLineAccounting(template, start = cursor, length, '{', pCtx);
       line += pCtx.getLineCount();
       int ret = start + 1;
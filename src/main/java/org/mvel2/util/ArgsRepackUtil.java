@@ -3,6 +3,8 @@ package org.mvel2.util;
 import org.mvel2.ExecutionContext;
 import org.mvel2.execution.ExecutionArrayList;
 import org.mvel2.execution.ExecutionHashMap;
+import org.mvel2.execution.LazyExecutionHashMap;
+import org.mvel2.execution.PrimitiveExecutionArrayList;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
@@ -19,7 +21,11 @@ public class ArgsRepackUtil {
             return null;
         }
         if (value.getClass().isArray()) {
-            ExecutionArrayList list = new ExecutionArrayList(ctx);
+            ExecutionArrayList list = PrimitiveExecutionArrayList.of(value, ctx);
+            if (list != null) {
+                return list;
+            }
+            list = new ExecutionArrayList(ctx);
             int size = Array.getLength(value);
             for (int i = 0; i < size; i++) {
                 list.add(repack(ctx, Array.get(value, i)));
@@ -31,7 +37,11 @@ public class ArgsRepackUtil {
             src.forEach((k,v) -> map.put(k, repack(ctx, v)));
             return map;
         } else if (value instanceof Collection){
-            ExecutionArrayList list = new ExecutionArrayList(ctx);
+            ExecutionArrayList list = PrimitiveExecutionArrayList.of((Collection) value, ctx);
+            if (list != null) {
+                return list;
+            }
+            list = new ExecutionArrayList(ctx);
             for(Object o : (Collection)value){
                 list.add(repack(ctx, o));
             }
@@ -41,11 +51,49 @@ public class ArgsRepackUtil {
         }
     }
 
-    public static Object unpack(Object value) {
+    /**
+     * Same as {@link #repack(ExecutionContext, Object)}, but maps are bound as {@link LazyExecutionHashMap} views:
+     * nested maps, collections and arrays are repacked (and accounted) only when the script touches them.
+     */
+    public static Object repackLazy(ExecutionContext ctx, Object value) {
         if (value == null) {
             return null;
         }
         if (value.getClass().isArray()) {
+            ExecutionArrayList list = PrimitiveExecutionArrayList.of(value, ctx);
+            if (list != null) {
+                return list;
+            }
+            int size = Array.getLength(value);
+            list = new ExecutionArrayList(ctx);
+            for (int i = 0; i < size; i++) {
+                list.add(repackLazy(ctx, Array.get(value, i)));
+            }
+            return list;
+        } else if (value instanceof Map) {
+            return new LazyExecutionHashMap((Map) value, ctx);
+        } else if (value instanceof Collection) {
+            ExecutionArrayList list = PrimitiveExecutionArrayList.of((Collection) value, ctx);
+            if (list != null) {
+                return list;
+            }
+            list = new ExecutionArrayList(ctx);
+            for (Object o : (Collection) value) {
+                list.add(repackLazy(ctx, o));
+            }
+            return list;
+        } else {
+            return value;
+        }
+    }
+
+    public static Object unpack(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof LazyExecutionHashMap) {
+            return ((LazyExecutionHashMap) value).unpack();
+        } else if (value.getClass().isArray()) {
             List list = new ArrayList();
             int size = Array.getLength(value);
             for (int i = 0; i < size; i++) {
@@ -37,14 +37,22 @@ public class ArrayTools {
   }
 
   public static int initStartIndex(int start, List list) {
-    return start < -list.size() ? 0 :
-            start < 0 ? start + list.size() :
+    return initStartIndex(start, list.size());
+  }
+
+  public static int initStartIndex(int start, int size) {
+    return start < -size ? 0 :
+            start < 0 ? start + size :
                     start;
   }
 
   public static int initEndIndex(int end, List list) {
-    return end < -list.size() ? 0 :
-            end < 0 ? end + list.size() :
-                    Math.min(end, list.size());
+    return initEndIndex(end, list.size());
+  }
+
+  public static int initEndIndex(int end, int size) {
+    return end < -size ? 0 :
+            end < 0 ? end + size :
+                    Math.min(end, size);
   }
 }
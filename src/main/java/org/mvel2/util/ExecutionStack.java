@@ -23,129 +23,139 @@ import org.mvel2.ScriptRuntimeException;
 import static java.lang.String.valueOf;
 import static org.mvel2.math.MathProcessor.doOperations;
 
+/**
+ * Array-backed operand stack used by the interpreter loops. Pushing values does not allocate unless the
+ * backing array has to grow, and instances can be recycled per thread with {@link #acquire()} / {@link #release()}.
+ */
 public class ExecutionStack {
-  private StackElement element;
+  private static final int INITIAL_CAPACITY = 8;
+  private static final int MAX_POOLED_CAPACITY = 256;
+  private static final int MAX_POOL_SIZE = 16;
+  private static final Object[] EMPTY = new Object[0];
+
+  private static final ThreadLocal<ExecutionStack[]> POOL = ThreadLocal.withInitial(() -> new ExecutionStack[MAX_POOL_SIZE]);
+
+  private Object[] elements;
   private int size = 0;
 
+  public ExecutionStack() {
+    this.elements = EMPTY;
+  }
+
+  /**
+   * Returns a cleared stack owned by the calling thread. It must be handed back with {@link #release()}
+   * once the caller no longer uses it.
+   */
+  public static ExecutionStack acquire() {
+    ExecutionStack[] pool = POOL.get();
+    for (int i = MAX_POOL_SIZE - 1; i >= 0; i--) {
+      ExecutionStack stk = pool[i];
+      if (stk != null) {
+        pool[i] = null;
+        return stk;
+      }
+    }
+    return new ExecutionStack();
+  }
+
+  public void release() {
+    clear();
+    if (elements.length > MAX_POOLED_CAPACITY) {
+      return;
+    }
+    ExecutionStack[] pool = POOL.get();
+    for (int i = 0; i < MAX_POOL_SIZE; i++) {
+      if (pool[i] == null) {
+        pool[i] = this;
+        return;
+      }
+    }
+  }
+
   public boolean isEmpty() {
     return size == 0;
   }
 
   public void add(Object o) {
+    ensureCapacity(size + 1);
+    System.arraycopy(elements, 0, elements, 1, size);
+    elements[0] = o;
     size++;
-    StackElement el = element;
-    if (el != null) {
-      while (el.next != null) {
-        el = el.next;
-      }
-      el.next = new StackElement(null, o);
-    }
-    else {
-      element = new StackElement(null, o);
-    }
   }
 
   public void push(Object o) {
-    size++;
-    element = new StackElement(element, o);
-    assert size == deepCount();
-
+    ensureCapacity(size + 1);
+    elements[size++] = o;
   }
 
   public void push(Object obj1, Object obj2) {
-    size += 2;
-    element = new StackElement(new StackElement(element, obj1), obj2);
-    assert size == deepCount();
-
+    ensureCapacity(size + 2);
+    elements[size++] = obj1;
+    elements[size++] = obj2;
   }
 
   public void push(Object obj1, Object obj2, Object obj3) {
-    size += 3;
-    element = new StackElement(new StackElement(new StackElement(element, obj1), obj2), obj3);
-    assert size == deepCount();
-
+    ensureCapacity(size + 3);
+    elements[size++] = obj1;
+    elements[size++] = obj2;
+    elements[size++] = obj3;
   }
 
   public Object peek() {
     if (size == 0) return null;
-    else return element.value;
+    else return elements[size - 1];
   }
 
   public void dup() {
-    size++;
-    element = new StackElement(element, element.value);
-    assert size == deepCount();
-
+    push(elements[size - 1]);
   }
 
   public Boolean peekBoolean() {
     if (size == 0) return null;
-    if (element.value instanceof Boolean) return (Boolean) element.value;
-    throw new ScriptRuntimeException("expected Boolean; but found: " + (element.value == null ? "null" : element.value.getClass().getName()));
+    return toBoolean(elements[size - 1]);
   }
 
   public void copy2(ExecutionStack es) {
-    element = new StackElement(new StackElement(element, es.element.value), es.element.next.value);
-    es.element = es.element.next.next;
-    size += 2;
-    es.size -= 2;
+    push(es.elements[es.size - 1], es.elements[es.size - 2]);
+    es.discard(2);
   }
 
   public void copyx2(ExecutionStack es) {
-    element = new StackElement(new StackElement(element, es.element.next.value), es.element.value);
-    es.element = es.element.next.next;
-    size += 2;
-    es.size -= 2;
+    push(es.elements[es.size - 2], es.elements[es.size - 1]);
+    es.discard(2);
   }
 
   public Object peek2() {
-    return element.next.value;
+    return elements[size - 2];
   }
 
   public Object pop() {
     if (size == 0) {
       return null;
     }
-    try {
-      size--;
-      return element.value;
-    }
-    finally {
-      element = element.next;
-      assert size == deepCount();
-    }
+    Object value = elements[--size];
+    elements[size] = null;
+    return value;
   }
 
   public Boolean popBoolean() {
-    if (size-- == 0) {
+    if (size == 0) {
       return null;
     }
-    try {
-      if (element.value instanceof Boolean) return (Boolean) element.value;
-      throw new ScriptRuntimeException("expected Boolean; but found: " + (element.value == null ? "null" : element.value.getClass().getName()));
-    }
-    finally {
-      element = element.next;
-      assert size == deepCount();
-
-    }
+    Object value = elements[--size];
+    elements[size] = null;
+    return toBoolean(value);
   }
 
   public Object pop2() {
-    try {
-      size -= 2;
-      return element.value;
-    }
-    finally {
-      element = element.next.next;
-      assert size == deepCount();
-    }
+    Object value = elements[size - 1];
+    discard(2);
+    return value;
   }
 
   public void discard() {
     if (size != 0) {
-      size--;
-      element = element.next;
+      elements[--size] = null;
     }
   }
 
@@ -158,75 +168,75 @@ public class ExecutionStack {
   }
 
   public void clear() {
+    for (int i = 0; i < size; i++) {
+      elements[i] = null;
+    }
     size = 0;
-    element = null;
   }
 
   public void xswap_op() {
-    element = new StackElement(element.next.next.next, doOperations(element.next.next.value, (Integer) element.next.value, element.value));
-    size -= 2;
-    assert size == deepCount();
+    Object result = doOperations(elements[size - 3], (Integer) elements[size - 2], elements[size - 1]);
+    discard(2);
+    elements[size - 1] = result;
   }
 
   public void op() {
-    element = new StackElement(element.next.next.next, doOperations(element.next.next.value, (Integer) element.value, element.next.value));
-    size -= 2;
-    assert size == deepCount();
+    Object result = doOperations(elements[size - 3], (Integer) elements[size - 1], elements[size - 2]);
+    discard(2);
+    elements[size - 1] = result;
   }
 
   public void op(int operator) {
-    element = new StackElement(element.next.next, doOperations(element.next.value, operator, element.value));
-    size--;
-    assert size == deepCount();
+    Object result = doOperations(elements[size - 2], operator, elements[size - 1]);
+    discard(1);
+    elements[size - 1] = result;
   }
 
   public void xswap() {
-    StackElement e = element.next;
-    StackElement relink = e.next;
-    e.next = element;
-    (element = e).next.next = relink;
+    Object top = elements[size - 1];
+    elements[size - 1] = elements[size - 2];
+    elements[size - 2] = top;
   }
 
   public void xswap2() {
-    StackElement node2 = element.next;
-    StackElement node3 = node2.next;
-
-    (node2.next = element).next = node3.next;
-    element = node3;
-    element.next = node2;
+    Object top = elements[size - 1];
+    elements[size - 1] = elements[size - 3];
+    elements[size - 3] = top;
   }
 
   public int deepCount() {
-    int count = 0;
-
-    if (element == null) {
-      return 0;
-    }
-    else {
-      count++;
-    }
-
-    StackElement element = this.element;
-    while ((element = element.next) != null) {
-      count++;
-    }
-    return count;
+    return size;
   }
 
   public String toString() {
-    StackElement el = element;
-
-    if (element == null) return "<EMPTY>";
+    if (size == 0) return "<EMPTY>";
 
     StringBuilder appender = new StringBuilder().append("[");
-    do {
-      appender.append(valueOf(el.value));
-      if (el.next != null) appender.append(", ");
+    for (int i = size - 1; i >= 0; i--) {
+      appender.append(valueOf(elements[i]));
+      if (i > 0) appender.append(", ");
     }
-    while ((el = el.next) != null);
-
     appender.append("]");
 
     return appender.toString();
   }
+
+  private void discard(int count) {
+    for (int i = 0; i < count; i++) {
+      elements[--size] = null;
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > elements.length) {
+      Object[] newElements = new Object[Math.max(Math.max(capacity, elements.length << 1), INITIAL_CAPACITY)];
+      System.arraycopy(elements, 0, newElements, 0, size);
+      elements = newElements;
+    }
+  }
+
+  private static Boolean toBoolean(Object value) {
+    if (value instanceof Boolean) return (Boolean) value;
+    throw new ScriptRuntimeException("expected Boolean; but found: " + (value == null ? "null" : value.getClass().getName()));
+  }
 }
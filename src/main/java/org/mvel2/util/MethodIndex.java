@@ -0,0 +1,195 @@
+package org.mvel2.util;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-class index of public methods used to speed up {@link ParseTools#getBestCandidate}.
+ * <p>
+ * Methods are grouped by name with their {@code ExecutionContext}-stripped parameter types precomputed, and resolved
+ * candidates are memoized by name and argument types. Indexes are attached to the class through a {@link ClassValue},
+ * so they never keep a class (or its class loader) reachable. Resolutions with argument types from an unrelated class
+ * loader are not memoized, so a sandbox class loader can still be unloaded.
+ */
+public final class MethodIndex {
+
+  private static final Candidate[] NO_CANDIDATES = new Candidate[0];
+
+  private static final Method NOT_FOUND;
+
+  static {
+    try {
+      NOT_FOUND = MethodIndex.class.getDeclaredMethod("notFound");
+    }
+    catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final ClassValue<MethodIndex> INDEXES = new ClassValue<MethodIndex>() {
+    @Override
+    protected MethodIndex computeValue(Class<?> type) {
+      return new MethodIndex(type);
+    }
+  };
+
+  private final Class<?> cls;
+
+  private final Map<String, Candidate[]> candidatesByName;
+
+  private final Map<ResolutionKey, Method> resolved = new ConcurrentHashMap<>();
+
+  private MethodIndex(Class<?> cls) {
+    this.cls = cls;
+    Map<String, List<Candidate>> byName = new HashMap<>();
+    for (Method method : cls.getMethods()) {
+      byName.computeIfAbsent(method.getName(), k -> new ArrayList<>()).add(new Candidate(method));
+    }
+    this.candidatesByName = new HashMap<>(byName.size() * 2);
+    byName.forEach((name, candidates) -> this.candidatesByName.put(name, candidates.toArray(NO_CANDIDATES)));
+  }
+
+  public static MethodIndex of(Class<?> cls) {
+    return INDEXES.get(cls);
+  }
+
+  /**
+   * Equivalent to {@code ParseTools.getBestCandidate(arguments, method, cls, cls.getMethods(), requireExact, classTarget)}.
+   */
+  public Method getBestCandidate(Class[] arguments, String method, boolean requireExact, boolean classTarget) {
+    ResolutionKey key = new ResolutionKey(method, arguments, requireExact, classTarget);
+    Method m = resolved.get(key);
+    if (m == null) {
+      m = resolve(arguments, method, requireExact, classTarget);
+      if (isCacheable(arguments)) {
+        resolved.put(new ResolutionKey(method, arguments.clone(), requireExact, classTarget), m == null ? NOT_FOUND : m);
+      }
+      return m;
+    }
+    return m == NOT_FOUND ? null : m;
+  }
+
+  public Candidate[] getCandidates(String method) {
+    return candidatesByName.getOrDefault(method, NO_CANDIDATES);
+  }
+
+  private Method resolve(Class[] arguments, String method, boolean requireExact, boolean classTarget) {
+    Method bestCandidate = findBest(getCandidates(method), arguments, requireExact, classTarget);
+    if (bestCandidate == null && cls.isInterface()) {
+      bestCandidate = findBest(of(Object.class).getCandidates(method), arguments, requireExact, classTarget);
+    }
+    return bestCandidate;
+  }
+
+  private static Method findBest(Candidate[] candidates, Class[] arguments, boolean requireExact, boolean classTarget) {
+    Method bestCandidate = null;
+    int bestScore = -1;
+
+    for (Candidate candidate : candidates) {
+      if (classTarget && !candidate.isStatic) continue;
+
+      Method meth = candidate.method;
+      Class<?>[] parmTypes = candidate.parameterTypes;
+      if (parmTypes.length == 0 && arguments.length == 0) {
+        if (bestCandidate == null || ParseTools.isMoreSpecialized(meth, bestCandidate)) {
+          bestCandidate = meth;
+        }
+        continue;
+      }
+
+      boolean isVarArgs = candidate.isVarArgs;
+      if (ParseTools.isArgsNumberNotCompatible(arguments, parmTypes, isVarArgs)) {
+        continue;
+      }
+
+      int score = ParseTools.getMethodScore(arguments, requireExact, parmTypes, isVarArgs);
+      if (score != 0) {
+        if (score > bestScore) {
+          bestCandidate = meth;
+          bestScore = score;
+        }
+        else if (score == bestScore) {
+          if ((ParseTools.isMoreSpecialized(meth, bestCandidate) || ParseTools.isMorePreciseForBigDecimal(meth, bestCandidate, arguments)) && !isVarArgs) {
+            bestCandidate = meth;
+          }
+        }
+      }
+    }
+    return bestCandidate;
+  }
+
+  private boolean isCacheable(Class[] arguments) {
+    ClassLoader loader = cls.getClassLoader();
+    for (Class argument : arguments) {
+      if (argument != null) {
+        ClassLoader argLoader = argument.getClassLoader();
+        if (argLoader != null && argLoader != loader && argLoader != MethodIndex.class.getClassLoader()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unused")
+  private static void notFound() {
+  }
+
+  public static final class Candidate {
+    private final Method method;
+    private final Class<?>[] parameterTypes;
+    private final boolean isVarArgs;
+    private final boolean isStatic;
+
+    Candidate(Method method) {
+      this.method = method;
+      this.parameterTypes = ParseTools.removeExecutionContextParam(method.getParameterTypes());
+      this.isVarArgs = method.isVarArgs();
+      this.isStatic = Modifier.isStatic(method.getModifiers());
+    }
+
+    public Method getMethod() {
+      return method;
+    }
+
+    public Class<?>[] getParameterTypes() {
+      return parameterTypes;
+    }
+  }
+
+  private static final class ResolutionKey {
+    private final String name;
+    private final Class[] arguments;
+    private final boolean requireExact;
+    private final boolean classTarget;
+    private final int hash;
+
+    ResolutionKey(String name, Class[] arguments, boolean requireExact, boolean classTarget) {
+      this.name = name;
+      this.arguments = arguments;
+      this.requireExact = requireExact;
+      this.classTarget = classTarget;
+      this.hash = 31 * (31 * name.hashCode() + Arrays.hashCode(arguments)) + (requireExact ? 2 : 0) + (classTarget ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof ResolutionKey)) return false;
+      ResolutionKey that = (ResolutionKey) o;
+      return requireExact == that.requireExact && classTarget == that.classTarget
+          && name.equals(that.name) && Arrays.equals(arguments, that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -45,6 +45,7 @@ import org.mvel2.compiler.ExecutableStatement;
 import org.mvel2.compiler.ExpressionCompiler;
 import org.mvel2.integration.VariableResolverFactory;
 import org.mvel2.integration.impl.ClassImportResolverFactory;
+import org.mvel2.math.Boxing;
 import org.mvel2.math.MathProcessor;
 
 import java.io.File;
@@ -243,6 +244,26 @@ public class ParseTools {
     return getBestCandidate(arguments, method, decl, methods, requireExact, false);
   }
 
+  /**
+   * Same as passing {@code decl.getMethods()} to {@link #getBestCandidate(Class[], String, Class, Method[], boolean, boolean)},
+   * but resolved through the cached {@link MethodIndex} of the class.
+   */
+  public static Method getBestCandidate(Object[] arguments, String method, Class decl, boolean requireExact) {
+    Class[] targetParms = new Class[arguments.length];
+    for (int i = 0; i != arguments.length; i++) {
+      targetParms[i] = arguments[i] != null ? arguments[i].getClass() : null;
+    }
+    return getBestCandidate(targetParms, method, decl, requireExact, false);
+  }
+
+  public static Method getBestCandidate(Class[] arguments, String method, Class decl, boolean requireExact) {
+    return getBestCandidate(arguments, method, decl, requireExact, false);
+  }
+
+  public static Method getBestCandidate(Class[] arguments, String method, Class decl, boolean requireExact, boolean classTarget) {
+    return MethodIndex.of(decl).getBestCandidate(arguments, method, requireExact, classTarget);
+  }
+
   public static Method getBestCandidate(Class[] arguments, String method, Class decl, Method[] methods, boolean requireExact, boolean classTarget) {
 
     if (methods.length == 0) {
@@ -316,12 +337,13 @@ public class ParseTools {
 
   public static Class<?>[] removeExecutionContextParam(Class<?>[] paramsTypes) {
     if (paramsTypes != null) {
-      List<Class<?>> paramTypesList = Arrays.asList(paramsTypes);
-      int executionContextIndex = paramTypesList.indexOf(ExecutionContext.class);
-      if (executionContextIndex > -1) {
-        List<Class<?>> newParamTypesList = new ArrayList<>(paramTypesList);
-        newParamTypesList.remove(executionContextIndex);
-        paramsTypes = newParamTypesList.toArray(new Class<?>[paramsTypes.length-1]);
+      for (int i = 0; i < paramsTypes.length; i++) {
+        if (paramsTypes[i] == ExecutionContext.class) {
+          Class<?>[] newParamsTypes = new Class<?>[paramsTypes.length - 1];
+          System.arraycopy(paramsTypes, 0, newParamsTypes, 0, i);
+          System.arraycopy(paramsTypes, i + 1, newParamsTypes, i, paramsTypes.length - i - 1);
+          return newParamsTypes;
+        }
       }
     }
     return paramsTypes;
@@ -337,16 +359,16 @@ public class ParseTools {
     return args;
   }
 
-  private static boolean isArgsNumberNotCompatible( Class[] arguments, Class<?>[] parmTypes, boolean isVarArgs ) {
+  static boolean isArgsNumberNotCompatible( Class[] arguments, Class<?>[] parmTypes, boolean isVarArgs ) {
     return ( isVarArgs && parmTypes.length-1 > arguments.length ) || ( !isVarArgs && parmTypes.length != arguments.length );
   }
 
-  private static boolean isMoreSpecialized( Method newCandidate, Method oldCandidate ) {
+  static boolean isMoreSpecialized( Method newCandidate, Method oldCandidate ) {
     return oldCandidate.getReturnType().isAssignableFrom( newCandidate.getReturnType()) &&
            oldCandidate.getDeclaringClass().isAssignableFrom( newCandidate.getDeclaringClass());
   }
 
-  private static boolean isMorePreciseForBigDecimal(Executable newCandidate, Executable oldCandidate, Class[] arguments) {
+  static boolean isMorePreciseForBigDecimal(Executable newCandidate, Executable oldCandidate, Class[] arguments) {
     Class<?>[] newParmTypes = newCandidate.getParameterTypes();
     Class<?>[] oldParmTypes = oldCandidate.getParameterTypes();
     int score = 0;
@@ -383,7 +405,7 @@ public class ParseTools {
     }
   }
 
-  private static int getMethodScore(Class[] arguments, boolean requireExact, Class<?>[] parmTypes, boolean varArgs) {
+  static int getMethodScore(Class[] arguments, boolean requireExact, Class<?>[] parmTypes, boolean varArgs) {
     int score = 0;
     for (int i = 0; i != arguments.length; i++) {
       Class<?> actualParamType;
@@ -1172,13 +1194,13 @@ public class ParseTools {
 
   public static Object narrowType(final BigDecimal result, int returnTarget) {
     if (returnTarget == DataTypes.W_DOUBLE || result.scale() > 0) {
-      return result.doubleValue();
+      return Boxing.valueOf(result.doubleValue());
     }
     else if (returnTarget == DataTypes.W_LONG || result.longValue() > Integer.MAX_VALUE) {
-      return result.longValue();
+      return Boxing.valueOf(result.longValue());
     }
     else {
-      return result.intValue();
+      return Boxing.valueOf(result.intValue());
     }
   }
 
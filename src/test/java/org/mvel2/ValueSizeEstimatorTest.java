@@ -0,0 +1,70 @@
+package org.mvel2;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mvel2.execution.ExecutionArrayList;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+
+public class ValueSizeEstimatorTest {
+
+  @Test
+  public void testStringSizeMatchesUtf8Encoding() {
+    String[] values = {"", "ascii", "été", "привіт", "你好",
+        "emoji 😀", "lone \ud83d surrogate", "\ude00"};
+    for (String value : values) {
+      Assert.assertEquals(value, value.getBytes(StandardCharsets.UTF_8).length, ValueSizeEstimator.utf8Length(value));
+    }
+  }
+
+  @Test
+  public void testBuiltInTypes() {
+    ValueSizeEstimator estimator = new ValueSizeEstimator();
+    Assert.assertEquals(0, estimator.sizeOf(null));
+    Assert.assertEquals(1, estimator.sizeOf((byte) 1));
+    Assert.assertEquals(2, estimator.sizeOf((short) 1));
+    Assert.assertEquals(4, estimator.sizeOf(1));
+    Assert.assertEquals(8, estimator.sizeOf(1L));
+    Assert.assertEquals(8, estimator.sizeOf(1.0));
+    Assert.assertEquals(1, estimator.sizeOf(true));
+    Assert.assertEquals(16, estimator.sizeOf(UUID.randomUUID()));
+    Assert.assertEquals(8, estimator.sizeOf(new java.sql.Timestamp(0)));
+    Assert.assertEquals(2, estimator.sizeOf(BigInteger.valueOf(256)));
+    Assert.assertEquals(40, estimator.sizeOf(new int[10]));
+    Assert.assertEquals(0, estimator.sizeOf(new ExecutionArrayList<>(null)));
+  }
+
+  @Test(expected = ScriptRuntimeException.class)
+  public void testUnsupportedType() {
+    new ValueSizeEstimator().sizeOf(new Object());
+  }
+
+  @Test
+  public void testCustomSizeFunctionOverridesCachedResolution() {
+    ValueSizeEstimator estimator = new ValueSizeEstimator();
+    Assert.assertEquals(8, estimator.sizeOf(new Date()));
+    estimator.registerValueSizeFunction(Date.class, value -> 100);
+    Assert.assertEquals(100, estimator.sizeOf(new Date()));
+  }
+
+  @Test
+  public void testSizeOfDoesNotAllocate() {
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    ValueSizeEstimator estimator = new ValueSizeEstimator();
+    String value = "temperature °C 你好";
+    Integer intValue = 100500;
+    long total = estimator.sizeOf(value) + estimator.sizeOf(intValue);
+    long threadId = Thread.currentThread().getId();
+    long before = threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < 100000; i++) {
+      total += estimator.sizeOf(value) + estimator.sizeOf(intValue);
+    }
+    long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    Assert.assertTrue(total > 0);
+    Assert.assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+  }
+}
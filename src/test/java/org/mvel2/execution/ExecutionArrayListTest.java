@@ -0,0 +1,132 @@
+package org.mvel2.execution;
+
+import junit.framework.TestCase;
+import org.mvel2.ExecutionContext;
+import org.mvel2.SandboxedParserConfiguration;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ExecutionArrayListTest extends TestCase {
+
+  private ExecutionContext ctx;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    ctx = new ExecutionContext(new SandboxedParserConfiguration());
+  }
+
+  public void testRangeOperationsAccountLikeSingleElements() {
+    ExecutionArrayList<Object> list = new ExecutionArrayList<>(Arrays.asList(1, "two", 3.0, "four", 5L), ctx);
+    ExecutionContext single = new ExecutionContext(new SandboxedParserConfiguration());
+    ExecutionArrayList<Object> expected = new ExecutionArrayList<>(single);
+    for (Object value : Arrays.asList(1, "two", 3.0, "four", 5L)) {
+      expected.add(value);
+    }
+    assertEquals(expected.memorySize(), list.memorySize());
+
+    List removed = list.splice(1, 3, "x", "yy");
+    expected.remove(1);
+    expected.remove(1);
+    expected.remove(1);
+    expected.add(1, "x");
+    expected.add(2, "yy");
+    assertEquals(Arrays.asList("two", 3.0, "four"), removed);
+    assertEquals(expected, list);
+    assertEquals(expected.memorySize(), list.memorySize());
+
+    list.unshift("a", "b");
+    expected.add(0, "a");
+    expected.add(1, "b");
+    assertEquals(expected, list);
+    assertEquals(expected.memorySize(), list.memorySize());
+
+    list.clear();
+    assertEquals(0, list.memorySize());
+  }
+
+  public void testJoinWritesNestedNulls() {
+    // script maps drop null values, so the nested map is one that a caller passed in
+    Map<String, Object> map = new HostMap();
+    map.put("a", null);
+    map.put("b", new ExecutionArrayList<>(Arrays.asList(null, 2), ctx));
+    ExecutionArrayList<Object> list = new ExecutionArrayList<>(
+        Arrays.asList(new ExecutionArrayList<>(Arrays.asList(1, null), ctx), map, null), ctx);
+    assertEquals("1,null;{a=null,b=null,2};", list.join(";"));
+  }
+
+  public void testIndexOfFromIndex() {
+    ExecutionArrayList<Object> list = new ExecutionArrayList<>(Arrays.asList("a", "b", "a", "c", "a"), ctx);
+    assertEquals(0, list.indexOf("a", 0));
+    assertEquals(2, list.indexOf("a", 1));
+    assertEquals(4, list.indexOf("a", 3));
+    assertEquals(4, list.indexOf("a", -2));
+    assertEquals(-1, list.indexOf("b", 2));
+    assertEquals(-1, list.indexOf("a", 5));
+  }
+
+  public void testSubListIsCopiedOnModification() {
+    ExecutionArrayList<Object> list = new ExecutionArrayList<>(Arrays.asList(1, 2, 3, 4, 5), ctx);
+    ExecutionSubList<Object> subList = (ExecutionSubList<Object>) list.subList(1, 4);
+    assertTrue(subList.isAttached());
+    assertEquals(Arrays.asList(2, 3, 4), subList);
+    assertEquals(0, subList.memorySize());
+    assertEquals(list.memorySize(), ctx.getMemorySize());
+
+    list.set(2, 30);
+    assertFalse(subList.isAttached());
+    assertEquals(Arrays.asList(2, 3, 4), subList);
+    assertTrue(subList.memorySize() > 0);
+    assertEquals(list.memorySize() + subList.memorySize(), ctx.getMemorySize());
+
+    ExecutionSubList<Object> other = (ExecutionSubList<Object>) list.subList(0, 2);
+    Iterator<Object> iterator = other.iterator();
+    assertEquals(1, iterator.next());
+    iterator.remove();
+    assertFalse(other.isAttached());
+    assertEquals(2, iterator.next());
+    assertFalse(iterator.hasNext());
+    assertEquals(Arrays.asList(2), other);
+    assertEquals(Arrays.asList(1, 2, 30, 4, 5), list);
+  }
+
+  public void testSubListOfSubList() {
+    ExecutionArrayList<Object> list = new ExecutionArrayList<>(Arrays.asList(1, 2, 3, 4, 5), ctx);
+    List<Object> subList = list.subList(1, 5).subList(1, 3);
+    assertEquals(Arrays.asList(3, 4), subList);
+    list.add(0, 0);
+    assertEquals(Arrays.asList(3, 4), subList);
+    try {
+      list.subList(2, 1);
+      fail("Should throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertEquals(6, list.size());
+    }
+  }
+
+  public void testSortFailsOpenIterators() {
+    ExecutionArrayList<Object> list = new ExecutionArrayList<>(Arrays.asList(3, 1, 2), ctx);
+    Iterator<Object> it = list.iterator();
+    it.next();
+    list.sort(true);
+    try {
+      it.next();
+      fail("expected ConcurrentModificationException");
+    } catch (ConcurrentModificationException e) {
+      // expected
+    }
+    assertEquals(Arrays.asList(1, 2, 3), list);
+  }
+
+  private static class HostMap extends LinkedHashMap<String, Object> implements ExecutionObject {
+    @Override
+    public long memorySize() {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package org.mvel2.execution;
+
+import junit.framework.TestCase;
+import org.mvel2.ExecutionContext;
+import org.mvel2.SandboxedParserConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.stream.Collectors;
+
+public class PrimitiveExecutionArrayListTest extends TestCase {
+
+  private ExecutionContext ctx;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    ctx = new ExecutionContext(new SandboxedParserConfiguration());
+  }
+
+  public void testOfArrays() {
+    assertEquals(Arrays.asList((byte) 1, (byte) -2), PrimitiveExecutionArrayList.of(new byte[]{1, -2}, ctx));
+    assertEquals(Arrays.asList(1, 2), PrimitiveExecutionArrayList.of(new int[]{1, 2}, ctx));
+    assertEquals(Arrays.asList(1L, 2L), PrimitiveExecutionArrayList.of(new long[]{1, 2}, ctx));
+    assertEquals(Arrays.asList(1.5, 2.0), PrimitiveExecutionArrayList.of(new double[]{1.5, 2}, ctx));
+    assertNull(PrimitiveExecutionArrayList.of(new short[]{1}, ctx));
+    assertNull(PrimitiveExecutionArrayList.of(new Integer[]{1}, ctx));
+  }
+
+  public void testOfCollections() {
+    assertEquals(Arrays.asList(1, 2, 3), PrimitiveExecutionArrayList.of(Arrays.asList(1, 2, 3), ctx));
+    assertNull(PrimitiveExecutionArrayList.of(Arrays.asList(1, 2L), ctx));
+    assertNull(PrimitiveExecutionArrayList.of(Arrays.asList(1, null), ctx));
+    assertNull(PrimitiveExecutionArrayList.of(Arrays.asList("a"), ctx));
+    assertNull(PrimitiveExecutionArrayList.of(new ArrayList<>(), ctx));
+  }
+
+  public void testAccountsCapacity() {
+    PrimitiveExecutionArrayList<Integer> list = PrimitiveExecutionArrayList.of(new int[100], ctx);
+    assertEquals(400, list.memorySize());
+    assertEquals(400, ctx.getMemorySize());
+    list.add(1);
+    assertEquals(600, list.memorySize());
+    assertEquals(600, ctx.getMemorySize());
+    list.trimToSize();
+    assertEquals(404, list.memorySize());
+    assertEquals(404, ctx.getMemorySize());
+  }
+
+  public void testSameBehaviorAsExecutionArrayList() {
+    List<Integer> values = Arrays.asList(5, -3, 12, 5, 0, 7);
+    ExecutionArrayList<Integer> primitive = PrimitiveExecutionArrayList.of(values, ctx);
+    ExecutionArrayList<Integer> boxed = new ExecutionArrayList<>(values, ctx);
+    for (ExecutionArrayList<Integer> list : Arrays.asList(primitive, boxed)) {
+      list.push(9);
+      list.unshift(4);
+      assertEquals(Integer.valueOf(9), list.pop());
+      list.add(2, 11);
+      list.remove(Integer.valueOf(12));
+      list.splice(1, 2, 8, 8);
+      list.sort(false);
+      list.fill(1, -1);
+      list.reverse();
+    }
+    assertFalse(((PrimitiveExecutionArrayList) primitive).isInflated());
+    assertEquals(boxed, primitive);
+    assertEquals(boxed.hashCode(), primitive.hashCode());
+    assertEquals(boxed.toString(), primitive.toString());
+    assertEquals(boxed.join(), primitive.join());
+    assertEquals(boxed.slice(1, -1), primitive.slice(1, -1));
+    assertTrue(primitive.slice(1, -1) instanceof PrimitiveExecutionArrayList);
+    assertEquals(boxed.indexOf(8), primitive.indexOf(8));
+    assertEquals(boxed.lastIndexOf(8), primitive.lastIndexOf(8));
+    assertEquals(-1, primitive.indexOf(8L));
+    assertEquals(boxed.indexOf(5, 2), primitive.indexOf(5, 2));
+    assertEquals(boxed.stream().map(String::valueOf).collect(Collectors.joining()),
+        primitive.stream().map(String::valueOf).collect(Collectors.joining()));
+    assertTrue(Arrays.equals(boxed.toArray(new Integer[0]), primitive.toArray(new Integer[0])));
+  }
+
+  public void testSortLongsAndDoubles() {
+    ExecutionArrayList<Long> longs = PrimitiveExecutionArrayList.of(new long[]{(1L << 60) + 1, 3, 1L << 60, -4}, ctx);
+    longs.sort(true);
+    assertEquals(Arrays.asList(-4L, 3L, (1L << 60) + 1, 1L << 60), longs);
+    ExecutionArrayList<Double> doubles = PrimitiveExecutionArrayList.of(new double[]{Double.NaN, 0.0, -0.0, -1.5}, ctx);
+    doubles.sort(false);
+    assertEquals(Arrays.asList(Double.NaN, 0.0, -0.0, -1.5), doubles);
+  }
+
+  public void testOtherElementTypeInflates() {
+    PrimitiveExecutionArrayList<Object> list = PrimitiveExecutionArrayList.of(new byte[]{1, 2, 3}, ctx);
+    list.add((byte) 4);
+    assertFalse(list.isInflated());
+    list.set(0, 300);
+    assertTrue(list.isInflated());
+    list.add("x");
+    list.add(null);
+    assertEquals(Arrays.asList(300, (byte) 2, (byte) 3, (byte) 4, "x", null), list);
+    assertEquals(list.memorySize(), ctx.getMemorySize());
+  }
+
+  public void testIterators() {
+    PrimitiveExecutionArrayList<Object> list = PrimitiveExecutionArrayList.of(new int[]{1, 2, 3, 4}, ctx);
+    Iterator<Object> iterator = list.iterator();
+    while (iterator.hasNext()) {
+      if ((Integer) iterator.next() % 2 == 0) {
+        iterator.remove();
+      }
+    }
+    assertEquals(Arrays.asList(1, 3), list);
+    ListIterator<Object> listIterator = list.listIterator();
+    listIterator.next();
+    listIterator.set("one");
+    listIterator.add(2);
+    assertEquals(3, listIterator.next());
+    assertFalse(listIterator.hasNext());
+    assertEquals(Arrays.asList("one", 2, 3), list);
+    PrimitiveExecutionArrayList<Object> other = PrimitiveExecutionArrayList.of(new int[]{1, 2}, ctx);
+    try {
+      other.forEach(value -> other.add(value));
+      fail("Should throw ConcurrentModificationException");
+    } catch (ConcurrentModificationException e) {
+      assertEquals(3, other.size());
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.mvel2.execution;
+
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class ValueSortTest extends TestCase {
+
+  private static final String[] STRINGS = {
+      "0", "-1", "+2", "3.", ".5", ".", "-", "", " ", " 7 ", "\t8\n", "1e3", "1E-3", "1e", "1e+", "2.5e+10",
+      "1f", "1D", "1fd", "NaN", "-NaN", "nan", "Infinity", "-Infinity", "Infinityx", "0x1p3", "0X1.8P1",
+      "0x.8p1", "0x1", "0xp1", "0x1.p-2d", "1_000", "12a", "a12", "1.2.3", "00012", "1e0010", "true", "null"
+  };
+
+  public void testIsNumericMatchesParseDouble() {
+    for (String s : STRINGS) {
+      assertEquals(s, parses(s), ValueSort.isNumeric(s));
+    }
+    assertTrue(ValueSort.isNumeric(1.5f));
+    assertTrue(ValueSort.isNumeric(new BigDecimal("1E+3")));
+    assertFalse(ValueSort.isNumeric((Object) null));
+    assertFalse(ValueSort.isNumeric(Boolean.TRUE));
+  }
+
+  public void testNumericKeys() {
+    double[] keys = ValueSort.numericKeys(new Object[]{1, 2L, 2.5, "3e1", 1.1f, new BigDecimal("7")});
+    assertTrue(Arrays.equals(new double[]{1, 2, 2.5, 30, 1.1, 7}, keys));
+    assertNull(ValueSort.numericKeys(new Object[]{1, "a"}));
+  }
+
+  public void testSameOrderAsComparatorSort() {
+    Random random = new Random(42);
+    for (int size : new int[]{0, 1, 15, 17, 100, ValueSort.PARALLEL_THRESHOLD * 2 + 3}) {
+      List<Object> numbers = new ArrayList<>();
+      List<Object> mixed = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        int n = random.nextInt(50) - 25;
+        numbers.add(i % 3 == 0 ? (Object) n : i % 3 == 1 ? (Object) (n / 4.0) : (Object) String.valueOf(n));
+        mixed.add(i % 5 == 0 ? "v" + n : (Object) n);
+      }
+      for (boolean asc : new boolean[]{true, false}) {
+        assertOrder(numbers, asc, Comparator.comparing(o -> Double.parseDouble(String.valueOf(o))));
+        assertOrder(mixed, asc, Comparator.comparing(String::valueOf));
+      }
+    }
+  }
+
+  private static void assertOrder(List<Object> values, boolean asc, Comparator<Object> comparator) {
+    List<Object> expected = new ArrayList<>(values);
+    expected.sort(asc ? comparator : comparator.reversed());
+    Object[] array = values.toArray();
+    List<Object> actual = new ArrayList<>();
+    for (int index : ValueSort.order(array, asc)) {
+      actual.add(array[index]);
+    }
+    for (int i = 0; i < expected.size(); i++) {
+      assertSame("at " + i, expected.get(i), actual.get(i));
+    }
+  }
+
+  private static boolean parses(String s) {
+    try {
+      Double.parseDouble(s);
+      return true;
+    }
+    catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package org.mvel2.integration.impl;
+
+import junit.framework.TestCase;
+import org.mvel2.UnresolveablePropertyException;
+import org.mvel2.integration.VariableSlot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ScopeVariableResolverFactoryTest extends TestCase {
+
+  public void testSlotResolvesThroughEnclosingScopes() {
+    Map<String, Object> vars = new HashMap<String, Object>();
+    vars.put("x", 1);
+    ScopeVariableResolverFactory outer = new ScopeVariableResolverFactory(new MapVariableResolverFactory(vars));
+    ScopeVariableResolverFactory inner = new ScopeVariableResolverFactory(new ItemResolverFactory(
+        new ItemResolverFactory.ItemResolver("item"), outer));
+    VariableSlot x = new VariableSlot(0, "x");
+
+    assertEquals(1, inner.getVariableResolver(x).getValue());
+    inner.createVariable(x, 2);
+    assertEquals(2, vars.get("x"));
+    assertSame(inner.getVariableResolver("x"), inner.getVariableResolver(x));
+
+    VariableSlot y = new VariableSlot(1, "y");
+    try {
+      inner.getVariableResolver(y);
+      fail("Should throw UnresolveablePropertyException");
+    } catch (UnresolveablePropertyException e) {
+      assertFalse(outer.isTarget("y"));
+    }
+    inner.createVariable(y, 3);
+    assertTrue(inner.isTarget("y"));
+    assertFalse(outer.isTarget("y"));
+    assertEquals(3, inner.getVariableResolver(y).getValue());
+  }
+
+  public void testVariableCreatedInScopeShadowsSlot() {
+    Map<String, Object> vars = new HashMap<String, Object>();
+    vars.put("x", 1);
+    ScopeVariableResolverFactory scope = new ScopeVariableResolverFactory(new MapVariableResolverFactory(vars));
+    VariableSlot x = new VariableSlot(0, "x");
+    assertEquals(1, scope.getVariableResolver(x).getValue());
+
+    scope.createVariable("x", 2, Integer.class);
+    assertEquals(2, scope.getVariableResolver(x).getValue());
+    assertEquals(1, vars.get("x"));
+  }
+
+  public void testVariableCreatedInEnclosingScopeShadowsSlot() {
+    Map<String, Object> vars = new HashMap<String, Object>();
+    vars.put("x", 1);
+    ScopeVariableResolverFactory outer = new ScopeVariableResolverFactory(new MapVariableResolverFactory(vars));
+    ScopeVariableResolverFactory inner = new ScopeVariableResolverFactory(new ClassImportResolverFactory(null,
+        new StackResetResolverFactory(outer), true));
+    VariableSlot x = new VariableSlot(0, "x");
+    assertEquals(1, inner.getVariableResolver(x).getValue());
+
+    outer.createVariable("x", 2, Integer.class);
+    assertEquals(2, inner.getVariableResolver(x).getValue());
+    inner.createVariable(x, 3);
+    assertEquals(3, outer.getVariableResolver("x").getValue());
+    assertEquals(1, vars.get("x"));
+  }
+
+  public void testSlotsOfAnotherScriptDoNotCollide() {
+    Map<String, Object> vars = new HashMap<String, Object>();
+    vars.put("x", 1);
+    vars.put("y", 2);
+    ScopeVariableResolverFactory scope = new ScopeVariableResolverFactory(new MapVariableResolverFactory(vars));
+    VariableSlot x = new VariableSlot(0, "x");
+    VariableSlot y = new VariableSlot(0, "y");
+    assertEquals(1, scope.getVariableResolver(x).getValue());
+    assertEquals(2, scope.getVariableResolver(y).getValue());
+    assertEquals(1, scope.getVariableResolver(x).getValue());
+  }
+}
@@ -0,0 +1,60 @@
+package org.mvel2.math;
+
+import junit.framework.TestCase;
+import org.mvel2.MVEL;
+import org.mvel2.Operator;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+public class BoxingTest extends TestCase {
+
+  public void testCachedRange() {
+    for (int i = Boxing.LOW; i <= Boxing.HIGH; i++) {
+      assertSame(Boxing.valueOf(i), Boxing.valueOf(i));
+      assertSame(Boxing.valueOf((long) i), Boxing.valueOf((long) i));
+      assertSame(Boxing.valueOf((double) i), Boxing.valueOf((double) i));
+      assertEquals(Integer.valueOf(i), Boxing.valueOf(i));
+      assertEquals(Long.valueOf(i), Boxing.valueOf((long) i));
+      assertEquals(Double.valueOf(i), Boxing.valueOf((double) i));
+    }
+    assertNotSame(Boxing.valueOf(Boxing.HIGH + 1), Boxing.valueOf(Boxing.HIGH + 1));
+    assertEquals(Long.valueOf(Long.MAX_VALUE), Boxing.valueOf(Long.MAX_VALUE));
+  }
+
+  public void testDoublesKeepTheirValue() {
+    assertEquals(Double.valueOf(-0.0), Boxing.valueOf(-0.0));
+    assertEquals(Double.valueOf(0.0), Boxing.valueOf(0.0));
+    assertEquals(Double.valueOf(2.5), Boxing.valueOf(2.5));
+    assertTrue(Boxing.valueOf(Double.NaN).isNaN());
+    assertEquals(Double.valueOf(1e300), Boxing.valueOf(1e300));
+  }
+
+  public void testArithmeticResultsAreShared() {
+    assertSame(MathProcessor.doOperations(400, Operator.ADD, 600), MathProcessor.doOperations(999, Operator.ADD, 1));
+    assertSame(MathProcessor.doOperations(400L, Operator.MULT, 2L), MathProcessor.doOperations(800L, Operator.SUB, 0L));
+    assertSame(MathProcessor.doOperations(2.5, Operator.MULT, 4.0), MathProcessor.doOperations(9.0, Operator.ADD, 1.0));
+    assertSame(MathProcessor.doOperations(300, Operator.ADD, 2L), MathProcessor.doOperations(301L, Operator.ADD, 1));
+    PrimitiveArithmetic site = new PrimitiveArithmetic(Operator.ADD);
+    assertSame(site.doOperations(500, 500), site.doOperations(999, 1));
+  }
+
+  public void testComparisonsYieldCanonicalBooleans() {
+    Map<String, Object> vars = new HashMap<>();
+    vars.put("i", 5);
+    vars.put("l", 7L);
+    vars.put("d", 2.5);
+    vars.put("b", new BigDecimal("1.5"));
+    vars.put("s", "abc");
+    String[] expressions = {
+        "i > 3", "i < l", "l >= d", "d <= i", "i == 5", "d != 2.5", "b > d", "b == b",
+        "s == 'abc'", "s != 'abd'", "s < 'abd'", "i > 3 && l > 3", "!(i > 3)"
+    };
+    for (String expression : expressions) {
+      Object result = MVEL.executeExpression(MVEL.compileExpression(expression), vars);
+      assertTrue(expression, result == Boolean.TRUE || result == Boolean.FALSE);
+      assertSame(expression, result, MVEL.eval(expression, vars));
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package org.mvel2.math;
+
+import junit.framework.TestCase;
+import org.mvel2.DataTypes;
+import org.mvel2.Operator;
+
+import java.math.BigDecimal;
+
+public class PrimitiveArithmeticTest extends TestCase {
+
+  private static final int[] OPERATIONS = {
+      Operator.ADD, Operator.SUB, Operator.MULT, Operator.DIV, Operator.MOD, Operator.POWER,
+      Operator.GTHAN, Operator.GETHAN, Operator.LTHAN, Operator.LETHAN, Operator.EQUAL, Operator.NEQUAL
+  };
+
+  private static final Object[] OPERANDS = {
+      0, 1, -7, 3, 46341, Integer.MAX_VALUE, Integer.MIN_VALUE,
+      0L, 2L, -9L, 1L << 40, (1L << 53) + 1, Long.MAX_VALUE,
+      0.0, 2.5, -3.75, 1e300, Double.NaN
+  };
+
+  public void testSameResultsAsMathProcessor() {
+    for (int operation : OPERATIONS) {
+      for (Object val1 : OPERANDS) {
+        for (Object val2 : OPERANDS) {
+          Object expected = generic(operation, val1, val2);
+          PrimitiveArithmetic site = new PrimitiveArithmetic(operation);
+          for (int i = 0; i < 2; i++) {
+            assertEquals(describe(operation, val1, val2), expected, specialized(site, val1, val2));
+          }
+          assertFalse(describe(operation, val1, val2), site.isGeneric());
+        }
+      }
+    }
+  }
+
+  public void testOverflowPromotesToLong() {
+    PrimitiveArithmetic site = new PrimitiveArithmetic(Operator.ADD);
+    assertEquals(3, site.doOperations(1, 2));
+    assertEquals((long) Integer.MAX_VALUE + 1, site.doOperations(Integer.MAX_VALUE, 1));
+    assertEquals(PrimitiveArithmetic.INT, site.getKind());
+  }
+
+  public void testUnexpectedOperandsFallBack() {
+    PrimitiveArithmetic site = new PrimitiveArithmetic(Operator.ADD);
+    assertEquals(3, site.doOperations(1, 2));
+    assertEquals(3.5, site.doOperations(1, 2.5));
+    assertTrue(site.isGeneric());
+    assertEquals("a1", site.doOperations("a", 1));
+    assertEquals(3, site.doOperations(1, 2));
+
+    site = new PrimitiveArithmetic(Operator.MULT);
+    assertEquals(new BigDecimal("6"), site.doOperations(new BigDecimal("2"), new BigDecimal("3")));
+    assertTrue(site.isGeneric());
+  }
+
+  public void testDeclaredTypes() {
+    PrimitiveArithmetic site = new PrimitiveArithmetic(Operator.SUB, DataTypes.W_LONG, DataTypes.W_INTEGER);
+    assertEquals(PrimitiveArithmetic.INT_LONG, site.getKind());
+    assertEquals(5L, site.doOperations(DataTypes.W_LONG, 7L, DataTypes.W_INTEGER, 2));
+
+    site = new PrimitiveArithmetic(Operator.DIV, DataTypes.INTEGER, DataTypes.INTEGER);
+    assertEquals(PrimitiveArithmetic.UNSELECTED, site.getKind());
+    assertEquals(MathProcessor.doOperations(DataTypes.INTEGER, 7, Operator.DIV, DataTypes.INTEGER, 2),
+        site.doOperations(DataTypes.INTEGER, 7, DataTypes.INTEGER, 2));
+    assertTrue(site.isGeneric());
+  }
+
+  public void testUnsupportedOperationIsGeneric() {
+    PrimitiveArithmetic site = new PrimitiveArithmetic(Operator.BW_AND);
+    assertTrue(site.isGeneric());
+    assertEquals(2, site.doOperations(6, 3));
+  }
+
+  private static Object specialized(PrimitiveArithmetic site, Object val1, Object val2) {
+    try {
+      return site.doOperations(val1, val2);
+    }
+    catch (ArithmeticException e) {
+      return e.getClass();
+    }
+  }
+
+  private static Object generic(int operation, Object val1, Object val2) {
+    try {
+      return MathProcessor.doOperations(val1, operation, val2);
+    }
+    catch (ArithmeticException e) {
+      return e.getClass();
+    }
+  }
+
+  private static String describe(int operation, Object val1, Object val2) {
+    return val1 + " op(" + operation + ") " + val2;
+  }
+}
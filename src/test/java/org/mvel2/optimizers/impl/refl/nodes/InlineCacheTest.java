@@ -0,0 +1,65 @@
+package org.mvel2.optimizers.impl.refl.nodes;
+
+import junit.framework.TestCase;
+import org.mvel2.MVEL;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.tests.core.res.Bar;
+import org.mvel2.tests.core.res.Foo;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+
+public class InlineCacheTest extends TestCase {
+
+  public void testPolymorphicThenMegamorphic() {
+    InlineCache cache = new InlineCache();
+    Class[] receivers = {String.class, StringBuilder.class, StringBuffer.class, Foo.class, Bar.class};
+    for (int i = 0; i < InlineCache.MAX_RECEIVERS; i++) {
+      Method method = cache.resolve(receivers[i], InlineCache.NO_ARGUMENTS, "toString", true);
+      assertNotNull(method);
+      assertSame(method, cache.resolve(receivers[i], InlineCache.NO_ARGUMENTS, "toString", true));
+      assertEquals(i + 1, cache.size());
+    }
+    assertFalse(cache.isMegamorphic());
+
+    assertNotNull(cache.resolve(receivers[4], InlineCache.NO_ARGUMENTS, "toString", true));
+    assertTrue(cache.isMegamorphic());
+    assertNotNull(cache.resolve(String.class, InlineCache.NO_ARGUMENTS, "toString", true));
+    assertTrue(cache.isMegamorphic());
+  }
+
+  public void testUnresolvedIsNotCached() {
+    InlineCache cache = new InlineCache();
+    assertNull(cache.resolve(String.class, InlineCache.NO_ARGUMENTS, "noSuchMethod", true));
+    assertEquals(0, cache.size());
+  }
+
+  public void testWidensToPublicType() {
+    InlineCache cache = new InlineCache();
+    Class<?> receiver = Collections.unmodifiableList(Collections.emptyList()).getClass();
+    Method method = cache.resolve(receiver, InlineCache.NO_ARGUMENTS, "size", true);
+    assertNotNull(method);
+    assertTrue(Modifier.isPublic(method.getDeclaringClass().getModifiers()));
+  }
+
+  public void testAlternatingReceiversWithReflectiveOptimizer() {
+    OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+    Serializable getter = MVEL.compileExpression("x.name");
+    Serializable method = MVEL.compileExpression("x.getName()");
+    Serializable setter = MVEL.compileExpression("x.name = 'updated'");
+    Foo foo = new Foo();
+    Bar bar = new Bar();
+    for (int i = 0; i < 3; i++) {
+      assertEquals(foo.getName(), MVEL.executeExpression(getter, Collections.singletonMap("x", foo)));
+      assertEquals(bar.getName(), MVEL.executeExpression(getter, Collections.singletonMap("x", bar)));
+      assertEquals(foo.getName(), MVEL.executeExpression(method, Collections.singletonMap("x", foo)));
+      assertEquals(bar.getName(), MVEL.executeExpression(method, Collections.singletonMap("x", bar)));
+    }
+    MVEL.executeExpression(setter, Collections.singletonMap("x", foo));
+    MVEL.executeExpression(setter, Collections.singletonMap("x", bar));
+    assertEquals("updated", foo.getName());
+    assertEquals("updated", bar.getName());
+  }
+}
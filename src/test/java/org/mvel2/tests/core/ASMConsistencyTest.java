@@ -60,9 +60,7 @@ public class ASMConsistencyTest extends AbstractTest {
   public void testNullArgConvert() {
     // change DynamicOptimizer props，make sure of using asm optimize
     int oldThreashold = DynamicOptimizer.tenuringThreshold;
-    long oldTimeSpan = DynamicOptimizer.timeSpan;
     DynamicOptimizer.tenuringThreshold = 1;
-    DynamicOptimizer.timeSpan = 1000 * 60 * 60L;
     
     Map<String, Object> imports = new HashMap<>(2);
     imports.put("isNull", new MethodStub(TestFunction.class, "isNull"));
@@ -80,6 +78,5 @@ public class ASMConsistencyTest extends AbstractTest {
     
     // revert the props
     DynamicOptimizer.tenuringThreshold = oldThreashold;
-    DynamicOptimizer.timeSpan = oldTimeSpan;
   }
 }
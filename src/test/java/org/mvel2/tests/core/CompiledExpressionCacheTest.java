@@ -0,0 +1,155 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.CompileException;
+import org.mvel2.ExecutionContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.compiler.CompiledExpressionCache;
+import org.mvel2.optimizers.OptimizerFactory;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mvel2.MVEL.executeTbExpression;
+
+public class CompiledExpressionCacheTest extends TestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+    }
+
+    public void testHitsAndMisses() {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        CompiledExpressionCache cache = new CompiledExpressionCache(10);
+        Serializable compiled = cache.compile("var a = 1; a + 1", parserConfig);
+        assertSame(compiled, cache.compile("var a = 1; a + 1", parserConfig));
+        assertEquals(2, executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+        assertEquals("var a = 1; a + 1".length(), cache.weight());
+
+        Serializable other = cache.compile("var a = 1; a + 1", new SandboxedParserConfiguration());
+        assertNotSame(compiled, other);
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+
+        cache.invalidate("var a = 1; a + 1", parserConfig);
+        assertEquals(1, cache.size());
+        assertNotSame(compiled, cache.compile("var a = 1; a + 1", parserConfig));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    public void testLeastRecentlyUsedEviction() {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        CompiledExpressionCache cache = new CompiledExpressionCache(2);
+        Serializable first = cache.compile("1 + 1", parserConfig);
+        cache.compile("2 + 2", parserConfig);
+        assertSame(first, cache.compile("1 + 1", parserConfig));
+        cache.compile("3 + 3", parserConfig);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.compile("1 + 1", parserConfig));
+        assertEquals(2, cache.getHitCount());
+        cache.compile("2 + 2", parserConfig);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    public void testWeightBound() {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        CompiledExpressionCache cache = new CompiledExpressionCache(100, 12);
+        cache.compile("1 + 1", parserConfig);
+        cache.compile("2 + 2", parserConfig);
+        assertEquals(10, cache.weight());
+        cache.compile("3 + 3", parserConfig);
+        assertEquals(2, cache.size());
+        assertEquals(10, cache.weight());
+        assertEquals(1, cache.getEvictionCount());
+        cache.compile("var a = 100; a * 2", parserConfig);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    public void testInvalidateConfiguration() {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        SandboxedParserConfiguration otherConfig = new SandboxedParserConfiguration();
+        CompiledExpressionCache cache = new CompiledExpressionCache(10);
+        cache.compile("1 + 1", parserConfig);
+        cache.compile("2 + 2", parserConfig);
+        Serializable other = cache.compile("1 + 1", otherConfig);
+        cache.invalidate(parserConfig);
+        assertEquals(1, cache.size());
+        assertEquals(5, cache.weight());
+        assertSame(other, cache.compile("1 + 1", otherConfig));
+    }
+
+    public void testInvalidatedConfigurationIsNotRetained() throws Exception {
+        CompiledExpressionCache cache = new CompiledExpressionCache(10);
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        WeakReference<SandboxedParserConfiguration> ref = new WeakReference<>(parserConfig);
+        cache.compile("1 + 1", parserConfig);
+        cache.invalidate(parserConfig);
+        parserConfig = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+    }
+
+    public void testFailedCompilationIsNotCached() {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        CompiledExpressionCache cache = new CompiledExpressionCache(10);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.compile("var a = ;", parserConfig);
+                fail("Should throw CompileException");
+            } catch (CompileException e) {
+                // expected
+            }
+        }
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    public void testConcurrentCompilationIsShared() throws Exception {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        CompiledExpressionCache cache = new CompiledExpressionCache(10);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Serializable>> futures = new ArrayList<>();
+            for (int i = 0; i < threads * 10; i++) {
+                Callable<Serializable> task = () -> {
+                    start.await();
+                    Serializable compiled = cache.compile("var m = {a: 2}; m.a * 3", parserConfig);
+                    assertEquals(6, executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap()));
+                    return compiled;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+            Serializable compiled = futures.get(0).get();
+            for (Future<Serializable> future : futures) {
+                assertSame(compiled, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, cache.size());
+        assertEquals(threads * 10, cache.getHitCount() + cache.getMissCount());
+    }
+}
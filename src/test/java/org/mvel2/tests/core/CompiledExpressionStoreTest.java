@@ -0,0 +1,125 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.ExecutionContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.compiler.CompiledExpressionCache;
+import org.mvel2.compiler.CompiledExpressionStore;
+import org.mvel2.optimizers.OptimizerFactory;
+
+import java.io.File;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mvel2.MVEL.executeTbExpression;
+
+public class CompiledExpressionStoreTest extends TestCase {
+
+    private static final String SUM = "function sum(a, b) { var s = a + b; return s; }\n" +
+            "return {total: sum(msg.a, msg.b), type: msgType};";
+    private static final String LOOP = "var out = [];\n" +
+            "for (var i = 0; i < msg.a; i++) { out.add(i * msg.b); }\n" +
+            "return out;";
+    private static final String CONCAT = "msgType + ':' + msg.a";
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+        dir = Files.createTempDirectory("mvel-store");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        Files.deleteIfExists(dir);
+        super.tearDown();
+    }
+
+    public void testRoundTrip() throws Exception {
+        List<String> scripts = Arrays.asList(SUM, LOOP, CONCAT, SUM);
+        Map<String, Serializable> compiled = CompiledExpressionStore.precompile(scripts, parserConfig);
+        assertEquals(3, compiled.size());
+
+        Path file = dir.resolve("scripts.bin");
+        assertEquals(3, CompiledExpressionStore.write(file, compiled, parserConfig));
+
+        Map<String, Serializable> loaded = CompiledExpressionStore.read(file, parserConfig);
+        assertEquals(Arrays.asList(SUM, LOOP, CONCAT), Arrays.asList(loaded.keySet().toArray()));
+        for (String script : compiled.keySet()) {
+            assertNotSame(compiled.get(script), loaded.get(script));
+            assertEquals(execute(compiled.get(script)), execute(loaded.get(script)));
+        }
+        assertEquals("POST_TELEMETRY_REQUEST:3", execute(loaded.get(CONCAT)));
+    }
+
+    public void testMissingFileReadsAsEmpty() throws Exception {
+        assertTrue(CompiledExpressionStore.read(dir.resolve("missing.bin"), parserConfig).isEmpty());
+    }
+
+    public void testOtherConfigurationReadsAsEmpty() throws Exception {
+        Path file = dir.resolve("scripts.bin");
+        CompiledExpressionStore.write(file, CompiledExpressionStore.precompile(Arrays.asList(SUM), parserConfig), parserConfig);
+
+        SandboxedParserConfiguration other = new SandboxedParserConfiguration();
+        assertEquals(CompiledExpressionStore.fingerprint(parserConfig), CompiledExpressionStore.fingerprint(other));
+        assertEquals(1, CompiledExpressionStore.read(file, other).size());
+
+        other.addImport("Sizes", java.util.Collections.class);
+        assertFalse(CompiledExpressionStore.fingerprint(parserConfig).equals(CompiledExpressionStore.fingerprint(other)));
+        assertTrue(CompiledExpressionStore.read(file, other).isEmpty());
+    }
+
+    public void testCorruptEntryIsSkipped() throws Exception {
+        Path file = dir.resolve("scripts.bin");
+        CompiledExpressionStore.write(file, CompiledExpressionStore.precompile(Arrays.asList(CONCAT, LOOP), parserConfig), parserConfig);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 10] ^= 0x55;
+        Files.write(file, bytes);
+        Map<String, Serializable> loaded = CompiledExpressionStore.read(file, parserConfig);
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.containsKey(CONCAT));
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertTrue(CompiledExpressionStore.read(file, parserConfig).size() <= 1);
+    }
+
+    public void testPreloadedCacheSkipsCompilation() throws Exception {
+        Path file = dir.resolve("scripts.bin");
+        CompiledExpressionStore.write(file, CompiledExpressionStore.precompile(Arrays.asList(SUM, LOOP), parserConfig), parserConfig);
+
+        CompiledExpressionCache cache = new CompiledExpressionCache(10);
+        Map<String, Serializable> loaded = CompiledExpressionStore.read(file, parserConfig);
+        cache.preload(loaded, parserConfig);
+        assertSame(loaded.get(SUM), cache.compile(SUM, parserConfig));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    private Object execute(Serializable compiled) {
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("a", 3);
+        msg.put("b", 4);
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("msg", msg);
+        vars.put("msgType", "POST_TELEMETRY_REQUEST");
+        return executeTbExpression(compiled, new ExecutionContext(parserConfig), vars);
+    }
+}
@@ -0,0 +1,60 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+public class ExecutionAllocationTest extends TestCase {
+
+    private SandboxedParserConfiguration parserConfig;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+    }
+
+    public void testTrackingIsOffByDefault() {
+        ExecutionContext ctx = new ExecutionContext(parserConfig);
+        assertFalse(ctx.isAllocationTracking());
+        executeTbExpression(compile("[1, 2, 3]"), ctx, new HashMap<>());
+        assertEquals(-1, ctx.getAllocatedBytes());
+    }
+
+    public void testAllocatedBytesAreAccumulated() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        Serializable compiled = compile("var out = [];\n" +
+                "for (var i = 0; i < msg.count; i++) { out.add('value ' + i); }\n" +
+                "return out;");
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("count", 1000);
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("msg", msg);
+
+        ExecutionContext ctx = new ExecutionContext(parserConfig);
+        ctx.setAllocationTracking(true);
+        executeTbExpression(compiled, ctx, vars);
+        long first = ctx.getAllocatedBytes();
+        assertTrue(String.valueOf(first), first > 1000 * 16);
+
+        executeTbExpression(compiled, ctx, vars);
+        assertTrue(ctx.getAllocatedBytes() > first);
+    }
+
+    private Serializable compile(String script) {
+        return compileExpression(script, new ParserContext(parserConfig));
+    }
+}
@@ -190,6 +190,19 @@ public class FunctionsTest extends AbstractTest {
   }
 
 
+  public void testTopLevelFunctionsCollectedAtCompileTime() {
+    CompiledExpression compiled = new ExpressionCompiler("def a() { 1 }; x = 1; def b(y) { y + a() }; def c() { b(x) }; c()").compile();
+    Function[] functions = compiled.getFunctions();
+    assertEquals(3, functions.length);
+    assertEquals("a", functions[0].getName());
+    assertEquals("b", functions[1].getName());
+    assertEquals("c", functions[2].getName());
+    assertEquals(2, executeExpression(compiled, new HashMap()));
+    assertEquals(2, executeExpression(compiled, new HashMap()));
+
+    assertEquals(0, new ExpressionCompiler("x = 1; x + 1").compile().getFunctions().length);
+  }
+
   public void testFunctionReuse() {
     VariableResolverFactory functionFactory = new MapVariableResolverFactory();
     MVEL.eval("def foo() { \"foo\"; }; def bar() { \"bar\" };", functionFactory);
@@ -0,0 +1,76 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.MVEL;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.optimizers.dynamic.DynamicOptimizer;
+import org.mvel2.optimizers.impl.asm.GeneratedClasses;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+public class GeneratedClassesTest extends TestCase {
+
+    private int tenuringThreshold;
+    private int maximumTenure;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        tenuringThreshold = DynamicOptimizer.tenuringThreshold;
+        maximumTenure = DynamicOptimizer.maximumTenure;
+        DynamicOptimizer.tenuringThreshold = 1;
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.DYNAMIC);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        DynamicOptimizer.tenuringThreshold = tenuringThreshold;
+        DynamicOptimizer.maximumTenure = maximumTenure;
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        super.tearDown();
+    }
+
+    public void testGeneratedClassesAreTracked() {
+        long defined = GeneratedClasses.getDefinedCount();
+        assertEquals(5, run("s.length()", "value"));
+        assertTrue(GeneratedClasses.getDefinedCount() > defined);
+        assertTrue(GeneratedClasses.getLiveCount() > 0);
+        assertTrue(GeneratedClasses.getMetaspaceUsed() != 0);
+    }
+
+    public void testNoCompilationWhenTenureIsExhausted() {
+        DynamicOptimizer.maximumTenure = GeneratedClasses.getLiveCount();
+        assertTrue(DynamicOptimizer.isOverloaded());
+        long defined = GeneratedClasses.getDefinedCount();
+        assertEquals("VALUE", run("s.toUpperCase()", "value"));
+        assertEquals(defined, GeneratedClasses.getDefinedCount());
+    }
+
+    public void testCompilationResumesOnceTenureIsAvailable() {
+        Serializable compiled = MVEL.compileExpression("s.toLowerCase()");
+        DynamicOptimizer.maximumTenure = GeneratedClasses.getLiveCount();
+        long defined = GeneratedClasses.getDefinedCount();
+        assertEquals("value", run(compiled, "VALUE"));
+        assertEquals(defined, GeneratedClasses.getDefinedCount());
+
+        DynamicOptimizer.maximumTenure = Integer.MAX_VALUE;
+        assertEquals("value", run(compiled, "VALUE"));
+        assertTrue(GeneratedClasses.getDefinedCount() > defined);
+    }
+
+    private Object run(String expression, String s) {
+        return run(MVEL.compileExpression(expression), s);
+    }
+
+    private Object run(Serializable compiled, String s) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("s", s);
+        Object result = null;
+        for (int i = 0; i < 5; i++) {
+            result = MVEL.executeExpression(compiled, vars);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.CompileException;
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+public class ParallelCompilationTest extends TestCase {
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private ForkJoinPool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+        pool = new ForkJoinPool(4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        pool.shutdownNow();
+        super.tearDown();
+    }
+
+    public void testSameResultAsSequentialCompilation() {
+        StringBuilder script = new StringBuilder("var scale = 3;\n");
+        for (int i = 0; i < 12; i++) {
+            script.append("function helper").append(i).append("(values) {\n");
+            if (i % 3 == 0) {
+                script.append("    function twice(v) { var t = v * 2; return t; }\n");
+            }
+            script.append("    var sum = 0;\n");
+            script.append("    for (var j = 0; j < values.length; j++) {\n");
+            script.append("        sum += ").append(i % 3 == 0 ? "twice(values[j])" : "values[j]").append(" * scale;\n");
+            script.append("    }\n");
+            script.append("    return sum + ").append(i).append(";\n");
+            script.append("}\n");
+        }
+        script.append("var result = [];\n");
+        for (int i = 0; i < 12; i++) {
+            script.append("result.add(helper").append(i).append("(msg.readings));\n");
+        }
+        script.append("return result;");
+
+        Object expected = execute(compileExpression(script.toString(), new ParserContext(parserConfig)));
+        Object actual = execute(compileExpression(script.toString(), parallelContext()));
+        assertEquals(expected, actual);
+        assertEquals(6 * 2 * 3, ((List) actual).get(0));
+        assertEquals(6 * 3 + 1, ((List) actual).get(1));
+    }
+
+    public void testFunctionSeesScopeAtDeclaration() {
+        String script = "var x = 5;\n" +
+                "function inc() { x = x + 1; return x; }\n" +
+                "function local() { y = 1; return y; }\n" +
+                "var y = 10;\n" +
+                "var a = inc();\n" +
+                "var b = local();\n" +
+                "return [a, b, x, y];";
+        Object expected = execute(compileExpression(script, new ParserContext(parserConfig)));
+        assertEquals(expected, execute(compileExpression(script, parallelContext())));
+    }
+
+    public void testScopeSnapshotSharesVariableSlots() {
+        ParserContext root = parallelContext();
+        ParserContext snapshot = root.createSubcontext().createScopeSnapshot();
+        ParserContext body = new ParserContext(parserConfig, snapshot, true);
+        assertSame(root.getVariableSlot("x"), body.getVariableSlot("x"));
+        assertSame(body.getVariableSlot("y"), root.getVariableSlot("y"));
+        assertEquals(1, root.getVariableSlot("y").getIndex());
+    }
+
+    public void testFirstFailureInDeclarationOrderIsReported() {
+        String script = "function first() { return 1 +; }\n" +
+                "function second() { return (2; }\n" +
+                "first() + second();";
+        String expected = compileError(new ParserContext(parserConfig), script);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected, compileError(parallelContext(), script));
+        }
+    }
+
+    public void testStrictTypingCompilesSequentially() {
+        ParserContext ctx = parallelContext();
+        ctx.setStrictTypeEnforcement(true);
+        assertFalse(ctx.beginFunctionDeferral());
+        assertFalse(ctx.isDeferringFunctions());
+
+        ctx = parallelContext();
+        assertTrue(ctx.beginFunctionDeferral());
+        assertFalse(ctx.beginFunctionDeferral());
+        assertTrue(ctx.endFunctionDeferral().isEmpty());
+        assertFalse(ctx.isDeferringFunctions());
+    }
+
+    private ParserContext parallelContext() {
+        ParserContext ctx = new ParserContext(parserConfig);
+        ctx.setCompilationPool(pool);
+        return ctx;
+    }
+
+    private Object execute(Serializable compiled) {
+        List<Integer> readings = new ArrayList<>();
+        readings.add(1);
+        readings.add(2);
+        readings.add(3);
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("readings", readings);
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("msg", msg);
+        return executeTbExpression(compiled, new ExecutionContext(parserConfig), vars);
+    }
+
+    private String compileError(ParserContext ctx, String script) {
+        try {
+            compileExpression(script, ctx);
+            fail("Should throw CompileException");
+            return null;
+        } catch (CompileException e) {
+            return e.getMessage();
+        }
+    }
+}
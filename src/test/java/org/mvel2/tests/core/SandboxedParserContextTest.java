@@ -0,0 +1,139 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.CompileException;
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.ScriptMemoryOverflowException;
+import org.mvel2.ast.ForNode;
+import org.mvel2.compiler.CompiledExpression;
+import org.mvel2.optimizers.OptimizerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+public class SandboxedParserContextTest extends TestCase {
+
+    private static final int SCRIPTS_PER_TENANT = 2000;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+    }
+
+    public void testSandboxedContextWithoutGlobalMode() {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        ParserContext pCtx = new ParserContext(parserConfig);
+        assertTrue(pCtx.isSandboxed());
+        assertFalse(new ParserContext().isSandboxed());
+        try {
+            pCtx.addImport(System.class);
+            fail("Should throw UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            assertEquals("Import is forbidden!", e.getMessage());
+        }
+        try {
+            Serializable compiled = compileExpression("java.lang.System.exit(0)", new ParserContext(parserConfig));
+            executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap());
+            fail("Should throw CompileException");
+        } catch (CompileException e) {
+            assertTrue(e.getMessage().contains("unresolvable property or identifier: java"));
+        }
+        Serializable compiled = compileExpression("var m = {a: 1}; m.a + 1", new ParserContext(parserConfig));
+        assertSame(parserConfig, ((CompiledExpression) compiled).getParserConfiguration());
+        assertEquals(2, executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap()));
+    }
+
+    public void testForStatementKeepsSandboxedContext() {
+        SandboxedParserConfiguration parserConfig = new SandboxedParserConfiguration();
+        try {
+            Serializable compiled = compileExpression("var n = 0;\n" +
+                    "for (var i = java.lang.System.currentTimeMillis(); i < 0; i++) { n++; }\n" +
+                    "n", new ParserContext(parserConfig));
+            executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap());
+            fail("Should throw CompileException");
+        } catch (CompileException e) {
+            assertTrue(e.getMessage().contains("unresolvable property or identifier: java"));
+        }
+        try {
+            char[] expr = "for (var i = 0; i < 1; i++) { }".toCharArray();
+            new ForNode(expr, 5, 20, 28, 2, 0, null);
+            fail("Should throw CompileException");
+        } catch (CompileException e) {
+            assertTrue(e.getMessage().contains("without a parser context"));
+        }
+    }
+
+    public void testConcurrentCompilationWithDifferentConfigurations() throws Exception {
+        SandboxedParserConfiguration tenantA = new SandboxedParserConfiguration();
+        tenantA.registerDataType("Reading", Reading.class, val -> 8L);
+        SandboxedParserConfiguration tenantB = new SandboxedParserConfiguration();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < SCRIPTS_PER_TENANT; i++) {
+                final int n = i;
+                futures.add(executor.submit(compileAndRun(tenantA, n, true)));
+                futures.add(executor.submit(compileAndRun(tenantB, n, false)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<Void> compileAndRun(SandboxedParserConfiguration parserConfig, int n, boolean readingAllowed) {
+        return () -> {
+            Serializable compiled = compileExpression("var m = {value: " + n + "}; m.value * 2", new ParserContext(parserConfig));
+            assertSame(parserConfig, ((CompiledExpression) compiled).getParserConfiguration());
+            assertEquals(n * 2, executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap()));
+
+            String readingScript = "var r = new Reading(" + n + "); r.value";
+            if (readingAllowed) {
+                compiled = compileExpression(readingScript, new ParserContext(parserConfig));
+                assertEquals(n, executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap()));
+                try {
+                    executeTbExpression(compiled, new ExecutionContext(parserConfig, 4), new HashMap());
+                    fail("Should throw ScriptMemoryOverflowException");
+                } catch (ScriptMemoryOverflowException e) {
+                    // expected
+                }
+            } else {
+                try {
+                    compiled = compileExpression(readingScript, new ParserContext(parserConfig));
+                    executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap());
+                    fail("Should throw CompileException");
+                } catch (CompileException e) {
+                    assertTrue(e.getMessage().contains("could not resolve class: Reading"));
+                }
+            }
+            return null;
+        };
+    }
+
+    public static final class Reading {
+        private final int value;
+
+        public Reading(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.CompileException;
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.ScriptExecutionStoppedException;
+import org.mvel2.ScriptMemoryOverflowException;
+import org.mvel2.ast.Function;
+import org.mvel2.compiler.CompiledExpression;
+import org.mvel2.compiler.ExecutableStatement;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.optimizers.impl.asm.CompiledScript;
+import org.mvel2.optimizers.impl.asm.ScriptCompiler;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+public class ScriptCompilerTest extends TestCase {
+
+    private static final String[] SCRIPTS = {
+            "var sum = 0;\n" +
+                    "for (var i = 0; i < n; i++) {\n" +
+                    "    for (var j = 0; j < n; j++) {\n" +
+                    "        var p = i * j;\n" +
+                    "        sum += p;\n" +
+                    "    }\n" +
+                    "}\n" +
+                    "return sum;",
+            "var total = 0;\n" +
+                    "foreach (v : list) {\n" +
+                    "    foreach (w : list) {\n" +
+                    "        if (v != w) {\n" +
+                    "            total = total + v * w;\n" +
+                    "        }\n" +
+                    "    }\n" +
+                    "}\n" +
+                    "total",
+            "function sumProducts(values) {\n" +
+                    "    var acc = 0;\n" +
+                    "    foreach (v : values) {\n" +
+                    "        for (var k = 0; k < values.size(); k++) {\n" +
+                    "            acc += v * values[k];\n" +
+                    "        }\n" +
+                    "    }\n" +
+                    "    return acc;\n" +
+                    "}\n" +
+                    "return sumProducts(list);",
+            "var s = '';\n" +
+                    "foreach (c : 'abc') { s = s + c + '-'; }\n" +
+                    "foreach (k : 3) { s = s + k; }\n" +
+                    "foreach (a : arr) { s = s + a; }\n" +
+                    "s",
+            "var i = 0;\n" +
+                    "var found = -1;\n" +
+                    "while (i < 100) {\n" +
+                    "    if (i * i > n) {\n" +
+                    "        found = i;\n" +
+                    "        break;\n" +
+                    "    }\n" +
+                    "    i++;\n" +
+                    "}\n" +
+                    "found",
+            "function classify(x) {\n" +
+                    "    if (x < 3) {\n" +
+                    "        return 'small';\n" +
+                    "    } else if (x < 6) {\n" +
+                    "        return 'medium';\n" +
+                    "    } else {\n" +
+                    "        return 'large';\n" +
+                    "    }\n" +
+                    "}\n" +
+                    "var out = [];\n" +
+                    "foreach (v : list) { out.add(classify(v)); }\n" +
+                    "out",
+            "function fact(x) { if (x <= 1) { return 1; } return x * fact(x - 1); }\n" +
+                    "fact(n)",
+            "for (var i = 0; i < n; i++) {\n" +
+                    "    foreach (v : list) {\n" +
+                    "        if (v == i) { return 'at ' + i; }\n" +
+                    "    }\n" +
+                    "}\n" +
+                    "return 'none';",
+            "var m = {};\n" +
+                    "foreach (v : list) {\n" +
+                    "    var key = 'k' + (v % 3);\n" +
+                    "    if (m[key] == null) { m[key] = 0; }\n" +
+                    "    m[key] = m[key] + v;\n" +
+                    "}\n" +
+                    "m",
+            "var x = 1; if (n > 5) { x = 2; } x",
+            "n > 5 ? 'big' : 'small'",
+            "for (var i = 0; i < 3; i++) { n = n + i; }",
+    };
+
+    private SandboxedParserConfiguration parserConfig;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+    }
+
+    public void testCompiledScriptsReturnWhatTheInterpreterReturns() {
+        for (String script : SCRIPTS) {
+            Serializable interpreted = compileExpression(script, new ParserContext(parserConfig));
+            CompiledScript compiled = ScriptCompiler.compile(compileExpression(script, new ParserContext(parserConfig)));
+            for (int i = 0; i < 3; i++) {
+                assertEquals(script, execute(interpreted), execute(compiled));
+            }
+        }
+    }
+
+    public void testLoopsAndFunctionsAreCompiled() {
+        for (int i = 0; i < 9; i++) {
+            assertTrue(SCRIPTS[i], ScriptCompiler.compile(compileExpression(SCRIPTS[i], new ParserContext(parserConfig))).isCompiled());
+        }
+    }
+
+    public void testScriptWithDebugSymbolsIsInterpreted() {
+        ParserContext pCtx = new ParserContext(parserConfig);
+        pCtx.setDebugSymbols(true);
+        pCtx.setSourceFile("script");
+        CompiledScript compiled = ScriptCompiler.compile(compileExpression(SCRIPTS[0], pCtx));
+        assertFalse(compiled.isCompiled());
+        assertEquals(2025, execute(compiled));
+    }
+
+    public void testDeoptimizedScriptRestoresFunctionBodies() {
+        Serializable expression = compileExpression(SCRIPTS[2], new ParserContext(parserConfig));
+        Function function = ((CompiledExpression) expression).getFunctions()[0];
+        ExecutableStatement body = function.getCompiledBlock();
+
+        CompiledScript compiled = ScriptCompiler.compile(expression);
+        assertTrue(compiled.isCompiled());
+        assertNotSame(body, function.getCompiledBlock());
+        Object expected = execute(expression);
+        assertEquals(expected, execute(compiled));
+
+        compiled.deoptimize();
+        assertFalse(compiled.isCompiled());
+        assertSame(body, function.getCompiledBlock());
+        assertEquals(expected, execute(compiled));
+        assertEquals(expected, execute(expression));
+    }
+
+    public void testStoppedExecutionStopsCompiledLoop() {
+        CompiledScript compiled = ScriptCompiler.compile(compileExpression("var i = 0; while (true) { i++; if (i == 1000) { stop.run(); } } i",
+                new ParserContext(parserConfig)));
+        assertTrue(compiled.isCompiled());
+        final ExecutionContext ctx = new ExecutionContext(parserConfig);
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("stop", (Runnable) ctx::stop);
+        try {
+            executeTbExpression(compiled, ctx, vars);
+            fail("Should throw ScriptExecutionStoppedException");
+        } catch (ScriptExecutionStoppedException e) {
+            assertEquals("Script execution is stopped!", e.getMessage());
+        }
+    }
+
+    public void testMemoryLimitIsKeptInCompiledLoop() {
+        CompiledScript compiled = ScriptCompiler.compile(compileExpression("t = 'abc'; while(true) { t  += t}; t",
+                new ParserContext(parserConfig)));
+        assertTrue(compiled.isCompiled());
+        try {
+            executeTbExpression(compiled, new ExecutionContext(parserConfig, 5 * 1024 * 1024), new HashMap());
+            fail("Should throw ScriptMemoryOverflowException");
+        } catch (ScriptMemoryOverflowException e) {
+            assertTrue(e.getMessage().contains("Script memory overflow"));
+        }
+    }
+
+    public void testFailuresReportTheFailingStatement() {
+        String script = "var a = 1;\nfor (var i = 0; i < 2; i++) {\n    a = a + list.get(10);\n}\na";
+        String expected = failure(compileExpression(script, new ParserContext(parserConfig)));
+        assertNotNull(expected);
+        assertEquals(expected, failure(ScriptCompiler.compile(compileExpression(script, new ParserContext(parserConfig)))));
+    }
+
+    private String failure(Serializable compiled) {
+        try {
+            execute(compiled);
+            return null;
+        } catch (CompileException e) {
+            return e.getMessage();
+        }
+    }
+
+    private Object execute(Serializable compiled) {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            list.add(i);
+        }
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("n", 10);
+        vars.put("list", list);
+        vars.put("arr", new int[]{4, 5});
+        return executeTbExpression(compiled, new ExecutionContext(parserConfig), vars);
+    }
+}
@@ -5,6 +5,7 @@ import junit.framework.TestCase;
 import org.mvel2.CompileException;
 import org.mvel2.ExecutionContext;
 import org.mvel2.ParserContext;
+import org.mvel2.PropertyAccessException;
 import org.mvel2.SandboxedParserConfiguration;
 import org.mvel2.ScriptMemoryOverflowException;
 import org.mvel2.ScriptRuntimeException;
@@ -16,6 +17,7 @@ import org.mvel2.util.MethodStub;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -281,6 +283,19 @@ public class TbExpressionsTest extends TestCase {
         }
     }
 
+    public void testMemoryOverflowJoin() {
+        long memoryLimit = 1024 * 1024; // 1MB
+        HashMap<String, Object> vars = new HashMap<>();
+        vars.put("separator", String.join("", Collections.nCopies(2048, "-")));
+        try {
+            executeScript("var list = []; while(list.size() < 1000) { list.add('a') }; list.join(separator)", vars, new ExecutionContext(parserConfig, memoryLimit));
+            fail("Should throw ScriptMemoryOverflowException");
+        } catch (ScriptMemoryOverflowException e) {
+            assertTrue(e.getMessage().contains("Script memory overflow"));
+            assertTrue(e.getMessage().contains("" + memoryLimit));
+        }
+    }
+
     public void testMemoryOverflowInnerMap1() {
         long memoryLimit = 5 * 1024 * 1024; // 5MB
         try {
@@ -2491,6 +2506,122 @@ public class TbExpressionsTest extends TestCase {
         assertEquals(expected, result.toString());
     }
 
+    public void testLazyArgsBinding() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("a", 1);
+        nested.put("b", new ArrayList<>(Arrays.asList(1, 2, 3)));
+        Map<String, Object> untouched = new LinkedHashMap<>();
+        untouched.put("c", "test");
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("temperature", 25);
+        msg.put("nested", nested);
+        msg.put("untouched", untouched);
+        Map vars = new HashMap();
+        vars.put("msg", msg);
+
+        String body = "msg.nested.b.add(4); msg.humidity = msg.nested.a + 1; return msg;";
+        Serializable compiled = compileExpression(body, new ParserContext());
+        Object eager = executeTbExpression(compiled, new ExecutionContext(this.parserConfig), vars);
+        ExecutionContext lazyCtx = new ExecutionContext(this.parserConfig);
+        Object lazy = executeTbExpression(compiled, lazyCtx, vars, true);
+        assertEquals(eager, lazy);
+        assertSame(untouched, ((Map) lazy).get("untouched"));
+        assertEquals(Arrays.asList(1, 2, 3), nested.get("b"));
+    }
+
+    public void testLazyArgsBindingAccountsOnlyTouchedValues() {
+        List<Object> big = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            big.add("value" + i);
+        }
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("temperature", 25);
+        msg.put("big", big);
+        Map vars = new HashMap();
+        vars.put("msg", msg);
+
+        Serializable compiled = compileExpression("var t = msg.temperature; t", new ParserContext());
+        ExecutionContext eagerCtx = new ExecutionContext(this.parserConfig);
+        ExecutionContext lazyCtx = new ExecutionContext(this.parserConfig);
+        assertEquals(25, executeTbExpression(compiled, eagerCtx, vars));
+        assertEquals(25, executeTbExpression(compiled, lazyCtx, vars, true));
+        assertTrue(lazyCtx.getMemorySize() < eagerCtx.getMemorySize());
+
+        compiled = compileExpression("var size = msg.big.size(); size", new ParserContext());
+        lazyCtx = new ExecutionContext(this.parserConfig, 1000);
+        try {
+            executeTbExpression(compiled, lazyCtx, vars, true);
+            fail("Should throw ScriptMemoryOverflowException");
+        } catch (ScriptMemoryOverflowException e) {
+            Assert.assertTrue(e.getMessage().contains("Script memory overflow"));
+        }
+    }
+
+    public void testPrimitiveArrayInput() {
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("payload", new byte[]{0x01, 0x02, (byte) 0xFF, 0x10});
+        msg.put("readings", Arrays.asList(21.5, 19.0, 23.25));
+        Map vars = new HashMap();
+        vars.put("msg", msg);
+
+        String body = "var payload = msg.payload;\n" +
+                "var value = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);\n" +
+                "payload.push(payload[2]);\n" +
+                "var header = payload.slice(0, 2);\n" +
+                "payload.splice(0, 2);\n" +
+                "var readings = msg.readings;\n" +
+                "readings.sort();\n" +
+                "return {value: value, header: header, payload: payload, readings: readings.join(\";\")};";
+        ExecutionContext ctx = new ExecutionContext(this.parserConfig);
+        Object result = executeScript(body, vars, ctx);
+        assertEquals("{value=258, header=[1, 2], payload=[-1, 16, -1], readings=19.0;21.5;23.25}", result.toString());
+        assertEquals(Arrays.asList((byte) 1, (byte) 2), ((Map) result).get("header"));
+    }
+
+    public void testNestedLoopVariableScopes() {
+        Object result = executeScript("var res = []; for (var i = 0; i < 2; i++) { " +
+                "for (var j = 0; j < 2; j++) { var t = i * 10 + j; res.add(t); } t = 100 + i; res.add(t); } return res;");
+        assertEquals(Arrays.asList(0, 1, 100, 10, 11, 101), result);
+        result = executeScript("var res = []; foreach (v : [1, 2]) { foreach (w : [3, 4]) { var v2 = v * w; res.add(v2); } " +
+                "v = v + 1; res.add(v); } return res;");
+        assertEquals(Arrays.asList(3, 4, 2, 6, 8, 3), result);
+        result = executeScript("var res = []; for (var i = 0; i < 3; i++) { if (i > 0) { res.add(k); } var k = i; } return res;");
+        assertEquals(Arrays.asList(0, 1), result);
+        result = executeScript("function f(x) { var r = 0; foreach (e : x) { r += e; } return r; } " +
+                "var out = []; for (var i = 0; i < 3; i++) { out.add(f([i, i])); } return out;");
+        assertEquals(Arrays.asList(0, 2, 4), result);
+        Map vars = new HashMap();
+        vars.put("msg", "m");
+        result = executeScript("var res = []; for (var i = 0; i < 2; i++) { msg = msg + i; res.add(msg); } return [res, msg];", vars);
+        assertEquals("[[m0, m01], m01]", result.toString());
+        try {
+            executeScript("for (var i = 0; i < 2; i++) { var inner = i; } return inner;");
+            fail("Should throw PropertyAccessException");
+        } catch (PropertyAccessException e) {
+            Assert.assertTrue(e.getMessage().contains("unresolvable property or identifier: inner"));
+        }
+    }
+
+    public void testLazyArgsBindingAccountsValuesReplacedByPutAll() {
+        List<Object> big = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            big.add("value" + i);
+        }
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("temperature", 25);
+        msg.put("big", big);
+        Map vars = new HashMap();
+        vars.put("msg", msg);
+
+        Serializable compiled = compileExpression("msg.putAll({big: 1}); msg.temperature", new ParserContext());
+        ExecutionContext eagerCtx = new ExecutionContext(this.parserConfig);
+        ExecutionContext lazyCtx = new ExecutionContext(this.parserConfig);
+        assertEquals(25, executeTbExpression(compiled, eagerCtx, vars));
+        assertEquals(25, executeTbExpression(compiled, lazyCtx, vars, true));
+        assertEquals(eagerCtx.getMemorySize(), lazyCtx.getMemorySize());
+        assertEquals(1000, big.size());
+    }
+
     private Object executeScript(String ex, Map vars, ExecutionContext executionContext, long timeoutMs) throws Exception {
         final CountDownLatch countDown = new CountDownLatch(1);
         AtomicReference<Object> result = new AtomicReference<>();
@@ -5,6 +5,8 @@ import org.mvel2.CompileException;
 import org.mvel2.ExecutionContext;
 import org.mvel2.ParserContext;
 import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.execution.ExecutionEntry;
+import org.mvel2.execution.ExecutionHashMap;
 import org.mvel2.optimizers.OptimizerFactory;
 
 import java.io.Serializable;
@@ -14,9 +16,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.mvel2.MVEL.compileExpression;
 import static org.mvel2.MVEL.executeTbExpression;
@@ -1888,6 +1892,14 @@ public class TbMapArrayListExpressionsTest extends TestCase {
         result = executeScript(body);
         assertTrue(result instanceof String);
         assertEquals("1,12,22,Things2,2,Things,4,5,6,245,Test_Join,7,8,13,14,24,Things4,23,Things3,9", result);
+        body = "var list = ['[a, b]', [1, [2]], {k: [3, 4]}, null, 5];\n" +
+                "return list.join('; ');";
+        result = executeScript(body);
+        assertEquals("[a, b]; 1,2; {k=3,4}; ; 5", result);
+        body = "var list = [[1, null], {b: [null, 2]}, null];\n" +
+                "return list.join();";
+        result = executeScript(body);
+        assertEquals("1,null,{b=null,2},", result);
     }
 
 
@@ -2034,6 +2046,70 @@ public class TbMapArrayListExpressionsTest extends TestCase {
     }
 
 
+    public void testExecutionHashMapEntrySet_NotCopiedUntilModified() {
+        ExecutionContext ctx = new ExecutionContext(this.parserConfig);
+        ExecutionHashMap<String, Object> map = new ExecutionHashMap<>(16, ctx);
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, i);
+        }
+        long memorySize = ctx.getMemorySize();
+        int count = 0;
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            count += (Integer) entry.getValue();
+        }
+        for (Map.Entry<String, Object> entry : map) {
+            count += (Integer) entry.getValue();
+        }
+        assertEquals(9900, count);
+        assertEquals(memorySize, ctx.getMemorySize());
+
+        Set<Map.Entry<String, Object>> entrySet = map.entrySet();
+        map.put("key100", 100);
+        map.remove("key0");
+        assertEquals(100, entrySet.size());
+        assertTrue(entrySet.contains(new ExecutionEntry<>("key0", 0)));
+        assertFalse(entrySet.contains(new ExecutionEntry<>("key100", 100)));
+        assertTrue(ctx.getMemorySize() > memorySize);
+        assertEquals(100, map.entrySet().size());
+        assertTrue(map.entrySet().contains(new ExecutionEntry<>("key100", 100)));
+    }
+
+    public void testExecutionHashMap_RemoveWhileIterating() {
+        String body = "var original = {a: 1, b: 2, c: 3, d: 4};\n" +
+                "var removed = [];\n" +
+                "foreach (entry : original) {\n" +
+                "  if (entry.value % 2 == 0) {\n" +
+                "    original.remove(entry.key);\n" +
+                "    removed.add(entry.key);\n" +
+                "  }\n" +
+                "}\n" +
+                "var entries = original.entrySet();\n" +
+                "entries.remove(entries.toUnmodifiable().get(0));\n" +
+                "return {original: original, removed: removed, entries: entries};";
+        Object result = executeScript(body);
+        String expected = "{original={a=1, c=3}, removed=[b, d], entries=[c=3]}";
+        assertEquals(expected, result.toString());
+    }
+
+    public void testExecutionHashMap_KeySetRemoveIsAccounted() {
+        ExecutionContext ctx = new ExecutionContext(this.parserConfig);
+        ExecutionHashMap<String, Object> map = new ExecutionHashMap<>(16, ctx);
+        long memorySize = ctx.getMemorySize();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        map.keySet().remove("a");
+        Iterator<String> keys = map.keySet().iterator();
+        keys.next();
+        keys.remove();
+        assertEquals("{c=3}", map.toString());
+        assertTrue(map.keySet().remove("c"));
+        assertFalse(map.keySet().remove("c"));
+        assertTrue(map.isEmpty());
+        assertEquals(memorySize, ctx.getMemorySize());
+        assertEquals(0, map.memorySize());
+    }
+
     private Object executeScript(String ex) {
         Serializable compiled = compileExpression(ex, new ParserContext());
         this.currentExecutionContext = new ExecutionContext(this.parserConfig);
@@ -0,0 +1,218 @@
+package org.mvel2.tests.core;
+
+import junit.framework.TestCase;
+import org.mvel2.MVEL;
+import org.mvel2.ParserConfiguration;
+import org.mvel2.ParserContext;
+import org.mvel2.compiler.Accessor;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.impl.MapVariableResolverFactory;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.optimizers.dynamic.BackgroundCompiler;
+import org.mvel2.optimizers.dynamic.DecayingCounterPolicy;
+import org.mvel2.optimizers.dynamic.DynamicGetAccessor;
+import org.mvel2.optimizers.dynamic.DynamicOptimizer;
+import org.mvel2.optimizers.dynamic.TieringPolicy;
+import org.mvel2.optimizers.impl.asm.ASMAccessorOptimizer;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TieringPolicyTest extends TestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.DYNAMIC);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        super.tearDown();
+    }
+
+    public void testDecayingCounterBurst() {
+        TieringPolicy.Counter counter = new DecayingCounterPolicy(16, 60000).newCounter();
+        int hits = 1;
+        while (!counter.hit()) {
+            hits++;
+        }
+        assertEquals(17, hits);
+    }
+
+    public void testDecayingCounterForgetsOldInvocations() throws InterruptedException {
+        TieringPolicy.Counter counter = new DecayingCounterPolicy(2, 10).newCounter();
+        assertFalse(counter.hit());
+        assertFalse(counter.hit());
+        Thread.sleep(1000);
+        assertFalse(counter.hit());
+        assertFalse(counter.hit());
+        assertTrue(counter.hit());
+    }
+
+    public void testBackgroundCompilationIsOptIn() {
+        assertFalse(new DecayingCounterPolicy().isBackgroundCompilation());
+        assertFalse(new DecayingCounterPolicy(16, 60000).isBackgroundCompilation());
+        assertTrue(new DecayingCounterPolicy(16, 60000, true).isBackgroundCompilation());
+    }
+
+    public void testPolicyPerParserConfiguration() {
+        RecordingPolicy eager = new RecordingPolicy(2, false);
+        RecordingPolicy never = new RecordingPolicy(Integer.MAX_VALUE, false);
+
+        long promotions = DynamicOptimizer.getPromotionCount();
+        assertEquals(5, run("s.length()", "value", eager));
+        assertEquals(3, run("s.length()", "abc", never));
+        assertEquals(1, eager.promoted.size());
+        assertEquals("s.length()", eager.promoted.get(0));
+        assertTrue(never.promoted.isEmpty());
+        assertEquals(promotions + 1, DynamicOptimizer.getPromotionCount());
+    }
+
+    public void testBackgroundCompilation() throws InterruptedException {
+        RecordingPolicy policy = new RecordingPolicy(2, true);
+        long completed = BackgroundCompiler.getCompletedCount();
+        assertEquals(5, run("s.length()", "value", policy));
+        assertTrue(policy.compiled.await(10, TimeUnit.SECONDS));
+        assertEquals("s.length()", policy.promoted.get(0));
+        // the policy is notified from within the compilation, before the compiler counts it as completed
+        for (int i = 0; i < 1000 && BackgroundCompiler.getCompletedCount() == completed; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(BackgroundCompiler.getCompletedCount() > completed);
+        long compilations = 0;
+        for (long count : BackgroundCompiler.getCompileTimeHistogram()) {
+            compilations += count;
+        }
+        assertTrue(compilations > completed);
+        assertEquals(BackgroundCompiler.getCompileTimeBuckets().length + 1, BackgroundCompiler.getCompileTimeHistogram().length);
+    }
+
+    public void testBackgroundCompilationInstallsDefinedAccessor() throws InterruptedException {
+        RecordingPolicy policy = new RecordingPolicy(2, true);
+        DynamicGetAccessor accessor = accessor("s.length()", policy);
+        assertEquals(5, get(accessor, "value"));
+        assertTrue(policy.compiled.await(10, TimeUnit.SECONDS));
+        assertNotSame(accessor.getSafeAccessor(), accessor.getAccessor());
+        // the generated class itself, not the placeholder handed out while its definition was pending
+        assertNotSame(ASMAccessorOptimizer.class, accessor.getAccessor().getClass().getEnclosingClass());
+        assertEquals(3, get(accessor, "abc"));
+    }
+
+    public void testDeoptimizationWhileCompilationIsQueued() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingPolicy policy = new RecordingPolicy(2, true) {
+            @Override
+            public void promoted(String expression) {
+                super.promoted(expression);
+                if (expression.equals("s.length()")) {
+                    try {
+                        // keeps the background compiler busy until the accessor below has been deoptimized
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        DynamicGetAccessor deoptimized = accessor("s.isEmpty()", policy);
+        try {
+            assertEquals(5, get(accessor("s.length()", policy), "value"));
+            assertTrue(policy.compiled.await(10, TimeUnit.SECONDS));
+
+            assertEquals(false, get(deoptimized, "value"));
+            deoptimized.deoptimize();
+        }
+        finally {
+            release.countDown();
+        }
+
+        // the background compiler runs its queue in order, so the compilation of the deoptimized accessor is done
+        // once the one queued after it has been installed
+        DynamicGetAccessor last = accessor("s.trim()", policy);
+        assertEquals("value", get(last, "value"));
+        for (int i = 0; i < 1000 && !policy.promoted.contains("s.trim()"); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(policy.promoted.contains("s.trim()"));
+        assertFalse(policy.promoted.contains("s.isEmpty()"));
+        assertSame(deoptimized.getSafeAccessor(), deoptimized.getAccessor());
+    }
+
+    private DynamicGetAccessor accessor(String expression, TieringPolicy tieringPolicy) {
+        ParserConfiguration parserConfig = new ParserConfiguration();
+        parserConfig.setTieringPolicy(tieringPolicy);
+        ParserContext pCtx = new ParserContext(parserConfig);
+        char[] expr = expression.toCharArray();
+        Accessor safeAccessor = OptimizerFactory.getAccessorCompiler(OptimizerFactory.SAFE_REFLECTIVE)
+                .optimizeAccessor(pCtx, expr, 0, expr.length, null, null, variables("value"), false, null);
+        return new DynamicGetAccessor(pCtx, expr, 0, expr.length, DynamicOptimizer.REGULAR_ACCESSOR, safeAccessor);
+    }
+
+    private Object get(DynamicGetAccessor accessor, String s) {
+        Object result = null;
+        for (int i = 0; i < 5; i++) {
+            result = accessor.getValue(null, null, variables(s));
+        }
+        return result;
+    }
+
+    private VariableResolverFactory variables(String s) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("s", s);
+        return new MapVariableResolverFactory(vars);
+    }
+
+    private Object run(String expression, String s, TieringPolicy tieringPolicy) {
+        ParserConfiguration parserConfig = new ParserConfiguration();
+        parserConfig.setTieringPolicy(tieringPolicy);
+        Serializable compiled = MVEL.compileExpression(expression, new ParserContext(parserConfig));
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("s", s);
+        Object result = null;
+        for (int i = 0; i < 5; i++) {
+            result = MVEL.executeExpression(compiled, vars);
+        }
+        return result;
+    }
+
+    private static class RecordingPolicy implements TieringPolicy {
+        private final int threshold;
+        private final boolean background;
+        private final List<String> promoted = new CopyOnWriteArrayList<>();
+        private final CountDownLatch compiled = new CountDownLatch(1);
+
+        RecordingPolicy(int threshold, boolean background) {
+            this.threshold = threshold;
+            this.background = background;
+        }
+
+        @Override
+        public boolean isBackgroundCompilation() {
+            return background;
+        }
+
+        public Counter newCounter() {
+            return new Counter() {
+                private int hits;
+
+                public boolean hit() {
+                    return ++hits >= threshold;
+                }
+            };
+        }
+
+        @Override
+        public void promoted(String expression) {
+            promoted.add(expression);
+            compiled.countDown();
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package org.mvel2.tests.perftests;
 
 import org.mvel2.MVEL;
-import org.mvel2.optimizers.dynamic.DynamicOptimizer;
+import org.mvel2.optimizers.impl.asm.GeneratedClasses;
 import org.mvel2.util.ParseTools;
 import org.mvel2.util.QuickSort;
 
@@ -56,7 +56,7 @@ public class SimpleTests {
     ps.println("Result: " + (time = System.currentTimeMillis() - time));
     ps.println("Rate  : " + (COUNT / (time / 1000)) + " per second.");
     ps.println("FreeMem: " + dc.format((double) getRuntime().freeMemory() / (1024d * 1024d)) + "MB / TotalMem: " + dc.format((double) getRuntime().totalMemory() / (1024d * 1024d)) + "MB");
-    ps.println("TotalGarbaged: " + DynamicOptimizer.totalRecycled);
+    ps.println("GeneratedClasses: " + GeneratedClasses.getLiveCount() + " live / " + GeneratedClasses.getDefinedCount() + " defined");
 
   }
 
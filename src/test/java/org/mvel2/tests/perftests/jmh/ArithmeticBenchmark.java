@@ -0,0 +1,99 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+/**
+ * Runs arithmetic-heavy loops over int, long, double and mixed operands. Run with {@code -prof gc} to see the
+ * allocation per operation alongside the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArithmeticBenchmark {
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private Serializable intLoop;
+
+    private Serializable longLoop;
+
+    private Serializable doubleLoop;
+
+    private Serializable mixedLoop;
+
+    private Map<String, Object> vars;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+        intLoop = compile("var acc = 0;\n" +
+                "for (var i = 0; i < msg.count; i++) { acc += (i * 3 + msg.offset) % 1000 - 17; }\n" +
+                "return acc;");
+        longLoop = compile("var acc = msg.base;\n" +
+                "for (var i = 0; i < msg.count; i++) { acc = acc + msg.base * 3 - msg.base; }\n" +
+                "return acc;");
+        doubleLoop = compile("var acc = 0.0;\n" +
+                "for (var i = 0; i < msg.count; i++) { acc = acc + msg.scale * 1.5 - msg.scale / 4.0; }\n" +
+                "return acc;");
+        mixedLoop = compile("var acc = 0.0;\n" +
+                "for (var i = 0; i < msg.count; i++) { acc += i * msg.scale + msg.offset; }\n" +
+                "return acc;");
+
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("count", 100);
+        msg.put("offset", 40);
+        msg.put("base", 1L << 33);
+        msg.put("scale", 0.1);
+        vars = new HashMap<>();
+        vars.put("msg", msg);
+    }
+
+    @Benchmark
+    public Object intArithmetic() {
+        return executeTbExpression(intLoop, new ExecutionContext(parserConfig), vars);
+    }
+
+    @Benchmark
+    public Object longArithmetic() {
+        return executeTbExpression(longLoop, new ExecutionContext(parserConfig), vars);
+    }
+
+    @Benchmark
+    public Object doubleArithmetic() {
+        return executeTbExpression(doubleLoop, new ExecutionContext(parserConfig), vars);
+    }
+
+    @Benchmark
+    public Object mixedArithmetic() {
+        return executeTbExpression(mixedLoop, new ExecutionContext(parserConfig), vars);
+    }
+
+    private Serializable compile(String script) {
+        return compileExpression(script, new ParserContext(parserConfig));
+    }
+}
@@ -0,0 +1,100 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.MVEL;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.compiler.CompiledExpressionCache;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles a typical telemetry conversion script from scratch and through {@link CompiledExpressionCache}, and a
+ * large generated script made of many helper functions, some of which declare nested functions of their own, with
+ * function bodies compiled sequentially and on the common {@link ForkJoinPool}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompileBenchmark {
+
+    static final int HELPER_FUNCTIONS = 40;
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private CompiledExpressionCache cache;
+
+    private String largeScript;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+        cache = new CompiledExpressionCache(100);
+        largeScript = largeScript(HELPER_FUNCTIONS);
+    }
+
+    static String largeScript(int functions) {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < functions; i++) {
+            script.append("function helper").append(i).append("(values, factor) {\n");
+            if (i % 4 == 0) {
+                script.append("    function scale(v) { var s = v * factor; if (s > 1000) { s = 1000; } return s; }\n");
+            }
+            script.append("    var sum = 0;\n");
+            script.append("    var max = null;\n");
+            script.append("    for (var j = 0; j < values.length; j++) {\n");
+            script.append("        var v = ").append(i % 4 == 0 ? "scale(values[j])" : "values[j] * factor").append(";\n");
+            script.append("        sum += v;\n");
+            script.append("        if (max == null || v > max) { max = v; }\n");
+            script.append("    }\n");
+            script.append("    var avg = values.length > 0 ? sum / values.length : 0;\n");
+            script.append("    return {sum: sum, max: max, avg: avg};\n");
+            script.append("}\n");
+        }
+        script.append("var result = {};\n");
+        for (int i = 0; i < functions; i++) {
+            script.append("result.h").append(i).append(" = helper").append(i).append("(msg.readings, ").append(i + 1)
+                    .append(");\n");
+        }
+        script.append("return {msg: result, metadata: metadata, msgType: msgType};");
+        return script.toString();
+    }
+
+    @Benchmark
+    public Serializable compile() {
+        return MVEL.compileExpression(TelemetryScriptBenchmark.SCRIPT, new ParserContext(parserConfig));
+    }
+
+    @Benchmark
+    public Serializable compileCached() {
+        return cache.compile(TelemetryScriptBenchmark.SCRIPT, parserConfig);
+    }
+
+    @Benchmark
+    public Serializable compileLargeScript() {
+        return MVEL.compileExpression(largeScript, new ParserContext(parserConfig));
+    }
+
+    @Benchmark
+    public Serializable compileLargeScriptParallel() {
+        ParserContext ctx = new ParserContext(parserConfig);
+        ctx.setCompilationPool(ForkJoinPool.commonPool());
+        return MVEL.compileExpression(largeScript, ctx);
+    }
+}
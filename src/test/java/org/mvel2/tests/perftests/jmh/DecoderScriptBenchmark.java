@@ -0,0 +1,80 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+/**
+ * Runs a payload decoder that declares 20 helper functions but calls only a few of them,
+ * which is what most device decoders look like.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecoderScriptBenchmark {
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private Serializable compiled;
+
+    private Map<String, Object> vars;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 17; i++) {
+            script.append("function helper").append(i).append("(a, b) { var r = a * ").append(i + 1)
+                    .append(" + b; if (r > 100) { r = r - 100; } return r; }\n");
+        }
+        script.append("function readUInt16(bytes, offset) { return (bytes[offset] << 8) | bytes[offset + 1]; }\n");
+        script.append("function toTemperature(raw) { return raw / 10.0 - 40; }\n");
+        script.append("function toBattery(raw) { return raw * 100 / 255; }\n");
+        script.append("var bytes = msg.bytes;\n");
+        script.append("var result = {};\n");
+        script.append("for (var i = 0; i < bytes.length - 1; i += 4) {\n");
+        script.append("    result['t' + i] = toTemperature(readUInt16(bytes, i));\n");
+        script.append("    result['b' + i] = toBattery(bytes[i + 2]);\n");
+        script.append("}\n");
+        script.append("return result;");
+        compiled = compileExpression(script.toString(), new ParserContext(parserConfig));
+
+        int[] bytes = new int[32];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (i * 37) & 0xFF;
+        }
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("bytes", bytes);
+        vars = new HashMap<>();
+        vars.put("msg", msg);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return executeTbExpression(compiled, new ExecutionContext(parserConfig), vars);
+    }
+}
@@ -0,0 +1,160 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.execution.ExecutionArrayList;
+import org.mvel2.execution.ExecutionHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises {@link ExecutionArrayList} and {@link ExecutionHashMap} operations together with the
+ * {@link ExecutionContext} memory accounting they trigger.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionCollectionsBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private Integer[] numbers;
+
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        parserConfig = new SandboxedParserConfiguration();
+        numbers = new Integer[size];
+        keys = new String[size];
+        for (int i = 0; i < size; i++) {
+            numbers[i] = (i * 7919) % size;
+            keys[i] = "key" + i;
+        }
+    }
+
+    @Benchmark
+    public Object listAddAndRemove() {
+        ExecutionArrayList<Integer> list = new ExecutionArrayList<>(new ExecutionContext(parserConfig));
+        for (Integer number : numbers) {
+            list.add(number);
+        }
+        while (!list.isEmpty()) {
+            list.remove(list.size() - 1);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public Object listSort() {
+        ExecutionArrayList<Integer> list = new ExecutionArrayList<>(new ExecutionContext(parserConfig));
+        for (Integer number : numbers) {
+            list.add(number);
+        }
+        list.sort(true);
+        return list;
+    }
+
+    @Benchmark
+    public Object listSplice() {
+        ExecutionArrayList<Integer> list = new ExecutionArrayList<>(new ExecutionContext(parserConfig));
+        for (Integer number : numbers) {
+            list.add(number);
+        }
+        List removed = list.splice(size / 4, size / 2);
+        return removed.size() + list.size();
+    }
+
+    @Benchmark
+    public Object listSpliceInsert() {
+        ExecutionArrayList<Integer> list = new ExecutionArrayList<>(Arrays.asList(numbers), new ExecutionContext(parserConfig));
+        List removed = list.splice(1, 1, numbers);
+        return removed.size() + list.size();
+    }
+
+    @Benchmark
+    public Object listIndexOfFromIndex() {
+        ExecutionArrayList<Integer> list = new ExecutionArrayList<>(Arrays.asList(numbers), new ExecutionContext(parserConfig));
+        return list.indexOf(numbers[size - 1], size / 2);
+    }
+
+    @Benchmark
+    public Object listSubListRead() {
+        ExecutionArrayList<Integer> list = new ExecutionArrayList<>(Arrays.asList(numbers), new ExecutionContext(parserConfig));
+        int sum = 0;
+        for (Integer number : list.subList(size / 4, size - size / 4)) {
+            sum += number;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object listAddAll() {
+        ExecutionArrayList<Integer> list = new ExecutionArrayList<>(new ExecutionContext(parserConfig));
+        list.addAll(Arrays.asList(numbers));
+        list.addAll(0, Arrays.asList(numbers));
+        return list;
+    }
+
+    @Benchmark
+    public Object listJoin() {
+        ExecutionContext executionContext = new ExecutionContext(parserConfig);
+        ExecutionArrayList<Object> list = new ExecutionArrayList<>(Arrays.asList((Object[]) keys), executionContext);
+        list.add(new ExecutionArrayList<>(Arrays.asList(numbers), executionContext));
+        return list.join(";");
+    }
+
+    @Benchmark
+    public Object mapPutGetRemove() {
+        ExecutionHashMap<String, Integer> map = new ExecutionHashMap<>(16, new ExecutionContext(parserConfig));
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], numbers[i]);
+        }
+        int sum = 0;
+        for (String key : keys) {
+            sum += map.get(key);
+        }
+        for (String key : keys) {
+            map.remove(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object mapSortByValue() {
+        ExecutionHashMap<String, Integer> map = new ExecutionHashMap<>(16, new ExecutionContext(parserConfig));
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], numbers[i]);
+        }
+        map.sortByValue(false);
+        return map;
+    }
+
+    @Benchmark
+    public Object mapValues() {
+        ExecutionHashMap<String, Integer> map = new ExecutionHashMap<>(16, new ExecutionContext(parserConfig));
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], numbers[i]);
+        }
+        return map.values();
+    }
+}
@@ -0,0 +1,73 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+/**
+ * Calls a small user function many times while a large number of global variables is alive,
+ * which stresses {@link ExecutionContext#enterStack()} / {@link ExecutionContext#leaveStack()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FunctionCallBenchmark {
+
+    @Param({"1000000"})
+    public int calls;
+
+    @Param({"10", "1000"})
+    public int globals;
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private Serializable compiled;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = ParserContext.enableSandboxedMode();
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < globals; i++) {
+            script.append("g").append(i).append(" = ").append(i).append(";\n");
+        }
+        script.append("function inc(a) { var b = a + 1; return b; }\n");
+        script.append("var s = 0;\n");
+        script.append("for (var i = 0; i < ").append(calls).append("; i++) { s = inc(s); }\n");
+        script.append("s");
+        compiled = compileExpression(script.toString(), new ParserContext());
+    }
+
+    @TearDown
+    public void tearDown() {
+        ParserContext.disableSandboxedMode();
+    }
+
+    @Benchmark
+    public Object callFunction() {
+        return executeTbExpression(compiled, new ExecutionContext(parserConfig), new HashMap());
+    }
+}
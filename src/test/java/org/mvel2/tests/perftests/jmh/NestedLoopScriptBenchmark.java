@@ -0,0 +1,118 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+/**
+ * Runs scripts whose inner loops read and assign variables of the enclosing loops, the top level of the script and
+ * its inputs, which is where resolving variables through the chain of scopes shows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NestedLoopScriptBenchmark {
+
+    static final String FOR_SCRIPT = "" +
+            "var sum = 0;\n" +
+            "for (var i = 0; i < n; i++) {\n" +
+            "    for (var j = 0; j < n; j++) {\n" +
+            "        var p = i * j;\n" +
+            "        sum += p;\n" +
+            "    }\n" +
+            "}\n" +
+            "return sum;";
+
+    static final String FOREACH_SCRIPT = "" +
+            "var total = 0;\n" +
+            "foreach (v : list) {\n" +
+            "    foreach (w : list) {\n" +
+            "        if (v != w) {\n" +
+            "            total = total + v * w;\n" +
+            "        }\n" +
+            "    }\n" +
+            "}\n" +
+            "return total;";
+
+    static final String FUNCTION_SCRIPT = "" +
+            "function sumProducts(values) {\n" +
+            "    var acc = 0;\n" +
+            "    foreach (v : values) {\n" +
+            "        for (var k = 0; k < values.size(); k++) {\n" +
+            "            acc += v * values[k];\n" +
+            "        }\n" +
+            "    }\n" +
+            "    return acc;\n" +
+            "}\n" +
+            "return sumProducts(list);";
+
+    @Param({"10", "100"})
+    public int n;
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private Serializable forScript;
+
+    private Serializable foreachScript;
+
+    private Serializable functionScript;
+
+    private Map<String, Object> vars;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+        forScript = compileExpression(FOR_SCRIPT, new ParserContext(parserConfig));
+        foreachScript = compileExpression(FOREACH_SCRIPT, new ParserContext(parserConfig));
+        functionScript = compileExpression(FUNCTION_SCRIPT, new ParserContext(parserConfig));
+
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+        vars = new HashMap<>();
+        vars.put("n", n);
+        vars.put("list", list);
+    }
+
+    @Benchmark
+    public Object forLoops() {
+        return executeTbExpression(forScript, new ExecutionContext(parserConfig), vars);
+    }
+
+    @Benchmark
+    public Object foreachLoops() {
+        return executeTbExpression(foreachScript, new ExecutionContext(parserConfig), vars);
+    }
+
+    @Benchmark
+    public Object loopsInFunction() {
+        return executeTbExpression(functionScript, new ExecutionContext(parserConfig), vars);
+    }
+}
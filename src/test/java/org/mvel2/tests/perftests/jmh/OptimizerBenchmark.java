@@ -0,0 +1,102 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.MVEL;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.tests.core.res.Bar;
+import org.mvel2.tests.core.res.Foo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares property access and method dispatch (through {@code MethodAccessor} and its generated counterparts)
+ * across the reflective, ASM and dynamic optimizers, for a single receiver class and for receivers of unrelated classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    @Param({"reflective", "ASM", "dynamic"})
+    public String optimizer;
+
+    private Serializable propertyAccess;
+
+    private Serializable methodCall;
+
+    private Serializable staticMethodCall;
+
+    private Serializable polymorphicGetter;
+
+    private Serializable polymorphicMethodCall;
+
+    private Map<String, Object> vars;
+
+    private Map<String, Object> fooVars;
+
+    private Map<String, Object> barVars;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(optimizer);
+        propertyAccess = MVEL.compileExpression("foo.bar.name");
+        methodCall = MVEL.compileExpression("foo.toUC(foo.bar.name)");
+        staticMethodCall = MVEL.compileExpression("Math.max(foo.number, 10)");
+        vars = new HashMap<>();
+        vars.put("foo", new Foo());
+
+        polymorphicGetter = MVEL.compileExpression("x.name");
+        polymorphicMethodCall = MVEL.compileExpression("x.getName()");
+        fooVars = new HashMap<>();
+        fooVars.put("x", new Foo());
+        barVars = new HashMap<>();
+        barVars.put("x", new Bar());
+    }
+
+    @Benchmark
+    public Object propertyAccess() {
+        return MVEL.executeExpression(propertyAccess, vars);
+    }
+
+    @Benchmark
+    public Object methodCall() {
+        return MVEL.executeExpression(methodCall, vars);
+    }
+
+    @Benchmark
+    public Object staticMethodCall() {
+        return MVEL.executeExpression(staticMethodCall, vars);
+    }
+
+    /**
+     * Alternates the receiver between two unrelated classes, so the accessor resolved for the first one
+     * does not apply to the second.
+     */
+    @Benchmark
+    public Object polymorphicGetter() {
+        MVEL.executeExpression(polymorphicGetter, fooVars);
+        return MVEL.executeExpression(polymorphicGetter, barVars);
+    }
+
+    @Benchmark
+    public Object polymorphicMethodCall() {
+        MVEL.executeExpression(polymorphicMethodCall, fooVars);
+        return MVEL.executeExpression(polymorphicMethodCall, barVars);
+    }
+}
@@ -0,0 +1,56 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.MVEL;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mvel2.util.ParseTools.loadFromFile;
+
+/**
+ * Runs {@code samples/scripts/fquicksort.mvel} through the interpreted and the compiled runtime.
+ * Run with {@code -prof gc} to compare the allocation rate of the interpreter loops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuickSortScriptBenchmark {
+
+    private String script;
+
+    private Serializable compiled;
+
+    @Setup
+    public void setup() throws IOException {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        script = new String(loadFromFile(new File("samples/scripts/fquicksort.mvel")));
+        compiled = MVEL.compileExpression(script);
+    }
+
+    @Benchmark
+    public Object interpreted() {
+        return MVEL.eval(script, new HashMap());
+    }
+
+    @Benchmark
+    public Object compiled() {
+        return MVEL.executeExpression(compiled, new HashMap());
+    }
+}
@@ -0,0 +1,108 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.ParserContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.optimizers.OptimizerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mvel2.MVEL.compileExpression;
+import static org.mvel2.MVEL.executeTbExpression;
+
+/**
+ * Runs a typical telemetry conversion script through {@code executeTbExpression} in sandboxed mode,
+ * with eagerly and lazily bound arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TelemetryScriptBenchmark {
+
+    static final String SCRIPT = "" +
+            "var readings = msg.readings;\n" +
+            "var sum = 0.0;\n" +
+            "var max = 0.0;\n" +
+            "for (var i = 0; i < readings.size(); i++) {\n" +
+            "    var value = readings[i].value;\n" +
+            "    sum += value;\n" +
+            "    if (value > max) {\n" +
+            "        max = value;\n" +
+            "    }\n" +
+            "}\n" +
+            "var result = {\n" +
+            "    deviceName: metadata.deviceName,\n" +
+            "    temperatureF: msg.temperature * 1.8 + 32,\n" +
+            "    avg: readings.size() > 0 ? sum / readings.size() : 0,\n" +
+            "    max: max\n" +
+            "};\n" +
+            "return {msg: result, metadata: metadata, msgType: msgType};";
+
+    @Param({"10", "1000"})
+    public int readings;
+
+    private SandboxedParserConfiguration parserConfig;
+
+    private Serializable compiled;
+
+    private Map<String, Object> vars;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        parserConfig = new SandboxedParserConfiguration();
+        compiled = compileExpression(SCRIPT, new ParserContext(parserConfig));
+
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < readings; i++) {
+            Map<String, Object> reading = new LinkedHashMap<>();
+            reading.put("ts", 1700000000000L + i * 1000L);
+            reading.put("value", 20.0 + (i % 50) / 10.0);
+            values.add(reading);
+        }
+        Map<String, Object> msg = new LinkedHashMap<>();
+        msg.put("temperature", 22.5);
+        msg.put("humidity", 48);
+        msg.put("readings", values);
+        msg.put("raw", "0x0A1B2C3D4E5F");
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("deviceName", "Thermostat A1");
+        metadata.put("deviceType", "thermostat");
+        metadata.put("ts", "1700000000000");
+
+        vars = new HashMap<>();
+        vars.put("msg", msg);
+        vars.put("metadata", metadata);
+        vars.put("msgType", "POST_TELEMETRY_REQUEST");
+    }
+
+    @Benchmark
+    public Object eagerArgs() {
+        return executeTbExpression(compiled, new ExecutionContext(parserConfig), vars, false);
+    }
+
+    @Benchmark
+    public Object lazyArgs() {
+        return executeTbExpression(compiled, new ExecutionContext(parserConfig), vars, true);
+    }
+}
@@ -0,0 +1,69 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.optimizers.OptimizerFactory;
+import org.mvel2.templates.CompiledTemplate;
+import org.mvel2.templates.TemplateCompiler;
+import org.mvel2.templates.TemplateRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles and renders a small notification template.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    private static final String TEMPLATE = "Device @{deviceName} reported @{readings.size()} readings:\n" +
+            "@foreach{r : readings}@{r.key} = @{r.value}@end{', '}\n" +
+            "@if{alarm != null}ALARM: @{alarm}@else{}OK@end{}";
+
+    private CompiledTemplate compiled;
+
+    private Map<String, Object> vars;
+
+    @Setup
+    public void setup() {
+        OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+        compiled = TemplateCompiler.compileTemplate(TEMPLATE);
+        List<Map<String, Object>> readings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> reading = new HashMap<>();
+            reading.put("key", "sensor" + i);
+            reading.put("value", 20 + i);
+            readings.add(reading);
+        }
+        vars = new HashMap<>();
+        vars.put("deviceName", "Thermostat A1");
+        vars.put("readings", readings);
+        vars.put("alarm", "High temperature");
+    }
+
+    @Benchmark
+    public Object compile() {
+        return TemplateCompiler.compileTemplate(TEMPLATE);
+    }
+
+    @Benchmark
+    public Object render() {
+        return TemplateRuntime.execute(compiled, vars);
+    }
+}
@@ -0,0 +1,67 @@
+package org.mvel2.tests.perftests.jmh;
+
+import org.mvel2.ExecutionContext;
+import org.mvel2.SandboxedParserConfiguration;
+import org.mvel2.execution.ExecutionArrayList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ExecutionContext} memory accounting path. Run with {@code -prof gc}:
+ * {@code gc.alloc.rate.norm} is expected to be ~0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueSizeBenchmark {
+
+    private ExecutionContext executionContext;
+
+    private ExecutionArrayList<Object> owner;
+
+    private String asciiValue;
+
+    private String unicodeValue;
+
+    private Integer key;
+
+    @Setup
+    public void setup() {
+        executionContext = new ExecutionContext(new SandboxedParserConfiguration());
+        owner = new ExecutionArrayList<>(executionContext);
+        asciiValue = "{\"temperature\": 25.4, \"humidity\": 48, \"battery\": 97}".repeat(20);
+        unicodeValue = "Температура °C".repeat(20);
+        key = 100500;
+    }
+
+    @Benchmark
+    public long accountAsciiString() {
+        long size = executionContext.onValAdd(owner, key, asciiValue);
+        return size + executionContext.onValRemove(owner, key, asciiValue);
+    }
+
+    @Benchmark
+    public long accountUnicodeString() {
+        long size = executionContext.onValAdd(owner, key, unicodeValue);
+        return size + executionContext.onValRemove(owner, key, unicodeValue);
+    }
+
+    @Benchmark
+    public long accountNumber() {
+        long size = executionContext.onValAdd(owner, key, key);
+        return size + executionContext.onValRemove(owner, key, key);
+    }
+}
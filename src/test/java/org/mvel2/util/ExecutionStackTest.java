@@ -0,0 +1,82 @@
+package org.mvel2.util;
+
+import junit.framework.TestCase;
+import org.mvel2.Operator;
+
+public class ExecutionStackTest extends TestCase {
+
+  public void testPushPopOrder() {
+    ExecutionStack stk = new ExecutionStack();
+    stk.push(1, 2, 3);
+    stk.add(0);
+    assertEquals(4, stk.size());
+    assertEquals("[3, 2, 1, 0]", stk.toString());
+    assertEquals(3, stk.pop());
+    assertEquals(2, stk.pop2());
+    assertEquals(0, stk.pop());
+    assertNull(stk.pop());
+    assertTrue(stk.isEmpty());
+  }
+
+  public void testGrowBeyondInitialCapacity() {
+    ExecutionStack stk = new ExecutionStack();
+    for (int i = 0; i < 100; i++) {
+      stk.push(i);
+    }
+    assertEquals(100, stk.size());
+    for (int i = 99; i >= 0; i--) {
+      assertEquals(i, stk.pop());
+    }
+  }
+
+  public void testSwaps() {
+    ExecutionStack stk = new ExecutionStack();
+    stk.push(1, 2, 3);
+    stk.xswap();
+    assertEquals("[2, 3, 1]", stk.toString());
+    stk.push(4);
+    stk.xswap2();
+    assertEquals("[3, 2, 4, 1]", stk.toString());
+  }
+
+  public void testCopy() {
+    ExecutionStack src = new ExecutionStack();
+    src.push("a", "b");
+    ExecutionStack stk = new ExecutionStack();
+    stk.copy2(src);
+    assertEquals("[a, b]", stk.toString());
+    assertTrue(src.isEmpty());
+
+    src.push("a", "b");
+    stk.clear();
+    stk.copyx2(src);
+    assertEquals("[b, a]", stk.toString());
+    assertTrue(src.isEmpty());
+  }
+
+  public void testOperations() {
+    ExecutionStack stk = new ExecutionStack();
+    stk.push(10, 4, Operator.SUB);
+    stk.op();
+    assertEquals(1, stk.size());
+    assertEquals(6, stk.peek());
+
+    stk.push(3);
+    stk.op(Operator.MULT);
+    assertEquals(18, stk.pop());
+
+    stk.push(10, Operator.SUB, 4);
+    stk.xswap_op();
+    assertEquals(6, stk.pop());
+  }
+
+  public void testAcquireRelease() {
+    ExecutionStack stk = ExecutionStack.acquire();
+    stk.push(1);
+    stk.release();
+    ExecutionStack reused = ExecutionStack.acquire();
+    assertSame(stk, reused);
+    assertTrue(reused.isEmpty());
+    assertNotSame(reused, ExecutionStack.acquire());
+  }
+}
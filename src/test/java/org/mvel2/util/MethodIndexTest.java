@@ -0,0 +1,59 @@
+package org.mvel2.util;
+
+import junit.framework.TestCase;
+import org.mvel2.ExecutionContext;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+public class MethodIndexTest extends TestCase {
+
+  public void testMatchesUncachedResolution() {
+    Class[][] argSets = {{}, {int.class}, {String.class}, {Integer.class, Integer.class}, {CharSequence.class, CharSequence.class}};
+    String[] names = {"length", "substring", "indexOf", "replace", "charAt", "valueOf"};
+    for (String name : names) {
+      for (Class[] args : argSets) {
+        assertEquals(name, ParseTools.getBestCandidate(args, name, String.class, String.class.getMethods(), false),
+            ParseTools.getBestCandidate(args, name, String.class, false));
+        assertEquals(name, ParseTools.getBestCandidate(args, name, String.class, String.class.getMethods(), true),
+            ParseTools.getBestCandidate(args, name, String.class, true));
+      }
+    }
+  }
+
+  public void testMemoizedResult() {
+    Method first = ParseTools.getBestCandidate(new Class[]{int.class, int.class}, "substring", String.class, false);
+    Method second = ParseTools.getBestCandidate(new Class[]{int.class, int.class}, "substring", String.class, false);
+    assertNotNull(first);
+    assertSame(first, second);
+    assertNull(ParseTools.getBestCandidate(new Class[0], "noSuchMethod", String.class, false));
+    assertNull(ParseTools.getBestCandidate(new Class[0], "noSuchMethod", String.class, false));
+  }
+
+  public void testInterfaceFallsBackToObjectMethods() {
+    Method method = ParseTools.getBestCandidate(new Class[0], "getClass", Map.class, false);
+    assertNotNull(method);
+    assertEquals(Object.class, method.getDeclaringClass());
+  }
+
+  public void testStaticOnlyForClassTarget() {
+    assertNull(ParseTools.getBestCandidate(new Class[0], "length", String.class, false, true));
+    assertNotNull(ParseTools.getBestCandidate(new Class[]{int.class}, "valueOf", String.class, false, true));
+  }
+
+  public void testExecutionContextParamIsStripped() {
+    Method method = ParseTools.getBestCandidate(new Class[]{String.class}, "withContext", ContextAware.class, false);
+    assertNotNull(method);
+    assertEquals(2, method.getParameterCount());
+    MethodIndex.Candidate[] candidates = MethodIndex.of(ContextAware.class).getCandidates("withContext");
+    assertEquals(1, candidates.length);
+    assertEquals(1, candidates[0].getParameterTypes().length);
+  }
+
+  public static class ContextAware {
+    public List withContext(String value, ExecutionContext ctx) {
+      return null;
+    }
+  }
+}